@@ -0,0 +1,31 @@
+#!/usr/bin/env bash
+# Runs N gateway instances on localhost (ports 8091..809N) sharing one hash ring. Needs a built
+# jar (./gradlew bootJar) and the bank simulator. Stop with Ctrl-C; each node hands its shard to
+# the survivors on shutdown.
+#
+# usage: scripts/cluster-local.sh [nodes]
+set -euo pipefail
+
+NODES=${1:-3}
+JAR=$(ls build/libs/*.jar | grep -v plain | head -1)
+SECRET=${CLUSTER_SECRET:-local-cluster-secret}
+
+MEMBERS=$(seq -s, -f 'http://localhost:%g' 8091 $((8090 + NODES)))
+PIDS=()
+trap 'kill "${PIDS[@]}" 2>/dev/null; wait' EXIT
+
+for i in $(seq 1 "$NODES"); do
+  PORT=$((8090 + i))
+  java -jar "$JAR" \
+    --server.port="$PORT" \
+    --gateway.cluster.enabled=true \
+    --gateway.cluster.self="http://localhost:${PORT}" \
+    --gateway.cluster.nodes="$MEMBERS" \
+    --gateway.cluster.secret="$SECRET" \
+    > "build/node-${PORT}.log" 2>&1 &
+  PIDS+=($!)
+done
+
+echo "Started ${NODES} nodes (${MEMBERS}), logs in build/node-*.log"
+echo "Add a node later with the same command line, e.g. --server.port=$((8091 + NODES)) and self set accordingly."
+wait
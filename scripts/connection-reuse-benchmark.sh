@@ -0,0 +1,37 @@
+#!/usr/bin/env bash
+# Chatty merchant polling GET /payment/{id}: new connection per request vs HTTP/1.1 keep-alive vs
+# h2c multiplexing. Run against the gateway started with the prod profile and the bank simulator,
+# and with --gateway.rate-limit.enabled=false: every worker shares one key, and its bucket would
+# turn most of the run into 429s. The status code lines show what the numbers are made of.
+# Needs `hey` (https://github.com/rakyll/hey); the h2c run also needs `h2load` (nghttp2).
+#
+# usage: scripts/connection-reuse-benchmark.sh [requests] [concurrency]
+set -euo pipefail
+
+REQUESTS=${1:-20000}
+CONCURRENCY=${2:-20}
+PORT=${PORT:-8090}
+API_KEY=${API_KEY:-connection-reuse-benchmark}
+BODY='{"card_number":"38520000023237","expiry_month":6,"expiry_year":2099,"currency":"USD","amount":1500,"cvv":"344"}'
+
+ID=$(curl -sf -X POST -H 'Content-Type: application/json' -H "X-Api-Key: ${API_KEY}" -d "$BODY" \
+  "http://localhost:${PORT}/payment" \
+  | sed -E 's/.*"data":"([^"]+)".*/\1/')
+URL="http://localhost:${PORT}/payment/${ID}"
+
+# warm up first so JIT compilation does not skew the comparison
+hey -n "$REQUESTS" -c "$CONCURRENCY" -H "X-Api-Key: ${API_KEY}" "$URL" > /dev/null
+
+echo "== HTTP/1.1, new connection per request"
+hey -n "$REQUESTS" -c "$CONCURRENCY" -H "X-Api-Key: ${API_KEY}" -disable-keepalive "$URL" \
+  | grep -E 'Requests/sec|Average|99%|\[[0-9]{3}\]'
+
+echo "== HTTP/1.1 keep-alive"
+hey -n "$REQUESTS" -c "$CONCURRENCY" -H "X-Api-Key: ${API_KEY}" "$URL" \
+  | grep -E 'Requests/sec|Average|99%|\[[0-9]{3}\]'
+
+if command -v h2load > /dev/null; then
+  echo "== h2c, ${CONCURRENCY} streams on 1 connection"
+  h2load -n "$REQUESTS" -c 1 -m "$CONCURRENCY" -H "X-Api-Key: ${API_KEY}" "$URL" \
+    | grep -E 'finished in|time for request|status codes'
+fi
@@ -0,0 +1,62 @@
+#!/usr/bin/env bash
+# Measures time to first successful POST /payment and resident memory for each startup mode.
+# Needs the bank simulator running (docker compose up -d) and the artifacts built beforehand:
+#   ./gradlew bootJar                 -> jar
+#   ./gradlew cdsArchive              -> cds
+#   ./gradlew -Paot cdsArchive        -> aot-cds
+#   ./gradlew -Paot nativeCompile     -> native (GraalVM only)
+#
+# usage: scripts/startup-benchmark.sh [runs] [modes...]
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS=${1:-5}
+shift || true
+MODES=${*:-jar cds aot-cds native}
+PORT=${PORT:-8090}
+URL="http://localhost:${PORT}/payment"
+BODY='{"card_number":"38520000023237","expiry_month":6,"expiry_year":2099,"currency":"USD","amount":1500,"cvv":"344"}'
+
+command_for() {
+  case "$1" in
+    jar)     echo "java -Dspring.profiles.active=prod -jar $(ls build/libs/*-SNAPSHOT.jar | grep -v plain)" ;;
+    cds)     echo "java -XX:SharedArchiveFile=build/cds/app.jsa -Dspring.profiles.active=prod -jar build/cds/app.jar" ;;
+    aot-cds) echo "java -XX:SharedArchiveFile=build/cds/app.jsa -Dspring.aot.enabled=true -Dspring.profiles.active=prod -jar build/cds/app.jar" ;;
+    native)  echo "build/native/nativeCompile/payment-gateway-challenge-java -Dspring.profiles.active=prod" ;;
+  esac
+}
+
+now_ms() {
+  date +%s%3N
+}
+
+rss_kb() {
+  awk '/VmRSS/ {print $2}' "/proc/$1/status" 2>/dev/null || ps -o rss= -p "$1"
+}
+
+printf '%-8s %-4s %12s %10s\n' mode run first_post_ms rss_mb
+for mode in $MODES; do
+  cmd=$(command_for "$mode")
+  if [[ "$mode" == native && ! -x build/native/nativeCompile/payment-gateway-challenge-java ]]; then
+    echo "skipping native, no image built" >&2
+    continue
+  fi
+  for run in $(seq 1 "$RUNS"); do
+    start=$(now_ms)
+    $cmd --server.port="$PORT" > "build/startup-${mode}.log" 2>&1 &
+    pid=$!
+    until curl -sf -o /dev/null -X POST -H 'Content-Type: application/json' -d "$BODY" "$URL"; do
+      if ! kill -0 "$pid" 2>/dev/null; then
+        echo "$mode exited early, see build/startup-${mode}.log" >&2
+        exit 1
+      fi
+      sleep 0.02
+    done
+    elapsed=$(( $(now_ms) - start ))
+    rss=$(rss_kb "$pid")
+    printf '%-8s %-4s %12s %10s\n' "$mode" "$run" "$elapsed" "$(( rss / 1024 ))"
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+  done
+done
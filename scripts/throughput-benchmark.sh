@@ -0,0 +1,28 @@
+#!/usr/bin/env bash
+# Sustained POST /payment throughput and latency against a running gateway, plus its RSS.
+# Needs the bank simulator and the gateway running, and `hey` (https://github.com/rakyll/hey).
+# hey sends the same key and card from every worker, so start the gateway with
+# --gateway.rate-limit.enabled=false --gateway.velocity.enabled=false or most of the run is 429s
+# and velocity rejections. The status code distribution shows what the numbers are made of.
+#
+# usage: scripts/throughput-benchmark.sh [duration] [concurrency] [gateway pid]
+set -euo pipefail
+
+DURATION=${1:-30s}
+CONCURRENCY=${2:-50}
+PID=${3:-$(pgrep -f 'payment-gateway|app.jar' | head -1)}
+PORT=${PORT:-8090}
+API_KEY=${API_KEY:-throughput-benchmark}
+BODY='{"card_number":"38520000023237","expiry_month":6,"expiry_year":2099,"currency":"USD","amount":1500,"cvv":"344"}'
+
+# warm up first so JIT compilation does not skew the comparison
+hey -z 10s -c "$CONCURRENCY" -m POST -T application/json -H "X-Api-Key: ${API_KEY}" -d "$BODY" \
+  "http://localhost:${PORT}/payment" > /dev/null
+
+hey -z "$DURATION" -c "$CONCURRENCY" -m POST -T application/json -H "X-Api-Key: ${API_KEY}" \
+  -d "$BODY" "http://localhost:${PORT}/payment"
+
+if [[ -n "$PID" ]]; then
+  echo "RSS: $(( $(awk '/VmRSS/ {print $2}' "/proc/$PID/status") / 1024 )) MB"
+  echo "Threads: $(ls "/proc/$PID/task" | wc -l)"
+fi
@@ -0,0 +1,65 @@
+package com.checkout.payment.gateway.bin;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BinTableBenchmark {
+
+  private static final int CARDS = 1 << 16;
+
+  @Param({"1000", "100000"})
+  int ranges;
+
+  private BinTable table;
+  private String[] cardNumbers;
+
+  @Setup
+  public void setUp() throws IOException {
+    SplittableRandom random = new SplittableRandom(42);
+    int stride = 100_000_000 / ranges;
+    StringBuilder source = new StringBuilder();
+    for (int i = 0; i < ranges; i++) {
+      int low = i * stride;
+      source.append(String.format("%08d,%08d,SCHEME%d,,16,acquirer-%d%n",
+          low, low + random.nextInt(stride), i % 8, i % 4));
+    }
+    table = BinTable.parse(new BufferedReader(new StringReader(source.toString())));
+
+    cardNumbers = new String[CARDS];
+    for (int i = 0; i < CARDS; i++) {
+      cardNumbers[i] = String.format("%08d%08d", random.nextInt(100_000_000),
+          random.nextInt(100_000_000));
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Cursor {
+    int next;
+  }
+
+  @Benchmark
+  public BinInfo lookup(Cursor cursor) {
+    return table.lookup(cardNumbers[cursor.next++ & (CARDS - 1)]);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public BinInfo lookupContended(Cursor cursor) {
+    return table.lookup(cardNumbers[cursor.next++ & (CARDS - 1)]);
+  }
+}
@@ -0,0 +1,84 @@
+package com.checkout.payment.gateway.codec;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.ApiSuccess;
+import com.checkout.payment.gateway.model.PostPaymentRequest;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import com.checkout.payment.gateway.model.ResponseCode;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Binary vs Jackson for the two hot messages: decoding the payment request and encoding the GET
+ * response envelope. Payload sizes are printed once at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PaymentCodecBenchmark {
+
+  private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+  private ApiSuccess<PostPaymentResponse> response;
+  private byte[] jsonRequest;
+  private byte[] binaryRequest;
+
+  @Setup
+  public void setUp() throws JsonProcessingException {
+    PostPaymentRequest request = PostPaymentRequest.builder()
+        .cardNumber("2222405343248877")
+        .expiryMonth(4)
+        .expiryYear(2030)
+        .currency("GBP")
+        .amount(100L)
+        .cvv("123")
+        .build();
+    response = ApiSuccess.ok(ResponseCode.PAYMENT_FOUND, "Payment has been found",
+        PostPaymentResponse.builder()
+            .id(UUID.randomUUID())
+            .status(PaymentStatus.AUTHORIZED)
+            .cardNumberLastFour("8877")
+            .expiryMonth(4)
+            .expiryYear(2030)
+            .currency("GBP")
+            .amount(100L)
+            .build());
+
+    jsonRequest = objectMapper.writeValueAsBytes(request);
+    binaryRequest = PaymentBinaryCodec.encodeRequest(request);
+    System.out.printf("%nrequest bytes: json=%d binary=%d; response bytes: json=%d binary=%d%n",
+        jsonRequest.length, binaryRequest.length,
+        objectMapper.writeValueAsBytes(response).length,
+        PaymentBinaryCodec.encodeResponse(response).length);
+  }
+
+  @Benchmark
+  public PostPaymentRequest decodeRequestJson() throws IOException {
+    return objectMapper.readValue(jsonRequest, PostPaymentRequest.class);
+  }
+
+  @Benchmark
+  public PostPaymentRequest decodeRequestBinary() {
+    return PaymentBinaryCodec.decodeRequest(binaryRequest);
+  }
+
+  @Benchmark
+  public byte[] encodeResponseJson() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(response);
+  }
+
+  @Benchmark
+  public byte[] encodeResponseBinary() {
+    return PaymentBinaryCodec.encodeResponse(response);
+  }
+}
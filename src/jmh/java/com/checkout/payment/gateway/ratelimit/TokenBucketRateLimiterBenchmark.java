@@ -0,0 +1,56 @@
+package com.checkout.payment.gateway.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TokenBucketRateLimiterBenchmark {
+
+  @Param({"1000", "200000"})
+  int keys;
+
+  private TokenBucketRateLimiter limiter;
+  private String[] apiKeys;
+
+  @Setup
+  public void setUp() {
+    limiter = new TokenBucketRateLimiter(1_000_000, 1_000_000, 500_000,
+        TimeUnit.MINUTES.toNanos(10), System::nanoTime);
+    apiKeys = new String[keys];
+    for (int i = 0; i < keys; i++) {
+      apiKeys[i] = "merchant-" + i;
+      limiter.tryAcquire(apiKeys[i]);
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Cursor {
+    int next;
+  }
+
+  @Benchmark
+  @Threads(8)
+  public long tryAcquire(Cursor cursor) {
+    int i = cursor.next++;
+    if (cursor.next == keys) {
+      cursor.next = 0;
+    }
+    return limiter.tryAcquire(apiKeys[i]);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public long tryAcquireHotKey() {
+    return limiter.tryAcquire(apiKeys[0]);
+  }
+}
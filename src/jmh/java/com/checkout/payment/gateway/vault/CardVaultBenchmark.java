@@ -0,0 +1,91 @@
+package com.checkout.payment.gateway.vault;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@code tokeniseNewCard} is the first-sight cost (HMAC + AES-GCM encrypt + index insert),
+ * {@code tokeniseRepeatCard} the repeat-customer path (HMAC + index hit) and {@code detokenise}
+ * what a token payment pays before the bank call (index hit + AES-GCM decrypt).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CardVaultBenchmark {
+
+  private static final String MERCHANT = "merchant-1";
+
+  @Param({"10000", "1000000"})
+  int cards;
+
+  private CardVault vault;
+  private String[] cardNumbers;
+  private String[] tokens;
+
+  @Setup
+  public void setUp() {
+    vault = new CardVault(new byte[32], Integer.MAX_VALUE);
+    cardNumbers = new String[cards];
+    tokens = new String[cards];
+    for (int i = 0; i < cards; i++) {
+      cardNumbers[i] = String.format("4%015d", i);
+      tokens[i] = vault.tokenise(cardNumbers[i], MERCHANT);
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Cursor {
+    int next;
+    long fresh = 5_000_000_000_000_000L + (Thread.currentThread().getId() << 32);
+  }
+
+  // every call adds an entry, so this one gets its own vault per iteration and short iterations
+  @State(Scope.Benchmark)
+  public static class EmptyVault {
+    CardVault vault;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+      vault = new CardVault(new byte[32], Integer.MAX_VALUE);
+    }
+  }
+
+  @Benchmark
+  @Threads(8)
+  @Warmup(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+  @Measurement(iterations = 10, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+  public String tokeniseNewCard(EmptyVault empty, Cursor cursor) {
+    return empty.vault.tokenise(Long.toString(cursor.fresh++), MERCHANT);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public String tokeniseRepeatCard(Cursor cursor) {
+    return vault.tokenise(cardNumbers[next(cursor)], MERCHANT);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public String detokenise(Cursor cursor) {
+    return vault.detokenise(tokens[next(cursor)], MERCHANT);
+  }
+
+  private int next(Cursor cursor) {
+    int i = cursor.next++;
+    if (cursor.next == cards) {
+      cursor.next = 0;
+    }
+    return i;
+  }
+}
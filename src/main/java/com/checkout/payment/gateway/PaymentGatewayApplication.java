@@ -1,9 +1,12 @@
 package com.checkout.payment.gateway;
 
+import com.checkout.payment.gateway.configuration.NativeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(NativeHints.class)
 public class PaymentGatewayApplication {
 
   public static void main(String[] args) {
@@ -0,0 +1,122 @@
+package com.checkout.payment.gateway.admission;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gradient style concurrency limit. The limit grows while the short term latency stays close to
+ * the long term baseline and shrinks as soon as the bank starts queueing requests.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+  private static final double SHORT_WINDOW_ALPHA = 2.0 / (10 + 1);
+  private static final double LONG_WINDOW_ALPHA = 2.0 / (600 + 1);
+  private static final double BACKOFF_RATIO = 0.9;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final double smoothing;
+  private final double rttTolerance;
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private volatile int limit;
+
+  private double estimatedLimit;
+  private double shortRttNanos;
+  private double longRttNanos;
+
+  public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+      double smoothing, double rttTolerance) {
+    if (minLimit < 1 || minLimit > maxLimit) {
+      throw new IllegalArgumentException("Invalid limit range " + minLimit + ".." + maxLimit);
+    }
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.smoothing = smoothing;
+    this.rttTolerance = rttTolerance;
+    this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    this.limit = (int) estimatedLimit;
+  }
+
+  public boolean tryAcquire() {
+    for (;;) {
+      int current = inFlight.get();
+      if (current >= limit) {
+        return false;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Releases a permit obtained from {@link #tryAcquire()}. A dropped sample (timeout, budget
+   * exceeded) backs the limit off multiplicatively instead of feeding the latency gradient.
+   */
+  public void release(long rttNanos, boolean dropped) {
+    int inFlightAtSample = inFlight.getAndDecrement();
+    update(rttNanos, inFlightAtSample, dropped);
+  }
+
+  private synchronized void update(long rttNanos, int inFlightAtSample, boolean dropped) {
+    if (dropped) {
+      setLimit(estimatedLimit * BACKOFF_RATIO);
+      return;
+    }
+    if (rttNanos <= 0) {
+      return;
+    }
+
+    if (shortRttNanos == 0) {
+      shortRttNanos = rttNanos;
+      longRttNanos = rttNanos;
+    } else {
+      shortRttNanos += (rttNanos - shortRttNanos) * SHORT_WINDOW_ALPHA;
+      longRttNanos += (rttNanos - longRttNanos) * LONG_WINDOW_ALPHA;
+    }
+
+    // let the baseline recover quickly after a long incident instead of staying inflated
+    if (longRttNanos / shortRttNanos > 2) {
+      longRttNanos *= 0.95;
+    }
+
+    // nothing to learn while we are not using the current limit
+    if (inFlightAtSample < estimatedLimit / 2) {
+      return;
+    }
+
+    double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRttNanos / shortRttNanos));
+    double queueSize = Math.sqrt(estimatedLimit);
+    double newLimit = estimatedLimit * gradient + queueSize;
+    setLimit(estimatedLimit * (1 - smoothing) + newLimit * smoothing);
+  }
+
+  private void setLimit(double newLimit) {
+    estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    limit = (int) estimatedLimit;
+  }
+
+  public int getLimit() {
+    return limit;
+  }
+
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  public synchronized Duration getShortRtt() {
+    return Duration.ofNanos((long) shortRttNanos);
+  }
+
+  /**
+   * Hint for shed clients: roughly the time it takes the current backlog to drain, never less
+   * than a second.
+   */
+  public Duration retryAfter() {
+    long rttMillis = TimeUnit.NANOSECONDS.toMillis(getShortRtt().toNanos());
+    return Duration.ofSeconds(Math.max(1, (long) Math.ceil(rttMillis / 1000.0)));
+  }
+
+}
@@ -0,0 +1,80 @@
+package com.checkout.payment.gateway.admission;
+
+import com.checkout.payment.gateway.configuration.AdmissionProperties;
+import com.checkout.payment.gateway.deadline.Deadline;
+import com.checkout.payment.gateway.deadline.DeadlineContext;
+import com.checkout.payment.gateway.exception.ServiceOverloadedException;
+import com.checkout.payment.gateway.startup.WarmupContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Sheds payment submissions once the adaptive limit is reached. Only writes go through the
+ * limiter so lookups keep their own share of the Tomcat worker pool during a bank incident. New
+ * stream subscriptions are turned away while the limit is reached but take no permit, as they
+ * stay open far longer than any payment.
+ */
+@Component
+public class AdmissionControlInterceptor implements HandlerInterceptor {
+
+  private static final String START_ATTRIBUTE =
+      AdmissionControlInterceptor.class.getName() + ".start";
+
+  private final AdaptiveConcurrencyLimiter limiter;
+  private final AdmissionProperties properties;
+  private final Counter shed;
+  private final Counter budgetExceeded;
+
+  public AdmissionControlInterceptor(AdaptiveConcurrencyLimiter limiter,
+      AdmissionProperties properties, MeterRegistry registry) {
+    this.limiter = limiter;
+    this.properties = properties;
+    this.shed = registry.counter("gateway.admission.shed");
+    this.budgetExceeded = registry.counter("gateway.admission.budget.exceeded");
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+      Object handler) {
+    // warm-up latencies come from a local stub and would skew the bank latency baseline
+    if (!properties.enabled() || WarmupContext.isSynthetic()) {
+      return true;
+    }
+    if (!HttpMethod.POST.matches(request.getMethod())) {
+      if (limiter.getInFlight() >= limiter.getLimit()) {
+        shed.increment();
+        throw new ServiceOverloadedException("Too many payments in flight", limiter.retryAfter());
+      }
+      return true;
+    }
+    if (!limiter.tryAcquire()) {
+      shed.increment();
+      throw new ServiceOverloadedException("Too many payments in flight", limiter.retryAfter());
+    }
+    request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+    return true;
+  }
+
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+      Object handler, Exception ex) {
+    Object start = request.getAttribute(START_ATTRIBUTE);
+    if (start == null) {
+      return;
+    }
+    request.removeAttribute(START_ATTRIBUTE);
+
+    long rtt = System.nanoTime() - (long) start;
+    boolean overBudget = DeadlineContext.current().map(Deadline::isExpired).orElse(false);
+    if (overBudget) {
+      budgetExceeded.increment();
+    }
+    limiter.release(rtt, overBudget);
+  }
+
+}
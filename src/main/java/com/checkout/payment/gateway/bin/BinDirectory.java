@@ -0,0 +1,81 @@
+package com.checkout.payment.gateway.bin;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+
+/**
+ * Holds the current {@link BinTable}. A reload parses the new table off to the side and swaps the
+ * reference, so lookups never wait; a file that fails to parse leaves the previous table in place.
+ */
+public class BinDirectory {
+
+  private static final Logger LOG = LoggerFactory.getLogger(BinDirectory.class);
+
+  private final Resource source;
+  private volatile Loaded current = new Loaded(BinTable.empty(), Instant.EPOCH, -1);
+
+  public BinDirectory(Resource source) {
+    this.source = source;
+  }
+
+  public BinInfo lookup(CharSequence cardNumber) {
+    return current.table().lookup(cardNumber);
+  }
+
+  public BinTable table() {
+    return current.table();
+  }
+
+  public Instant loadedAt() {
+    return current.loadedAt();
+  }
+
+  public String source() {
+    return source.getDescription();
+  }
+
+  /**
+   * Reloads the table if the source file changed since the last load. Sources that are not
+   * plain files (e.g. inside a jar) are only loaded once.
+   */
+  public synchronized boolean reloadIfModified() {
+    long modified = lastModified();
+    if (current.sourceModified() != -1 && (modified == -1 || modified == current.sourceModified())) {
+      return false;
+    }
+    reload();
+    return true;
+  }
+
+  public synchronized BinTable reload() {
+    long modified = lastModified();
+    BinTable table;
+    try (BufferedReader reader = new BufferedReader(
+        new InputStreamReader(source.getInputStream(), StandardCharsets.UTF_8))) {
+      table = BinTable.parse(reader);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not read BIN table from " + source(), e);
+    }
+    current = new Loaded(table, Instant.now(), modified == -1 ? 0 : modified);
+    LOG.info("Loaded {} BIN ranges ({} segments) from {}", table.ranges(), table.segments(),
+        source());
+    return table;
+  }
+
+  private long lastModified() {
+    try {
+      return source.isFile() ? source.getFile().lastModified() : -1;
+    } catch (IOException e) {
+      return -1;
+    }
+  }
+
+  private record Loaded(BinTable table, Instant loadedAt, long sourceModified) {}
+}
@@ -0,0 +1,44 @@
+package com.checkout.payment.gateway.bin;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+@Component
+@Endpoint(id = "bins")
+@RequiredArgsConstructor
+public class BinEndpoint {
+
+  private final BinDirectory directory;
+
+  @ReadOperation
+  public Map<String, Object> bins() {
+    BinTable table = directory.table();
+    Map<String, Object> body = new LinkedHashMap<>();
+    body.put("source", directory.source());
+    body.put("loadedAt", directory.loadedAt().toString());
+    body.put("ranges", table.ranges());
+    body.put("segments", table.segments());
+    return body;
+  }
+
+  @ReadOperation
+  public BinInfo lookup(@Selector String bin) {
+    StringBuilder padded = new StringBuilder(bin);
+    while (padded.length() < BinTable.BIN_DIGITS) {
+      padded.append('0');
+    }
+    return directory.lookup(padded);
+  }
+
+  @WriteOperation
+  public Map<String, Object> reload() {
+    directory.reload();
+    return bins();
+  }
+}
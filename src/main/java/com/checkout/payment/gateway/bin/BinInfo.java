@@ -0,0 +1,13 @@
+package com.checkout.payment.gateway.bin;
+
+/**
+ * What a BIN range says about its cards. {@code lengths} is a bit set of the valid card number
+ * lengths (bit n set means n digits are valid), {@code acquirer} names the acquirer the range
+ * is routed to and may be null.
+ */
+public record BinInfo(String scheme, String country, String acquirer, int lengths) {
+
+  public boolean allowsLength(int length) {
+    return length > 0 && length < Integer.SIZE && (lengths & (1 << length)) != 0;
+  }
+}
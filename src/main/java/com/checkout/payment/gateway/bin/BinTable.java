@@ -0,0 +1,244 @@
+package com.checkout.payment.gateway.bin;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable BIN index over the first eight digits of a card number. Ranges are flattened into
+ * disjoint segments when the table is built, a more specific range taking precedence over the
+ * range it is nested in. A directory over the first four digits narrows every lookup to the few
+ * segments of that prefix before a binary search, so lookups stay in cache and never allocate.
+ *
+ * <p>Source format, one range per line, {@code #} starts a comment:
+ * <pre>
+ * low,high,scheme,country,lengths,acquirer
+ * 4,4,VISA,,13|16|19,
+ * 51,55,MASTERCARD,,16,acquirer-eu
+ * </pre>
+ * {@code low} and {@code high} are BIN prefixes of one to eight digits, padded to eight with
+ * zeros and nines respectively. Country and acquirer may be empty.
+ */
+public final class BinTable {
+
+  public static final int BIN_DIGITS = 8;
+
+  private static final int DIRECTORY_DIVISOR = 10_000;
+  private static final int DIRECTORY_SIZE = 100_000_000 / DIRECTORY_DIVISOR;
+
+  private static final BinTable EMPTY = new BinTable(new int[0], new int[0], new BinInfo[0], 0);
+
+  private final int[] lows;
+  private final int[] highs;
+  private final BinInfo[] infos;
+  private final int ranges;
+  // directory[p] is the first segment ending at or after prefix p, so the segments of prefix p
+  // are directory[p]..directory[p + 1]
+  private final int[] directory;
+
+  private BinTable(int[] lows, int[] highs, BinInfo[] infos, int ranges) {
+    this.lows = lows;
+    this.highs = highs;
+    this.infos = infos;
+    this.ranges = ranges;
+    this.directory = new int[DIRECTORY_SIZE + 1];
+    int segment = 0;
+    for (int prefix = 0; prefix <= DIRECTORY_SIZE; prefix++) {
+      while (segment < highs.length && highs[segment] < prefix * DIRECTORY_DIVISOR) {
+        segment++;
+      }
+      directory[prefix] = segment;
+    }
+  }
+
+  public static BinTable empty() {
+    return EMPTY;
+  }
+
+  /**
+   * @return the most specific range covering the card number, or null when none does or the
+   *     number does not start with eight digits
+   */
+  public BinInfo lookup(CharSequence cardNumber) {
+    if (cardNumber == null || cardNumber.length() < BIN_DIGITS) {
+      return null;
+    }
+    int bin = 0;
+    for (int i = 0; i < BIN_DIGITS; i++) {
+      int digit = cardNumber.charAt(i) - '0';
+      if (digit < 0 || digit > 9) {
+        return null;
+      }
+      bin = bin * 10 + digit;
+    }
+    return lookup(bin);
+  }
+
+  public BinInfo lookup(int bin) {
+    int prefix = bin / DIRECTORY_DIVISOR;
+    int low = directory[prefix];
+    int high = Math.min(directory[prefix + 1], lows.length - 1);
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      if (lows[mid] <= bin) {
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    // high is now the last segment of the prefix starting at or before bin
+    return high >= directory[prefix] && bin <= highs[high] ? infos[high] : null;
+  }
+
+  /**
+   * Number of ranges the table was built from.
+   */
+  public int ranges() {
+    return ranges;
+  }
+
+  /**
+   * Number of disjoint segments after flattening nested ranges.
+   */
+  public int segments() {
+    return lows.length;
+  }
+
+  public static BinTable parse(BufferedReader reader) throws IOException {
+    List<Range> ranges = new ArrayList<>();
+    Map<BinInfo, BinInfo> interned = new HashMap<>();
+    String line;
+    int lineNumber = 0;
+    while ((line = reader.readLine()) != null) {
+      lineNumber++;
+      int comment = line.indexOf('#');
+      String content = (comment < 0 ? line : line.substring(0, comment)).strip();
+      if (content.isEmpty()) {
+        continue;
+      }
+      try {
+        ranges.add(parseRange(content, interned));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("Line " + lineNumber + ": " + e.getMessage(), e);
+      }
+    }
+    return build(ranges);
+  }
+
+  private static Range parseRange(String line, Map<BinInfo, BinInfo> interned) {
+    String[] fields = line.split(",", -1);
+    if (fields.length != 6) {
+      throw new IllegalArgumentException("expected 6 fields but got " + fields.length);
+    }
+    int low = pad(fields[0].strip(), '0');
+    int high = pad(fields[1].strip(), '9');
+    if (low > high) {
+      throw new IllegalArgumentException("range " + fields[0] + "-" + fields[1] + " is inverted");
+    }
+    int lengths = 0;
+    for (String length : fields[4].strip().split("\\|")) {
+      int digits = Integer.parseInt(length.strip());
+      if (digits < 1 || digits >= Integer.SIZE) {
+        throw new IllegalArgumentException("invalid card length " + digits);
+      }
+      lengths |= 1 << digits;
+    }
+    BinInfo info = new BinInfo(fields[2].strip(), emptyToNull(fields[3]),
+        emptyToNull(fields[5]), lengths);
+    return new Range(low, high, interned.computeIfAbsent(info, i -> i));
+  }
+
+  private static int pad(String prefix, char fill) {
+    if (prefix.isEmpty() || prefix.length() > BIN_DIGITS || !prefix.chars().allMatch(Character::isDigit)) {
+      throw new IllegalArgumentException("invalid BIN prefix '" + prefix + "'");
+    }
+    StringBuilder padded = new StringBuilder(BIN_DIGITS).append(prefix);
+    while (padded.length() < BIN_DIGITS) {
+      padded.append(fill);
+    }
+    return Integer.parseInt(padded.toString());
+  }
+
+  private static String emptyToNull(String value) {
+    String stripped = value.strip();
+    return stripped.isEmpty() ? null : stripped;
+  }
+
+  static BinTable build(List<Range> ranges) {
+    // outer ranges first so nested ones can be carved out of them
+    List<Range> sorted = new ArrayList<>(ranges);
+    sorted.sort(Comparator.comparingInt(Range::low)
+        .thenComparing(Comparator.comparingInt(Range::high).reversed()));
+
+    Segments segments = new Segments(sorted.size() * 2 + 1);
+    Deque<Range> open = new ArrayDeque<>();
+    int cursor = 0;
+    for (Range range : sorted) {
+      while (!open.isEmpty() && open.peek().high() < range.low()) {
+        Range closed = open.pop();
+        segments.add(cursor, closed.high(), closed.info());
+        cursor = closed.high() + 1;
+      }
+      if (!open.isEmpty()) {
+        Range parent = open.peek();
+        if (range.high() > parent.high()
+            || (range.low() == parent.low() && range.high() == parent.high())) {
+          throw new IllegalArgumentException("BIN range " + range.low() + "-" + range.high()
+              + " overlaps " + parent.low() + "-" + parent.high());
+        }
+        segments.add(cursor, range.low() - 1, parent.info());
+      }
+      open.push(range);
+      cursor = range.low();
+    }
+    while (!open.isEmpty()) {
+      Range closed = open.pop();
+      segments.add(cursor, closed.high(), closed.info());
+      cursor = closed.high() + 1;
+    }
+    return segments.toTable(ranges.size());
+  }
+
+  record Range(int low, int high, BinInfo info) {}
+
+  private static final class Segments {
+
+    private int[] lows;
+    private int[] highs;
+    private BinInfo[] infos;
+    private int size;
+
+    private Segments(int capacity) {
+      lows = new int[capacity];
+      highs = new int[capacity];
+      infos = new BinInfo[capacity];
+    }
+
+    private void add(int low, int high, BinInfo info) {
+      if (low > high) {
+        return;
+      }
+      // adjacent pieces of the same range left around a nested one that turned out empty
+      if (size > 0 && infos[size - 1] == info && highs[size - 1] + 1 == low) {
+        highs[size - 1] = high;
+        return;
+      }
+      lows[size] = low;
+      highs[size] = high;
+      infos[size] = info;
+      size++;
+    }
+
+    private BinTable toTable(int ranges) {
+      return new BinTable(Arrays.copyOf(lows, size), Arrays.copyOf(highs, size),
+          Arrays.copyOf(infos, size), ranges);
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package com.checkout.payment.gateway.bin;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class BinTableReloader {
+
+  private static final Logger LOG = LoggerFactory.getLogger(BinTableReloader.class);
+
+  private final BinDirectory directory;
+  private final MeterRegistry registry;
+
+  public BinTableReloader(BinDirectory directory, MeterRegistry registry) {
+    this.directory = directory;
+    this.registry = registry;
+  }
+
+  @Scheduled(fixedDelayString = "${gateway.bins.reload-interval-ms:10000}")
+  public void reloadIfModified() {
+    try {
+      if (directory.reloadIfModified()) {
+        registry.counter("gateway.bins.reloads", "result", "success").increment();
+      }
+    } catch (RuntimeException e) {
+      registry.counter("gateway.bins.reloads", "result", "failure").increment();
+      LOG.error("Keeping the previous BIN table, reload from {} failed", directory.source(), e);
+    }
+  }
+}
@@ -0,0 +1,91 @@
+package com.checkout.payment.gateway.cluster;
+
+import com.checkout.payment.gateway.codec.PaymentBinaryCodec;
+import com.checkout.payment.gateway.codec.PaymentBinaryMessageConverter;
+import com.checkout.payment.gateway.controller.GatewayHeaders;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collection;
+import org.springframework.http.HttpHeaders;
+
+/**
+ * Gateway to gateway calls. Every request carries the shared cluster token, which is what lets the
+ * receiving node trust a forwarded read or an incoming batch of payments.
+ */
+public class ClusterClient {
+
+  private final HttpClient httpClient;
+  private final ClusterMembership membership;
+  private final Duration timeout;
+
+  public ClusterClient(ClusterMembership membership, Duration timeout) {
+    this.httpClient = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(timeout)
+        .build();
+    this.membership = membership;
+    this.timeout = timeout;
+  }
+
+  public HttpResponse<byte[]> forward(String node, String pathAndQuery, String accept,
+      String apiKey, Duration budget) throws IOException, InterruptedException {
+    HttpRequest.Builder request = request(node, pathAndQuery,
+        budget.compareTo(timeout) < 0 ? budget : timeout)
+        .header(GatewayHeaders.REQUEST_TIMEOUT, String.valueOf(budget.toMillis()))
+        .GET();
+    if (accept != null) {
+      request.header(HttpHeaders.ACCEPT, accept);
+    }
+    if (apiKey != null) {
+      request.header(GatewayHeaders.API_KEY, apiKey);
+    }
+    return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+  }
+
+  public void transfer(String node, Collection<PostPaymentResponse> payments) {
+    send(request(node, "/internal/cluster/payments", timeout)
+        .header(HttpHeaders.CONTENT_TYPE, PaymentBinaryMessageConverter.MEDIA_TYPE_VALUE)
+        .POST(HttpRequest.BodyPublishers.ofByteArray(PaymentBinaryCodec.encodePayments(payments)))
+        .build());
+  }
+
+  public void announceJoin(String peer) {
+    send(request(peer, "/internal/cluster/members", timeout)
+        .POST(HttpRequest.BodyPublishers.ofString(membership.self()))
+        .build());
+  }
+
+  public void announceLeave(String peer) {
+    send(request(peer, "/internal/cluster/members", timeout)
+        .method("DELETE", HttpRequest.BodyPublishers.ofString(membership.self()))
+        .build());
+  }
+
+  private HttpRequest.Builder request(String node, String path, Duration requestTimeout) {
+    return HttpRequest.newBuilder(URI.create(node + path))
+        .timeout(requestTimeout)
+        .header(GatewayHeaders.CLUSTER_TOKEN, membership.secret());
+  }
+
+  private void send(HttpRequest request) {
+    try {
+      HttpResponse<Void> response = httpClient.send(request,
+          HttpResponse.BodyHandlers.discarding());
+      if (response.statusCode() / 100 != 2) {
+        throw new UncheckedIOException(new IOException(
+            request.uri() + " answered " + response.statusCode()));
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not reach " + request.uri(), e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new UncheckedIOException(new IOException("Interrupted calling " + request.uri()));
+    }
+  }
+}
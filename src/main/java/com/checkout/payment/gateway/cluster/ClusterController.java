@@ -0,0 +1,77 @@
+package com.checkout.payment.gateway.cluster;
+
+import com.checkout.payment.gateway.codec.PaymentBinaryCodec;
+import com.checkout.payment.gateway.codec.PaymentBinaryMessageConverter;
+import com.checkout.payment.gateway.controller.GatewayHeaders;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import java.net.URI;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Peer to peer endpoints, only callable with the shared cluster token.
+ */
+@RestController
+@RequestMapping("/internal/cluster")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "gateway.cluster.enabled", havingValue = "true")
+public class ClusterController {
+
+  private final ClusterMembership membership;
+  private final ShardRebalancer rebalancer;
+  private final PaymentsRepository paymentsRepository;
+
+  @GetMapping("/ring")
+  public Map<String, Object> ring(
+      @RequestHeader(value = GatewayHeaders.CLUSTER_TOKEN, required = false) String token) {
+    requireTrusted(token);
+    return Map.of(
+        "self", membership.self(),
+        "nodes", membership.ring().nodes(),
+        "local_payments", paymentsRepository.size());
+  }
+
+  @PostMapping("/members")
+  public ResponseEntity<Void> join(
+      @RequestHeader(value = GatewayHeaders.CLUSTER_TOKEN, required = false) String token,
+      @RequestBody String node) {
+    requireTrusted(token);
+    rebalancer.join(ClusterMembership.nodeId(URI.create(node.trim())));
+    return ResponseEntity.status(HttpStatus.ACCEPTED).build();
+  }
+
+  @DeleteMapping("/members")
+  public ResponseEntity<Void> leave(
+      @RequestHeader(value = GatewayHeaders.CLUSTER_TOKEN, required = false) String token,
+      @RequestBody String node) {
+    requireTrusted(token);
+    rebalancer.leave(ClusterMembership.nodeId(URI.create(node.trim())));
+    return ResponseEntity.status(HttpStatus.ACCEPTED).build();
+  }
+
+  @PostMapping(value = "/payments", consumes = PaymentBinaryMessageConverter.MEDIA_TYPE_VALUE)
+  public ResponseEntity<Void> receive(
+      @RequestHeader(value = GatewayHeaders.CLUSTER_TOKEN, required = false) String token,
+      @RequestBody byte[] body) {
+    requireTrusted(token);
+    rebalancer.receive(PaymentBinaryCodec.decodePayments(body));
+    return ResponseEntity.noContent().build();
+  }
+
+  private void requireTrusted(String token) {
+    if (!membership.isTrusted(token)) {
+      throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Invalid cluster token");
+    }
+  }
+}
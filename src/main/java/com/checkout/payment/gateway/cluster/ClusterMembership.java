@@ -0,0 +1,89 @@
+package com.checkout.payment.gateway.cluster;
+
+import com.checkout.payment.gateway.configuration.ClusterProperties;
+import com.checkout.payment.gateway.service.PaymentIdGenerator;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Current view of the cluster. New payment ids are drawn until one lands on this node's shard, so
+ * writes never leave the node that accepted them and only reads of other shards are forwarded.
+ */
+public class ClusterMembership implements PaymentIdGenerator {
+
+  private static final int MAX_ID_ATTEMPTS_PER_NODE = 64;
+
+  private final String self;
+  private final byte[] secret;
+  private volatile ConsistentHashRing ring;
+
+  public ClusterMembership(ClusterProperties properties) {
+    if (properties.self() == null) {
+      throw new IllegalStateException("gateway.cluster.self is required when clustering is enabled");
+    }
+    if (properties.secret() == null || properties.secret().isBlank()) {
+      throw new IllegalStateException("gateway.cluster.secret is required when clustering is enabled");
+    }
+    this.self = nodeId(properties.self());
+    this.secret = properties.secret().getBytes(StandardCharsets.UTF_8);
+
+    List<String> nodes = new ArrayList<>();
+    nodes.add(self);
+    properties.nodes().forEach(node -> nodes.add(nodeId(node)));
+    this.ring = new ConsistentHashRing(nodes, properties.virtualNodes());
+  }
+
+  public static String nodeId(URI uri) {
+    String value = uri.toString();
+    return value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+  }
+
+  public String self() {
+    return self;
+  }
+
+  public ConsistentHashRing ring() {
+    return ring;
+  }
+
+  public String ownerOf(UUID id) {
+    return ring.ownerOf(id);
+  }
+
+  public boolean isLocal(UUID id) {
+    return self.equals(ring.ownerOf(id));
+  }
+
+  public List<String> peers() {
+    return ring.nodes().stream().filter(node -> !node.equals(self)).toList();
+  }
+
+  void update(ConsistentHashRing next) {
+    this.ring = next;
+  }
+
+  public boolean isTrusted(String token) {
+    return token != null
+        && MessageDigest.isEqual(secret, token.getBytes(StandardCharsets.UTF_8));
+  }
+
+  String secret() {
+    return new String(secret, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public UUID next() {
+    ConsistentHashRing current = ring;
+    int attempts = MAX_ID_ATTEMPTS_PER_NODE * current.nodes().size();
+    UUID id = UUID.randomUUID();
+    // expected attempts equal the number of nodes; give up rather than spin if self left the ring
+    for (int i = 1; i < attempts && !self.equals(current.ownerOf(id)); i++) {
+      id = UUID.randomUUID();
+    }
+    return id;
+  }
+}
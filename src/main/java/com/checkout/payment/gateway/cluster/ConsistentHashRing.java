@@ -0,0 +1,113 @@
+package com.checkout.payment.gateway.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Immutable consistent hash ring. Every node is placed on the ring {@code virtualNodes} times so
+ * shards stay balanced, and adding or removing a node only moves the ids that node gains or loses.
+ * Placement depends only on the node names, so every gateway with the same membership agrees on
+ * the owner of an id.
+ */
+public final class ConsistentHashRing {
+
+  private final List<String> nodes;
+  private final int virtualNodes;
+  private final long[] points;
+  private final int[] owners;
+
+  public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+    if (virtualNodes < 1) {
+      throw new IllegalArgumentException("virtualNodes must be positive");
+    }
+    this.nodes = List.copyOf(new TreeSet<>(nodes));
+    this.virtualNodes = virtualNodes;
+
+    int size = this.nodes.size() * virtualNodes;
+    long[] hashes = new long[size];
+    Integer[] order = new Integer[size];
+    for (int n = 0; n < this.nodes.size(); n++) {
+      long seed = fnv1a(this.nodes.get(n));
+      for (int v = 0; v < virtualNodes; v++) {
+        int i = n * virtualNodes + v;
+        hashes[i] = mix(seed + v * 0x9E3779B97F4A7C15L);
+        order[i] = i;
+      }
+    }
+    // ties are broken by node order so every gateway builds the same ring
+    Arrays.sort(order, Comparator.<Integer>comparingLong(i -> hashes[i]).thenComparingInt(i -> i));
+
+    this.points = new long[size];
+    this.owners = new int[size];
+    for (int i = 0; i < size; i++) {
+      points[i] = hashes[order[i]];
+      owners[i] = order[i] / virtualNodes;
+    }
+  }
+
+  public String ownerOf(UUID id) {
+    if (points.length == 0) {
+      throw new IllegalStateException("Hash ring has no nodes");
+    }
+    int i = Arrays.binarySearch(points, hash(id));
+    if (i < 0) {
+      i = -i - 1;
+    }
+    return nodes.get(owners[i == points.length ? 0 : i]);
+  }
+
+  public ConsistentHashRing with(String node) {
+    if (nodes.contains(node)) {
+      return this;
+    }
+    List<String> next = new ArrayList<>(nodes);
+    next.add(node);
+    return new ConsistentHashRing(next, virtualNodes);
+  }
+
+  public ConsistentHashRing without(String node) {
+    if (!nodes.contains(node)) {
+      return this;
+    }
+    List<String> next = new ArrayList<>(nodes);
+    next.remove(node);
+    return new ConsistentHashRing(next, virtualNodes);
+  }
+
+  public boolean contains(String node) {
+    return nodes.contains(node);
+  }
+
+  public List<String> nodes() {
+    return nodes;
+  }
+
+  static long hash(UUID id) {
+    return mix(id.getMostSignificantBits() ^ Long.rotateLeft(id.getLeastSignificantBits(), 32));
+  }
+
+  private static long fnv1a(String value) {
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b;
+      hash *= 0x100000001b3L;
+    }
+    return hash;
+  }
+
+  // murmur3 finaliser
+  private static long mix(long h) {
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb93fe53a87b4L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
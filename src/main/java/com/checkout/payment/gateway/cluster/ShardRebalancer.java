@@ -0,0 +1,171 @@
+package com.checkout.payment.gateway.cluster;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Moves payments to their owner when membership changes. On a join the records the new node will
+ * own are copied to it before the ring switches, so reads routed there right after the switch
+ * find them. Records are removed locally only once the owner has acknowledged them, and only if
+ * they were not updated in the meantime; the periodic sweep picks up such stragglers.
+ */
+public class ShardRebalancer {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ShardRebalancer.class);
+
+  private final ClusterMembership membership;
+  private final ClusterClient client;
+  private final PaymentsRepository repository;
+  private final int batchSize;
+  private final Counter moved;
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "shard-rebalancer");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  public ShardRebalancer(ClusterMembership membership, ClusterClient client,
+      PaymentsRepository repository, int batchSize, MeterRegistry registry) {
+    this.membership = membership;
+    this.client = client;
+    this.repository = repository;
+    this.batchSize = batchSize;
+    this.moved = registry.counter("gateway.cluster.payments.moved");
+  }
+
+  public void join(String node) {
+    executor.execute(() -> {
+      ConsistentHashRing current = membership.ring();
+      ConsistentHashRing next = current.with(node);
+      if (next == current) {
+        return;
+      }
+      LOG.info("Node {} joined, copying its shard before switching the ring", node);
+      try {
+        transfer(misplaced(next).getOrDefault(node, List.of()), node, false);
+      } catch (UncheckedIOException e) {
+        LOG.warn("Could not copy shard to joining node {}, the sweep will retry", node, e);
+      }
+      membership.update(next);
+      moveMisplaced();
+    });
+  }
+
+  public void leave(String node) {
+    executor.execute(() -> {
+      LOG.info("Node {} left the cluster", node);
+      membership.update(membership.ring().without(node));
+      moveMisplaced();
+    });
+  }
+
+  /**
+   * Accepts payments from a peer. A pending record never replaces a completed one, so a late copy
+   * taken before the bank answered cannot undo the final status.
+   */
+  public void receive(List<PostPaymentResponse> payments) {
+    for (PostPaymentResponse payment : payments) {
+      boolean stale = payment.getStatus() == PaymentStatus.PENDING && repository.get(payment.getId())
+          .filter(existing -> existing.getStatus() != PaymentStatus.PENDING)
+          .isPresent();
+      if (!stale) {
+        repository.add(payment);
+      }
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${gateway.cluster.sweep-interval-ms:30000}")
+  public void sweep() {
+    if (!executor.isShutdown()) {
+      executor.execute(this::moveMisplaced);
+    }
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void announce() {
+    for (String peer : membership.peers()) {
+      try {
+        client.announceJoin(peer);
+      } catch (UncheckedIOException e) {
+        LOG.warn("Could not announce this node to {}", peer, e);
+      }
+    }
+  }
+
+  /**
+   * Hands every local payment to its next owner and only then tells peers to drop this node, so
+   * nothing becomes unreadable during a rolling restart.
+   */
+  @EventListener(ContextClosedEvent.class)
+  public void handoff() {
+    executor.shutdown();
+    ConsistentHashRing next = membership.ring().without(membership.self());
+    if (next.nodes().isEmpty()) {
+      return;
+    }
+    misplaced(next).forEach((owner, payments) -> {
+      try {
+        transfer(payments, owner, false);
+      } catch (UncheckedIOException e) {
+        LOG.warn("Could not hand off {} payments to {}", payments.size(), owner, e);
+      }
+    });
+    for (String peer : next.nodes()) {
+      try {
+        client.announceLeave(peer);
+      } catch (UncheckedIOException e) {
+        LOG.warn("Could not announce departure to {}", peer, e);
+      }
+    }
+  }
+
+  private void moveMisplaced() {
+    misplaced(membership.ring()).forEach((owner, payments) -> {
+      try {
+        transfer(payments, owner, true);
+      } catch (UncheckedIOException e) {
+        LOG.warn("Could not move {} payments to {}, keeping them for the next sweep",
+            payments.size(), owner, e);
+      }
+    });
+  }
+
+  private Map<String, List<PostPaymentResponse>> misplaced(ConsistentHashRing ring) {
+    Map<String, List<PostPaymentResponse>> byOwner = new HashMap<>();
+    for (PostPaymentResponse payment : repository.all()) {
+      String owner = ring.ownerOf(payment.getId());
+      if (!owner.equals(membership.self())) {
+        byOwner.computeIfAbsent(owner, key -> new ArrayList<>()).add(payment);
+      }
+    }
+    return byOwner;
+  }
+
+  private void transfer(List<PostPaymentResponse> payments, String owner, boolean removeLocal) {
+    for (int from = 0; from < payments.size(); from += batchSize) {
+      List<PostPaymentResponse> batch =
+          payments.subList(from, Math.min(payments.size(), from + batchSize));
+      client.transfer(owner, batch);
+      if (removeLocal) {
+        batch.forEach(repository::remove);
+      }
+      moved.increment(batch.size());
+    }
+  }
+}
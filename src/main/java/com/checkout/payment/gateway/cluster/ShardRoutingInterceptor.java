@@ -0,0 +1,96 @@
+package com.checkout.payment.gateway.cluster;
+
+import com.checkout.payment.gateway.controller.GatewayHeaders;
+import com.checkout.payment.gateway.deadline.Deadline;
+import com.checkout.payment.gateway.deadline.DeadlineContext;
+import com.checkout.payment.gateway.exception.DeadlineExceededException;
+import com.checkout.payment.gateway.exception.ShardUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Sends {@code GET /payment/{id}} to the node owning the id and relays its answer. Requests that
+ * carry the cluster token were already routed by a peer and are always served locally, which also
+ * rules out forwarding loops while two nodes briefly disagree on the ring.
+ */
+public class ShardRoutingInterceptor implements HandlerInterceptor {
+
+  private final ClusterMembership membership;
+  private final ClusterClient client;
+  private final Duration forwardTimeout;
+  private final Counter forwarded;
+  private final Counter unavailable;
+
+  public ShardRoutingInterceptor(ClusterMembership membership, ClusterClient client,
+      Duration forwardTimeout, MeterRegistry registry) {
+    this.membership = membership;
+    this.client = client;
+    this.forwardTimeout = forwardTimeout;
+    this.forwarded = registry.counter("gateway.cluster.forwarded");
+    this.unavailable = registry.counter("gateway.cluster.forward.failures");
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+      Object handler) throws IOException {
+    if (!"GET".equals(request.getMethod())
+        || membership.isTrusted(request.getHeader(GatewayHeaders.CLUSTER_TOKEN))) {
+      return true;
+    }
+    UUID id = pathId(request);
+    if (id == null || membership.isLocal(id)) {
+      return true;
+    }
+
+    String owner = membership.ownerOf(id);
+    Duration budget = DeadlineContext.current().map(Deadline::remaining).orElse(forwardTimeout);
+    if (budget.isZero() || budget.isNegative()) {
+      throw new DeadlineExceededException("Deadline expired before forwarding to " + owner);
+    }
+    HttpResponse<byte[]> answer;
+    try {
+      String query = request.getQueryString();
+      answer = client.forward(owner,
+          request.getRequestURI() + (query == null ? "" : "?" + query),
+          request.getHeader(HttpHeaders.ACCEPT), request.getHeader(GatewayHeaders.API_KEY),
+          budget);
+    } catch (IOException e) {
+      unavailable.increment();
+      throw new ShardUnavailableException("Shard owner " + owner + " is unreachable", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ShardUnavailableException("Interrupted forwarding to " + owner, e);
+    }
+
+    forwarded.increment();
+    response.setStatus(answer.statusCode());
+    for (String header : new String[] {HttpHeaders.CONTENT_TYPE, HttpHeaders.RETRY_AFTER}) {
+      answer.headers().firstValue(header).ifPresent(value -> response.setHeader(header, value));
+    }
+    response.setContentLength(answer.body().length);
+    response.getOutputStream().write(answer.body());
+    return false;
+  }
+
+  private static UUID pathId(HttpServletRequest request) {
+    @SuppressWarnings("unchecked")
+    Map<String, String> variables = (Map<String, String>) request.getAttribute(
+        HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+    String id = variables == null ? null : variables.get("id");
+    try {
+      return id == null ? null : UUID.fromString(id);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+}
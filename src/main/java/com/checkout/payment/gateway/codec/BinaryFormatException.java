@@ -0,0 +1,7 @@
+package com.checkout.payment.gateway.codec;
+
+public class BinaryFormatException extends RuntimeException {
+  public BinaryFormatException(String message) {
+    super(message);
+  }
+}
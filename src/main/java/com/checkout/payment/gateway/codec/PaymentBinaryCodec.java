@@ -0,0 +1,379 @@
+package com.checkout.payment.gateway.codec;
+
+import com.checkout.payment.gateway.enums.PaymentOperation;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.ApiSuccess;
+import com.checkout.payment.gateway.model.PaymentTransition;
+import com.checkout.payment.gateway.model.PostPaymentRequest;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import com.checkout.payment.gateway.model.ResponseCode;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Fixed layout binary encoding of the payment API messages. Numbers are big-endian fixed width,
+ * nullable numbers are flagged in a presence byte and strings are a signed short length (-1 for
+ * null) followed by UTF-8 bytes.
+ *
+ * <pre>
+ * request:  version | presence | expiry_month i32 | expiry_year i32 | amount i64
+ *           | card_number str | currency str | cvv str [| card_token str]
+ * payment:  id 16 bytes | status str | presence | expiry_month i32 | expiry_year i32
+ *           | amount i64 | card_number_last_four str | currency str
+ *           [| merchant_id str | authorization_code str] [| lifecycle]
+ * lifecycle: captured i64 | refunded i64 | transitions i16
+ *           | (operation str | amount i64 | status str | at_seconds i64 | at_nanos i32)*
+ * envelope: version | status i16 | code str | timestamp str | message str | request_id str
+ *           | data type (0 none, 1 uuid, 2 payment) | data
+ * </pre>
+ */
+public final class PaymentBinaryCodec {
+
+  public static final byte VERSION = 1;
+
+  private static final byte HAS_MONTH = 1;
+  private static final byte HAS_YEAR = 1 << 1;
+  private static final byte HAS_AMOUNT = 1 << 2;
+
+  private static final byte DATA_NONE = 0;
+  private static final byte DATA_UUID = 1;
+  private static final byte DATA_PAYMENT = 2;
+
+  private static final int NUMBERS_SIZE = 1 + 4 + 4 + 8;
+  private static final int UUID_SIZE = 16;
+
+  private PaymentBinaryCodec() {
+  }
+
+  public static byte[] encodeRequest(PostPaymentRequest request) {
+    byte[] card = utf8(request.getCardNumber());
+    byte[] currency = utf8(request.getCurrency());
+    byte[] cvv = utf8(request.getCvv());
+    byte[] token = utf8(request.getCardToken());
+
+    int length = 1 + NUMBERS_SIZE + size(card) + size(currency) + size(cvv);
+    ByteBuffer out = ByteBuffer.allocate(token == null ? length : length + size(token));
+    out.put(VERSION);
+    putNumbers(out, request.getExpiryMonth(), request.getExpiryYear(), request.getAmount());
+    putString(out, card);
+    putString(out, currency);
+    putString(out, cvv);
+    // trailing and optional, so card payments encode exactly as before
+    if (token != null) {
+      putString(out, token);
+    }
+    return out.array();
+  }
+
+  public static PostPaymentRequest decodeRequest(byte[] bytes) {
+    try {
+      ByteBuffer in = ByteBuffer.wrap(bytes);
+      checkVersion(in);
+      byte presence = in.get();
+      int month = in.getInt();
+      int year = in.getInt();
+      long amount = in.getLong();
+      String cardNumber = getString(in);
+
+      return PostPaymentRequest.builder()
+          .expiryMonth((presence & HAS_MONTH) != 0 ? month : null)
+          .expiryYear((presence & HAS_YEAR) != 0 ? year : null)
+          .amount((presence & HAS_AMOUNT) != 0 ? amount : null)
+          .cardNumber(cardNumber)
+          .cardNumberLastFour(lastFour(cardNumber))
+          .currency(getString(in))
+          .cvv(getString(in))
+          .cardToken(in.hasRemaining() ? getString(in) : null)
+          .build();
+    } catch (BufferUnderflowException e) {
+      throw new BinaryFormatException("Truncated payment request");
+    }
+  }
+
+  public static int paymentSize(PostPaymentResponse payment, boolean withMerchant) {
+    int size = UUID_SIZE + size(statusName(payment)) + NUMBERS_SIZE
+        + size(utf8(payment.getCardNumberLastFour())) + size(utf8(payment.getCurrency()));
+    if (withMerchant) {
+      size += size(utf8(payment.getMerchantId())) + size(utf8(payment.getAuthorizationCode()));
+    }
+    return hasLifecycle(payment, withMerchant) ? size + lifecycleSize(payment) : size;
+  }
+
+  /**
+   * Writes a stored payment. The merchant id and authorization code are internal and only
+   * included for storage and replication, never on the wire. Internally the lifecycle is always
+   * written; on the wire only for payments that were captured, voided or refunded, so other
+   * payments encode exactly as before.
+   */
+  public static void writePayment(ByteBuffer out, PostPaymentResponse payment,
+      boolean withMerchant) {
+    putUuid(out, payment.getId());
+    putString(out, statusName(payment));
+    putNumbers(out, payment.getExpiryMonth(), payment.getExpiryYear(), payment.getAmount());
+    putString(out, utf8(payment.getCardNumberLastFour()));
+    putString(out, utf8(payment.getCurrency()));
+    if (withMerchant) {
+      putString(out, utf8(payment.getMerchantId()));
+      putString(out, utf8(payment.getAuthorizationCode()));
+    }
+    if (hasLifecycle(payment, withMerchant)) {
+      putLifecycle(out, payment);
+    }
+  }
+
+  public static PostPaymentResponse readPayment(ByteBuffer in, boolean withMerchant) {
+    try {
+      UUID id = getUuid(in);
+      String status = getString(in);
+      byte presence = in.get();
+      int month = in.getInt();
+      int year = in.getInt();
+      long amount = in.getLong();
+
+      PostPaymentResponse.PostPaymentResponseBuilder payment = PostPaymentResponse.builder()
+          .id(id)
+          .status(status == null ? null : PaymentStatus.valueOf(status))
+          .expiryMonth((presence & HAS_MONTH) != 0 ? month : null)
+          .expiryYear((presence & HAS_YEAR) != 0 ? year : null)
+          .amount((presence & HAS_AMOUNT) != 0 ? amount : null)
+          .cardNumberLastFour(getString(in))
+          .currency(getString(in));
+      if (withMerchant) {
+        payment.merchantId(getString(in)).authorizationCode(getString(in));
+      }
+      // a wire payment is the last field of its envelope, so a lifecycle is whatever follows
+      if (withMerchant || in.hasRemaining()) {
+        getLifecycle(in, payment);
+      }
+      return payment.build();
+    } catch (BufferUnderflowException | IllegalArgumentException e) {
+      throw new BinaryFormatException("Malformed payment record");
+    }
+  }
+
+  /**
+   * Count prefixed batch of stored payments, merchant included, for moving records between
+   * gateways.
+   */
+  public static byte[] encodePayments(Collection<PostPaymentResponse> payments) {
+    int size = 4;
+    for (PostPaymentResponse payment : payments) {
+      size += paymentSize(payment, true);
+    }
+    ByteBuffer out = ByteBuffer.allocate(size);
+    out.putInt(payments.size());
+    for (PostPaymentResponse payment : payments) {
+      writePayment(out, payment, true);
+    }
+    return out.array();
+  }
+
+  public static List<PostPaymentResponse> decodePayments(byte[] bytes) {
+    try {
+      ByteBuffer in = ByteBuffer.wrap(bytes);
+      int count = in.getInt();
+      if (count < 0 || count > in.remaining() / UUID_SIZE) {
+        throw new BinaryFormatException("Invalid payment count " + count);
+      }
+      List<PostPaymentResponse> payments = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        payments.add(readPayment(in, true));
+      }
+      return payments;
+    } catch (BufferUnderflowException e) {
+      throw new BinaryFormatException("Truncated payment batch");
+    }
+  }
+
+  public static byte[] encodeResponse(ApiSuccess<?> success) {
+    byte[] code = utf8(success.code() == null ? null : success.code().name());
+    byte[] timestamp = utf8(success.timestamp());
+    byte[] message = utf8(success.message());
+    byte[] requestId = utf8(success.requestId());
+
+    int dataSize = 1;
+    if (success.data() instanceof UUID) {
+      dataSize += UUID_SIZE;
+    } else if (success.data() instanceof PostPaymentResponse payment) {
+      dataSize += paymentSize(payment, false);
+    } else if (success.data() != null) {
+      throw new BinaryFormatException(
+          "Unsupported payload " + success.data().getClass().getSimpleName());
+    }
+
+    ByteBuffer out = ByteBuffer.allocate(1 + 2 + size(code) + size(timestamp) + size(message)
+        + size(requestId) + dataSize);
+    out.put(VERSION);
+    out.putShort((short) success.status());
+    putString(out, code);
+    putString(out, timestamp);
+    putString(out, message);
+    putString(out, requestId);
+    if (success.data() instanceof UUID id) {
+      out.put(DATA_UUID);
+      putUuid(out, id);
+    } else if (success.data() instanceof PostPaymentResponse payment) {
+      out.put(DATA_PAYMENT);
+      writePayment(out, payment, false);
+    } else {
+      out.put(DATA_NONE);
+    }
+    return out.array();
+  }
+
+  public static ApiSuccess<Object> decodeResponse(byte[] bytes) {
+    try {
+      ByteBuffer in = ByteBuffer.wrap(bytes);
+      checkVersion(in);
+      int status = in.getShort();
+      String code = getString(in);
+      String timestamp = getString(in);
+      String message = getString(in);
+      String requestId = getString(in);
+      Object data = switch (in.get()) {
+        case DATA_NONE -> null;
+        case DATA_UUID -> getUuid(in);
+        case DATA_PAYMENT -> readPayment(in, false);
+        default -> throw new BinaryFormatException("Unknown payload type");
+      };
+      return new ApiSuccess<>(timestamp, status, code == null ? null : ResponseCode.valueOf(code),
+          message, requestId, data);
+    } catch (BufferUnderflowException | IllegalArgumentException e) {
+      throw new BinaryFormatException("Malformed response envelope");
+    }
+  }
+
+  private static boolean hasLifecycle(PostPaymentResponse payment, boolean withMerchant) {
+    return withMerchant || payment.getLastTransition() != null;
+  }
+
+  private static int lifecycleSize(PostPaymentResponse payment) {
+    int size = 8 + 8 + 2;
+    for (PaymentTransition transition : PaymentTransition.history(payment.getLastTransition())) {
+      size += size(utf8(transition.operation().name())) + 8
+          + size(utf8(transition.status().name())) + 8 + 4;
+    }
+    return size;
+  }
+
+  private static void putLifecycle(ByteBuffer out, PostPaymentResponse payment) {
+    List<PaymentTransition> history = PaymentTransition.history(payment.getLastTransition());
+    if (history.size() > Short.MAX_VALUE) {
+      throw new BinaryFormatException("Payment history too long");
+    }
+    out.putLong(payment.getCapturedAmount());
+    out.putLong(payment.getRefundedAmount());
+    out.putShort((short) history.size());
+    for (PaymentTransition transition : history) {
+      putString(out, utf8(transition.operation().name()));
+      out.putLong(transition.amount());
+      putString(out, utf8(transition.status().name()));
+      out.putLong(transition.at().getEpochSecond());
+      out.putInt(transition.at().getNano());
+    }
+  }
+
+  private static void getLifecycle(ByteBuffer in,
+      PostPaymentResponse.PostPaymentResponseBuilder payment) {
+    payment.capturedAmount(in.getLong()).refundedAmount(in.getLong());
+    int count = in.getShort();
+    PaymentTransition last = null;
+    for (int i = 0; i < count; i++) {
+      PaymentOperation operation = PaymentOperation.valueOf(getString(in));
+      long amount = in.getLong();
+      PaymentStatus status = PaymentStatus.valueOf(getString(in));
+      last = new PaymentTransition(operation, amount, status,
+          Instant.ofEpochSecond(in.getLong(), in.getInt()), last);
+    }
+    payment.lastTransition(last);
+  }
+
+  private static void checkVersion(ByteBuffer in) {
+    byte version = in.get();
+    if (version != VERSION) {
+      throw new BinaryFormatException("Unsupported binary format version " + version);
+    }
+  }
+
+  private static void putNumbers(ByteBuffer out, Integer month, Integer year, Long amount) {
+    byte presence = 0;
+    if (month != null) {
+      presence |= HAS_MONTH;
+    }
+    if (year != null) {
+      presence |= HAS_YEAR;
+    }
+    if (amount != null) {
+      presence |= HAS_AMOUNT;
+    }
+    out.put(presence);
+    out.putInt(month == null ? 0 : month);
+    out.putInt(year == null ? 0 : year);
+    out.putLong(amount == null ? 0 : amount);
+  }
+
+  private static void putUuid(ByteBuffer out, UUID id) {
+    out.putLong(id.getMostSignificantBits());
+    out.putLong(id.getLeastSignificantBits());
+  }
+
+  private static UUID getUuid(ByteBuffer in) {
+    return new UUID(in.getLong(), in.getLong());
+  }
+
+  private static byte[] statusName(PostPaymentResponse payment) {
+    return utf8(payment.getStatus() == null ? null : payment.getStatus().name());
+  }
+
+  private static byte[] utf8(String value) {
+    if (value == null) {
+      return null;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    if (bytes.length > Short.MAX_VALUE) {
+      throw new BinaryFormatException("String field too long");
+    }
+    return bytes;
+  }
+
+  private static int size(byte[] utf8) {
+    return 2 + (utf8 == null ? 0 : utf8.length);
+  }
+
+  private static void putString(ByteBuffer out, byte[] utf8) {
+    if (utf8 == null) {
+      out.putShort((short) -1);
+      return;
+    }
+    out.putShort((short) utf8.length);
+    out.put(utf8);
+  }
+
+  // a length the buffer can't hold would read past the field, or past the array
+  private static String getString(ByteBuffer in) {
+    short length = in.getShort();
+    if (length == -1) {
+      return null;
+    }
+    if (length < 0 || length > in.remaining()) {
+      throw new BinaryFormatException("Truncated string field");
+    }
+    String value = new String(in.array(), in.arrayOffset() + in.position(), length,
+        StandardCharsets.UTF_8);
+    in.position(in.position() + length);
+    return value;
+  }
+
+  private static String lastFour(String cardNumber) {
+    if (cardNumber == null || cardNumber.length() < 4) {
+      return null;
+    }
+    return cardNumber.substring(cardNumber.length() - 4);
+  }
+}
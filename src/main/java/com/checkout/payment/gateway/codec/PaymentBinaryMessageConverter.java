@@ -0,0 +1,61 @@
+package com.checkout.payment.gateway.codec;
+
+import com.checkout.payment.gateway.model.ApiSuccess;
+import com.checkout.payment.gateway.model.PostPaymentRequest;
+import java.io.IOException;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+/**
+ * Negotiated through {@code Content-Type} / {@code Accept: application/x-payment-binary}. Only the
+ * payment request and the success envelope have a binary form; errors stay JSON.
+ */
+public class PaymentBinaryMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+  public static final String MEDIA_TYPE_VALUE = "application/x-payment-binary";
+  public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+  public PaymentBinaryMessageConverter() {
+    super(MEDIA_TYPE);
+  }
+
+  @Override
+  protected boolean supports(Class<?> clazz) {
+    return PostPaymentRequest.class == clazz || ApiSuccess.class == clazz;
+  }
+
+  @Override
+  protected boolean canWrite(MediaType mediaType) {
+    // never volunteer the binary form for */* so JSON stays the default
+    return mediaType != null && MEDIA_TYPE.isCompatibleWith(mediaType) && !mediaType.isWildcardType();
+  }
+
+  @Override
+  protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+    if (clazz != PostPaymentRequest.class) {
+      throw new HttpMessageNotReadableException("Cannot read " + clazz.getSimpleName(),
+          inputMessage);
+    }
+    try {
+      return PaymentBinaryCodec.decodeRequest(inputMessage.getBody().readAllBytes());
+    } catch (BinaryFormatException e) {
+      throw new HttpMessageNotReadableException(e.getMessage(), e, inputMessage);
+    }
+  }
+
+  @Override
+  protected void writeInternal(Object body, HttpOutputMessage outputMessage) throws IOException {
+    byte[] bytes;
+    try {
+      bytes = PaymentBinaryCodec.encodeResponse((ApiSuccess<?>) body);
+    } catch (BinaryFormatException e) {
+      throw new HttpMessageNotWritableException(e.getMessage(), e);
+    }
+    outputMessage.getHeaders().setContentLength(bytes.length);
+    outputMessage.getBody().write(bytes);
+  }
+}
@@ -0,0 +1,30 @@
+package com.checkout.payment.gateway.configuration;
+
+import com.checkout.payment.gateway.admission.AdaptiveConcurrencyLimiter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(AdmissionProperties.class)
+public class AdmissionConfiguration {
+
+  @Bean
+  public AdaptiveConcurrencyLimiter paymentConcurrencyLimiter(AdmissionProperties properties,
+      MeterRegistry registry) {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+        properties.initialLimit(),
+        properties.minLimit(),
+        properties.maxLimit(),
+        properties.smoothing(),
+        properties.rttTolerance());
+
+    Gauge.builder("gateway.admission.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+        .register(registry);
+    Gauge.builder("gateway.admission.in_flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+        .register(registry);
+    return limiter;
+  }
+}
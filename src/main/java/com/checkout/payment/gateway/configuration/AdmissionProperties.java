@@ -0,0 +1,14 @@
+package com.checkout.payment.gateway.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "gateway.admission")
+public record AdmissionProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("20") int initialLimit,
+    @DefaultValue("4") int minLimit,
+    @DefaultValue("150") int maxLimit,
+    @DefaultValue("0.2") double smoothing,
+    @DefaultValue("1.5") double rttTolerance
+) {}
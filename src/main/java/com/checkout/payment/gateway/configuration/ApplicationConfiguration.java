@@ -1,19 +1,51 @@
 package com.checkout.payment.gateway.configuration;
 
-import java.time.Duration;
-import org.springframework.boot.web.client.RestTemplateBuilder;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import com.checkout.payment.gateway.service.PaymentIdGenerator;
+import com.checkout.payment.gateway.service.PaymentLookups;
+import com.checkout.payment.gateway.stats.PaymentStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.UUID;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.client.RestTemplate;
 
 @Configuration
+@EnableConfigurationProperties({
+    BankClientProperties.class,
+    DeadlineProperties.class,
+    AsyncProperties.class,
+    WarmupProperties.class,
+    StatsProperties.class
+})
 public class ApplicationConfiguration {
 
   @Bean
-  public RestTemplate restTemplate(RestTemplateBuilder builder) {
-    return builder
-        .setConnectTimeout(Duration.ofMillis(10000))
-        .setReadTimeout(Duration.ofMillis(10000))
-        .build();
+  @ConditionalOnProperty(name = "gateway.cluster.enabled", havingValue = "false", matchIfMissing = true)
+  public PaymentIdGenerator paymentIdGenerator() {
+    return UUID::randomUUID;
+  }
+
+  @Bean
+  public PaymentStats paymentStats(StatsProperties properties) {
+    return new PaymentStats(properties.minutes(), System::currentTimeMillis);
+  }
+
+  @Bean
+  public PaymentLookups paymentLookups(PaymentsRepository repository, MeterRegistry registry) {
+    PaymentLookups lookups = new PaymentLookups(repository);
+    repository.addListener(lookups);
+    FunctionCounter.builder("gateway.lookups.executed", lookups, PaymentLookups::executed)
+        .register(registry);
+    FunctionCounter.builder("gateway.lookups.coalesced", lookups, PaymentLookups::coalesced)
+        .register(registry);
+    Gauge.builder("gateway.lookups.coalescing.ratio", lookups, PaymentLookups::coalescingRatio)
+        .register(registry);
+    Gauge.builder("gateway.lookups.in.flight", lookups, PaymentLookups::inFlight)
+        .register(registry);
+    return lookups;
   }
 }
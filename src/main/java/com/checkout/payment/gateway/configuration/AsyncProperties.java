@@ -0,0 +1,12 @@
+package com.checkout.payment.gateway.configuration;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "gateway.async")
+public record AsyncProperties(
+    @DefaultValue("16") int workers,
+    @DefaultValue("1000") int queueCapacity,
+    @DefaultValue("30s") Duration bankTimeout
+) {}
@@ -0,0 +1,23 @@
+package com.checkout.payment.gateway.configuration;
+
+import java.time.Duration;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * {@code acquirers} maps the acquirer names used in the BIN table to their base URLs; cards of
+ * any other range go to {@code baseUrl}.
+ */
+@ConfigurationProperties(prefix = "gateway.bank")
+public record BankClientProperties(
+    @DefaultValue("http://localhost:8080") String baseUrl,
+    @DefaultValue("1s") Duration connectTimeout,
+    @DefaultValue("10s") Duration responseTimeout,
+    Map<String, String> acquirers
+) {
+
+  public BankClientProperties {
+    acquirers = acquirers == null ? Map.of() : Map.copyOf(acquirers);
+  }
+}
@@ -0,0 +1,24 @@
+package com.checkout.payment.gateway.configuration;
+
+import com.checkout.payment.gateway.bin.BinDirectory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ResourceLoader;
+
+@Configuration
+@EnableConfigurationProperties(BinProperties.class)
+public class BinConfiguration {
+
+  @Bean
+  public BinDirectory binDirectory(BinProperties properties, ResourceLoader resourceLoader,
+      MeterRegistry registry) {
+    BinDirectory directory = new BinDirectory(resourceLoader.getResource(properties.location()));
+    directory.reload();
+
+    Gauge.builder("gateway.bins.ranges", directory, d -> d.table().ranges()).register(registry);
+    return directory;
+  }
+}
@@ -0,0 +1,14 @@
+package com.checkout.payment.gateway.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * {@code location} is a Spring resource location; a {@code file:} table is watched and reloaded
+ * when it changes. With {@code rejectUnknown} a card number outside every range fails validation.
+ */
+@ConfigurationProperties(prefix = "gateway.bins")
+public record BinProperties(
+    @DefaultValue("classpath:bins.csv") String location,
+    @DefaultValue("false") boolean rejectUnknown
+) {}
@@ -0,0 +1,49 @@
+package com.checkout.payment.gateway.configuration;
+
+import com.checkout.payment.gateway.cluster.ClusterClient;
+import com.checkout.payment.gateway.cluster.ClusterMembership;
+import com.checkout.payment.gateway.cluster.ShardRebalancer;
+import com.checkout.payment.gateway.cluster.ShardRoutingInterceptor;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(name = "gateway.cluster.enabled", havingValue = "true")
+@EnableConfigurationProperties(ClusterProperties.class)
+public class ClusterConfiguration {
+
+  @Bean
+  public ClusterMembership clusterMembership(ClusterProperties properties,
+      PaymentsRepository paymentsRepository, MeterRegistry registry) {
+    ClusterMembership membership = new ClusterMembership(properties);
+    Gauge.builder("gateway.cluster.nodes", membership, m -> m.ring().nodes().size())
+        .register(registry);
+    Gauge.builder("gateway.cluster.payments.local", paymentsRepository, PaymentsRepository::size)
+        .register(registry);
+    return membership;
+  }
+
+  @Bean
+  public ClusterClient clusterClient(ClusterMembership membership, ClusterProperties properties) {
+    return new ClusterClient(membership, properties.forwardTimeout());
+  }
+
+  @Bean
+  public ShardRebalancer shardRebalancer(ClusterMembership membership, ClusterClient client,
+      PaymentsRepository paymentsRepository, ClusterProperties properties,
+      MeterRegistry registry) {
+    return new ShardRebalancer(membership, client, paymentsRepository,
+        properties.transferBatchSize(), registry);
+  }
+
+  @Bean
+  public ShardRoutingInterceptor shardRoutingInterceptor(ClusterMembership membership,
+      ClusterClient client, ClusterProperties properties, MeterRegistry registry) {
+    return new ShardRoutingInterceptor(membership, client, properties.forwardTimeout(), registry);
+  }
+}
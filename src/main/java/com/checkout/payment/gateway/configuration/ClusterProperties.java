@@ -0,0 +1,23 @@
+package com.checkout.payment.gateway.configuration;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Static cluster membership. {@code self} is the base URL peers use to reach this instance and
+ * {@code nodes} the initial members (including or excluding self). Nodes started later announce
+ * themselves to the configured members.
+ */
+@ConfigurationProperties(prefix = "gateway.cluster")
+public record ClusterProperties(
+    @DefaultValue("false") boolean enabled,
+    URI self,
+    @DefaultValue List<URI> nodes,
+    String secret,
+    @DefaultValue("128") int virtualNodes,
+    @DefaultValue("2s") Duration forwardTimeout,
+    @DefaultValue("500") int transferBatchSize
+) {}
@@ -0,0 +1,60 @@
+package com.checkout.payment.gateway.configuration;
+
+import org.apache.catalina.connector.Connector;
+import org.apache.coyote.AbstractProtocol;
+import org.apache.coyote.UpgradeProtocol;
+import org.apache.coyote.http2.Http2Protocol;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties({ConnectorProperties.class, AdmissionProperties.class})
+public class ConnectorConfiguration {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ConnectorConfiguration.class);
+
+  @Bean
+  public WebServerFactoryCustomizer<TomcatServletWebServerFactory> connectorCustomizer(
+      ConnectorProperties properties, AdmissionProperties admission) {
+    int cores = Runtime.getRuntime().availableProcessors();
+    return factory -> factory.addConnectorCustomizers(connector -> {
+      customizeHttp2(connector, properties);
+      if (connector.getProtocolHandler() instanceof AbstractProtocol<?> protocol) {
+        if (properties.threadsPerCore() > 0) {
+          protocol.setMaxThreads(cores * properties.threadsPerCore());
+        }
+        // every admitted payment holds a worker, fewer workers than the admission limit would
+        // queue payments in the connector where the limiter can't see them; the reserve keeps
+        // workers free for GETs, health probes and streams while admission is saturated
+        int floor = admission.maxLimit() + cores * properties.readReservePerCore();
+        if (admission.enabled() && protocol.getMaxThreads() < floor) {
+          LOG.warn("Raising maxThreads from {} to the admission max-limit {} plus a read reserve "
+              + "of {}", protocol.getMaxThreads(), admission.maxLimit(),
+              floor - admission.maxLimit());
+          protocol.setMaxThreads(floor);
+        }
+        if (properties.acceptCountPerCore() > 0) {
+          protocol.setAcceptCount(cores * properties.acceptCountPerCore());
+        }
+        LOG.info("Connector sized for {} cores: maxThreads={}, acceptCount={}", cores,
+            protocol.getMaxThreads(), protocol.getAcceptCount());
+      }
+    });
+  }
+
+  private static void customizeHttp2(Connector connector, ConnectorProperties properties) {
+    for (UpgradeProtocol upgradeProtocol : connector.findUpgradeProtocols()) {
+      if (upgradeProtocol instanceof Http2Protocol http2) {
+        http2.setMaxConcurrentStreams(properties.maxConcurrentStreams());
+        // a single multiplexed connection must not take every worker thread
+        http2.setMaxConcurrentStreamExecution(properties.maxConcurrentStreamExecution());
+        http2.setKeepAliveTimeout(properties.http2KeepAliveTimeout().toMillis());
+      }
+    }
+  }
+}
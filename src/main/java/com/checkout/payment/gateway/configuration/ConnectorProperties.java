@@ -0,0 +1,21 @@
+package com.checkout.payment.gateway.configuration;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Connector settings Spring Boot does not expose. The per core values are ignored when zero, which
+ * leaves {@code server.tomcat.threads.max} and {@code server.tomcat.accept-count} in charge.
+ * Either way the thread count is raised to at least {@code gateway.admission.max-limit} plus
+ * {@code read-reserve-per-core} threads per core, which admitted payments can never all take.
+ */
+@ConfigurationProperties(prefix = "gateway.connector")
+public record ConnectorProperties(
+    @DefaultValue("100") int maxConcurrentStreams,
+    @DefaultValue("20") int maxConcurrentStreamExecution,
+    @DefaultValue("20s") Duration http2KeepAliveTimeout,
+    @DefaultValue("0") int threadsPerCore,
+    @DefaultValue("0") int acceptCountPerCore,
+    @DefaultValue("4") int readReservePerCore
+) {}
@@ -0,0 +1,11 @@
+package com.checkout.payment.gateway.configuration;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "gateway.deadline")
+public record DeadlineProperties(
+    @DefaultValue("3s") Duration defaultTimeout,
+    @DefaultValue("10s") Duration maxTimeout
+) {}
@@ -0,0 +1,42 @@
+package com.checkout.payment.gateway.configuration;
+
+import java.util.List;
+import java.util.Set;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.actuate.autoconfigure.endpoint.web.WebEndpointProperties;
+import org.springframework.boot.actuate.autoconfigure.web.server.ManagementPortType;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+@Configuration
+public class ManagementConfiguration {
+
+  // endpoints that change the gateway's state or reveal merchant data
+  static final Set<String> INTERNAL_ENDPOINTS = Set.of("bins", "jfr", "paymentstats", "ratelimits",
+      "velocity");
+
+  /**
+   * Refuses to start with an internal endpoint exposed over HTTP on the port merchants call; it
+   * needs {@code management.server.port} set to a separate port kept off the public network.
+   */
+  @Bean
+  public SmartInitializingSingleton internalEndpointExposureCheck(WebEndpointProperties endpoints,
+      Environment environment) {
+    return () -> {
+      List<String> exposed = INTERNAL_ENDPOINTS.stream()
+          .filter(id -> isExposed(endpoints.getExposure(), id))
+          .sorted()
+          .toList();
+      if (!exposed.isEmpty() && ManagementPortType.get(environment) == ManagementPortType.SAME) {
+        throw new IllegalStateException("Endpoints " + exposed + " can only be exposed with "
+            + "management.server.port set to a port other than the application's");
+      }
+    };
+  }
+
+  private static boolean isExposed(WebEndpointProperties.Exposure exposure, String id) {
+    return (exposure.getInclude().contains("*") || exposure.getInclude().contains(id))
+        && !exposure.getExclude().contains(id);
+  }
+}
@@ -0,0 +1,29 @@
+package com.checkout.payment.gateway.configuration;
+
+import com.checkout.payment.gateway.model.PostPaymentRequest;
+import com.checkout.payment.gateway.webhook.DeadLetterStore;
+import com.checkout.payment.gateway.webhook.WebhookDispatcher;
+import com.checkout.payment.gateway.webhook.WebhookEvent;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Reflection that AOT processing cannot see on its own: the expiry validator reads getters
+ * reflectively and the webhook engine serialises its records with its own ObjectMapper calls.
+ */
+public class NativeHints implements RuntimeHintsRegistrar {
+
+  @Override
+  public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+    hints.reflection().registerType(PostPaymentRequest.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+    for (Class<?> type : new Class<?>[] {
+        WebhookEvent.class,
+        WebhookDispatcher.WebhookBatch.class,
+        DeadLetterStore.DeadLetter.class
+    }) {
+      hints.reflection().registerType(type, MemberCategory.INVOKE_PUBLIC_METHODS,
+          MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.DECLARED_FIELDS);
+    }
+  }
+}
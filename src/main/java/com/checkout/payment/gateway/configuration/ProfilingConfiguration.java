@@ -0,0 +1,18 @@
+package com.checkout.payment.gateway.configuration;
+
+import com.checkout.payment.gateway.profiling.ProfilingSessions;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(ProfilingProperties.class)
+public class ProfilingConfiguration {
+
+  @Bean(destroyMethod = "close")
+  @ConditionalOnProperty(name = "gateway.profiling.enabled", havingValue = "true")
+  public ProfilingSessions profilingSessions(ProfilingProperties properties) {
+    return new ProfilingSessions(properties);
+  }
+}
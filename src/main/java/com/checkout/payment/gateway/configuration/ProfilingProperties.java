@@ -0,0 +1,24 @@
+package com.checkout.payment.gateway.configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * On-demand flight recordings through {@code /actuator/jfr}, off unless enabled. A requested
+ * duration is capped at {@code maxDuration}, a recording keeps at most {@code maxSize} bytes by
+ * dropping its oldest data, and only the newest {@code retain} files are kept. {@code settings} names a JDK configuration,
+ * {@code default} or {@code profile}.
+ */
+@ConfigurationProperties(prefix = "gateway.profiling")
+public record ProfilingProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("./data/jfr") Path directory,
+    @DefaultValue("profile") String settings,
+    @DefaultValue("60s") Duration defaultDuration,
+    @DefaultValue("10m") Duration maxDuration,
+    @DefaultValue("268435456") long maxSize,
+    @DefaultValue("5") int retain,
+    @DefaultValue("10") int top
+) {}
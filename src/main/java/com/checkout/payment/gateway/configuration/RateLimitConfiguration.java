@@ -0,0 +1,28 @@
+package com.checkout.payment.gateway.configuration;
+
+import com.checkout.payment.gateway.ratelimit.TokenBucketRateLimiter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimitConfiguration {
+
+  @Bean
+  public TokenBucketRateLimiter tokenBucketRateLimiter(RateLimitProperties properties,
+      MeterRegistry registry) {
+    TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(
+        properties.permitsPerSecond(),
+        properties.burst(),
+        properties.maxKeys(),
+        properties.idleTimeout().toNanos(),
+        System::nanoTime);
+
+    Gauge.builder("gateway.ratelimit.keys", limiter, TokenBucketRateLimiter::size)
+        .register(registry);
+    return limiter;
+  }
+}
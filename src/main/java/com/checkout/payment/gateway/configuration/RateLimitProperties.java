@@ -0,0 +1,14 @@
+package com.checkout.payment.gateway.configuration;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "gateway.rate-limit")
+public record RateLimitProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("50") double permitsPerSecond,
+    @DefaultValue("100") int burst,
+    @DefaultValue("500000") int maxKeys,
+    @DefaultValue("10m") Duration idleTimeout
+) {}
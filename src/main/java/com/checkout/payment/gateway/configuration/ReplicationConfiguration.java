@@ -0,0 +1,36 @@
+package com.checkout.payment.gateway.configuration;
+
+import com.checkout.payment.gateway.replication.ReadOnlyReplicaInterceptor;
+import com.checkout.payment.gateway.replication.ReplicationPrimary;
+import com.checkout.payment.gateway.replication.ReplicationReplica;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(ReplicationProperties.class)
+public class ReplicationConfiguration {
+
+  @Bean(initMethod = "start", destroyMethod = "close")
+  @ConditionalOnProperty(name = "gateway.replication.role", havingValue = "primary")
+  public ReplicationPrimary replicationPrimary(ReplicationProperties properties,
+      PaymentsRepository paymentsRepository, MeterRegistry registry) {
+    return new ReplicationPrimary(properties, paymentsRepository, registry);
+  }
+
+  @Bean(initMethod = "start", destroyMethod = "close")
+  @ConditionalOnProperty(name = "gateway.replication.role", havingValue = "replica")
+  public ReplicationReplica replicationReplica(ReplicationProperties properties,
+      PaymentsRepository paymentsRepository, MeterRegistry registry) {
+    return new ReplicationReplica(properties, paymentsRepository, registry);
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "gateway.replication.role", havingValue = "replica")
+  public ReadOnlyReplicaInterceptor readOnlyReplicaInterceptor() {
+    return new ReadOnlyReplicaInterceptor();
+  }
+}
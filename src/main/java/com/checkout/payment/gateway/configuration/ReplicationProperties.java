@@ -0,0 +1,24 @@
+package com.checkout.payment.gateway.configuration;
+
+import com.checkout.payment.gateway.replication.AckMode;
+import com.checkout.payment.gateway.replication.ReplicationRole;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * {@code replicas} is the number of replicas the primary expects, used to size the quorum; a
+ * replica connects to {@code primary} (host:port).
+ */
+@ConfigurationProperties(prefix = "gateway.replication")
+public record ReplicationProperties(
+    @DefaultValue("standalone") ReplicationRole role,
+    @DefaultValue("leader") AckMode ackMode,
+    @DefaultValue("127.0.0.1") String bindAddress,
+    @DefaultValue("9190") int port,
+    @DefaultValue("localhost:9190") String primary,
+    @DefaultValue("1") int replicas,
+    @DefaultValue("100000") int logCapacity,
+    @DefaultValue("500ms") Duration ackTimeout,
+    @DefaultValue("1s") Duration reconnectDelay
+) {}
@@ -0,0 +1,17 @@
+package com.checkout.payment.gateway.configuration;
+
+import java.nio.file.Path;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Periodic snapshots of the in-memory store ({@code gateway.storage.type=memory} only). The
+ * interval is {@code gateway.storage.snapshot.interval-ms}.
+ */
+@ConfigurationProperties(prefix = "gateway.storage.snapshot")
+public record SnapshotProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("./data/snapshots") Path directory,
+    @DefaultValue("true") boolean compress,
+    @DefaultValue("2") int retain
+) {}
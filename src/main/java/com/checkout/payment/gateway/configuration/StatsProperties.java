@@ -0,0 +1,12 @@
+package com.checkout.payment.gateway.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * {@code minutes} of per-minute payment totals are kept next to the running totals.
+ */
+@ConfigurationProperties(prefix = "gateway.stats")
+public record StatsProperties(
+    @DefaultValue("60") int minutes
+) {}
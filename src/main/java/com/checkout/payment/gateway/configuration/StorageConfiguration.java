@@ -0,0 +1,92 @@
+package com.checkout.payment.gateway.configuration;
+
+import com.checkout.payment.gateway.repository.CachingPaymentStore;
+import com.checkout.payment.gateway.repository.InMemoryPaymentStore;
+import com.checkout.payment.gateway.repository.JdbcPaymentStore;
+import com.checkout.payment.gateway.repository.PaymentSnapshotter;
+import com.checkout.payment.gateway.repository.PaymentStore;
+import com.checkout.payment.gateway.repository.TieredPaymentStore;
+import io.micrometer.common.KeyValue;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationFilter;
+import java.io.IOException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Configuration
+@EnableConfigurationProperties({StorageProperties.class, SnapshotProperties.class,
+    TieringProperties.class})
+public class StorageConfiguration {
+
+  @Bean
+  @ConditionalOnProperty(name = "gateway.storage.type", havingValue = "memory", matchIfMissing = true)
+  public InMemoryPaymentStore inMemoryPaymentStore(TieringProperties tiering,
+      MeterRegistry registry) throws IOException {
+    if (!tiering.enabled()) {
+      return new InMemoryPaymentStore();
+    }
+    return new TieredPaymentStore(tiering.directory(), tiering.hotAge(), tiering.blockSize(),
+        tiering.bloomFalsePositiveRate(), registry);
+  }
+
+  @Bean(destroyMethod = "close")
+  @ConditionalOnProperty(name = "gateway.storage.type", havingValue = "jdbc")
+  public JdbcPaymentStore jdbcPaymentStore(JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager, StorageProperties properties,
+      MeterRegistry registry) {
+    return new JdbcPaymentStore(jdbcTemplate, new TransactionTemplate(transactionManager),
+        properties.batchSize(), properties.batchLinger(), properties.maxPending(),
+        properties.initializeSchema(), registry);
+  }
+
+  @Bean
+  @Primary
+  @ConditionalOnProperty(name = "gateway.storage.type", havingValue = "jdbc")
+  public PaymentStore cachingPaymentStore(JdbcPaymentStore jdbcPaymentStore,
+      StorageProperties properties, ObjectProvider<ClusterProperties> cluster,
+      MeterRegistry registry) {
+    // another node writing to the same table would make the filter's misses wrong
+    if (properties.bloomFilter() && cluster.getIfAvailable() != null) {
+      throw new IllegalStateException(
+          "gateway.storage.bloom-filter needs a single writer, disable it when clustered");
+    }
+    return new CachingPaymentStore(jdbcPaymentStore, properties, registry);
+  }
+
+  @Bean(destroyMethod = "close")
+  @ConditionalOnProperty(name = "gateway.storage.snapshot.enabled", havingValue = "true")
+  public PaymentSnapshotter paymentSnapshotter(PaymentStore store, SnapshotProperties properties,
+      MeterRegistry registry) throws IOException {
+    if (!(store instanceof InMemoryPaymentStore inMemory)) {
+      throw new IllegalStateException("Snapshots need gateway.storage.type=memory");
+    }
+    PaymentSnapshotter snapshotter = new PaymentSnapshotter(inMemory, properties.directory(),
+        properties.compress(), properties.retain(), registry);
+    snapshotter.restore();
+    return snapshotter;
+  }
+
+  /**
+   * Tags {@code http.server.requests} with whether a snapshot was running when the request
+   * finished, so its latency impact shows up as a split of the usual request timer.
+   */
+  @Bean
+  @ConditionalOnProperty(name = "gateway.storage.snapshot.enabled", havingValue = "true")
+  public ObservationFilter snapshotObservationFilter(PaymentSnapshotter snapshotter) {
+    return context -> {
+      if (context instanceof ServerRequestObservationContext) {
+        context.addLowCardinalityKeyValue(
+            KeyValue.of("snapshot", snapshotter.isRunning() ? "running" : "idle"));
+      }
+      return context;
+    };
+  }
+}
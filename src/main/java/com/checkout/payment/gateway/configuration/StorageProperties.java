@@ -0,0 +1,27 @@
+package com.checkout.payment.gateway.configuration;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * {@code type} is {@code memory} or {@code jdbc}; the JDBC store uses the regular
+ * {@code spring.datasource.*} connection pool and is fronted by the near cache configured here.
+ * The Bloom filter is off by default: it is only correct for a single writer, when every write to
+ * the table goes through this node, and is refused when the gateway runs clustered.
+ */
+@ConfigurationProperties(prefix = "gateway.storage")
+public record StorageProperties(
+    @DefaultValue("memory") String type,
+    @DefaultValue("500") int batchSize,
+    @DefaultValue("5ms") Duration batchLinger,
+    @DefaultValue("100000") int maxPending,
+    @DefaultValue("true") boolean initializeSchema,
+    @DefaultValue("100000") int cacheSize,
+    @DefaultValue("10m") Duration cacheTtl,
+    @DefaultValue("100000") int negativeCacheSize,
+    @DefaultValue("30s") Duration negativeCacheTtl,
+    @DefaultValue("false") boolean bloomFilter,
+    @DefaultValue("1000000") long bloomExpectedInsertions,
+    @DefaultValue("0.01") double bloomFalsePositiveRate
+) {}
@@ -0,0 +1,31 @@
+package com.checkout.payment.gateway.configuration;
+
+import com.checkout.payment.gateway.stream.PaymentStream;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(StreamProperties.class)
+public class StreamConfiguration {
+
+  @Bean(initMethod = "start", destroyMethod = "close")
+  public PaymentStream paymentStream(StreamProperties properties, MeterRegistry registry) {
+    PaymentStream stream = new PaymentStream(properties.ringSize(), properties.bufferSize(),
+        properties.slowConsumerPolicy(), properties.maxSubscribers(), properties.senderThreads(),
+        properties.heartbeat());
+
+    Gauge.builder("gateway.stream.subscribers", stream, PaymentStream::subscribers)
+        .register(registry);
+    FunctionCounter.builder("gateway.stream.published", stream, PaymentStream::published)
+        .register(registry);
+    FunctionCounter.builder("gateway.stream.dropped", stream, PaymentStream::dropped)
+        .register(registry);
+    FunctionCounter.builder("gateway.stream.disconnected", stream, PaymentStream::disconnected)
+        .register(registry);
+    return stream;
+  }
+}
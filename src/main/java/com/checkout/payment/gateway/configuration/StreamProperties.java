@@ -0,0 +1,21 @@
+package com.checkout.payment.gateway.configuration;
+
+import com.checkout.payment.gateway.stream.SlowConsumerPolicy;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * {@code ringSize} events are shared by all subscribers and must be a power of two; a subscriber
+ * more than {@code bufferSize} events behind is handled by {@code slowConsumerPolicy}.
+ */
+@ConfigurationProperties(prefix = "gateway.stream")
+public record StreamProperties(
+    @DefaultValue("8192") int ringSize,
+    @DefaultValue("1024") int bufferSize,
+    @DefaultValue("drop") SlowConsumerPolicy slowConsumerPolicy,
+    @DefaultValue("5000") int maxSubscribers,
+    @DefaultValue("4") int senderThreads,
+    @DefaultValue("15s") Duration heartbeat,
+    @DefaultValue("30m") Duration timeout
+) {}
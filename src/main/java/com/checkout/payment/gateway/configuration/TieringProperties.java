@@ -0,0 +1,20 @@
+package com.checkout.payment.gateway.configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Hot/cold tiering of the in-memory store: payments not written for {@code hotAge} move to
+ * compressed segments in {@code directory}. The migration interval is
+ * {@code gateway.storage.tiering.migrate-interval-ms}.
+ */
+@ConfigurationProperties(prefix = "gateway.storage.tiering")
+public record TieringProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("1h") Duration hotAge,
+    @DefaultValue("./data/cold") Path directory,
+    @DefaultValue("32768") int blockSize,
+    @DefaultValue("0.01") double bloomFalsePositiveRate
+) {}
@@ -0,0 +1,35 @@
+package com.checkout.payment.gateway.configuration;
+
+import com.checkout.payment.gateway.vault.CardVault;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.security.SecureRandom;
+import java.util.Base64;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(VaultProperties.class)
+public class VaultConfiguration {
+
+  private static final Logger LOG = LoggerFactory.getLogger(VaultConfiguration.class);
+
+  @Bean
+  public CardVault cardVault(VaultProperties properties, MeterRegistry registry) {
+    byte[] key;
+    if (properties.key() == null || properties.key().isBlank()) {
+      LOG.warn("No gateway.vault.key configured, card tokens will not survive a restart");
+      key = new byte[32];
+      new SecureRandom().nextBytes(key);
+    } else {
+      key = Base64.getDecoder().decode(properties.key());
+    }
+
+    CardVault vault = new CardVault(key, properties.maxTokens());
+    Gauge.builder("gateway.vault.tokens", vault, CardVault::size).register(registry);
+    return vault;
+  }
+}
@@ -0,0 +1,14 @@
+package com.checkout.payment.gateway.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * {@code key} is a base64 AES key (128, 192 or 256 bits). Without one, a random key is generated
+ * at startup and tokens are only valid for the lifetime of the process.
+ */
+@ConfigurationProperties(prefix = "gateway.vault")
+public record VaultProperties(
+    String key,
+    @DefaultValue("1000000") int maxTokens
+) {}
@@ -0,0 +1,33 @@
+package com.checkout.payment.gateway.configuration;
+
+import com.checkout.payment.gateway.velocity.VelocityEngine;
+import com.checkout.payment.gateway.velocity.VelocityRule;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(VelocityProperties.class)
+public class VelocityConfiguration {
+
+  @Bean
+  public VelocityEngine velocityEngine(VelocityProperties properties, MeterRegistry registry) {
+    List<VelocityRule> rules = properties.enabled() ? properties.rules() : List.of();
+    VelocityEngine engine = new VelocityEngine(rules, properties.slots(),
+        properties.maxKeysPerRule(), System::nanoTime);
+
+    for (VelocityRule rule : engine.rules()) {
+      FunctionCounter.builder("gateway.velocity.declined", engine, e -> e.declined(rule))
+          .tag("rule", rule.name())
+          .register(registry);
+      Gauge.builder("gateway.velocity.keys", engine, e -> e.trackedKeys(rule))
+          .tag("rule", rule.name())
+          .register(registry);
+    }
+    return engine;
+  }
+}
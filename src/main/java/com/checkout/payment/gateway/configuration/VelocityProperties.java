@@ -0,0 +1,18 @@
+package com.checkout.payment.gateway.configuration;
+
+import com.checkout.payment.gateway.velocity.VelocityRule;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * {@code slots} is the number of buckets each rule window is split into; more slots slide the
+ * window more smoothly at the cost of a longer sum.
+ */
+@ConfigurationProperties(prefix = "gateway.velocity")
+public record VelocityProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("6") int slots,
+    @DefaultValue("200000") int maxKeysPerRule,
+    @DefaultValue List<VelocityRule> rules
+) {}
@@ -0,0 +1,15 @@
+package com.checkout.payment.gateway.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "gateway.warmup")
+public record WarmupProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("4") int concurrency,
+    @DefaultValue("200") int windowSize,
+    @DefaultValue("50") int maxWindows,
+    @DefaultValue("3") int stableWindows,
+    @DefaultValue("0.15") double tolerance,
+    @DefaultValue("8") int bankConnections
+) {}
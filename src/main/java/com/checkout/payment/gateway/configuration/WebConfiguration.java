@@ -0,0 +1,58 @@
+package com.checkout.payment.gateway.configuration;
+
+import com.checkout.payment.gateway.admission.AdmissionControlInterceptor;
+import com.checkout.payment.gateway.cluster.ShardRoutingInterceptor;
+import com.checkout.payment.gateway.codec.PaymentBinaryMessageConverter;
+import com.checkout.payment.gateway.controller.ApiKeyInterceptor;
+import com.checkout.payment.gateway.profiling.RecordingValidator;
+import com.checkout.payment.gateway.ratelimit.RateLimitInterceptor;
+import com.checkout.payment.gateway.replication.ReadOnlyReplicaInterceptor;
+import jakarta.validation.Validator;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfiguration implements WebMvcConfigurer {
+
+  private final ApiKeyInterceptor apiKeyInterceptor;
+  private final RateLimitInterceptor rateLimitInterceptor;
+  private final AdmissionControlInterceptor admissionControlInterceptor;
+  private final ObjectProvider<ShardRoutingInterceptor> shardRoutingInterceptor;
+  private final ObjectProvider<ReadOnlyReplicaInterceptor> readOnlyReplicaInterceptor;
+  private final ObjectProvider<Validator> validator;
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(apiKeyInterceptor)
+        .addPathPatterns("/payment", "/payment/**", "/payments/stream");
+    readOnlyReplicaInterceptor.ifAvailable(interceptor ->
+        registry.addInterceptor(interceptor).addPathPatterns("/payment", "/payment/**"));
+    // reads for another shard are rate limited by the node that owns it
+    shardRoutingInterceptor.ifAvailable(interceptor ->
+        registry.addInterceptor(interceptor).addPathPatterns("/payment/*"));
+    // throttle a noisy merchant before it can take admission slots from everyone else
+    registry.addInterceptor(rateLimitInterceptor)
+        .addPathPatterns("/payment", "/payment/**", "/payments/stream");
+    registry.addInterceptor(admissionControlInterceptor)
+        .addPathPatterns("/payment", "/payments/stream");
+  }
+
+  @Override
+  public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+    // appended after Jackson so JSON stays the default for Accept: */*
+    converters.add(new PaymentBinaryMessageConverter());
+  }
+
+  // @Valid request bodies go through the Bean Validation provider, timed for flight recordings
+  @Override
+  public RecordingValidator getValidator() {
+    Validator provider = validator.getIfUnique();
+    return provider == null ? null : new RecordingValidator(provider);
+  }
+}
@@ -0,0 +1,55 @@
+package com.checkout.payment.gateway.configuration;
+
+import com.checkout.payment.gateway.webhook.DeadLetterStore;
+import com.checkout.payment.gateway.webhook.WebhookDispatcher;
+import com.checkout.payment.gateway.webhook.WebhookEventListener;
+import com.checkout.payment.gateway.webhook.WebhookOutbox;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(WebhookProperties.class)
+@ConditionalOnProperty(prefix = "gateway.webhooks", name = "enabled", havingValue = "true")
+public class WebhookConfiguration {
+
+  @Bean(destroyMethod = "close")
+  public WebhookOutbox webhookOutbox(WebhookProperties properties, ObjectMapper mapper)
+      throws IOException {
+    return new WebhookOutbox(properties.directory(), mapper, properties.fsync());
+  }
+
+  @Bean(destroyMethod = "close")
+  public DeadLetterStore webhookDeadLetterStore(WebhookProperties properties, ObjectMapper mapper)
+      throws IOException {
+    return new DeadLetterStore(properties.directory(), mapper);
+  }
+
+  @Bean(initMethod = "start", destroyMethod = "close")
+  public WebhookDispatcher webhookDispatcher(WebhookOutbox outbox, DeadLetterStore deadLetters,
+      WebhookProperties properties, ObjectMapper mapper, MeterRegistry registry) {
+    WebhookDispatcher dispatcher = new WebhookDispatcher(outbox, deadLetters, properties, mapper);
+
+    FunctionCounter.builder("gateway.webhooks.delivered", dispatcher, WebhookDispatcher::delivered)
+        .register(registry);
+    FunctionCounter.builder("gateway.webhooks.failed_attempts", dispatcher,
+        WebhookDispatcher::failedAttempts).register(registry);
+    FunctionCounter.builder("gateway.webhooks.dead_lettered", dispatcher,
+        WebhookDispatcher::deadLettered).register(registry);
+    Gauge.builder("gateway.webhooks.queued", dispatcher, WebhookDispatcher::queued)
+        .register(registry);
+    return dispatcher;
+  }
+
+  @Bean
+  public WebhookEventListener webhookEventListener(WebhookOutbox outbox,
+      WebhookDispatcher dispatcher, WebhookProperties properties) {
+    return new WebhookEventListener(outbox, dispatcher, properties);
+  }
+}
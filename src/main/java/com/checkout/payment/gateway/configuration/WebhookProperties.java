@@ -0,0 +1,28 @@
+package com.checkout.payment.gateway.configuration;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "gateway.webhooks")
+public record WebhookProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("data/webhooks") Path directory,
+    @DefaultValue("true") boolean fsync,
+    @DefaultValue("4") int workers,
+    @DefaultValue("50") int batchSize,
+    @DefaultValue("8") int maxAttempts,
+    @DefaultValue("1s") Duration initialBackoff,
+    @DefaultValue("5m") Duration maxBackoff,
+    @DefaultValue("2s") Duration connectTimeout,
+    @DefaultValue("5s") Duration requestTimeout,
+    Map<String, URI> endpoints
+) {
+
+  public WebhookProperties {
+    endpoints = endpoints == null ? Map.of() : Map.copyOf(endpoints);
+  }
+}
@@ -0,0 +1,30 @@
+package com.checkout.payment.gateway.controller;
+
+import com.checkout.payment.gateway.exception.InvalidApiKeyException;
+import com.checkout.payment.gateway.startup.WarmupContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Turns away API keys the gateway could not store as a merchant id, before they reach a rate
+ * limit bucket, a stored payment or the database, and the key reserved for warm-up traffic.
+ */
+@Component
+public class ApiKeyInterceptor implements HandlerInterceptor {
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+      Object handler) {
+    String apiKey = request.getHeader(GatewayHeaders.API_KEY);
+    if (apiKey != null && apiKey.length() > GatewayHeaders.MAX_API_KEY_LENGTH) {
+      throw new InvalidApiKeyException("API key longer than "
+          + GatewayHeaders.MAX_API_KEY_LENGTH + " characters");
+    }
+    if (WarmupContext.MERCHANT.equals(apiKey) && !WarmupContext.isSynthetic()) {
+      throw new InvalidApiKeyException("API key is reserved");
+    }
+    return true;
+  }
+}
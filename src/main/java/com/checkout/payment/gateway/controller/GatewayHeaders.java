@@ -0,0 +1,44 @@
+package com.checkout.payment.gateway.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+public final class GatewayHeaders {
+
+  public static final String API_KEY = "X-Api-Key";
+  public static final String REQUEST_TIMEOUT = "X-Request-Timeout-Ms";
+  public static final String WARMUP = "X-Warmup";
+  public static final String PREFER = "Prefer";
+  public static final String PREFERENCE_APPLIED = "Preference-Applied";
+  public static final String RESPOND_ASYNC = "respond-async";
+  public static final String CLUSTER_TOKEN = "X-Cluster-Token";
+  public static final String CARD_TOKEN = "X-Card-Token";
+  public static final String ANONYMOUS = "anonymous";
+  // the width of the merchant_id column
+  public static final int MAX_API_KEY_LENGTH = 255;
+
+  private GatewayHeaders() {
+  }
+
+  public static String apiKey(HttpServletRequest request) {
+    String apiKey = request.getHeader(API_KEY);
+    return apiKey == null || apiKey.isBlank() ? ANONYMOUS : apiKey;
+  }
+
+  /**
+   * A digest of an API key for stats and logs; the key is the merchant's credential, so it is
+   * never shown, but an operator can match a known key to its digest.
+   */
+  public static String redact(String apiKey) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256")
+          .digest(apiKey.getBytes(StandardCharsets.UTF_8));
+      return "sha256:" + HexFormat.of().formatHex(digest, 0, 8);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
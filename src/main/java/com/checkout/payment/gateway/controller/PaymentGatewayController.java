@@ -1,12 +1,18 @@
 package com.checkout.payment.gateway.controller;
 
+import com.checkout.payment.gateway.codec.PaymentBinaryMessageConverter;
+import com.checkout.payment.gateway.enums.PaymentStatus;
 import com.checkout.payment.gateway.model.ApiSuccess;
+import com.checkout.payment.gateway.model.PaymentOperationRequest;
 import com.checkout.payment.gateway.model.PostPaymentRequest;
 import com.checkout.payment.gateway.model.PostPaymentResponse;
 import com.checkout.payment.gateway.model.ResponseCode;
 import com.checkout.payment.gateway.service.PaymentGatewayService;
+import com.checkout.payment.gateway.service.PaymentGatewayService.ProcessedPayment;
+import java.net.URI;
 import java.util.UUID;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -14,6 +20,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController("api/v1/")
@@ -25,17 +32,85 @@ public class PaymentGatewayController {
     this.paymentGatewayService = paymentGatewayService;
   }
 
-  @GetMapping(value = "/payment/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+  @GetMapping(value = "/payment/{id}",
+      produces = {MediaType.APPLICATION_JSON_VALUE, PaymentBinaryMessageConverter.MEDIA_TYPE_VALUE})
   public ResponseEntity<ApiSuccess<PostPaymentResponse>> getPostPaymentEventById(@PathVariable UUID id) {
     return ResponseEntity.status(HttpStatus.OK)
         .body(ApiSuccess.ok(ResponseCode.PAYMENT_FOUND, "Payment has been found", paymentGatewayService.getPaymentById(id)));
   }
 
-  @PostMapping(value = "/payment", consumes = MediaType.APPLICATION_JSON_VALUE)
-  public ResponseEntity<ApiSuccess<UUID>> createPayment(@RequestBody @Valid PostPaymentRequest request) {
+  @PostMapping(value = "/payment",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, PaymentBinaryMessageConverter.MEDIA_TYPE_VALUE})
+  public ResponseEntity<ApiSuccess<UUID>> createPayment(@RequestBody @Valid PostPaymentRequest request,
+      @RequestHeader(value = GatewayHeaders.PREFER, required = false) String prefer,
+      @RequestHeader(value = GatewayHeaders.API_KEY, defaultValue = GatewayHeaders.ANONYMOUS) String merchantId) {
+    if (prefer != null && prefer.contains(GatewayHeaders.RESPOND_ASYNC)) {
+      UUID id = paymentGatewayService.submitPayment(request, merchantId);
+      return ResponseEntity
+          .status(HttpStatus.ACCEPTED)
+          .location(URI.create("/payment/" + id))
+          .header(GatewayHeaders.PREFERENCE_APPLIED, GatewayHeaders.RESPOND_ASYNC)
+          .headers(cardToken(request.getCardToken()))
+          .body(ApiSuccess.accepted(ResponseCode.PAYMENT_ACCEPTED, "Payment accepted", id));
+    }
+    ProcessedPayment processed = paymentGatewayService.processPayment(request, merchantId);
+    PostPaymentResponse payment = processed.payment();
+    if (payment.getStatus() == PaymentStatus.PENDING) {
+      // the deadline expired while the bank was deciding, its answer is recorded when it arrives
+      return ResponseEntity
+          .status(HttpStatus.ACCEPTED)
+          .location(URI.create("/payment/" + payment.getId()))
+          .headers(cardToken(processed.cardToken()))
+          .body(ApiSuccess.accepted(ResponseCode.PAYMENT_ACCEPTED, "Payment accepted",
+              payment.getId()));
+    }
     return ResponseEntity
         .status(HttpStatus.CREATED)
-        .body(ApiSuccess.created(ResponseCode.PAYMENT_CREATED, "Payment created", paymentGatewayService.processPayment(request)));
+        .headers(cardToken(processed.cardToken()))
+        .body(ApiSuccess.created(ResponseCode.PAYMENT_CREATED, "Payment created",
+            payment.getId()));
+  }
+
+  @PostMapping(value = "/payment/{id}/captures",
+      produces = {MediaType.APPLICATION_JSON_VALUE, PaymentBinaryMessageConverter.MEDIA_TYPE_VALUE})
+  public ResponseEntity<ApiSuccess<PostPaymentResponse>> capturePayment(@PathVariable UUID id,
+      @RequestBody(required = false) @Valid PaymentOperationRequest request,
+      @RequestHeader(value = GatewayHeaders.API_KEY, defaultValue = GatewayHeaders.ANONYMOUS) String merchantId) {
+    return ResponseEntity.status(HttpStatus.OK)
+        .body(ApiSuccess.ok(ResponseCode.PAYMENT_CAPTURED, "Payment captured",
+            paymentGatewayService.capturePayment(id, merchantId, amount(request))));
+  }
+
+  @PostMapping(value = "/payment/{id}/voids",
+      produces = {MediaType.APPLICATION_JSON_VALUE, PaymentBinaryMessageConverter.MEDIA_TYPE_VALUE})
+  public ResponseEntity<ApiSuccess<PostPaymentResponse>> voidPayment(@PathVariable UUID id,
+      @RequestHeader(value = GatewayHeaders.API_KEY, defaultValue = GatewayHeaders.ANONYMOUS) String merchantId) {
+    return ResponseEntity.status(HttpStatus.OK)
+        .body(ApiSuccess.ok(ResponseCode.PAYMENT_VOIDED, "Payment voided",
+            paymentGatewayService.voidPayment(id, merchantId)));
+  }
+
+  @PostMapping(value = "/payment/{id}/refunds",
+      produces = {MediaType.APPLICATION_JSON_VALUE, PaymentBinaryMessageConverter.MEDIA_TYPE_VALUE})
+  public ResponseEntity<ApiSuccess<PostPaymentResponse>> refundPayment(@PathVariable UUID id,
+      @RequestBody(required = false) @Valid PaymentOperationRequest request,
+      @RequestHeader(value = GatewayHeaders.API_KEY, defaultValue = GatewayHeaders.ANONYMOUS) String merchantId) {
+    return ResponseEntity.status(HttpStatus.OK)
+        .body(ApiSuccess.ok(ResponseCode.PAYMENT_REFUNDED, "Payment refunded",
+            paymentGatewayService.refundPayment(id, merchantId, amount(request))));
+  }
+
+  private static Long amount(PaymentOperationRequest request) {
+    return request == null ? null : request.getAmount();
+  }
+
+  // merchants reuse the vault token instead of the card number
+  private static HttpHeaders cardToken(String token) {
+    HttpHeaders headers = new HttpHeaders();
+    if (token != null) {
+      headers.set(GatewayHeaders.CARD_TOKEN, token);
+    }
+    return headers;
   }
 
 }
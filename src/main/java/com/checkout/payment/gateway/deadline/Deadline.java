@@ -0,0 +1,32 @@
+package com.checkout.payment.gateway.deadline;
+
+import java.time.Duration;
+
+/**
+ * Point in time by which a request has to be answered, based on {@link System#nanoTime()}.
+ */
+public final class Deadline {
+
+  private final long expiresAtNanos;
+
+  private Deadline(long expiresAtNanos) {
+    this.expiresAtNanos = expiresAtNanos;
+  }
+
+  public static Deadline after(Duration timeout) {
+    return new Deadline(System.nanoTime() + timeout.toNanos());
+  }
+
+  public Duration remaining() {
+    return Duration.ofNanos(Math.max(0, expiresAtNanos - System.nanoTime()));
+  }
+
+  public boolean isExpired() {
+    return expiresAtNanos - System.nanoTime() <= 0;
+  }
+
+  @Override
+  public String toString() {
+    return "Deadline{remaining=" + remaining() + '}';
+  }
+}
@@ -0,0 +1,26 @@
+package com.checkout.payment.gateway.deadline;
+
+import java.util.Optional;
+
+/**
+ * Deadline of the request handled by the current thread, set by {@link DeadlineFilter}.
+ */
+public final class DeadlineContext {
+
+  private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+  private DeadlineContext() {
+  }
+
+  public static Optional<Deadline> current() {
+    return Optional.ofNullable(CURRENT.get());
+  }
+
+  static void set(Deadline deadline) {
+    CURRENT.set(deadline);
+  }
+
+  static void clear() {
+    CURRENT.remove();
+  }
+}
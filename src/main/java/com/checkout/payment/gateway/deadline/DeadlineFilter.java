@@ -0,0 +1,55 @@
+package com.checkout.payment.gateway.deadline;
+
+import com.checkout.payment.gateway.configuration.DeadlineProperties;
+import com.checkout.payment.gateway.controller.GatewayHeaders;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Starts the request clock before the body is read so parsing and validation are charged to the
+ * same budget as the bank call.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class DeadlineFilter extends OncePerRequestFilter {
+
+  private final DeadlineProperties properties;
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain filterChain) throws ServletException, IOException {
+    DeadlineContext.set(Deadline.after(timeoutFor(request)));
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      DeadlineContext.clear();
+    }
+  }
+
+  private Duration timeoutFor(HttpServletRequest request) {
+    String header = request.getHeader(GatewayHeaders.REQUEST_TIMEOUT);
+    if (header == null || header.isBlank()) {
+      return properties.defaultTimeout();
+    }
+    try {
+      long millis = Long.parseLong(header.trim());
+      if (millis <= 0) {
+        return properties.defaultTimeout();
+      }
+      Duration requested = Duration.ofMillis(millis);
+      return requested.compareTo(properties.maxTimeout()) > 0 ? properties.maxTimeout() : requested;
+    } catch (NumberFormatException e) {
+      return properties.defaultTimeout();
+    }
+  }
+}
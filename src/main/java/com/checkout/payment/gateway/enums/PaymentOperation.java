@@ -0,0 +1,20 @@
+package com.checkout.payment.gateway.enums;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+public enum PaymentOperation {
+  CAPTURE("Capture"),
+  VOID("Void"),
+  REFUND("Refund");
+
+  private final String name;
+
+  PaymentOperation(String name) {
+    this.name = name;
+  }
+
+  @JsonValue
+  public String getName() {
+    return this.name;
+  }
+}
@@ -3,9 +3,13 @@ package com.checkout.payment.gateway.enums;
 import com.fasterxml.jackson.annotation.JsonValue;
 
 public enum PaymentStatus {
+  PENDING("Pending"),
   AUTHORIZED("Authorized"),
   DECLINED("Declined"),
-  REJECTED("Rejected");
+  REJECTED("Rejected"),
+  CAPTURED("Captured"),
+  VOIDED("Voided"),
+  REFUNDED("Refunded");
 
   private final String name;
 
@@ -0,0 +1,5 @@
+package com.checkout.payment.gateway.event;
+
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+
+public record PaymentStatusChangedEvent(PostPaymentResponse payment) {}
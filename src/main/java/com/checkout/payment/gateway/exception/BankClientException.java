@@ -0,0 +1,15 @@
+package com.checkout.payment.gateway.exception;
+
+public class BankClientException extends RuntimeException {
+
+  private final int statusCode;
+
+  public BankClientException(int statusCode) {
+    super("Acquiring bank answered with status " + statusCode);
+    this.statusCode = statusCode;
+  }
+
+  public int getStatusCode() {
+    return statusCode;
+  }
+}
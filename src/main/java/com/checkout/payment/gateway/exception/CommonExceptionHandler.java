@@ -32,11 +32,128 @@ public class CommonExceptionHandler extends ResponseEntityExceptionHandler {
 
   @ExceptionHandler(EventProcessingException.class)
   public ResponseEntity<ErrorResponse> handleException(EventProcessingException ex) {
-    LOG.error("Exception happened", ex);
+    LOG.debug("Payment lookup failed: {}", ex.getMessage());
     return new ResponseEntity<>(new ErrorResponse("Page not found"),
         HttpStatus.NOT_FOUND);
   }
 
+  @ExceptionHandler(ServiceOverloadedException.class)
+  public ResponseEntity<Object> handleOverloaded(ServiceOverloadedException ex) {
+    LOG.warn("Shedding request: {}", ex.getMessage());
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfter().toSeconds()))
+        .body(apiError(
+            HttpStatus.SERVICE_UNAVAILABLE,
+            "SERVICE_OVERLOADED",
+            "Service is overloaded, retry later",
+            null
+        ));
+  }
+
+  @ExceptionHandler(ShardUnavailableException.class)
+  public ResponseEntity<Object> handleShardUnavailable(ShardUnavailableException ex) {
+    LOG.warn(ex.getMessage());
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, "1")
+        .body(apiError(
+            HttpStatus.SERVICE_UNAVAILABLE,
+            "SHARD_UNAVAILABLE",
+            "The node holding this payment is unavailable, retry later",
+            null
+        ));
+  }
+
+  @ExceptionHandler(ReadOnlyReplicaException.class)
+  public ResponseEntity<Object> handleReadOnlyReplica(ReadOnlyReplicaException ex) {
+    LOG.debug(ex.getMessage());
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(apiError(
+        HttpStatus.SERVICE_UNAVAILABLE,
+        "READ_ONLY_REPLICA",
+        "This node only serves lookups, create payments on the primary",
+        null
+    ));
+  }
+
+  @ExceptionHandler(InvalidCardTokenException.class)
+  public ResponseEntity<Object> handleInvalidCardToken(InvalidCardTokenException ex) {
+    LOG.debug(ex.getMessage());
+    return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(apiError(
+        HttpStatus.BAD_REQUEST,
+        "VALIDATION_ERROR",
+        "Validation failed",
+        Map.of("fields", Map.of("card_token", "Unknown card token"))
+    ));
+  }
+
+  @ExceptionHandler(InvalidApiKeyException.class)
+  public ResponseEntity<Object> handleInvalidApiKey(InvalidApiKeyException ex) {
+    LOG.debug(ex.getMessage());
+    return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(apiError(
+        HttpStatus.BAD_REQUEST,
+        "INVALID_API_KEY",
+        ex.getMessage(),
+        null
+    ));
+  }
+
+  @ExceptionHandler(InvalidPaymentTransitionException.class)
+  public ResponseEntity<Object> handleInvalidTransition(InvalidPaymentTransitionException ex) {
+    LOG.debug(ex.getMessage());
+    return ResponseEntity.status(HttpStatus.CONFLICT).body(apiError(
+        HttpStatus.CONFLICT,
+        "INVALID_TRANSITION",
+        ex.getMessage(),
+        null
+    ));
+  }
+
+  @ExceptionHandler(OperationDeclinedException.class)
+  public ResponseEntity<Object> handleOperationDeclined(OperationDeclinedException ex) {
+    LOG.info(ex.getMessage());
+    return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(apiError(
+        HttpStatus.UNPROCESSABLE_ENTITY,
+        "OPERATION_DECLINED",
+        "The acquiring bank declined the operation",
+        null
+    ));
+  }
+
+  @ExceptionHandler(BankClientException.class)
+  public ResponseEntity<Object> handleBankError(BankClientException ex) {
+    LOG.warn(ex.getMessage());
+    return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(apiError(
+        HttpStatus.BAD_GATEWAY,
+        "BANK_ERROR",
+        "The acquiring bank could not complete the request",
+        null
+    ));
+  }
+
+  @ExceptionHandler(DeadlineExceededException.class)
+  public ResponseEntity<Object> handleDeadlineExceeded(DeadlineExceededException ex) {
+    LOG.warn(ex.getMessage());
+    return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(apiError(
+        HttpStatus.GATEWAY_TIMEOUT,
+        "DEADLINE_EXCEEDED",
+        "Request could not be completed in time",
+        null
+    ));
+  }
+
+  @ExceptionHandler(RateLimitExceededException.class)
+  public ResponseEntity<Object> handleRateLimited(RateLimitExceededException ex) {
+    LOG.debug(ex.getMessage());
+    long retryAfterSeconds = Math.max(1, (long) Math.ceil(ex.getRetryAfter().toMillis() / 1000.0));
+    return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+        .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+        .body(apiError(
+            HttpStatus.TOO_MANY_REQUESTS,
+            "RATE_LIMITED",
+            "Too many requests",
+            null
+        ));
+  }
+
   @Override
   protected ResponseEntity<Object> handleMethodArgumentNotValid(
       MethodArgumentNotValidException ex,
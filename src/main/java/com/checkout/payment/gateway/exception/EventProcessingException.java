@@ -2,6 +2,7 @@ package com.checkout.payment.gateway.exception;
 
 public class EventProcessingException extends RuntimeException{
   public EventProcessingException(String message) {
-    super(message);
+    // thrown for every unknown id a client polls, so skip the stack trace
+    super(message, null, false, false);
   }
 }
@@ -0,0 +1,8 @@
+package com.checkout.payment.gateway.exception;
+
+public class InvalidApiKeyException extends RuntimeException {
+
+  public InvalidApiKeyException(String message) {
+    super(message, null, false, false);
+  }
+}
@@ -0,0 +1,8 @@
+package com.checkout.payment.gateway.exception;
+
+public class InvalidCardTokenException extends RuntimeException {
+
+  public InvalidCardTokenException(String message) {
+    super(message, null, false, false);
+  }
+}
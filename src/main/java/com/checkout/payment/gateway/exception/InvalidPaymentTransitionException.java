@@ -0,0 +1,8 @@
+package com.checkout.payment.gateway.exception;
+
+public class InvalidPaymentTransitionException extends RuntimeException {
+
+  public InvalidPaymentTransitionException(String message) {
+    super(message, null, false, false);
+  }
+}
@@ -0,0 +1,8 @@
+package com.checkout.payment.gateway.exception;
+
+public class OperationDeclinedException extends RuntimeException {
+
+  public OperationDeclinedException(String message) {
+    super(message, null, false, false);
+  }
+}
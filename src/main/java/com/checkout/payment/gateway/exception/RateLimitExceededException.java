@@ -0,0 +1,17 @@
+package com.checkout.payment.gateway.exception;
+
+import java.time.Duration;
+
+public class RateLimitExceededException extends RuntimeException {
+
+  private final Duration retryAfter;
+
+  public RateLimitExceededException(String apiKey, Duration retryAfter) {
+    super("Rate limit exceeded for " + apiKey, null, false, false);
+    this.retryAfter = retryAfter;
+  }
+
+  public Duration getRetryAfter() {
+    return retryAfter;
+  }
+}
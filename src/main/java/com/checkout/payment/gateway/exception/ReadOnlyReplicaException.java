@@ -0,0 +1,8 @@
+package com.checkout.payment.gateway.exception;
+
+public class ReadOnlyReplicaException extends RuntimeException {
+
+  public ReadOnlyReplicaException(String message) {
+    super(message, null, false, false);
+  }
+}
@@ -0,0 +1,8 @@
+package com.checkout.payment.gateway.exception;
+
+public class ShardUnavailableException extends RuntimeException {
+
+  public ShardUnavailableException(String message, Throwable cause) {
+    super(message, cause, false, false);
+  }
+}
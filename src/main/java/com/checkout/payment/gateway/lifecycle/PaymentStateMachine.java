@@ -0,0 +1,99 @@
+package com.checkout.payment.gateway.lifecycle;
+
+import com.checkout.payment.gateway.enums.PaymentOperation;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.exception.InvalidPaymentTransitionException;
+import com.checkout.payment.gateway.model.PaymentTransition;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import java.time.Instant;
+import java.util.Locale;
+
+/**
+ * Transitions of an authorised payment:
+ *
+ * <pre>
+ * AUTHORIZED --capture(amount <= authorised)--> CAPTURED --refund(...)--> REFUNDED
+ *      \--void--> VOIDED
+ * </pre>
+ *
+ * A capture below the authorised amount releases the rest. Refunds can be partial and repeated
+ * until the captured amount is used up; the payment stays CAPTURED until then.
+ *
+ * <p>Stored payments are immutable, so a transition is a pure function from one version to the
+ * next. Callers commit it with a compare-and-set on the store. Once the bank has approved the
+ * operation it is {@link #record recorded} on whatever version won a failed set, without checking
+ * the transition again.
+ */
+public final class PaymentStateMachine {
+
+  private PaymentStateMachine() {
+  }
+
+  /**
+   * Checks that {@code operation} is allowed on {@code current} and returns the amount it moves:
+   * {@code amount} or, when null, everything that is left.
+   */
+  public static long amount(PostPaymentResponse current, PaymentOperation operation,
+      Long amount) {
+    long available = switch (operation) {
+      case CAPTURE, VOID -> {
+        require(current, PaymentStatus.AUTHORIZED, operation);
+        yield current.getAmount() == null ? 0 : current.getAmount();
+      }
+      case REFUND -> {
+        require(current, PaymentStatus.CAPTURED, operation);
+        yield current.getCapturedAmount() - current.getRefundedAmount();
+      }
+    };
+    if (operation == PaymentOperation.VOID || amount == null) {
+      return available;
+    }
+    if (amount <= 0 || amount > available) {
+      throw new InvalidPaymentTransitionException("Cannot " + operation.getName().toLowerCase(Locale.ROOT)
+          + " " + amount + " of payment " + current.getId() + ", " + available + " available");
+    }
+    return amount;
+  }
+
+  public static PostPaymentResponse apply(PostPaymentResponse current, PaymentOperation operation,
+      Long amount, Instant at) {
+    return record(current, operation, amount(current, operation, amount), at);
+  }
+
+  /**
+   * Records an operation the bank has already carried out for {@code moved}, whether or not
+   * {@code current} still allows it.
+   */
+  public static PostPaymentResponse record(PostPaymentResponse current,
+      PaymentOperation operation, long moved, Instant at) {
+    PostPaymentResponse.PostPaymentResponseBuilder next = current.toBuilder();
+    PaymentStatus status = switch (operation) {
+      case CAPTURE -> {
+        next.capturedAmount(moved);
+        yield PaymentStatus.CAPTURED;
+      }
+      case VOID -> PaymentStatus.VOIDED;
+      case REFUND -> {
+        long refunded = current.getRefundedAmount() + moved;
+        next.refundedAmount(refunded);
+        yield refunded >= current.getCapturedAmount()
+            ? PaymentStatus.REFUNDED : PaymentStatus.CAPTURED;
+      }
+    };
+    PaymentTransition last = current.getLastTransition();
+    return next
+        .status(status)
+        .lastTransition(last == null
+            ? new PaymentTransition(operation, moved, status, at, null)
+            : last.append(operation, moved, status, at))
+        .build();
+  }
+
+  private static void require(PostPaymentResponse current, PaymentStatus status,
+      PaymentOperation operation) {
+    if (current.getStatus() != status) {
+      throw new InvalidPaymentTransitionException("Cannot " + operation.getName().toLowerCase(Locale.ROOT)
+          + " payment " + current.getId() + " in status " + current.getStatus());
+    }
+  }
+}
@@ -34,4 +34,15 @@ public record ApiSuccess<T>(
     );
   }
 
+  public static <T> ApiSuccess<T> accepted(ResponseCode code, String message, T data) {
+    return new ApiSuccess<>(
+        Instant.now().toString(),
+        HttpStatus.ACCEPTED.value(),
+        code,
+        message,
+        UUID.randomUUID().toString(),
+        data
+    );
+  }
+
 }
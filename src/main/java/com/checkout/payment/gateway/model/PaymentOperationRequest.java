@@ -0,0 +1,18 @@
+package com.checkout.payment.gateway.model;
+
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Body of a capture or refund; without an amount the whole remaining amount is used.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentOperationRequest {
+
+  @Positive
+  private Long amount;
+}
@@ -0,0 +1,40 @@
+package com.checkout.payment.gateway.model;
+
+import com.checkout.payment.gateway.enums.PaymentOperation;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One entry of a payment's history. Entries link back to the previous one, so every version of a
+ * payment shares the history of the version it was derived from and appending never copies.
+ */
+public record PaymentTransition(
+    PaymentOperation operation,
+    long amount,
+    PaymentStatus status,
+    Instant at,
+    @JsonIgnore PaymentTransition previous
+) {
+
+  public PaymentTransition append(PaymentOperation operation, long amount, PaymentStatus status,
+      Instant at) {
+    return new PaymentTransition(operation, amount, status, at, this);
+  }
+
+  /**
+   * Oldest first, starting from {@code last}; empty for a payment that never changed.
+   */
+  public static List<PaymentTransition> history(PaymentTransition last) {
+    List<PaymentTransition> history = new ArrayList<>();
+    for (PaymentTransition transition = last; transition != null;
+        transition = transition.previous) {
+      history.add(transition);
+    }
+    Collections.reverse(history);
+    return history;
+  }
+}
@@ -2,6 +2,7 @@ package com.checkout.payment.gateway.model;
 
 import com.checkout.payment.gateway.validate.AllowedCurrency;
 import com.checkout.payment.gateway.validate.CardNumber;
+import com.checkout.payment.gateway.validate.CardOrToken;
 import com.checkout.payment.gateway.validate.Cvv;
 import com.checkout.payment.gateway.validate.YearAndDate;
 
@@ -10,6 +11,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Positive;
 
 import lombok.Builder;
@@ -23,13 +25,17 @@ import java.io.Serializable;
 @Builder(toBuilder = true)
 @EqualsAndHashCode
 @YearAndDate
+@CardOrToken
 public class PostPaymentRequest implements Serializable {
 
-  @NotBlank
   @CardNumber
   @JsonProperty("card_number")
   private String cardNumber;
 
+  @Pattern(regexp = "tok_[A-Za-z0-9_-]{22}", message = "Invalid card token")
+  @JsonProperty("card_token")
+  private String cardToken;
+
   @Min(1)
   @Max(12)
   @JsonProperty("expiry_month")
@@ -62,6 +68,7 @@ public class PostPaymentRequest implements Serializable {
   public String toString() {
     return "PostPaymentRequest{" +
         "cardNumber='" + maskCardNumber(cardNumber) + '\'' +
+        ", cardToken=" + (cardToken == null ? null : "****") +
         ", cardNumberLastFour=" + cardNumberLastFour +
         ", expiryMonth=" + expiryMonth +
         ", expiryYear=" + expiryYear +
@@ -72,6 +79,9 @@ public class PostPaymentRequest implements Serializable {
   }
 
   private static String maskCardNumber(String cardNumber) {
+    if (cardNumber == null || cardNumber.length() < 4) {
+      return cardNumber;
+    }
     return cardNumber.substring(cardNumber.length()-4);
   }
 
@@ -1,10 +1,12 @@
 package com.checkout.payment.gateway.model;
 
 import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Builder;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
+import java.util.List;
 import java.util.UUID;
 
 @Getter
@@ -29,6 +31,26 @@ public class PostPaymentResponse {
 
   private Long amount;
 
+  @JsonProperty("captured_amount")
+  private long capturedAmount;
+
+  @JsonProperty("refunded_amount")
+  private long refundedAmount;
+
+  @JsonIgnore
+  private String merchantId;
+
+  @JsonIgnore
+  private String authorizationCode;
+
+  @JsonIgnore
+  private PaymentTransition lastTransition;
+
+  @JsonProperty("history")
+  public List<PaymentTransition> getHistory() {
+    return PaymentTransition.history(lastTransition);
+  }
+
   @Override
   public String toString() {
     return "GetPaymentResponse{" +
@@ -39,6 +61,8 @@ public class PostPaymentResponse {
         ", expiryYear=" + expiryYear +
         ", currency='" + currency + '\'' +
         ", amount=" + amount +
+        ", capturedAmount=" + capturedAmount +
+        ", refundedAmount=" + refundedAmount +
         '}';
   }
 }
@@ -3,5 +3,9 @@ package com.checkout.payment.gateway.model;
 
 public enum ResponseCode {
   PAYMENT_CREATED,
-  PAYMENT_FOUND
+  PAYMENT_ACCEPTED,
+  PAYMENT_FOUND,
+  PAYMENT_CAPTURED,
+  PAYMENT_VOIDED,
+  PAYMENT_REFUNDED
 }
\ No newline at end of file
@@ -0,0 +1,54 @@
+package com.checkout.payment.gateway.profiling;
+
+import java.net.URI;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name(BankCallEvent.NAME)
+@Label("Bank Call")
+@Category({"Payment Gateway"})
+@Description("A request to the acquiring bank, from sending it to parsing the answer")
+@StackTrace(false)
+public class BankCallEvent extends Event {
+
+  public static final String NAME = "com.checkout.payment.gateway.BankCall";
+
+  @Label("Operation")
+  String operation;
+
+  @Label("Host")
+  String host;
+
+  @Label("Status Code")
+  int statusCode;
+
+  @Label("Outcome")
+  String outcome = "failed";
+
+  public static BankCallEvent start(URI uri) {
+    BankCallEvent event = new BankCallEvent();
+    event.begin();
+    if (event.isEnabled()) {
+      event.operation = uri.getPath();
+      event.host = uri.getAuthority();
+    }
+    return event;
+  }
+
+  public void answered(int statusCode) {
+    this.statusCode = statusCode;
+    this.outcome = statusCode / 100 == 2 ? "ok" : "rejected";
+  }
+
+  public void failed(String outcome) {
+    this.outcome = outcome;
+  }
+
+  public void finish() {
+    commit();
+  }
+}
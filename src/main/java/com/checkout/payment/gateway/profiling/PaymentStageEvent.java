@@ -0,0 +1,48 @@
+package com.checkout.payment.gateway.profiling;
+
+import java.util.UUID;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One stage of processing a payment. Costs next to nothing unless a recording is running.
+ */
+@Name(PaymentStageEvent.NAME)
+@Label("Payment Stage")
+@Category({"Payment Gateway"})
+@Description("A stage of payment processing, from card resolution to storing the outcome")
+@StackTrace(false)
+public class PaymentStageEvent extends Event {
+
+  public static final String NAME = "com.checkout.payment.gateway.PaymentStage";
+
+  public static final String RESOLVE_CARD = "resolve-card";
+  public static final String VELOCITY = "velocity";
+  public static final String AUTHORISE = "authorise";
+  public static final String STORE = "store";
+
+  @Label("Stage")
+  String stage;
+
+  @Label("Payment Id")
+  String paymentId;
+
+  public static PaymentStageEvent start(String stage) {
+    PaymentStageEvent event = new PaymentStageEvent();
+    event.stage = stage;
+    event.begin();
+    return event;
+  }
+
+  public void finish(UUID paymentId) {
+    end();
+    if (shouldCommit()) {
+      this.paymentId = paymentId == null ? null : paymentId.toString();
+      commit();
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package com.checkout.payment.gateway.profiling;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+@Component
+@Endpoint(id = "jfr")
+@ConditionalOnProperty(name = "gateway.profiling.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ProfilingEndpoint {
+
+  private static final int STATUS_CONFLICT = 409;
+
+  private final ProfilingSessions sessions;
+
+  @ReadOperation
+  public Map<String, Object> recordings() throws IOException {
+    return sessions.status();
+  }
+
+  @ReadOperation
+  public WebEndpointResponse<Map<String, Object>> summary(@Selector String name)
+      throws IOException {
+    return sessions.summary(name)
+        .map(WebEndpointResponse::new)
+        .orElseGet(() -> error(WebEndpointResponse.STATUS_NOT_FOUND, "No recording " + name));
+  }
+
+  @WriteOperation
+  public WebEndpointResponse<Map<String, Object>> start(@Nullable Duration duration,
+      @Nullable String settings) throws IOException {
+    try {
+      return sessions.start(duration, settings)
+          .map(WebEndpointResponse::new)
+          .orElseGet(() -> error(STATUS_CONFLICT, "A recording is already running"));
+    } catch (ParseException | IllegalArgumentException e) {
+      return error(WebEndpointResponse.STATUS_BAD_REQUEST, "Unusable settings " + settings);
+    }
+  }
+
+  @DeleteOperation
+  public WebEndpointResponse<Map<String, Object>> stop() throws IOException {
+    return sessions.stop()
+        .map(WebEndpointResponse::new)
+        .orElseGet(() -> error(WebEndpointResponse.STATUS_NOT_FOUND, "No recording is running"));
+  }
+
+  private static WebEndpointResponse<Map<String, Object>> error(int status, String message) {
+    return new WebEndpointResponse<>(Map.of("error_message", message), status);
+  }
+}
@@ -0,0 +1,215 @@
+package com.checkout.payment.gateway.profiling;
+
+import com.checkout.payment.gateway.configuration.ProfilingProperties;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * At most one bounded flight recording at a time, written to {@code recording-<millis>.jfr} when it
+ * stops, either on request or once its duration has elapsed. Any kept recording can be summarised
+ * with {@link RecordingSummary}.
+ */
+public class ProfilingSessions implements AutoCloseable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ProfilingSessions.class);
+
+  private static final String PREFIX = "recording-";
+  private static final String SUFFIX = ".jfr";
+  private static final Pattern FILE_NAME = Pattern.compile("recording-\\d{20}\\.jfr");
+
+  private final ProfilingProperties properties;
+  private Recording active;
+  private Path activeFile;
+  private long lastCreatedAt;
+
+  public ProfilingSessions(ProfilingProperties properties) {
+    if (properties.retain() < 1) {
+      throw new IllegalArgumentException("At least one recording must be retained");
+    }
+    this.properties = properties;
+  }
+
+  /**
+   * Starts a recording, empty if one is already running. A missing duration or settings name
+   * falls back to the configured default; unknown settings are an IllegalArgumentException.
+   */
+  public synchronized Optional<Map<String, Object>> start(Duration duration, String settings)
+      throws IOException, ParseException {
+    if (current() != null) {
+      return Optional.empty();
+    }
+    Duration bounded = duration == null ? properties.defaultDuration() : duration;
+    if (bounded.compareTo(properties.maxDuration()) > 0) {
+      bounded = properties.maxDuration();
+    }
+    String settingsName = settings == null ? properties.settings() : settings;
+    Configuration configuration;
+    try {
+      configuration = Configuration.getConfiguration(settingsName);
+    } catch (NoSuchFileException e) {
+      throw new IllegalArgumentException("No JFR settings named " + settingsName);
+    }
+
+    Files.createDirectories(properties.directory());
+    long createdAt = Math.max(System.currentTimeMillis(), lastCreatedAt + 1);
+    Path file = properties.directory().resolve(String.format("%s%020d%s", PREFIX, createdAt,
+        SUFFIX));
+    Recording recording = new Recording(configuration);
+    recording.setName(file.getFileName().toString());
+    recording.setToDisk(true);
+    recording.setMaxSize(properties.maxSize());
+    recording.setDuration(bounded);
+    recording.setDestination(file);
+    recording.start();
+
+    lastCreatedAt = createdAt;
+    active = recording;
+    activeFile = file;
+    LOG.info("Started flight recording {} for {} with {} settings", file, bounded,
+        configuration.getName());
+    return Optional.of(describe(recording));
+  }
+
+  /**
+   * Stops the running recording and summarises it, empty if none is running.
+   */
+  public Optional<Map<String, Object>> stop() throws IOException {
+    Path file;
+    synchronized (this) {
+      Recording recording = current();
+      if (recording == null) {
+        return Optional.empty();
+      }
+      file = activeFile;
+      stop(recording);
+    }
+    return summary(file.getFileName().toString());
+  }
+
+  public synchronized Map<String, Object> status() throws IOException {
+    Map<String, Object> status = new LinkedHashMap<>();
+    Recording recording = current();
+    status.put("active", recording == null ? null : describe(recording));
+    List<Map<String, Object>> files = new ArrayList<>();
+    for (Path file : recordings()) {
+      if (file.equals(activeFile)) {
+        continue;
+      }
+      Map<String, Object> entry = new LinkedHashMap<>();
+      entry.put("name", file.getFileName().toString());
+      entry.put("size", Files.size(file));
+      entry.put("modified", Files.getLastModifiedTime(file).toString());
+      files.add(entry);
+    }
+    status.put("recordings", files);
+    return status;
+  }
+
+  /**
+   * Summarises a finished recording, empty if there is no such recording.
+   */
+  public Optional<Map<String, Object>> summary(String name) throws IOException {
+    if (!FILE_NAME.matcher(name).matches()) {
+      return Optional.empty();
+    }
+    Path file = properties.directory().resolve(name);
+    synchronized (this) {
+      if ((file.equals(activeFile) && current() != null) || !Files.isRegularFile(file)) {
+        return Optional.empty();
+      }
+    }
+    Map<String, Object> summary = new LinkedHashMap<>();
+    summary.put("name", name);
+    summary.put("size", Files.size(file));
+    summary.putAll(RecordingSummary.of(file, properties.top()));
+    return Optional.of(summary);
+  }
+
+  // a recording still running at shutdown is written like one stopped on request
+  @Override
+  public synchronized void close() {
+    Recording recording = current();
+    if (recording != null) {
+      stop(recording);
+    }
+  }
+
+  // the running recording, after tidying up one that stopped on its own
+  private Recording current() {
+    if (active != null && active.getState() != RecordingState.RUNNING
+        && active.getState() != RecordingState.NEW) {
+      finish();
+    }
+    return active;
+  }
+
+  private void stop(Recording recording) {
+    try {
+      recording.stop();
+    } catch (IllegalStateException e) {
+      // its duration elapsed in the meantime, the recording is already written
+    }
+    finish();
+  }
+
+  private void finish() {
+    LOG.info("Flight recording {} finished", activeFile);
+    active.close();
+    active = null;
+    activeFile = null;
+    try {
+      prune();
+    } catch (IOException e) {
+      LOG.warn("Could not prune old flight recordings", e);
+    }
+  }
+
+  private void prune() throws IOException {
+    List<Path> files = recordings();
+    for (Path old : files.subList(Math.min(properties.retain(), files.size()), files.size())) {
+      Files.deleteIfExists(old);
+    }
+  }
+
+  // newest first, the name carries the zero padded creation time
+  private List<Path> recordings() throws IOException {
+    if (!Files.isDirectory(properties.directory())) {
+      return List.of();
+    }
+    try (Stream<Path> files = Files.list(properties.directory())) {
+      return files
+          .filter(file -> FILE_NAME.matcher(file.getFileName().toString()).matches())
+          .sorted(Comparator.comparing(Path::getFileName).reversed())
+          .toList();
+    }
+  }
+
+  private static Map<String, Object> describe(Recording recording) {
+    Map<String, Object> description = new LinkedHashMap<>();
+    description.put("name", recording.getName());
+    description.put("state", recording.getState().name());
+    description.put("startTime", recording.getStartTime() == null ? null
+        : recording.getStartTime().toString());
+    description.put("duration", recording.getDuration() == null ? null
+        : recording.getDuration().toString());
+    description.put("size", recording.getSize());
+    return description;
+  }
+}
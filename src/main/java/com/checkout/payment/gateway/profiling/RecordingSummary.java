@@ -0,0 +1,199 @@
+package com.checkout.payment.gateway.profiling;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Reads a recording once and reports the gateway's own events as latency per key, allocation by
+ * site and by class from {@code jdk.ObjectAllocationSample}, and time blocked on monitors and
+ * parked threads by lock class and site.
+ */
+final class RecordingSummary {
+
+  private static final String ALLOCATION = "jdk.ObjectAllocationSample";
+  private static final String MONITOR_ENTER = "jdk.JavaMonitorEnter";
+  private static final String THREAD_PARK = "jdk.ThreadPark";
+  // frames of the JDK and the frameworks say little about where the gateway spends
+  private static final String APPLICATION_PACKAGE = "com.checkout.";
+
+  private final Map<String, Map<String, Timings>> timings = new LinkedHashMap<>();
+  private final Map<String, Long> allocationBySite = new HashMap<>();
+  private final Map<String, Long> allocationByClass = new HashMap<>();
+  private final Map<String, Timings> contention = new HashMap<>();
+  private Instant start;
+  private Instant end;
+  private long events;
+
+  private RecordingSummary() {
+    timings.put("stages", new HashMap<>());
+    timings.put("bankCalls", new HashMap<>());
+    timings.put("validation", new HashMap<>());
+    timings.put("repository", new HashMap<>());
+  }
+
+  static Map<String, Object> of(Path file, int top) throws IOException {
+    RecordingSummary summary = new RecordingSummary();
+    try (RecordingFile recording = new RecordingFile(file)) {
+      while (recording.hasMoreEvents()) {
+        summary.add(recording.readEvent());
+      }
+    }
+    return summary.report(top);
+  }
+
+  private void add(RecordedEvent event) {
+    events++;
+    if (start == null || event.getStartTime().isBefore(start)) {
+      start = event.getStartTime();
+    }
+    if (end == null || event.getEndTime().isAfter(end)) {
+      end = event.getEndTime();
+    }
+    switch (event.getEventType().getName()) {
+      case PaymentStageEvent.NAME -> time("stages", event.getString("stage"), event);
+      case BankCallEvent.NAME -> time("bankCalls",
+          event.getString("operation") + " " + event.getString("outcome"), event);
+      case ValidationEvent.NAME -> time("validation", event.getString("target")
+          + (event.getInt("violations") > 0 ? " invalid" : " valid"), event);
+      case RepositoryEvent.NAME -> time("repository", event.getString("operation")
+          + (event.getBoolean("hit") ? " hit" : " miss"), event);
+      case ALLOCATION -> {
+        long weight = event.getLong("weight");
+        allocationBySite.merge(site(event.getStackTrace()), weight, Long::sum);
+        RecordedClass type = event.getClass("objectClass");
+        allocationByClass.merge(type == null ? "unknown" : type.getName(), weight, Long::sum);
+      }
+      case MONITOR_ENTER -> block("monitor", event.getClass("monitorClass"), event);
+      case THREAD_PARK -> block("park", event.getClass("parkedClass"), event);
+      default -> { }
+    }
+  }
+
+  private void time(String section, String key, RecordedEvent event) {
+    timings.get(section).computeIfAbsent(key, k -> new Timings()).add(event.getDuration());
+  }
+
+  private void block(String kind, RecordedClass lock, RecordedEvent event) {
+    String key = kind + " " + (lock == null ? "unknown" : lock.getName()) + " at "
+        + site(event.getStackTrace());
+    contention.computeIfAbsent(key, k -> new Timings()).add(event.getDuration());
+  }
+
+  // the innermost application frame, or the top frame if the stack has none
+  private static String site(RecordedStackTrace stackTrace) {
+    if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+      return "unknown";
+    }
+    for (RecordedFrame frame : stackTrace.getFrames()) {
+      if (frame.isJavaFrame()
+          && frame.getMethod().getType().getName().startsWith(APPLICATION_PACKAGE)) {
+        return frame(frame);
+      }
+    }
+    return frame(stackTrace.getFrames().get(0));
+  }
+
+  private static String frame(RecordedFrame frame) {
+    return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":"
+        + frame.getLineNumber();
+  }
+
+  private Map<String, Object> report(int top) {
+    Map<String, Object> report = new LinkedHashMap<>();
+    Map<String, Object> recording = new LinkedHashMap<>();
+    recording.put("start", start == null ? null : start.toString());
+    recording.put("end", end == null ? null : end.toString());
+    recording.put("events", events);
+    report.put("recording", recording);
+
+    timings.forEach((section, byKey) -> report.put(section, timingRows(byKey, "key", top)));
+
+    Map<String, Object> allocations = new LinkedHashMap<>();
+    allocations.put("totalBytes", allocationByClass.values().stream().mapToLong(Long::longValue)
+        .sum());
+    allocations.put("bySite", byteRows(allocationBySite, "site", top));
+    allocations.put("byClass", byteRows(allocationByClass, "class", top));
+    report.put("allocations", allocations);
+
+    report.put("contention", timingRows(contention, "lock", top));
+    return report;
+  }
+
+  private static List<Map<String, Object>> timingRows(Map<String, Timings> byKey, String name,
+      int top) {
+    return byKey.entrySet().stream()
+        .sorted(Comparator.comparingLong(
+            (Map.Entry<String, Timings> entry) -> entry.getValue().totalNanos).reversed())
+        .limit(top)
+        .map(entry -> entry.getValue().row(name, entry.getKey()))
+        .toList();
+  }
+
+  private static List<Map<String, Object>> byteRows(Map<String, Long> bytes, String name,
+      int top) {
+    long total = bytes.values().stream().mapToLong(Long::longValue).sum();
+    List<Map<String, Object>> rows = new ArrayList<>();
+    bytes.entrySet().stream()
+        .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+        .limit(top)
+        .forEach(entry -> {
+          Map<String, Object> row = new LinkedHashMap<>();
+          row.put(name, entry.getKey());
+          row.put("bytes", entry.getValue());
+          row.put("share", total == 0 ? 0 : Math.round(1000.0 * entry.getValue() / total) / 1000.0);
+          rows.add(row);
+        });
+    return rows;
+  }
+
+  private static final class Timings {
+
+    private long[] nanos = new long[16];
+    private int count;
+    private long totalNanos;
+
+    void add(Duration duration) {
+      if (count == nanos.length) {
+        nanos = Arrays.copyOf(nanos, count * 2);
+      }
+      long value = duration.toNanos();
+      nanos[count++] = value;
+      totalNanos += value;
+    }
+
+    Map<String, Object> row(String name, String key) {
+      long[] sorted = Arrays.copyOf(nanos, count);
+      Arrays.sort(sorted);
+      Map<String, Object> row = new LinkedHashMap<>();
+      row.put(name, key);
+      row.put("count", count);
+      row.put("totalMs", millis(totalNanos));
+      row.put("p50Ms", millis(percentile(sorted, 0.50)));
+      row.put("p99Ms", millis(percentile(sorted, 0.99)));
+      row.put("maxMs", millis(sorted[count - 1]));
+      return row;
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+      return sorted[Math.max(0, (int) Math.ceil(percentile * sorted.length) - 1)];
+    }
+
+    private static double millis(long nanos) {
+      return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+  }
+}
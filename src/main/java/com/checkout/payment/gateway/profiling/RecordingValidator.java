@@ -0,0 +1,47 @@
+package com.checkout.payment.gateway.profiling;
+
+import jakarta.validation.Validator;
+import org.springframework.validation.Errors;
+import org.springframework.validation.SmartValidator;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+
+/**
+ * Bean validation of request bodies, timed by a {@link ValidationEvent} per validated object.
+ */
+public class RecordingValidator implements SmartValidator {
+
+  private final SpringValidatorAdapter delegate;
+
+  public RecordingValidator(Validator validator) {
+    this.delegate = validator instanceof SpringValidatorAdapter adapter
+        ? adapter
+        : new SpringValidatorAdapter(validator);
+  }
+
+  @Override
+  public boolean supports(Class<?> type) {
+    return delegate.supports(type);
+  }
+
+  @Override
+  public void validate(Object target, Errors errors) {
+    ValidationEvent event = ValidationEvent.start(target);
+    int before = errors.getErrorCount();
+    delegate.validate(target, errors);
+    event.finish(errors.getErrorCount() - before);
+  }
+
+  @Override
+  public void validate(Object target, Errors errors, Object... validationHints) {
+    ValidationEvent event = ValidationEvent.start(target);
+    int before = errors.getErrorCount();
+    delegate.validate(target, errors, validationHints);
+    event.finish(errors.getErrorCount() - before);
+  }
+
+  @Override
+  public void validateValue(Class<?> targetType, String fieldName, Object value, Errors errors,
+      Object... validationHints) {
+    delegate.validateValue(targetType, fieldName, value, errors, validationHints);
+  }
+}
@@ -0,0 +1,44 @@
+package com.checkout.payment.gateway.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name(RepositoryEvent.NAME)
+@Label("Repository Operation")
+@Category({"Payment Gateway"})
+@Description("A read or write of the payment store")
+@StackTrace(false)
+public class RepositoryEvent extends Event {
+
+  public static final String NAME = "com.checkout.payment.gateway.Repository";
+
+  @Label("Operation")
+  String operation;
+
+  @Label("Store")
+  String store;
+
+  @Label("Hit")
+  @Description("The payment was found, or the conditional write applied")
+  boolean hit;
+
+  public static RepositoryEvent start(String operation) {
+    RepositoryEvent event = new RepositoryEvent();
+    event.operation = operation;
+    event.begin();
+    return event;
+  }
+
+  public void finish(Object store, boolean hit) {
+    end();
+    if (shouldCommit()) {
+      this.store = store.getClass().getSimpleName();
+      this.hit = hit;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package com.checkout.payment.gateway.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name(ValidationEvent.NAME)
+@Label("Request Validation")
+@Category({"Payment Gateway"})
+@Description("Bean validation of a request body")
+@StackTrace(false)
+public class ValidationEvent extends Event {
+
+  public static final String NAME = "com.checkout.payment.gateway.Validation";
+
+  @Label("Target")
+  String target;
+
+  @Label("Violations")
+  int violations;
+
+  public static ValidationEvent start(Object target) {
+    ValidationEvent event = new ValidationEvent();
+    event.begin();
+    if (event.isEnabled()) {
+      event.target = target == null ? null : target.getClass().getSimpleName();
+    }
+    return event;
+  }
+
+  public void finish(int violations) {
+    end();
+    if (shouldCommit()) {
+      this.violations = violations;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package com.checkout.payment.gateway.ratelimit;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class IdleBucketEvictor {
+
+  private static final Logger LOG = LoggerFactory.getLogger(IdleBucketEvictor.class);
+
+  private final TokenBucketRateLimiter limiter;
+
+  @Scheduled(fixedDelayString = "${gateway.rate-limit.eviction-interval-ms:60000}")
+  public void evictIdleBuckets() {
+    int evicted = limiter.evictIdle();
+    LOG.debug("Evicted {} idle rate limit buckets, {} remaining", evicted, limiter.size());
+  }
+}
@@ -0,0 +1,37 @@
+package com.checkout.payment.gateway.ratelimit;
+
+import com.checkout.payment.gateway.controller.GatewayHeaders;
+import com.checkout.payment.gateway.ratelimit.TokenBucketRateLimiter.KeyStats;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+@Component
+@Endpoint(id = "ratelimits")
+@RequiredArgsConstructor
+public class RateLimitEndpoint {
+
+  private static final int DEFAULT_TOP = 50;
+
+  private final TokenBucketRateLimiter limiter;
+
+  @ReadOperation
+  public Map<String, Object> rateLimits(@Nullable Integer top) {
+    List<KeyStats> keys = limiter.topThrottled(top == null ? DEFAULT_TOP : top).stream()
+        .map(stats -> new KeyStats(describe(stats.key()), stats.allowed(), stats.throttled()))
+        .toList();
+    return Map.of(
+        "trackedKeys", limiter.size(),
+        "keys", keys
+    );
+  }
+
+  // API keys are merchant credentials; keyless callers are bucketed by address and stay readable
+  private static String describe(String key) {
+    return key.startsWith(GatewayHeaders.ANONYMOUS + "@") ? key : GatewayHeaders.redact(key);
+  }
+}
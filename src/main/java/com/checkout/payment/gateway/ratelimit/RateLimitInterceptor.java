@@ -0,0 +1,53 @@
+package com.checkout.payment.gateway.ratelimit;
+
+import com.checkout.payment.gateway.configuration.RateLimitProperties;
+import com.checkout.payment.gateway.controller.GatewayHeaders;
+import com.checkout.payment.gateway.exception.RateLimitExceededException;
+import com.checkout.payment.gateway.startup.WarmupContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+@Component
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+  private final TokenBucketRateLimiter limiter;
+  private final RateLimitProperties properties;
+  private final Counter throttled;
+
+  public RateLimitInterceptor(TokenBucketRateLimiter limiter, RateLimitProperties properties,
+      MeterRegistry registry) {
+    this.limiter = limiter;
+    this.properties = properties;
+    this.throttled = registry.counter("gateway.ratelimit.throttled");
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+      Object handler) {
+    if (!properties.enabled() || WarmupContext.isSynthetic()) {
+      return true;
+    }
+    String key = key(request);
+    long waitNanos = limiter.tryAcquire(key);
+    if (waitNanos > 0) {
+      throttled.increment();
+      throw new RateLimitExceededException(key, Duration.ofNanos(waitNanos));
+    }
+    return true;
+  }
+
+  // callers without a key get a bucket per address, so one of them can't starve the others
+  private static String key(HttpServletRequest request) {
+    String apiKey = GatewayHeaders.apiKey(request);
+    if (!GatewayHeaders.ANONYMOUS.equals(apiKey)) {
+      return apiKey;
+    }
+    return GatewayHeaders.ANONYMOUS + "@" + request.getRemoteAddr();
+  }
+
+}
@@ -0,0 +1,138 @@
+package com.checkout.payment.gateway.ratelimit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Per key token bucket implemented as GCRA: every bucket is a single "theoretical arrival time"
+ * updated with CAS, so the hot path is one map lookup and one compare-and-set with no locks.
+ * A new key arriving at {@code maxKeys} first evicts the least recently used sixteenth of the
+ * buckets, those with the oldest arrival time, so unrelated callers never share a bucket.
+ */
+public class TokenBucketRateLimiter {
+
+  private static final int EVICTION_FRACTION = 16;
+  private static final int EVICTION_SAMPLE = 1024;
+
+  private final long emissionIntervalNanos;
+  private final long burstToleranceNanos;
+  private final int maxKeys;
+  private final long idleTimeoutNanos;
+  private final LongSupplier clock;
+
+  private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+  private final Object evictionLock = new Object();
+
+  public TokenBucketRateLimiter(double permitsPerSecond, int burst, int maxKeys,
+      long idleTimeoutNanos, LongSupplier clock) {
+    if (permitsPerSecond <= 0 || burst < 1 || maxKeys < 1) {
+      throw new IllegalArgumentException("Invalid rate limit configuration");
+    }
+    this.emissionIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+    this.burstToleranceNanos = emissionIntervalNanos * (burst - 1);
+    this.maxKeys = maxKeys;
+    this.idleTimeoutNanos = idleTimeoutNanos;
+    this.clock = clock;
+  }
+
+  /**
+   * @return 0 if the call is allowed, otherwise the nanos to wait until the next token
+   */
+  public long tryAcquire(String key) {
+    long now = clock.getAsLong();
+    Bucket bucket = bucketFor(key, now);
+
+    for (;;) {
+      long tat = bucket.tat.get();
+      long allowAt = tat - burstToleranceNanos;
+      if (now < allowAt) {
+        bucket.throttled.increment();
+        return allowAt - now;
+      }
+      if (bucket.tat.compareAndSet(tat, Math.max(tat, now) + emissionIntervalNanos)) {
+        bucket.allowed.increment();
+        return 0;
+      }
+    }
+  }
+
+  private Bucket bucketFor(String key, long now) {
+    Bucket bucket = buckets.get(key);
+    if (bucket != null) {
+      return bucket;
+    }
+    if (buckets.size() >= maxKeys) {
+      evictLeastRecentlyUsed();
+    }
+    return buckets.computeIfAbsent(key, k -> new Bucket(k, now));
+  }
+
+  // one scan frees a batch of slots; the cutoff comes from an evenly spaced sample of buckets
+  private void evictLeastRecentlyUsed() {
+    synchronized (evictionLock) {
+      if (buckets.size() < maxKeys) {
+        return;
+      }
+      int stride = Math.max(1, buckets.size() / EVICTION_SAMPLE);
+      long[] sample = new long[EVICTION_SAMPLE + 1];
+      int sampled = 0;
+      int seen = 0;
+      for (Bucket bucket : buckets.values()) {
+        if (seen++ % stride == 0 && sampled < sample.length) {
+          sample[sampled++] = bucket.tat.get();
+        }
+      }
+      Arrays.sort(sample, 0, sampled);
+      long cutoff = sample[Math.max(0, sampled / EVICTION_FRACTION - 1)];
+      buckets.values().removeIf(bucket -> bucket.tat.get() <= cutoff);
+    }
+  }
+
+  /**
+   * Drops buckets that have been full for longer than the idle timeout. Removing such a bucket is
+   * invisible to the caller because a fresh bucket starts full as well.
+   */
+  public int evictIdle() {
+    long cutoff = clock.getAsLong() - idleTimeoutNanos;
+    int before = buckets.size();
+    buckets.values().removeIf(bucket -> bucket.tat.get() < cutoff);
+    return before - buckets.size();
+  }
+
+  public int size() {
+    return buckets.size();
+  }
+
+  public List<KeyStats> topThrottled(int limit) {
+    List<KeyStats> stats = new ArrayList<>();
+    buckets.values().forEach(bucket -> stats.add(bucket.stats()));
+    stats.sort(Comparator.comparingLong(KeyStats::throttled).reversed());
+    return stats.subList(0, Math.min(limit, stats.size()));
+  }
+
+  public record KeyStats(String key, long allowed, long throttled) {}
+
+  private static final class Bucket {
+
+    private final String key;
+    private final AtomicLong tat;
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+
+    private Bucket(String key, long now) {
+      this.key = key;
+      this.tat = new AtomicLong(now);
+    }
+
+    private KeyStats stats() {
+      return new KeyStats(key, allowed.sum(), throttled.sum());
+    }
+  }
+}
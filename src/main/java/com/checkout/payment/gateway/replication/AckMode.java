@@ -0,0 +1,10 @@
+package com.checkout.payment.gateway.replication;
+
+public enum AckMode {
+  /** Changes are queued and shipped by a background thread; writers never wait. */
+  NONE,
+  /** The change is in the leader's replication log before the write returns. */
+  LEADER,
+  /** A completed payment is only returned once a majority of primary and replicas hold it. */
+  QUORUM
+}
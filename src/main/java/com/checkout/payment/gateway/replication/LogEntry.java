@@ -0,0 +1,25 @@
+package com.checkout.payment.gateway.replication;
+
+/**
+ * One frame of the replication stream.
+ *
+ * <pre>
+ * type u8 | sequence i64 | appended_at_millis i64 | length i32 | payload
+ * </pre>
+ *
+ * PUT carries a stored payment record, REMOVE its 16 byte id, SNAPSHOT the primary's epoch.
+ */
+record LogEntry(byte type, long sequence, long appendedAtMillis, byte[] payload) {
+
+  static final byte PUT = 1;
+  static final byte REMOVE = 2;
+  static final byte SNAPSHOT = 3;
+  static final byte SNAPSHOT_END = 4;
+  static final byte HEARTBEAT = 5;
+
+  static final int HEADER_SIZE = 1 + 8 + 8 + 4;
+
+  int size() {
+    return HEADER_SIZE + payload.length;
+  }
+}
@@ -0,0 +1,23 @@
+package com.checkout.payment.gateway.replication;
+
+import com.checkout.payment.gateway.exception.ReadOnlyReplicaException;
+import com.checkout.payment.gateway.startup.WarmupContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Replicas only answer lookups; payments must be created on the primary. Warm-up traffic is let
+ * through since it only exercises the local store and cleans up after itself.
+ */
+public class ReadOnlyReplicaInterceptor implements HandlerInterceptor {
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+      Object handler) {
+    if (!"GET".equals(request.getMethod()) && !WarmupContext.isSynthetic()) {
+      throw new ReadOnlyReplicaException("This node is a read-only replica");
+    }
+    return true;
+  }
+}
@@ -0,0 +1,74 @@
+package com.checkout.payment.gateway.replication;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongFunction;
+
+/**
+ * Bounded in-memory log of the most recent changes. Replicas that fall further behind than the
+ * log reaches are resynchronised from a snapshot instead.
+ */
+class ReplicationLog {
+
+  private final LogEntry[] entries;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition appended = lock.newCondition();
+  private long head;
+
+  ReplicationLog(int capacity) {
+    this.entries = new LogEntry[capacity];
+  }
+
+  /**
+   * Appends the entry built for the next sequence. Building it under the lock keeps the log in the
+   * same order as the state it describes.
+   */
+  long append(LongFunction<LogEntry> entryForSequence) {
+    lock.lock();
+    try {
+      long sequence = head + 1;
+      entries[(int) (sequence % entries.length)] = entryForSequence.apply(sequence);
+      head = sequence;
+      appended.signalAll();
+      return sequence;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  long head() {
+    lock.lock();
+    try {
+      return head;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns up to {@code max} entries after {@code after}, waiting up to {@code timeoutNanos} for
+   * the first one, or {@code null} when {@code after} has already been overwritten.
+   */
+  List<LogEntry> readAfter(long after, int max, long timeoutNanos) throws InterruptedException {
+    lock.lock();
+    try {
+      long remaining = timeoutNanos;
+      while (head <= after && remaining > 0) {
+        remaining = appended.awaitNanos(remaining);
+      }
+      if (after > head || after < head - entries.length) {
+        return null;
+      }
+      long last = Math.min(head, after + max);
+      List<LogEntry> batch = new ArrayList<>((int) (last - after));
+      for (long sequence = after + 1; sequence <= last; sequence++) {
+        batch.add(entries[(int) (sequence % entries.length)]);
+      }
+      return batch;
+    } finally {
+      lock.unlock();
+    }
+  }
+}
@@ -0,0 +1,319 @@
+package com.checkout.payment.gateway.replication;
+
+import com.checkout.payment.gateway.configuration.ReplicationProperties;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import com.checkout.payment.gateway.repository.PaymentsChangeListener;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Ships every change of the local {@link PaymentsRepository} to the connected replicas. Log
+ * entries carry the payment's state at append time rather than the change that triggered them,
+ * so concurrent writers can never leave a replica with an older version than the primary.
+ */
+public class ReplicationPrimary implements PaymentsChangeListener, AutoCloseable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ReplicationPrimary.class);
+  private static final int BATCH_SIZE = 256;
+  private static final long HEARTBEAT_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final ReplicationProperties properties;
+  private final PaymentsRepository repository;
+  private final ReplicationLog log;
+  private final long epoch = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+  private final Set<ReplicaSession> sessions = ConcurrentHashMap.newKeySet();
+  private final BlockingQueue<UUID> unshipped;
+  private final ReentrantLock ackLock = new ReentrantLock();
+  private final Condition ackReceived = ackLock.newCondition();
+  private final Counter shippedEntries;
+  private final Counter shippedBytes;
+  private final Counter quorumMisses;
+
+  private volatile boolean running = true;
+  private ServerSocket serverSocket;
+
+  public ReplicationPrimary(ReplicationProperties properties, PaymentsRepository repository,
+      MeterRegistry registry) {
+    this.properties = properties;
+    this.repository = repository;
+    this.log = new ReplicationLog(properties.logCapacity());
+    this.unshipped = new LinkedBlockingQueue<>(properties.logCapacity());
+    this.shippedEntries = registry.counter("gateway.replication.shipped.entries");
+    this.shippedBytes = registry.counter("gateway.replication.shipped.bytes");
+    this.quorumMisses = registry.counter("gateway.replication.quorum.misses");
+    Gauge.builder("gateway.replication.log.head", log, ReplicationLog::head).register(registry);
+    Gauge.builder("gateway.replication.replicas", sessions, Set::size).register(registry);
+    Gauge.builder("gateway.replication.lag.entries", this, ReplicationPrimary::lagEntries)
+        .register(registry);
+  }
+
+  public void start() throws IOException {
+    serverSocket = new ServerSocket();
+    serverSocket.bind(new InetSocketAddress(properties.bindAddress(), properties.port()));
+    daemon("replication-acceptor", this::acceptReplicas).start();
+    if (properties.ackMode() == AckMode.NONE) {
+      daemon("replication-shipper", this::appendUnshipped).start();
+    }
+    repository.addListener(this);
+    LOG.info("Replication primary listening on {} with ack mode {}",
+        serverSocket.getLocalSocketAddress(), properties.ackMode());
+  }
+
+  public int port() {
+    return serverSocket.getLocalPort();
+  }
+
+  public int connectedReplicas() {
+    return sessions.size();
+  }
+
+  @Override
+  public void onAdd(PostPaymentResponse payment) {
+    // a pending record is provisional, never hold the 202 response for it
+    changed(payment.getId(), payment.getStatus() != PaymentStatus.PENDING);
+  }
+
+  @Override
+  public void onRemove(UUID id) {
+    changed(id, false);
+  }
+
+  private void changed(UUID id, boolean awaitQuorum) {
+    if (properties.ackMode() == AckMode.NONE) {
+      if (!unshipped.offer(id)) {
+        append(id);
+      }
+      return;
+    }
+    long sequence = append(id);
+    if (awaitQuorum && properties.ackMode() == AckMode.QUORUM) {
+      awaitQuorum(sequence);
+    }
+  }
+
+  private long append(UUID id) {
+    return log.append(sequence -> repository.get(id)
+        .map(payment -> new LogEntry(LogEntry.PUT, sequence, System.currentTimeMillis(),
+            ReplicationProtocol.put(payment)))
+        .orElseGet(() -> new LogEntry(LogEntry.REMOVE, sequence, System.currentTimeMillis(),
+            ReplicationProtocol.id(id))));
+  }
+
+  private void appendUnshipped() {
+    while (running) {
+      try {
+        append(unshipped.take());
+      } catch (InterruptedException e) {
+        return;
+      }
+    }
+  }
+
+  private void awaitQuorum(long sequence) {
+    int needed = (properties.replicas() + 1) / 2;
+    if (sessions.size() < needed) {
+      // not enough replicas connected to ever reach quorum, do not stall every write
+      quorumMisses.increment();
+      return;
+    }
+    long remaining = properties.ackTimeout().toNanos();
+    ackLock.lock();
+    try {
+      while (acknowledged(sequence) < needed) {
+        if (remaining <= 0) {
+          quorumMisses.increment();
+          LOG.warn("Replication quorum not reached for sequence {} within {}", sequence,
+              properties.ackTimeout());
+          return;
+        }
+        remaining = ackReceived.awaitNanos(remaining);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      ackLock.unlock();
+    }
+  }
+
+  private int acknowledged(long sequence) {
+    int count = 0;
+    for (ReplicaSession session : sessions) {
+      if (session.acknowledged >= sequence) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private void signalAck() {
+    ackLock.lock();
+    try {
+      ackReceived.signalAll();
+    } finally {
+      ackLock.unlock();
+    }
+  }
+
+  private long lagEntries() {
+    long head = log.head();
+    return sessions.stream()
+        .mapToLong(session -> head - session.acknowledged)
+        .max()
+        .orElse(0);
+  }
+
+  private void acceptReplicas() {
+    while (running) {
+      try {
+        Socket socket = serverSocket.accept();
+        ReplicaSession session = new ReplicaSession(socket);
+        daemon("replication-" + socket.getRemoteSocketAddress(), session).start();
+      } catch (IOException e) {
+        if (running) {
+          LOG.warn("Could not accept replica connection", e);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    running = false;
+    if (serverSocket != null) {
+      serverSocket.close();
+    }
+    for (ReplicaSession session : sessions) {
+      session.socket.close();
+    }
+  }
+
+  private static Thread daemon(String name, Runnable task) {
+    Thread thread = new Thread(task, name);
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  private final class ReplicaSession implements Runnable {
+
+    private final Socket socket;
+    private volatile long acknowledged;
+
+    ReplicaSession(Socket socket) {
+      this.socket = socket;
+    }
+
+    @Override
+    public void run() {
+      try (socket) {
+        socket.setTcpNoDelay(true);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+        if (in.readInt() != ReplicationProtocol.MAGIC
+            || in.readByte() != ReplicationProtocol.VERSION) {
+          throw new IOException("Not a replication client");
+        }
+        long replicaEpoch = in.readLong();
+        long next = replicaEpoch == epoch ? in.readLong() : skipAndResync(in);
+        acknowledged = Math.max(next, 0);
+
+        sessions.add(this);
+        LOG.info("Replica {} connected at sequence {}", socket.getRemoteSocketAddress(), next);
+        daemon("replication-acks-" + socket.getRemoteSocketAddress(), () -> readAcks(in)).start();
+
+        while (running) {
+          List<LogEntry> batch = next < 0 ? null : log.readAfter(next, BATCH_SIZE, HEARTBEAT_NANOS);
+          if (batch == null) {
+            next = sendSnapshot(out);
+          } else if (batch.isEmpty()) {
+            ReplicationProtocol.write(out, new LogEntry(LogEntry.HEARTBEAT, log.head(),
+                System.currentTimeMillis(), new byte[0]));
+            out.flush();
+          } else {
+            long bytes = 0;
+            for (LogEntry entry : batch) {
+              ReplicationProtocol.write(out, entry);
+              bytes += entry.size();
+            }
+            out.flush();
+            next = batch.get(batch.size() - 1).sequence();
+            shippedEntries.increment(batch.size());
+            shippedBytes.increment(bytes);
+          }
+        }
+      } catch (IOException e) {
+        LOG.info("Replica {} disconnected: {}", socket.getRemoteSocketAddress(), e.getMessage());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        sessions.remove(this);
+        signalAck();
+      }
+    }
+
+    private long skipAndResync(DataInputStream in) throws IOException {
+      in.readLong();
+      return -1;
+    }
+
+    /**
+     * Streams every current payment. Changes made while the snapshot is read are also in the log
+     * after {@code at}, so the replica converges once it has streamed those too.
+     */
+    private long sendSnapshot(DataOutputStream out) throws IOException {
+      long at = log.head();
+      long now = System.currentTimeMillis();
+      ReplicationProtocol.write(out, new LogEntry(LogEntry.SNAPSHOT, at, now,
+          ReplicationProtocol.epoch(epoch)));
+      long count = 0;
+      for (PostPaymentResponse payment : repository.all()) {
+        ReplicationProtocol.write(out,
+            new LogEntry(LogEntry.PUT, at, now, ReplicationProtocol.put(payment)));
+        count++;
+      }
+      ReplicationProtocol.write(out, new LogEntry(LogEntry.SNAPSHOT_END, at, now, new byte[0]));
+      out.flush();
+      LOG.info("Sent snapshot of {} payments at sequence {} to {}", count, at,
+          socket.getRemoteSocketAddress());
+      return at;
+    }
+
+    private void readAcks(DataInputStream in) {
+      try {
+        while (running) {
+          acknowledged = in.readLong();
+          signalAck();
+        }
+      } catch (IOException e) {
+        try {
+          socket.close();
+        } catch (IOException ignored) {
+          // already closing
+        }
+      }
+    }
+  }
+}
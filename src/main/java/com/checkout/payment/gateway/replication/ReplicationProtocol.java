@@ -0,0 +1,80 @@
+package com.checkout.payment.gateway.replication;
+
+import com.checkout.payment.gateway.codec.PaymentBinaryCodec;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Wire format between primary and replicas. A replica opens the connection with
+ * {@code magic i32 | version u8 | epoch i64 | last applied sequence i64}, then reads frames and
+ * answers with the highest applied sequence (i64) whenever it has drained its input.
+ */
+final class ReplicationProtocol {
+
+  static final int MAGIC = 0x50475250;
+  static final byte VERSION = 1;
+  private static final int MAX_PAYLOAD = 1 << 20;
+
+  private ReplicationProtocol() {
+  }
+
+  static void writeHandshake(DataOutputStream out, long epoch, long lastApplied)
+      throws IOException {
+    out.writeInt(MAGIC);
+    out.writeByte(VERSION);
+    out.writeLong(epoch);
+    out.writeLong(lastApplied);
+    out.flush();
+  }
+
+  static void write(DataOutputStream out, LogEntry entry) throws IOException {
+    out.writeByte(entry.type());
+    out.writeLong(entry.sequence());
+    out.writeLong(entry.appendedAtMillis());
+    out.writeInt(entry.payload().length);
+    out.write(entry.payload());
+  }
+
+  static LogEntry read(DataInputStream in) throws IOException {
+    byte type = in.readByte();
+    long sequence = in.readLong();
+    long appendedAt = in.readLong();
+    int length = in.readInt();
+    if (length < 0 || length > MAX_PAYLOAD) {
+      throw new IOException("Invalid replication frame length " + length);
+    }
+    byte[] payload = new byte[length];
+    in.readFully(payload);
+    return new LogEntry(type, sequence, appendedAt, payload);
+  }
+
+  static byte[] put(PostPaymentResponse payment) {
+    ByteBuffer buffer = ByteBuffer.allocate(PaymentBinaryCodec.paymentSize(payment, true));
+    PaymentBinaryCodec.writePayment(buffer, payment, true);
+    return buffer.array();
+  }
+
+  static byte[] id(UUID id) {
+    return ByteBuffer.allocate(16)
+        .putLong(id.getMostSignificantBits())
+        .putLong(id.getLeastSignificantBits())
+        .array();
+  }
+
+  static UUID id(byte[] payload) {
+    ByteBuffer buffer = ByteBuffer.wrap(payload);
+    return new UUID(buffer.getLong(), buffer.getLong());
+  }
+
+  static byte[] epoch(long epoch) {
+    return ByteBuffer.allocate(8).putLong(epoch).array();
+  }
+
+  static long epoch(byte[] payload) {
+    return ByteBuffer.wrap(payload).getLong();
+  }
+}
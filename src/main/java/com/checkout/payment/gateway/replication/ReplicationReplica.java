@@ -0,0 +1,165 @@
+package com.checkout.payment.gateway.replication;
+
+import com.checkout.payment.gateway.codec.PaymentBinaryCodec;
+import com.checkout.payment.gateway.configuration.ReplicationProperties;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Follows the primary's log into the local {@link PaymentsRepository}, reconnecting after
+ * failures. The position (epoch and sequence) only advances once a snapshot has been received
+ * completely, so a connection dropped mid-snapshot restarts it instead of skipping records.
+ */
+public class ReplicationReplica implements AutoCloseable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ReplicationReplica.class);
+
+  private final ReplicationProperties properties;
+  private final PaymentsRepository repository;
+  private final InetSocketAddress primary;
+  private final Counter applied;
+
+  private volatile boolean running = true;
+  private volatile Socket socket;
+  private volatile long epoch;
+  private volatile long sequence;
+  private volatile long primaryHead;
+  private volatile long appliedAtMillis;
+
+  public ReplicationReplica(ReplicationProperties properties, PaymentsRepository repository,
+      MeterRegistry registry) {
+    this.properties = properties;
+    this.repository = repository;
+    int separator = properties.primary().lastIndexOf(':');
+    this.primary = InetSocketAddress.createUnresolved(
+        properties.primary().substring(0, separator),
+        Integer.parseInt(properties.primary().substring(separator + 1)));
+    this.applied = registry.counter("gateway.replication.applied.entries");
+    Gauge.builder("gateway.replication.lag.entries", this, ReplicationReplica::lagEntries)
+        .register(registry);
+    Gauge.builder("gateway.replication.lag.ms", this, ReplicationReplica::lagMillis)
+        .register(registry);
+  }
+
+  public void start() {
+    Thread thread = new Thread(this::follow, "replication-replica");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  public long sequence() {
+    return sequence;
+  }
+
+  private long lagEntries() {
+    return Math.max(0, primaryHead - sequence);
+  }
+
+  private long lagMillis() {
+    return primaryHead > sequence ? System.currentTimeMillis() - appliedAtMillis : 0;
+  }
+
+  private void follow() {
+    while (running) {
+      try (Socket connection = new Socket()) {
+        socket = connection;
+        connection.connect(new InetSocketAddress(primary.getHostString(), primary.getPort()),
+            (int) properties.reconnectDelay().toMillis());
+        connection.setTcpNoDelay(true);
+        stream(connection);
+      } catch (IOException e) {
+        if (running) {
+          LOG.warn("Replication from {} interrupted: {}", primary, e.getMessage());
+          sleep();
+        }
+      }
+    }
+  }
+
+  private void stream(Socket connection) throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+    DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(connection.getOutputStream()));
+    ReplicationProtocol.writeHandshake(out, epoch, sequence);
+    LOG.info("Following {} from sequence {}", primary, sequence);
+
+    long snapshotEpoch = 0;
+    Set<UUID> snapshotIds = null;
+    while (running) {
+      LogEntry entry = ReplicationProtocol.read(in);
+      switch (entry.type()) {
+        case LogEntry.SNAPSHOT -> {
+          snapshotEpoch = ReplicationProtocol.epoch(entry.payload());
+          snapshotIds = new HashSet<>();
+          primaryHead = entry.sequence();
+        }
+        case LogEntry.PUT -> {
+          PostPaymentResponse payment =
+              PaymentBinaryCodec.readPayment(ByteBuffer.wrap(entry.payload()), true);
+          repository.add(payment);
+          if (snapshotIds != null) {
+            snapshotIds.add(payment.getId());
+          }
+        }
+        case LogEntry.REMOVE -> repository.remove(ReplicationProtocol.id(entry.payload()));
+        case LogEntry.SNAPSHOT_END -> {
+          Set<UUID> kept = snapshotIds;
+          repository.all().stream()
+              .filter(payment -> kept == null || !kept.contains(payment.getId()))
+              .toList()
+              .forEach(repository::remove);
+          epoch = snapshotEpoch;
+          snapshotIds = null;
+        }
+        case LogEntry.HEARTBEAT -> {
+        }
+        default -> throw new IOException("Unknown replication frame type " + entry.type());
+      }
+
+      primaryHead = Math.max(primaryHead, entry.sequence());
+      if (snapshotIds == null && entry.type() != LogEntry.HEARTBEAT) {
+        sequence = entry.sequence();
+        appliedAtMillis = entry.appendedAtMillis();
+        applied.increment();
+      }
+      if (snapshotIds == null && in.available() == 0) {
+        out.writeLong(sequence);
+        out.flush();
+      }
+    }
+  }
+
+  private void sleep() {
+    try {
+      Thread.sleep(properties.reconnectDelay().toMillis());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      running = false;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    running = false;
+    Socket current = socket;
+    if (current != null) {
+      current.close();
+    }
+  }
+}
@@ -0,0 +1,7 @@
+package com.checkout.payment.gateway.replication;
+
+public enum ReplicationRole {
+  STANDALONE,
+  PRIMARY,
+  REPLICA
+}
@@ -0,0 +1,100 @@
+package com.checkout.payment.gateway.repository;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free Bloom filter over payment ids. {@link #mightContain} never returns false for an id
+ * that was put, so a negative answer lets a lookup skip the store entirely.
+ */
+public final class BloomFilter {
+
+  private final AtomicLongArray words;
+  private final long bitCount;
+  private final int hashCount;
+
+  public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+    if (expectedInsertions < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+      throw new IllegalArgumentException("Invalid Bloom filter sizing");
+    }
+    long bits = (long) Math.ceil(
+        -expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, (bits + 63) / 64);
+    this.words = new AtomicLongArray(wordCount);
+    this.bitCount = wordCount * 64L;
+    this.hashCount = Math.max(1,
+        (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+  }
+
+  public void put(UUID id) {
+    long h1 = mix(id.getMostSignificantBits());
+    long h2 = mix(id.getLeastSignificantBits()) | 1;
+    for (int i = 0; i < hashCount; i++) {
+      long bit = Math.floorMod(h1 + i * h2, bitCount);
+      long mask = 1L << bit;
+      int word = (int) (bit >>> 6);
+      if ((words.get(word) & mask) == 0) {
+        words.getAndAccumulate(word, mask, (current, m) -> current | m);
+      }
+    }
+  }
+
+  public boolean mightContain(UUID id) {
+    long h1 = mix(id.getMostSignificantBits());
+    long h2 = mix(id.getLeastSignificantBits()) | 1;
+    for (int i = 0; i < hashCount; i++) {
+      long bit = Math.floorMod(h1 + i * h2, bitCount);
+      if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public long bitCount() {
+    return bitCount;
+  }
+
+  public int hashCount() {
+    return hashCount;
+  }
+
+  public int wordCount() {
+    return words.length();
+  }
+
+  /**
+   * Writes the bit array so it can later be probed in place with
+   * {@link #mightContain(LongBuffer, int, UUID)}, e.g. straight from a mapped file.
+   */
+  public void writeTo(ByteBuffer out) {
+    for (int i = 0; i < words.length(); i++) {
+      out.putLong(words.get(i));
+    }
+  }
+
+  public static boolean mightContain(LongBuffer words, int hashCount, UUID id) {
+    long bitCount = words.limit() * 64L;
+    long h1 = mix(id.getMostSignificantBits());
+    long h2 = mix(id.getLeastSignificantBits()) | 1;
+    for (int i = 0; i < hashCount; i++) {
+      long bit = Math.floorMod(h1 + i * h2, bitCount);
+      if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // murmur3 finaliser
+  private static long mix(long h) {
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb93fe53a87b4L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
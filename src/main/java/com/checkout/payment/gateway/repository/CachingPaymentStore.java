@@ -0,0 +1,126 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.configuration.StorageProperties;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Near cache in front of a slower store. Found payments live in a size and TTL bounded Caffeine
+ * cache (W-TinyLFU admission, so a scan of one-off ids cannot flush the hot set). Unknown ids are
+ * answered without a store round trip either by a Bloom filter of every id this node has stored
+ * (a miss there is definite) or by a short lived negative cache for repeated polls.
+ */
+public class CachingPaymentStore implements PaymentStore {
+
+  private final PaymentStore delegate;
+  private final Cache<UUID, PostPaymentResponse> found;
+  private final Cache<UUID, Boolean> absent;
+  private final BloomFilter known;
+  private final Counter bloomRejections;
+
+  public CachingPaymentStore(PaymentStore delegate, StorageProperties properties,
+      MeterRegistry registry) {
+    this.delegate = delegate;
+    this.found = Caffeine.newBuilder()
+        .maximumSize(properties.cacheSize())
+        .expireAfterWrite(properties.cacheTtl())
+        .recordStats()
+        .build();
+    this.absent = Caffeine.newBuilder()
+        .maximumSize(properties.negativeCacheSize())
+        .expireAfterWrite(properties.negativeCacheTtl())
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(registry, found, "payments");
+    CaffeineCacheMetrics.monitor(registry, absent, "payments.absent");
+    this.bloomRejections = registry.counter("gateway.storage.bloom.rejections");
+
+    if (properties.bloomFilter()) {
+      known = new BloomFilter(properties.bloomExpectedInsertions(),
+          properties.bloomFalsePositiveRate());
+      delegate.findAll().forEach(payment -> known.put(payment.getId()));
+    } else {
+      known = null;
+    }
+  }
+
+  @Override
+  public void save(PostPaymentResponse payment) {
+    if (known != null) {
+      known.put(payment.getId());
+    }
+    delegate.save(payment);
+    found.put(payment.getId(), payment);
+    absent.invalidate(payment.getId());
+  }
+
+  @Override
+  public Optional<PostPaymentResponse> findById(UUID id) {
+    PostPaymentResponse cached = found.getIfPresent(id);
+    if (cached != null) {
+      return Optional.of(cached);
+    }
+    if (known != null && !known.mightContain(id)) {
+      bloomRejections.increment();
+      return Optional.empty();
+    }
+    if (absent.getIfPresent(id) != null) {
+      return Optional.empty();
+    }
+
+    Optional<PostPaymentResponse> loaded = delegate.findById(id);
+    if (loaded.isPresent()) {
+      // never replace a version saved while this one was being loaded
+      found.asMap().putIfAbsent(id, loaded.get());
+    } else {
+      absent.put(id, Boolean.TRUE);
+      // save() caches before clearing the negative entry, so this catches a save that raced us
+      if (found.getIfPresent(id) != null) {
+        absent.invalidate(id);
+      }
+    }
+    return loaded;
+  }
+
+  @Override
+  public boolean delete(UUID id) {
+    boolean deleted = delegate.delete(id);
+    found.invalidate(id);
+    return deleted;
+  }
+
+  @Override
+  public boolean delete(PostPaymentResponse expected) {
+    boolean deleted = delegate.delete(expected);
+    if (deleted) {
+      found.asMap().remove(expected.getId(), expected);
+    }
+    return deleted;
+  }
+
+  @Override
+  public boolean replace(PostPaymentResponse expected, PostPaymentResponse updated) {
+    boolean replaced = delegate.replace(expected, updated);
+    if (replaced) {
+      found.put(updated.getId(), updated);
+    }
+    return replaced;
+  }
+
+  @Override
+  public Collection<PostPaymentResponse> findAll() {
+    return delegate.findAll();
+  }
+
+  @Override
+  public int size() {
+    return delegate.size();
+  }
+}
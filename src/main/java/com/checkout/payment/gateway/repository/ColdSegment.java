@@ -0,0 +1,373 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.codec.PaymentBinaryCodec;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Immutable, memory-mapped file of payments sorted by id. Records are grouped into blocks that
+ * are deflated independently; a sparse index holds the first id of every block and a Bloom filter
+ * answers most misses. Both are probed in place in the mapping, so an open segment costs almost
+ * no heap whatever its size. A lookup inflates at most one block.
+ *
+ * <pre>
+ * header: magic i32 | version | 3 unused | first_sequence i64 | last_sequence i64 | records i32
+ *         | blocks i32 | index_offset i64 | bloom_offset i64 | bloom_words i32 | bloom_hashes i32
+ * block:  deflate((id 16 bytes | length i32, -1 for a deletion | payment, internal form)*)
+ * index:  (first id 16 bytes | offset i64 | compressed_length i32 | length i32)*
+ * bloom:  words i64*
+ * </pre>
+ */
+final class ColdSegment {
+
+  /**
+   * Marks a payment deleted after an older segment was written.
+   */
+  static final PostPaymentResponse DELETED = PostPaymentResponse.builder().build();
+
+  static final Comparator<UUID> ID_ORDER = Comparator
+      .comparingLong(UUID::getMostSignificantBits)
+      .thenComparingLong(UUID::getLeastSignificantBits);
+
+  private static final int MAGIC = 0x50434f4c;
+  private static final byte VERSION = 1;
+  private static final int HEADER_SIZE = 56;
+  private static final int INDEX_ENTRY_SIZE = 32;
+  private static final int ID_SIZE = 16;
+  private static final String PREFIX = "cold-";
+  private static final String SUFFIX = ".seg";
+
+  private final Path file;
+  private final long firstSequence;
+  private final long lastSequence;
+  private final int records;
+  private final int blocks;
+  private final ByteBuffer index;
+  private final LongBuffer bloom;
+  private final int bloomHashes;
+  private final MappedByteBuffer map;
+
+  private ColdSegment(Path file, MappedByteBuffer map) throws IOException {
+    this.file = file;
+    this.map = map;
+    if (map.capacity() < HEADER_SIZE || map.getInt(0) != MAGIC || map.get(4) != VERSION) {
+      throw new IOException("Not a cold payment segment: " + file);
+    }
+    this.firstSequence = map.getLong(8);
+    this.lastSequence = map.getLong(16);
+    this.records = map.getInt(24);
+    this.blocks = map.getInt(28);
+    long indexOffset = map.getLong(32);
+    long bloomOffset = map.getLong(40);
+    int bloomWords = map.getInt(48);
+    this.bloomHashes = map.getInt(52);
+    if (indexOffset + (long) blocks * INDEX_ENTRY_SIZE > bloomOffset
+        || bloomOffset + bloomWords * 8L != map.capacity()) {
+      throw new IOException("Truncated cold payment segment: " + file);
+    }
+    this.index = map.slice((int) indexOffset, blocks * INDEX_ENTRY_SIZE);
+    this.bloom = map.slice((int) bloomOffset, bloomWords * 8).asLongBuffer();
+  }
+
+  static ColdSegment open(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return new ColdSegment(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  static boolean isSegment(Path file) {
+    String name = file.getFileName().toString();
+    return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+  }
+
+  /**
+   * Writes {@code entries}, which must be sorted by {@link #ID_ORDER} without duplicates, to a
+   * new segment covering {@code firstSequence..lastSequence} and maps it.
+   */
+  static ColdSegment write(Path directory, long firstSequence, long lastSequence,
+      Iterator<Entry> entries, long expectedRecords, int blockSize, double falsePositiveRate)
+      throws IOException {
+    Path file = directory.resolve(
+        PREFIX + String.format("%020d-%020d", firstSequence, lastSequence) + SUFFIX);
+    Path tmp = directory.resolve(file.getFileName() + ".tmp");
+    BloomFilter filter = new BloomFilter(Math.max(1, expectedRecords), falsePositiveRate);
+
+    try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      BlockWriter writer = new BlockWriter(channel, blockSize);
+      while (entries.hasNext()) {
+        Entry entry = entries.next();
+        filter.put(entry.id());
+        writer.add(entry);
+      }
+      writer.finish();
+
+      long indexOffset = channel.position();
+      writeFully(channel, writer.index.flip());
+      long bloomOffset = channel.position();
+      ByteBuffer bits = ByteBuffer.allocate(filter.wordCount() * 8);
+      filter.writeTo(bits);
+      writeFully(channel, bits.flip());
+
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+          .putInt(MAGIC)
+          .put(VERSION)
+          .put(new byte[3])
+          .putLong(firstSequence)
+          .putLong(lastSequence)
+          .putInt(writer.records)
+          .putInt(writer.blocks)
+          .putLong(indexOffset)
+          .putLong(bloomOffset)
+          .putInt(filter.wordCount())
+          .putInt(filter.hashCount())
+          .flip();
+      channel.position(0);
+      writeFully(channel, header);
+      channel.force(true);
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(tmp);
+      throw e;
+    }
+    Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+    return open(file);
+  }
+
+  /**
+   * The payment stored for {@code id}, {@link #DELETED}, or null if this segment knows nothing
+   * about it.
+   */
+  PostPaymentResponse find(UUID id) {
+    if (blocks == 0 || !BloomFilter.mightContain(bloom, bloomHashes, id)) {
+      return null;
+    }
+    int block = floorBlock(id);
+    if (block < 0) {
+      return null;
+    }
+    ByteBuffer in = inflate(block);
+    while (in.hasRemaining()) {
+      UUID current = new UUID(in.getLong(), in.getLong());
+      int length = in.getInt();
+      int order = ID_ORDER.compare(current, id);
+      if (order == 0) {
+        return length < 0 ? DELETED : PaymentBinaryCodec.readPayment(in.slice(in.position(),
+            length), true);
+      }
+      if (order > 0) {
+        return null;
+      }
+      in.position(in.position() + Math.max(0, length));
+    }
+    return null;
+  }
+
+  /**
+   * Every record in id order, deletions included.
+   */
+  Iterator<Entry> entries() {
+    return new Iterator<>() {
+      private int block;
+      private ByteBuffer in = ByteBuffer.allocate(0);
+
+      @Override
+      public boolean hasNext() {
+        while (!in.hasRemaining() && block < blocks) {
+          in = inflate(block++);
+        }
+        return in.hasRemaining();
+      }
+
+      @Override
+      public Entry next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        UUID id = new UUID(in.getLong(), in.getLong());
+        int length = in.getInt();
+        if (length < 0) {
+          return new Entry(id, DELETED);
+        }
+        PostPaymentResponse payment =
+            PaymentBinaryCodec.readPayment(in.slice(in.position(), length), true);
+        in.position(in.position() + length);
+        return new Entry(id, payment);
+      }
+    };
+  }
+
+  Path file() {
+    return file;
+  }
+
+  long firstSequence() {
+    return firstSequence;
+  }
+
+  long lastSequence() {
+    return lastSequence;
+  }
+
+  int records() {
+    return records;
+  }
+
+  long bytes() {
+    return map.capacity();
+  }
+
+  // last block whose first id is not after id
+  private int floorBlock(UUID id) {
+    int low = 0;
+    int high = blocks - 1;
+    int found = -1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int at = middle * INDEX_ENTRY_SIZE;
+      UUID first = new UUID(index.getLong(at), index.getLong(at + 8));
+      if (ID_ORDER.compare(first, id) <= 0) {
+        found = middle;
+        low = middle + 1;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return found;
+  }
+
+  private ByteBuffer inflate(int block) {
+    int at = block * INDEX_ENTRY_SIZE;
+    long offset = index.getLong(at + ID_SIZE);
+    int compressed = index.getInt(at + ID_SIZE + 8);
+    int length = index.getInt(at + ID_SIZE + 12);
+    byte[] out = new byte[length];
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(map.slice((int) offset, compressed));
+      int read = 0;
+      while (read < length && !inflater.finished()) {
+        int n = inflater.inflate(out, read, length - read);
+        if (n == 0 && inflater.needsInput()) {
+          break;
+        }
+        read += n;
+      }
+      if (read != length) {
+        throw new UncheckedIOException(new IOException("Corrupt block " + block + " in " + file));
+      }
+    } catch (DataFormatException e) {
+      throw new UncheckedIOException(new IOException("Corrupt block " + block + " in " + file, e));
+    } finally {
+      inflater.end();
+    }
+    return ByteBuffer.wrap(out);
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  record Entry(UUID id, PostPaymentResponse payment) {}
+
+  /**
+   * Fills an uncompressed block, deflates it once it reaches the block size and records it in the
+   * index.
+   */
+  private static final class BlockWriter {
+
+    private final FileChannel channel;
+    private final int blockSize;
+    private final Deflater deflater = new Deflater();
+    private ByteBuffer block;
+    private ByteBuffer compressed;
+    private ByteBuffer index = ByteBuffer.allocate(64 * INDEX_ENTRY_SIZE);
+    private UUID firstId;
+    private int records;
+    private int blocks;
+
+    BlockWriter(FileChannel channel, int blockSize) throws IOException {
+      this.channel = channel;
+      this.blockSize = blockSize;
+      this.block = ByteBuffer.allocate(blockSize);
+      this.compressed = ByteBuffer.allocate(blockSize + blockSize / 8 + 64);
+      channel.position(HEADER_SIZE);
+    }
+
+    void add(Entry entry) throws IOException {
+      boolean deleted = entry.payment() == DELETED;
+      int length = deleted ? 0 : PaymentBinaryCodec.paymentSize(entry.payment(), true);
+      int size = ID_SIZE + 4 + length;
+      if (block.position() > 0 && block.remaining() < size) {
+        flush();
+      }
+      if (block.remaining() < size) {
+        block = ByteBuffer.allocate(size);
+      }
+      if (block.position() == 0) {
+        firstId = entry.id();
+      }
+      block.putLong(entry.id().getMostSignificantBits())
+          .putLong(entry.id().getLeastSignificantBits())
+          .putInt(deleted ? -1 : length);
+      if (!deleted) {
+        PaymentBinaryCodec.writePayment(block, entry.payment(), true);
+      }
+      records++;
+    }
+
+    void finish() throws IOException {
+      if (block.position() > 0) {
+        flush();
+      }
+      deflater.end();
+    }
+
+    private void flush() throws IOException {
+      int length = block.position();
+      deflater.reset();
+      deflater.setInput(block.flip());
+      deflater.finish();
+      compressed.clear();
+      while (!deflater.finished()) {
+        deflater.deflate(compressed);
+        if (!compressed.hasRemaining()) {
+          compressed = ByteBuffer.allocate(compressed.capacity() * 2)
+              .put(compressed.flip());
+        }
+      }
+      compressed.flip();
+      long offset = channel.position();
+      int compressedLength = compressed.remaining();
+      writeFully(channel, compressed);
+
+      if (index.remaining() < INDEX_ENTRY_SIZE) {
+        index = ByteBuffer.allocate(index.capacity() * 2).put(index.flip());
+      }
+      index.putLong(firstId.getMostSignificantBits())
+          .putLong(firstId.getLeastSignificantBits())
+          .putLong(offset)
+          .putInt(compressedLength)
+          .putInt(length);
+      blocks++;
+      block = block.capacity() == blockSize ? block.clear() : ByteBuffer.allocate(blockSize);
+    }
+  }
+}
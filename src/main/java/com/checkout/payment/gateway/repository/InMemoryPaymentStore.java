@@ -0,0 +1,163 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Map backed store that can stream a consistent point-in-time view of itself while writes go on.
+ * During a snapshot each write first keeps the version it replaces (copy-on-write per entry), so
+ * the snapshot reads the live map and substitutes those pre-images; writers never wait for it.
+ */
+public class InMemoryPaymentStore implements PaymentStore {
+
+  // pre-image of a payment created after the snapshot started; compared by identity
+  private static final PostPaymentResponse ABSENT = PostPaymentResponse.builder().build();
+
+  private final ConcurrentHashMap<UUID, PostPaymentResponse> payments = new ConcurrentHashMap<>();
+  private volatile ConcurrentHashMap<UUID, PostPaymentResponse> preimages;
+
+  @Override
+  public void save(PostPaymentResponse payment) {
+    payments.compute(payment.getId(), (id, current) -> {
+      keepPreimage(id, current);
+      written(id);
+      return payment;
+    });
+  }
+
+  @Override
+  public Optional<PostPaymentResponse> findById(UUID id) {
+    return Optional.ofNullable(payments.get(id));
+  }
+
+  @Override
+  public boolean delete(UUID id) {
+    return remove(id, null);
+  }
+
+  @Override
+  public boolean delete(PostPaymentResponse expected) {
+    return remove(expected.getId(), expected);
+  }
+
+  @Override
+  public boolean replace(PostPaymentResponse expected, PostPaymentResponse updated) {
+    boolean[] replaced = new boolean[1];
+    payments.compute(expected.getId(), (id, current) -> {
+      PostPaymentResponse value = current != null ? current : missing(id);
+      if (!expected.equals(value)) {
+        return current;
+      }
+      keepPreimage(id, current);
+      written(id);
+      replaced[0] = true;
+      return updated;
+    });
+    return replaced[0];
+  }
+
+  /**
+   * Weakly consistent view, safe to iterate while payments are being added.
+   */
+  @Override
+  public Collection<PostPaymentResponse> findAll() {
+    return payments.values();
+  }
+
+  @Override
+  public int size() {
+    return payments.size();
+  }
+
+  /**
+   * Hands every payment as of the moment this call starts to {@code sink}, on the calling thread.
+   * A payment changed while the snapshot runs can be handed over twice; the later one is the
+   * version at that moment, so a reader must let it win. One snapshot runs at a time.
+   */
+  public synchronized void snapshot(Consumer<PostPaymentResponse> sink) {
+    ConcurrentHashMap<UUID, PostPaymentResponse> kept = new ConcurrentHashMap<>();
+    preimages = kept;
+    try {
+      // the value is read before its pre-image: a write that is already visible has kept one
+      payments.forEach((id, payment) -> {
+        if (!kept.containsKey(id)) {
+          sink.accept(payment);
+        }
+      });
+      kept.forEach((id, payment) -> {
+        if (payment != ABSENT) {
+          sink.accept(payment);
+        }
+      });
+    } finally {
+      preimages = null;
+    }
+  }
+
+  public boolean isSnapshotRunning() {
+    return preimages != null;
+  }
+
+  /**
+   * Value of a payment this map doesn't hold, consulted by conditional writes. Runs inside the
+   * entry's compute, so it is atomic with respect to other writes of the same payment.
+   */
+  PostPaymentResponse missing(UUID id) {
+    return null;
+  }
+
+  /**
+   * Called inside the entry's compute after a payment was saved or replaced.
+   */
+  void written(UUID id) {
+  }
+
+  /**
+   * Called inside the entry's compute after a payment was deleted.
+   */
+  void removed(UUID id) {
+  }
+
+  /**
+   * Drops the payment from this map if it is still {@code expected}, without counting as a delete.
+   */
+  boolean evict(PostPaymentResponse expected) {
+    boolean[] evicted = new boolean[1];
+    payments.computeIfPresent(expected.getId(), (id, current) -> {
+      if (!current.equals(expected)) {
+        return current;
+      }
+      keepPreimage(id, current);
+      evicted[0] = true;
+      return null;
+    });
+    return evicted[0];
+  }
+
+  private boolean remove(UUID id, PostPaymentResponse expected) {
+    boolean[] deleted = new boolean[1];
+    payments.compute(id, (key, current) -> {
+      PostPaymentResponse value = current != null ? current : missing(key);
+      if (value == null || (expected != null && !expected.equals(value))) {
+        return current;
+      }
+      keepPreimage(key, current);
+      removed(key);
+      deleted[0] = true;
+      return null;
+    });
+    return deleted[0];
+  }
+
+  // runs inside compute, so it is atomic with the write it precedes
+  private void keepPreimage(UUID id, PostPaymentResponse current) {
+    ConcurrentHashMap<UUID, PostPaymentResponse> kept = preimages;
+    if (kept != null) {
+      kept.putIfAbsent(id, current == null ? ABSENT : current);
+    }
+  }
+}
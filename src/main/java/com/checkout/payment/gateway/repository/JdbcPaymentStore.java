@@ -0,0 +1,469 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.enums.PaymentOperation;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.exception.ServiceOverloadedException;
+import com.checkout.payment.gateway.model.PaymentTransition;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Write-behind JDBC store. Saves land in a pending map and are written by a single writer thread
+ * that coalesces whatever accumulated into one batched, single-transaction upsert, so a POST never
+ * waits for a commit. Reads see pending writes first and otherwise use a prepared lookup by
+ * primary key.
+ *
+ * <p>A batch the database refuses is retried row by row, and a row it still refuses as invalid
+ * is dropped and logged rather than retried forever. New payments are turned away with a 503
+ * once {@code maxPending} writes are waiting, so an outage can't grow the pending map unbounded.
+ *
+ * <p>Pending writes are flushed on shutdown; a crash loses at most the last batch window.
+ */
+public class JdbcPaymentStore implements PaymentStore, AutoCloseable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(JdbcPaymentStore.class);
+
+  private static final String SCHEMA = """
+      CREATE TABLE IF NOT EXISTS payments (
+        id VARCHAR(36) PRIMARY KEY,
+        merchant_id VARCHAR(255),
+        status VARCHAR(16),
+        card_number_last_four VARCHAR(4),
+        expiry_month INTEGER,
+        expiry_year INTEGER,
+        currency VARCHAR(3),
+        amount BIGINT,
+        authorization_code VARCHAR(64),
+        captured_amount BIGINT DEFAULT 0 NOT NULL,
+        refunded_amount BIGINT DEFAULT 0 NOT NULL,
+        history VARCHAR(4096),
+        updated_at BIGINT NOT NULL
+      )""";
+  // tables created before capture, void and refund existed
+  private static final String[] LIFECYCLE_COLUMNS = {
+      "ALTER TABLE payments ADD COLUMN IF NOT EXISTS authorization_code VARCHAR(64)",
+      "ALTER TABLE payments ADD COLUMN IF NOT EXISTS captured_amount BIGINT DEFAULT 0 NOT NULL",
+      "ALTER TABLE payments ADD COLUMN IF NOT EXISTS refunded_amount BIGINT DEFAULT 0 NOT NULL",
+      "ALTER TABLE payments ADD COLUMN IF NOT EXISTS history VARCHAR(4096)"
+  };
+  private static final String MERCHANT_INDEX =
+      "CREATE INDEX IF NOT EXISTS payments_merchant_idx ON payments (merchant_id)";
+  private static final String COLUMNS = "id, merchant_id, status, card_number_last_four, "
+      + "expiry_month, expiry_year, currency, amount, authorization_code, captured_amount, "
+      + "refunded_amount, history, updated_at";
+  private static final String PLACEHOLDERS = "?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?";
+  private static final String H2_UPSERT =
+      "MERGE INTO payments (" + COLUMNS + ") KEY (id) VALUES (" + PLACEHOLDERS + ")";
+  private static final String STANDARD_UPSERT =
+      "INSERT INTO payments (" + COLUMNS + ") VALUES (" + PLACEHOLDERS + ") "
+          + "ON CONFLICT (id) DO UPDATE SET merchant_id = excluded.merchant_id, "
+          + "status = excluded.status, card_number_last_four = excluded.card_number_last_four, "
+          + "expiry_month = excluded.expiry_month, expiry_year = excluded.expiry_year, "
+          + "currency = excluded.currency, amount = excluded.amount, "
+          + "authorization_code = excluded.authorization_code, "
+          + "captured_amount = excluded.captured_amount, "
+          + "refunded_amount = excluded.refunded_amount, history = excluded.history, "
+          + "updated_at = excluded.updated_at";
+  private static final String SELECT_BY_ID = "SELECT " + COLUMNS + " FROM payments WHERE id = ?";
+  private static final String SELECT_ALL = "SELECT " + COLUMNS + " FROM payments";
+  private static final String DELETE = "DELETE FROM payments WHERE id = ?";
+
+  // marks a pending delete; compared by identity
+  private static final PostPaymentResponse DELETED = PostPaymentResponse.builder().build();
+
+  private static final RowMapper<PostPaymentResponse> ROW_MAPPER = (rs, rowNum) ->
+      PostPaymentResponse.builder()
+          .id(UUID.fromString(rs.getString("id")))
+          .merchantId(rs.getString("merchant_id"))
+          .status(rs.getString("status") == null ? null
+              : PaymentStatus.valueOf(rs.getString("status")))
+          .cardNumberLastFour(rs.getString("card_number_last_four"))
+          .expiryMonth(nullableInt(rs, "expiry_month"))
+          .expiryYear(nullableInt(rs, "expiry_year"))
+          .currency(rs.getString("currency"))
+          .amount(nullableLong(rs, "amount"))
+          .authorizationCode(rs.getString("authorization_code"))
+          .capturedAmount(rs.getLong("captured_amount"))
+          .refundedAmount(rs.getLong("refunded_amount"))
+          .lastTransition(parseHistory(rs.getString("history")))
+          .build();
+
+  private final JdbcTemplate jdbc;
+  private final TransactionTemplate transaction;
+  private final String upsert;
+  private final int batchSize;
+  private final long lingerNanos;
+  private final int maxPending;
+  private final ConcurrentHashMap<UUID, PostPaymentResponse> pending = new ConcurrentHashMap<>();
+  private final BlockingQueue<UUID> dirty = new LinkedBlockingQueue<>();
+  // bumped after every commit, before the written versions leave pending
+  private final AtomicLong flushes = new AtomicLong();
+  private final Counter batches;
+  private final Counter rows;
+  private final Counter failures;
+  private final Counter dropped;
+  private final Thread writer;
+  private volatile boolean running = true;
+
+  public JdbcPaymentStore(JdbcTemplate jdbc, TransactionTemplate transaction, int batchSize,
+      Duration linger, int maxPending, boolean initializeSchema, MeterRegistry registry) {
+    this.jdbc = jdbc;
+    this.transaction = transaction;
+    this.batchSize = batchSize;
+    this.lingerNanos = linger.toNanos();
+    this.maxPending = maxPending;
+    if (initializeSchema) {
+      jdbc.execute(SCHEMA);
+      jdbc.execute(MERCHANT_INDEX);
+      for (String column : LIFECYCLE_COLUMNS) {
+        jdbc.execute(column);
+      }
+    }
+    String product = jdbc.execute((ConnectionCallback<String>) connection ->
+        connection.getMetaData().getDatabaseProductName());
+    this.upsert = "H2".equalsIgnoreCase(product) ? H2_UPSERT : STANDARD_UPSERT;
+
+    this.batches = registry.counter("gateway.storage.jdbc.batches");
+    this.rows = registry.counter("gateway.storage.jdbc.rows");
+    this.failures = registry.counter("gateway.storage.jdbc.failures");
+    this.dropped = registry.counter("gateway.storage.jdbc.dropped");
+    Gauge.builder("gateway.storage.jdbc.pending", pending, Map::size).register(registry);
+
+    this.writer = new Thread(this::writeLoop, "payment-store-writer");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  @Override
+  public void save(PostPaymentResponse payment) {
+    if (pending.size() >= maxPending && !pending.containsKey(payment.getId())) {
+      throw new ServiceOverloadedException(
+          pending.size() + " payments are waiting to be written", Duration.ofSeconds(1));
+    }
+    pending.put(payment.getId(), payment);
+    dirty.offer(payment.getId());
+  }
+
+  @Override
+  public Optional<PostPaymentResponse> findById(UUID id) {
+    PostPaymentResponse unwritten = pending.get(id);
+    if (unwritten != null) {
+      return unwritten == DELETED ? Optional.empty() : Optional.of(unwritten);
+    }
+    return jdbc.query(SELECT_BY_ID, ROW_MAPPER, id.toString()).stream().findFirst();
+  }
+
+  @Override
+  public boolean delete(UUID id) {
+    if (findById(id).isEmpty()) {
+      return false;
+    }
+    pending.put(id, DELETED);
+    dirty.offer(id);
+    return true;
+  }
+
+  @Override
+  public boolean delete(PostPaymentResponse expected) {
+    return compareAndSet(expected, DELETED);
+  }
+
+  @Override
+  public boolean replace(PostPaymentResponse expected, PostPaymentResponse updated) {
+    return compareAndSet(expected, updated);
+  }
+
+  /**
+   * Swaps {@code expected} for {@code next}. The stored row is read before taking the map's lock
+   * on the id, and read again if the writer committed a batch in the meantime, since the row may
+   * then be older than a version that has just left the pending map.
+   */
+  private boolean compareAndSet(PostPaymentResponse expected, PostPaymentResponse next) {
+    UUID id = expected.getId();
+    for (;;) {
+      long flushed = flushes.get();
+      boolean selected = !pending.containsKey(id);
+      PostPaymentResponse stored = selected
+          ? jdbc.query(SELECT_BY_ID, ROW_MAPPER, id.toString()).stream().findFirst().orElse(null)
+          : null;
+      Boolean[] swapped = new Boolean[1];
+      pending.compute(id, (key, unwritten) -> {
+        if (unwritten == null && (!selected || flushed != flushes.get())) {
+          return null;
+        }
+        PostPaymentResponse current = unwritten != null ? unwritten : stored;
+        swapped[0] = current != null && current != DELETED && current.equals(expected);
+        return swapped[0] ? next : unwritten;
+      });
+      if (swapped[0] != null) {
+        if (swapped[0]) {
+          dirty.offer(id);
+        }
+        return swapped[0];
+      }
+    }
+  }
+
+  /**
+   * Full table read with pending writes applied on top; meant for rebalancing and snapshots, not
+   * request paths.
+   */
+  @Override
+  public Collection<PostPaymentResponse> findAll() {
+    Map<UUID, PostPaymentResponse> all = new LinkedHashMap<>();
+    jdbc.query(SELECT_ALL, ROW_MAPPER).forEach(payment -> all.put(payment.getId(), payment));
+    pending.forEach((id, unwritten) -> {
+      if (unwritten == DELETED) {
+        all.remove(id);
+      } else {
+        all.put(id, unwritten);
+      }
+    });
+    return all.values();
+  }
+
+  /**
+   * Rows already written; payments still waiting for the writer are not counted.
+   */
+  @Override
+  public int size() {
+    Integer count = jdbc.queryForObject("SELECT COUNT(*) FROM payments", Integer.class);
+    return count == null ? 0 : count;
+  }
+
+  private void writeLoop() {
+    List<UUID> batch = new ArrayList<>(batchSize);
+    while (running) {
+      try {
+        UUID first = dirty.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        long lingerUntil = System.nanoTime() + lingerNanos;
+        while (batch.size() < batchSize) {
+          UUID next = dirty.poll(lingerUntil - System.nanoTime(), TimeUnit.NANOSECONDS);
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+        }
+        write(batch);
+      } catch (InterruptedException e) {
+        running = false;
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  private void write(List<UUID> ids) throws InterruptedException {
+    Map<UUID, PostPaymentResponse> latest = new LinkedHashMap<>();
+    for (UUID id : ids) {
+      PostPaymentResponse unwritten = pending.get(id);
+      if (unwritten != null) {
+        latest.put(id, unwritten);
+      }
+    }
+    if (latest.isEmpty()) {
+      return;
+    }
+
+    List<Object[]> upserts = new ArrayList<>(latest.size());
+    List<Object[]> deletes = new ArrayList<>();
+    long now = System.currentTimeMillis();
+    latest.forEach((id, payment) -> {
+      if (payment == DELETED) {
+        deletes.add(new Object[] {id.toString()});
+      } else {
+        upserts.add(row(payment, now));
+      }
+    });
+
+    try {
+      transaction.executeWithoutResult(status -> {
+        if (!upserts.isEmpty()) {
+          jdbc.batchUpdate(upsert, upserts, upserts.size(), JdbcPaymentStore::bind);
+        }
+        if (!deletes.isEmpty()) {
+          jdbc.batchUpdate(DELETE, deletes);
+        }
+      });
+    } catch (DataAccessException e) {
+      failures.increment();
+      LOG.warn("Writing {} payments as one batch failed, writing them one at a time",
+          latest.size(), e);
+      writeEach(latest, now);
+      return;
+    }
+
+    // keep anything that changed while the batch was being written for the next round
+    flushes.incrementAndGet();
+    latest.forEach(pending::remove);
+    batches.increment();
+    rows.increment(latest.size());
+  }
+
+  /**
+   * Writes each payment in its own transaction. A row the database rejects as invalid will never
+   * go in, so it is dropped and logged; any other failure puts the rest back for a later retry.
+   */
+  private void writeEach(Map<UUID, PostPaymentResponse> latest, long now)
+      throws InterruptedException {
+    List<UUID> ids = new ArrayList<>(latest.keySet());
+    for (int i = 0; i < ids.size(); i++) {
+      UUID id = ids.get(i);
+      PostPaymentResponse payment = latest.get(id);
+      try {
+        transaction.executeWithoutResult(status -> {
+          if (payment == DELETED) {
+            jdbc.update(DELETE, id.toString());
+          } else {
+            jdbc.update(upsert, statement -> bind(statement, row(payment, now)));
+          }
+        });
+        rows.increment();
+      } catch (DataIntegrityViolationException e) {
+        dropped.increment();
+        LOG.error("Dropping payment {}, the database refuses it: {}", id,
+            e.getMostSpecificCause().getMessage());
+      } catch (DataAccessException e) {
+        failures.increment();
+        LOG.warn("Writing payment {} failed, retrying {} payments", id, ids.size() - i, e);
+        ids.subList(i, ids.size()).forEach(dirty::offer);
+        flushes.incrementAndGet();
+        ids.subList(0, i).forEach(written -> pending.remove(written, latest.get(written)));
+        Thread.sleep(1000);
+        return;
+      }
+    }
+    flushes.incrementAndGet();
+    latest.forEach(pending::remove);
+  }
+
+  private static Object[] row(PostPaymentResponse payment, long updatedAt) {
+    return new Object[] {
+        payment.getId().toString(),
+        payment.getMerchantId(),
+        payment.getStatus() == null ? null : payment.getStatus().name(),
+        payment.getCardNumberLastFour(),
+        payment.getExpiryMonth(),
+        payment.getExpiryYear(),
+        payment.getCurrency(),
+        payment.getAmount(),
+        payment.getAuthorizationCode(),
+        payment.getCapturedAmount(),
+        payment.getRefundedAmount(),
+        historyColumn(payment.getLastTransition()),
+        updatedAt
+    };
+  }
+
+  private static void bind(PreparedStatement statement, Object[] row) throws SQLException {
+    statement.setString(1, (String) row[0]);
+    statement.setString(2, (String) row[1]);
+    statement.setString(3, (String) row[2]);
+    statement.setString(4, (String) row[3]);
+    setNullable(statement, 5, row[4], Types.INTEGER);
+    setNullable(statement, 6, row[5], Types.INTEGER);
+    statement.setString(7, (String) row[6]);
+    setNullable(statement, 8, row[7], Types.BIGINT);
+    statement.setString(9, (String) row[8]);
+    statement.setLong(10, (Long) row[9]);
+    statement.setLong(11, (Long) row[10]);
+    statement.setString(12, (String) row[11]);
+    statement.setLong(13, (Long) row[12]);
+  }
+
+  // operation,amount,status,instant per transition, oldest first and separated by ';'
+  private static String historyColumn(PaymentTransition last) {
+    if (last == null) {
+      return null;
+    }
+    StringJoiner column = new StringJoiner(";");
+    for (PaymentTransition transition : PaymentTransition.history(last)) {
+      column.add(transition.operation().name() + "," + transition.amount() + ","
+          + transition.status().name() + "," + transition.at());
+    }
+    return column.toString();
+  }
+
+  private static PaymentTransition parseHistory(String column) {
+    if (column == null || column.isEmpty()) {
+      return null;
+    }
+    PaymentTransition last = null;
+    for (String entry : column.split(";")) {
+      String[] fields = entry.split(",");
+      last = new PaymentTransition(PaymentOperation.valueOf(fields[0]),
+          Long.parseLong(fields[1]), PaymentStatus.valueOf(fields[2]), Instant.parse(fields[3]),
+          last);
+    }
+    return last;
+  }
+
+  private static void setNullable(PreparedStatement statement, int index, Object value, int type)
+      throws SQLException {
+    if (value == null) {
+      statement.setNull(index, type);
+    } else {
+      statement.setObject(index, value, type);
+    }
+  }
+
+  private static Integer nullableInt(ResultSet rs, String column) throws SQLException {
+    int value = rs.getInt(column);
+    return rs.wasNull() ? null : value;
+  }
+
+  private static Long nullableLong(ResultSet rs, String column) throws SQLException {
+    long value = rs.getLong(column);
+    return rs.wasNull() ? null : value;
+  }
+
+  /**
+   * Stops the writer and flushes everything still pending.
+   */
+  @Override
+  public void close() throws InterruptedException {
+    running = false;
+    writer.join(TimeUnit.SECONDS.toMillis(5));
+    List<UUID> remaining = new ArrayList<>();
+    dirty.drainTo(remaining);
+    for (int from = 0; from < remaining.size(); from += batchSize) {
+      write(remaining.subList(from, Math.min(remaining.size(), from + batchSize)));
+    }
+    if (!pending.isEmpty()) {
+      LOG.warn("{} payments could not be written before shutdown", pending.size());
+    }
+  }
+}
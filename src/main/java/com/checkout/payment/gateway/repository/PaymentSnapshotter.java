@@ -0,0 +1,335 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.codec.PaymentBinaryCodec;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Writes point-in-time snapshots of the in-memory store to local disk and reloads the newest one
+ * on startup. A snapshot is written to a temporary file, forced and atomically renamed, so a
+ * crash mid-way leaves the previous snapshots untouched.
+ *
+ * <pre>
+ * file:    magic i32 | version | flags (1 = gzip body) | created_at_millis i64 | body
+ * body:    (length i32 | payment, internal binary form)* | -1 i32 | count i64 | crc32 i64
+ * </pre>
+ */
+public class PaymentSnapshotter {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PaymentSnapshotter.class);
+
+  private static final int MAGIC = 0x50534e50;
+  private static final byte VERSION = 1;
+  private static final byte GZIP = 1;
+  private static final int HEADER_SIZE = 4 + 1 + 1 + 8;
+  private static final int END = -1;
+  private static final int BUFFER_SIZE = 256 * 1024;
+  private static final String PREFIX = "payments-";
+  private static final String SUFFIX = ".snap";
+
+  private final InMemoryPaymentStore store;
+  private final Path directory;
+  private final boolean compress;
+  private final int retain;
+  private final Timer duration;
+  private final DistributionSummary size;
+  private final Counter failures;
+  private final AtomicLong lastPayments = new AtomicLong();
+  private long lastCreatedAt;
+
+  public PaymentSnapshotter(InMemoryPaymentStore store, Path directory, boolean compress,
+      int retain, MeterRegistry registry) {
+    if (retain < 1) {
+      throw new IllegalArgumentException("At least one snapshot must be retained");
+    }
+    this.store = store;
+    this.directory = directory;
+    this.compress = compress;
+    this.retain = retain;
+    this.duration = registry.timer("gateway.storage.snapshot.duration");
+    this.size = DistributionSummary.builder("gateway.storage.snapshot.size")
+        .baseUnit("bytes")
+        .register(registry);
+    this.failures = registry.counter("gateway.storage.snapshot.failures");
+    Gauge.builder("gateway.storage.snapshot.payments", lastPayments, AtomicLong::get)
+        .register(registry);
+  }
+
+  /**
+   * Loads the newest readable snapshot into the store. A truncated or corrupt file is skipped in
+   * favour of the one before it. Returns the number of payments loaded.
+   */
+  public long restore() throws IOException {
+    for (Path file : snapshots()) {
+      try {
+        long count = read(file);
+        lastPayments.set(count);
+        LOG.info("Restored {} payments from {}", count, file);
+        return count;
+      } catch (IOException | RuntimeException e) {
+        LOG.warn("Skipping unreadable snapshot {}: {}", file, e.toString());
+      }
+    }
+    return 0;
+  }
+
+  @Scheduled(fixedDelayString = "${gateway.storage.snapshot.interval-ms:300000}")
+  public synchronized void snapshot() {
+    Timer.Sample sample = Timer.start();
+    try {
+      Path file = write();
+      sample.stop(duration);
+      prune();
+      LOG.debug("Wrote snapshot {}", file);
+    } catch (IOException | UncheckedIOException e) {
+      failures.increment();
+      LOG.error("Snapshot failed", e);
+    }
+  }
+
+  public boolean isRunning() {
+    return store.isSnapshotRunning();
+  }
+
+  /**
+   * Takes a last snapshot so a graceful restart loses nothing.
+   */
+  public void close() {
+    snapshot();
+  }
+
+  Path write() throws IOException {
+    Files.createDirectories(directory);
+    // strictly increasing so two snapshots within a millisecond don't share a name
+    long createdAt = Math.max(System.currentTimeMillis(), lastCreatedAt + 1);
+    lastCreatedAt = createdAt;
+    Path file = directory.resolve(PREFIX + String.format("%020d", createdAt) + SUFFIX);
+    Path tmp = directory.resolve(file.getFileName() + ".tmp");
+
+    try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+          .putInt(MAGIC)
+          .put(VERSION)
+          .put(compress ? GZIP : 0)
+          .putLong(createdAt)
+          .flip();
+      writeFully(channel, header);
+
+      GZIPOutputStream gzip = compress
+          ? new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE) : null;
+      WritableByteChannel body = gzip != null ? Channels.newChannel(gzip) : channel;
+      RecordWriter writer = new RecordWriter(body);
+      store.snapshot(writer);
+      writer.finish();
+      if (gzip != null) {
+        gzip.finish();
+      }
+      channel.force(true);
+      lastPayments.set(writer.count);
+      size.record(channel.size());
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(tmp);
+      throw e;
+    }
+    Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+    return file;
+  }
+
+  private long read(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      readFully(channel, header);
+      header.flip();
+      if (header.getInt() != MAGIC || header.get() != VERSION) {
+        throw new IOException("Not a payment snapshot");
+      }
+      boolean gzip = (header.get() & GZIP) != 0;
+      ReadableByteChannel body = gzip
+          ? Channels.newChannel(new GZIPInputStream(Channels.newInputStream(channel), BUFFER_SIZE))
+          : channel;
+
+      // decode everything before touching the store so a corrupt file loads nothing
+      RecordReader reader = new RecordReader(body);
+      List<PostPaymentResponse> payments = reader.readAll();
+      payments.forEach(store::save);
+      return payments.size();
+    }
+  }
+
+  private void prune() throws IOException {
+    List<Path> files = snapshots();
+    for (Path old : files.subList(Math.min(retain, files.size()), files.size())) {
+      Files.deleteIfExists(old);
+    }
+  }
+
+  // newest first, the name carries the zero padded creation time
+  private List<Path> snapshots() throws IOException {
+    if (!Files.isDirectory(directory)) {
+      return List.of();
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .filter(file -> {
+            String name = file.getFileName().toString();
+            return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+          })
+          .sorted(Comparator.comparing(Path::getFileName).reversed())
+          .toList();
+    }
+  }
+
+  private static void writeFully(WritableByteChannel channel, ByteBuffer buffer)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  private static void readFully(ReadableByteChannel channel, ByteBuffer buffer)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) {
+        throw new EOFException("Snapshot is truncated");
+      }
+    }
+  }
+
+  /**
+   * Frames payments into a reusable buffer and flushes it whenever the next record doesn't fit.
+   */
+  private static final class RecordWriter implements Consumer<PostPaymentResponse> {
+
+    private final WritableByteChannel channel;
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private long count;
+
+    RecordWriter(WritableByteChannel channel) {
+      this.channel = channel;
+    }
+
+    @Override
+    public void accept(PostPaymentResponse payment) {
+      int length = PaymentBinaryCodec.paymentSize(payment, true);
+      try {
+        ensure(4 + length);
+        buffer.putInt(length);
+        int start = buffer.position();
+        PaymentBinaryCodec.writePayment(buffer, payment, true);
+        crc.update(buffer.array(), start, length);
+        count++;
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    void finish() throws IOException {
+      ensure(4 + 8 + 8);
+      buffer.putInt(END).putLong(count).putLong(crc.getValue());
+      flush();
+    }
+
+    private void ensure(int bytes) throws IOException {
+      if (buffer.remaining() < bytes) {
+        flush();
+        if (buffer.capacity() < bytes) {
+          buffer = ByteBuffer.allocate(bytes);
+        }
+      }
+    }
+
+    private void flush() throws IOException {
+      buffer.flip();
+      writeFully(channel, buffer);
+      buffer.clear();
+    }
+  }
+
+  private static final class RecordReader {
+
+    private final ReadableByteChannel channel;
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).flip();
+
+    RecordReader(ReadableByteChannel channel) {
+      this.channel = channel;
+    }
+
+    List<PostPaymentResponse> readAll() throws IOException {
+      List<PostPaymentResponse> payments = new ArrayList<>();
+      for (;;) {
+        ensure(4);
+        int length = buffer.getInt();
+        if (length == END) {
+          break;
+        }
+        if (length < 0) {
+          throw new IOException("Invalid record length " + length);
+        }
+        ensure(length);
+        crc.update(buffer.array(), buffer.position(), length);
+        ByteBuffer record = buffer.slice(buffer.position(), length);
+        payments.add(PaymentBinaryCodec.readPayment(record, true));
+        buffer.position(buffer.position() + length);
+      }
+      ensure(8 + 8);
+      long count = buffer.getLong();
+      long checksum = buffer.getLong();
+      if (count != payments.size() || checksum != crc.getValue()) {
+        throw new IOException("Snapshot checksum mismatch");
+      }
+      // reading to the end also makes gzip check its own trailer
+      if (buffer.hasRemaining() || channel.read(ByteBuffer.allocate(1)) >= 0) {
+        throw new IOException("Unexpected data after the snapshot trailer");
+      }
+      return payments;
+    }
+
+    private void ensure(int bytes) throws IOException {
+      if (buffer.remaining() >= bytes) {
+        return;
+      }
+      if (buffer.capacity() < bytes) {
+        buffer = ByteBuffer.allocate(bytes).put(buffer);
+      } else {
+        buffer.compact();
+      }
+      while (buffer.position() < bytes) {
+        if (channel.read(buffer) < 0) {
+          throw new EOFException("Snapshot is truncated");
+        }
+      }
+      buffer.flip();
+    }
+  }
+}
@@ -0,0 +1,34 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Storage SPI behind {@link PaymentsRepository}. Implementations must be thread safe and make a
+ * saved payment immediately visible to {@link #findById}, even if it is persisted later.
+ */
+public interface PaymentStore {
+
+  void save(PostPaymentResponse payment);
+
+  Optional<PostPaymentResponse> findById(UUID id);
+
+  boolean delete(UUID id);
+
+  /**
+   * Deletes the payment only if its current version equals {@code expected}.
+   */
+  boolean delete(PostPaymentResponse expected);
+
+  /**
+   * Replaces the payment with {@code updated} only if its current version equals
+   * {@code expected}.
+   */
+  boolean replace(PostPaymentResponse expected, PostPaymentResponse updated);
+
+  Collection<PostPaymentResponse> findAll();
+
+  int size();
+}
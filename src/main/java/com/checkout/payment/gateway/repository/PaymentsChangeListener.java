@@ -0,0 +1,14 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import java.util.UUID;
+
+/**
+ * Called synchronously after every change, on the thread that made it.
+ */
+public interface PaymentsChangeListener {
+
+  void onAdd(PostPaymentResponse payment);
+
+  void onRemove(UUID id);
+}
@@ -1,22 +1,90 @@
 package com.checkout.payment.gateway.repository;
 
 import com.checkout.payment.gateway.model.PostPaymentResponse;
-import java.util.HashMap;
+import com.checkout.payment.gateway.profiling.RepositoryEvent;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public class PaymentsRepository {
 
-  private final HashMap<UUID, PostPaymentResponse> payments = new HashMap<>();
+  private final PaymentStore store;
+  private final List<PaymentsChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+  public PaymentsRepository(PaymentStore store) {
+    this.store = store;
+  }
+
+  public void addListener(PaymentsChangeListener listener) {
+    listeners.add(listener);
+  }
 
   public void add(PostPaymentResponse payment) {
-    payments.put(payment.getId(), payment);
+    RepositoryEvent event = RepositoryEvent.start("add");
+    store.save(payment);
+    event.finish(store, true);
+    listeners.forEach(listener -> listener.onAdd(payment));
   }
 
   public Optional<PostPaymentResponse> get(UUID id) {
-    return Optional.ofNullable(payments.get(id));
+    RepositoryEvent event = RepositoryEvent.start("get");
+    Optional<PostPaymentResponse> payment = store.findById(id);
+    event.finish(store, payment.isPresent());
+    return payment;
+  }
+
+  public void remove(UUID id) {
+    RepositoryEvent event = RepositoryEvent.start("remove");
+    boolean removed = store.delete(id);
+    event.finish(store, removed);
+    if (removed) {
+      listeners.forEach(listener -> listener.onRemove(id));
+    }
+  }
+
+  /**
+   * Removes the payment only if it was not replaced since it was read, so a concurrent update is
+   * never lost.
+   */
+  public boolean remove(PostPaymentResponse payment) {
+    RepositoryEvent event = RepositoryEvent.start("remove");
+    boolean removed = store.delete(payment);
+    event.finish(store, removed);
+    if (!removed) {
+      return false;
+    }
+    listeners.forEach(listener -> listener.onRemove(payment.getId()));
+    return true;
+  }
+
+  /**
+   * Stores {@code updated} only if the payment is still {@code expected}; listeners see it as an
+   * add.
+   */
+  public boolean replace(PostPaymentResponse expected, PostPaymentResponse updated) {
+    RepositoryEvent event = RepositoryEvent.start("replace");
+    boolean replaced = store.replace(expected, updated);
+    event.finish(store, replaced);
+    if (!replaced) {
+      return false;
+    }
+    listeners.forEach(listener -> listener.onAdd(updated));
+    return true;
+  }
+
+  public Collection<PostPaymentResponse> all() {
+    RepositoryEvent event = RepositoryEvent.start("all");
+    Collection<PostPaymentResponse> payments = store.findAll();
+    event.finish(store, !payments.isEmpty());
+    return payments;
+  }
+
+  public int size() {
+    return store.size();
   }
 
 }
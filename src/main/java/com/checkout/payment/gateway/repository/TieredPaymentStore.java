@@ -0,0 +1,405 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * In-memory store whose payments move to {@link ColdSegment cold segments} on local disk once
+ * they haven't been written for {@code hotAge}. Lookups check the hot map, then deletions not yet
+ * in a segment, then segments newest first, so the newest version of a payment always wins.
+ *
+ * <p>Every migration writes one segment. Segments are merged size-tiered (the two newest while
+ * the older is at most twice the newer), keeping their number logarithmic in the history length
+ * and each payment rewritten a logarithmic number of times. A merged segment covers the sequence
+ * range of its inputs, so inputs left behind by a crash are recognised and dropped on startup.
+ */
+public class TieredPaymentStore extends InMemoryPaymentStore implements AutoCloseable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TieredPaymentStore.class);
+
+  // stays well below the 2GB a single mapping can address
+  private static final long MAX_SEGMENT_BYTES = 1L << 30;
+
+  private final Path directory;
+  private final long hotAgeNanos;
+  private final int blockSize;
+  private final double falsePositiveRate;
+
+  private final Map<UUID, Long> writtenAt = new ConcurrentHashMap<>();
+  private final ConcurrentLinkedQueue<Write> writes = new ConcurrentLinkedQueue<>();
+  private final Set<UUID> deletions = ConcurrentHashMap.newKeySet();
+  private volatile List<ColdSegment> segments = List.of();
+  private long nextSequence;
+
+  private final Timer coldReads;
+  private final Counter migrated;
+
+  public TieredPaymentStore(Path directory, Duration hotAge, int blockSize,
+      double falsePositiveRate, MeterRegistry registry) throws IOException {
+    this.directory = directory;
+    this.hotAgeNanos = hotAge.toNanos();
+    this.blockSize = blockSize;
+    this.falsePositiveRate = falsePositiveRate;
+    this.coldReads = registry.timer("gateway.storage.tiering.cold.reads");
+    this.migrated = registry.counter("gateway.storage.tiering.migrated");
+    Gauge.builder("gateway.storage.tiering.hot.payments", this, TieredPaymentStore::hotSize)
+        .register(registry);
+    Gauge.builder("gateway.storage.tiering.cold.records", this,
+            store -> store.segments.stream().mapToLong(ColdSegment::records).sum())
+        .register(registry);
+    Gauge.builder("gateway.storage.tiering.cold.segments", this, store -> store.segments.size())
+        .register(registry);
+    Gauge.builder("gateway.storage.tiering.cold.bytes", this,
+            store -> store.segments.stream().mapToLong(ColdSegment::bytes).sum())
+        .baseUnit("bytes")
+        .register(registry);
+    Gauge.builder("gateway.storage.tiering.pending.deletions", deletions, Set::size)
+        .register(registry);
+    open();
+  }
+
+  @Override
+  public Optional<PostPaymentResponse> findById(UUID id) {
+    Optional<PostPaymentResponse> hot = super.findById(id);
+    if (hot.isPresent() || deletions.contains(id)) {
+      return hot;
+    }
+    return Optional.ofNullable(findCold(id));
+  }
+
+  /**
+   * Hot payments followed by cold ones, weakly consistent like the hot map. Cold segments are
+   * streamed in id order, one block at a time.
+   */
+  @Override
+  public Collection<PostPaymentResponse> findAll() {
+    return new AbstractCollection<>() {
+      @Override
+      public Iterator<PostPaymentResponse> iterator() {
+        Iterator<PostPaymentResponse> hot = TieredPaymentStore.super.findAll().iterator();
+        Iterator<ColdSegment.Entry> cold = merge(segments, true);
+        return new Iterator<>() {
+          private PostPaymentResponse next;
+
+          @Override
+          public boolean hasNext() {
+            while (next == null) {
+              if (hot.hasNext()) {
+                next = hot.next();
+              } else if (cold.hasNext()) {
+                ColdSegment.Entry entry = cold.next();
+                if (TieredPaymentStore.super.findById(entry.id()).isEmpty()
+                    && !deletions.contains(entry.id())) {
+                  next = entry.payment();
+                }
+              } else {
+                return false;
+              }
+            }
+            return true;
+          }
+
+          @Override
+          public PostPaymentResponse next() {
+            if (!hasNext()) {
+              throw new NoSuchElementException();
+            }
+            PostPaymentResponse payment = next;
+            next = null;
+            return payment;
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return TieredPaymentStore.this.size();
+      }
+    };
+  }
+
+  /**
+   * Hot payments plus cold records. A payment that went cold and was written again is counted in
+   * both tiers until its segments are merged.
+   */
+  @Override
+  public int size() {
+    long records = hotSize();
+    for (ColdSegment segment : segments) {
+      records += segment.records();
+    }
+    return (int) Math.min(Integer.MAX_VALUE, records);
+  }
+
+  public int hotSize() {
+    return super.size();
+  }
+
+  /**
+   * Moves every payment not written for {@code hotAge} into a new segment, together with the
+   * deletions recorded since the last migration, then merges segments if needed.
+   */
+  @Scheduled(fixedDelayString = "${gateway.storage.tiering.migrate-interval-ms:60000}")
+  public synchronized void migrate() {
+    long cutoff = System.nanoTime() - hotAgeNanos;
+    Map<UUID, Long> ages = new HashMap<>();
+    Map<UUID, ColdSegment.Entry> moving = new HashMap<>();
+    for (Write write = writes.peek(); write != null && write.at() - cutoff <= 0;
+        write = writes.peek()) {
+      writes.poll();
+      Long last = writtenAt.get(write.id());
+      if (last == null || last != write.at()) {
+        continue;
+      }
+      Optional<PostPaymentResponse> payment = super.findById(write.id());
+      if (payment.isPresent()) {
+        ages.put(write.id(), write.at());
+        moving.put(write.id(), new ColdSegment.Entry(write.id(), payment.get()));
+      } else {
+        writtenAt.remove(write.id(), write.at());
+      }
+    }
+    // read after the payments: a payment deleted meanwhile must go out as a deletion
+    List<UUID> deleted = new ArrayList<>(deletions);
+    for (UUID id : deleted) {
+      moving.put(id, new ColdSegment.Entry(id, ColdSegment.DELETED));
+    }
+    if (moving.isEmpty()) {
+      return;
+    }
+    List<ColdSegment.Entry> entries = new ArrayList<>(moving.values());
+    entries.sort(Comparator.comparing(ColdSegment.Entry::id, ColdSegment.ID_ORDER));
+
+    try {
+      long sequence = nextSequence++;
+      ColdSegment segment = ColdSegment.write(directory, sequence, sequence, entries.iterator(),
+          entries.size(), blockSize, falsePositiveRate);
+      List<ColdSegment> published = new ArrayList<>(segments.size() + 1);
+      published.add(segment);
+      published.addAll(segments);
+      segments = List.copyOf(published);
+    } catch (IOException e) {
+      LOG.error("Could not write cold segment, payments stay hot", e);
+      return;
+    }
+
+    // a payment written since it was read stays hot; its newer version wins over the segment
+    int moved = 0;
+    for (ColdSegment.Entry entry : entries) {
+      if (entry.payment() == ColdSegment.DELETED) {
+        continue;
+      }
+      if (evict(entry.payment())) {
+        writtenAt.remove(entry.id(), ages.get(entry.id()));
+        moved++;
+      }
+    }
+    deleted.forEach(deletions::remove);
+    migrated.increment(moved);
+    LOG.debug("Moved {} payments and {} deletions to cold storage", moved, deleted.size());
+
+    compact();
+  }
+
+  /**
+   * Writes out pending deletions (and anything old enough) so they survive the restart.
+   * Segments stay mapped until they are garbage collected.
+   */
+  @Override
+  public void close() {
+    migrate();
+  }
+
+  @Override
+  PostPaymentResponse missing(UUID id) {
+    return deletions.contains(id) ? null : findCold(id);
+  }
+
+  @Override
+  void written(UUID id) {
+    deletions.remove(id);
+    long at = System.nanoTime();
+    writtenAt.put(id, at);
+    writes.offer(new Write(id, at));
+  }
+
+  @Override
+  void removed(UUID id) {
+    writtenAt.remove(id);
+    deletions.add(id);
+  }
+
+  private PostPaymentResponse findCold(UUID id) {
+    List<ColdSegment> current = segments;
+    if (current.isEmpty()) {
+      return null;
+    }
+    long start = System.nanoTime();
+    try {
+      for (ColdSegment segment : current) {
+        PostPaymentResponse payment = segment.find(id);
+        if (payment != null) {
+          return payment == ColdSegment.DELETED ? null : payment;
+        }
+      }
+      return null;
+    } finally {
+      coldReads.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private void compact() {
+    List<ColdSegment> current = segments;
+    while (current.size() >= 2) {
+      ColdSegment newer = current.get(0);
+      ColdSegment older = current.get(1);
+      if (older.records() > 2L * newer.records()
+          || newer.bytes() + older.bytes() > MAX_SEGMENT_BYTES) {
+        return;
+      }
+      // deletions only need to shadow older segments, there are none behind the oldest
+      boolean oldest = current.size() == 2;
+      ColdSegment merged;
+      try {
+        merged = ColdSegment.write(directory, older.firstSequence(), newer.lastSequence(),
+            merge(List.of(newer, older), oldest), (long) newer.records() + older.records(),
+            blockSize, falsePositiveRate);
+      } catch (IOException | RuntimeException e) {
+        LOG.error("Could not merge cold segments {} and {}", newer.file(), older.file(), e);
+        return;
+      }
+      List<ColdSegment> published = new ArrayList<>(current.size() - 1);
+      published.add(merged);
+      published.addAll(current.subList(2, current.size()));
+      current = List.copyOf(published);
+      segments = current;
+      deleteQuietly(newer.file());
+      deleteQuietly(older.file());
+    }
+  }
+
+  private void open() throws IOException {
+    Files.createDirectories(directory);
+    List<ColdSegment> found = new ArrayList<>();
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path file : files.toList()) {
+        if (file.getFileName().toString().endsWith(".tmp")) {
+          deleteQuietly(file);
+        } else if (ColdSegment.isSegment(file)) {
+          try {
+            found.add(ColdSegment.open(file));
+          } catch (IOException e) {
+            LOG.warn("Skipping unreadable cold segment {}: {}", file, e.toString());
+          }
+        }
+      }
+    }
+    // widest range first, so the inputs of a merge that completed are recognised as covered
+    found.sort(Comparator.comparingLong(ColdSegment::lastSequence).reversed()
+        .thenComparingLong(ColdSegment::firstSequence));
+    List<ColdSegment> live = new ArrayList<>();
+    for (ColdSegment segment : found) {
+      boolean covered = live.stream().anyMatch(kept ->
+          kept.firstSequence() <= segment.firstSequence()
+              && segment.lastSequence() <= kept.lastSequence());
+      if (covered) {
+        deleteQuietly(segment.file());
+      } else {
+        live.add(segment);
+      }
+    }
+    segments = List.copyOf(live);
+    nextSequence = live.isEmpty() ? 0 : live.get(0).lastSequence() + 1;
+    LOG.info("Opened {} cold segments in {}", live.size(), directory);
+  }
+
+  /**
+   * K-way merge of segments given newest first: one entry per id, taken from the newest segment
+   * that has it.
+   */
+  private static Iterator<ColdSegment.Entry> merge(List<ColdSegment> newestFirst,
+      boolean dropDeletions) {
+    record Head(ColdSegment.Entry entry, int age, Iterator<ColdSegment.Entry> rest) {}
+    PriorityQueue<Head> heads = new PriorityQueue<>(
+        Comparator.comparing((Head head) -> head.entry().id(), ColdSegment.ID_ORDER)
+            .thenComparingInt(Head::age));
+    for (int age = 0; age < newestFirst.size(); age++) {
+      Iterator<ColdSegment.Entry> entries = newestFirst.get(age).entries();
+      if (entries.hasNext()) {
+        heads.add(new Head(entries.next(), age, entries));
+      }
+    }
+    return new Iterator<>() {
+      private ColdSegment.Entry next;
+
+      @Override
+      public boolean hasNext() {
+        while (next == null && !heads.isEmpty()) {
+          Head newest = heads.poll();
+          advance(newest);
+          UUID id = newest.entry().id();
+          while (!heads.isEmpty() && heads.peek().entry().id().equals(id)) {
+            advance(heads.poll());
+          }
+          if (!dropDeletions || newest.entry().payment() != ColdSegment.DELETED) {
+            next = newest.entry();
+          }
+        }
+        return next != null;
+      }
+
+      @Override
+      public ColdSegment.Entry next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        ColdSegment.Entry entry = next;
+        next = null;
+        return entry;
+      }
+
+      private void advance(Head head) {
+        if (head.rest().hasNext()) {
+          heads.add(new Head(head.rest().next(), head.age(), head.rest()));
+        }
+      }
+    };
+  }
+
+  private static void deleteQuietly(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      LOG.warn("Could not delete {}", file, e);
+    }
+  }
+
+  private record Write(UUID id, long at) {}
+}
@@ -0,0 +1,59 @@
+package com.checkout.payment.gateway.service;
+
+import com.checkout.payment.gateway.configuration.AsyncProperties;
+import com.checkout.payment.gateway.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded pool completing asynchronous authorisations. A full queue is surfaced as overload
+ * rather than growing without limit.
+ */
+@Component
+public class AuthorisationWorkerPool {
+
+  private final ThreadPoolExecutor executor;
+
+  public AuthorisationWorkerPool(AsyncProperties properties, MeterRegistry registry) {
+    AtomicInteger threadCount = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(
+        properties.workers(),
+        properties.workers(),
+        0L,
+        TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(properties.queueCapacity()),
+        runnable -> {
+          Thread thread = new Thread(runnable, "authorisation-" + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        },
+        new ThreadPoolExecutor.AbortPolicy());
+
+    Gauge.builder("gateway.async.queue.size", executor, e -> e.getQueue().size())
+        .register(registry);
+    Gauge.builder("gateway.async.active", executor, ThreadPoolExecutor::getActiveCount)
+        .register(registry);
+  }
+
+  public void submit(Runnable task) {
+    try {
+      executor.execute(task);
+    } catch (RejectedExecutionException e) {
+      throw new ServiceOverloadedException("Authorisation queue is full", Duration.ofSeconds(1));
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    executor.shutdown();
+    executor.awaitTermination(10, TimeUnit.SECONDS);
+  }
+}
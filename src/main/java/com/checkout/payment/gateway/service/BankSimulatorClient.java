@@ -1,31 +1,209 @@
 package com.checkout.payment.gateway.service;
 
+import com.checkout.payment.gateway.bin.BinDirectory;
+import com.checkout.payment.gateway.bin.BinInfo;
+import com.checkout.payment.gateway.configuration.BankClientProperties;
+import com.checkout.payment.gateway.exception.BankClientException;
+import com.checkout.payment.gateway.exception.DeadlineExceededException;
+import com.checkout.payment.gateway.model.BankOperationRequest;
+import com.checkout.payment.gateway.model.BankOperationResponse;
 import com.checkout.payment.gateway.model.BankPaymentRequest;
 import com.checkout.payment.gateway.model.BankPaymentResponse;
+import com.checkout.payment.gateway.profiling.BankCallEvent;
+import com.checkout.payment.gateway.startup.WarmupContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
-import reactor.core.publisher.Mono;
 
 @Service
 public final class BankSimulatorClient {
 
-  private final WebClient webClient;
+  private final HttpClient httpClient;
+  private final URI baseUri;
+  private final URI paymentsUri;
+  private final URI capturesUri;
+  private final URI voidsUri;
+  private final URI refundsUri;
+  private final Map<String, URI> acquirerPaymentsUris = new HashMap<>();
+  private final BinDirectory bins;
+  private final Duration responseTimeout;
+  private final ObjectMapper mapper;
 
-  public BankSimulatorClient() {
-    this.webClient = WebClient.builder()
-        .baseUrl("http://localhost:8080") //this wouldn't be hardcoded in production etc
+  public BankSimulatorClient(BankClientProperties properties, ObjectMapper mapper) {
+    this(properties, mapper, null);
+  }
+
+  @Autowired
+  public BankSimulatorClient(BankClientProperties properties, ObjectMapper mapper,
+      BinDirectory bins) {
+    // JDK client keeps idle keep-alive connections pooled, no second HTTP stack next to Tomcat
+    this.httpClient = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(properties.connectTimeout())
+        .build();
+    this.baseUri = URI.create(properties.baseUrl());
+    this.paymentsUri = baseUri.resolve("/payments");
+    this.capturesUri = baseUri.resolve("/captures");
+    this.voidsUri = baseUri.resolve("/voids");
+    this.refundsUri = baseUri.resolve("/refunds");
+    properties.acquirers().forEach((name, url) ->
+        acquirerPaymentsUris.put(name, URI.create(url).resolve("/payments")));
+    this.bins = bins;
+    this.responseTimeout = properties.responseTimeout();
+    this.mapper = mapper;
+  }
+
+  /**
+   * Calls the bank, giving up after {@code timeout} (capped by the configured response timeout).
+   * A timed out exchange is aborted so the connection is not held for an abandoned request.
+   */
+  public BankPaymentResponse submit(BankPaymentRequest req, Duration timeout) {
+    return post(paymentsUri(req), req, timeout, BankPaymentResponse.class);
+  }
+
+  /**
+   * Sends the authorisation bounded only by the configured response timeout, so a caller that
+   * stops waiting for it can still act on the bank's decision once it arrives.
+   */
+  public CompletableFuture<BankPaymentResponse> submitAsync(BankPaymentRequest req) {
+    URI uri = paymentsUri(req);
+    BankCallEvent event = BankCallEvent.start(uri);
+    HttpRequest request;
+    try {
+      request = request(uri, req, responseTimeout);
+    } catch (IOException e) {
+      RuntimeException failure = failure(e, event);
+      event.finish();
+      return CompletableFuture.failedFuture(failure);
+    }
+    return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+        .handle((response, e) -> {
+          try {
+            if (e != null) {
+              throw failure(e instanceof CompletionException ? e.getCause() : e, event);
+            }
+            return read(response, BankPaymentResponse.class, event);
+          } catch (IOException io) {
+            throw failure(io, event);
+          } finally {
+            event.finish();
+          }
+        });
+  }
+
+  /**
+   * Captures {@code amount} of an authorisation; the bank releases anything left uncaptured.
+   */
+  public BankOperationResponse capture(String authorizationCode, long amount, Duration timeout) {
+    return post(capturesUri, new BankOperationRequest(authorizationCode, amount), timeout,
+        BankOperationResponse.class);
+  }
+
+  public BankOperationResponse voidAuthorization(String authorizationCode, Duration timeout) {
+    return post(voidsUri, new BankOperationRequest(authorizationCode, null), timeout,
+        BankOperationResponse.class);
+  }
+
+  public BankOperationResponse refund(String authorizationCode, long amount, Duration timeout) {
+    return post(refundsUri, new BankOperationRequest(authorizationCode, amount), timeout,
+        BankOperationResponse.class);
+  }
+
+  private <T> T post(URI uri, Object body, Duration timeout, Class<T> responseType) {
+    if (timeout.isZero() || timeout.isNegative()) {
+      throw new DeadlineExceededException("Deadline expired before the bank was called");
+    }
+    BankCallEvent event = BankCallEvent.start(uri);
+    try {
+      HttpRequest request = request(uri, body,
+          timeout.compareTo(responseTimeout) < 0 ? timeout : responseTimeout);
+      return read(httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray()),
+          responseType, event);
+    } catch (IOException e) {
+      throw failure(e, event);
+    } catch (InterruptedException e) {
+      event.failed("interrupted");
+      Thread.currentThread().interrupt();
+      throw new DeadlineExceededException("Interrupted waiting for the bank");
+    } finally {
+      event.finish();
+    }
+  }
+
+  private HttpRequest request(URI uri, Object body, Duration timeout) throws IOException {
+    return HttpRequest.newBuilder(uri)
+        .timeout(timeout)
+        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+        .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(body)))
         .build();
   }
 
-  public Mono<BankPaymentResponse> submit(BankPaymentRequest req) {
-    return webClient.post()
-        .uri("/payments")
-        .contentType(MediaType.APPLICATION_JSON)
-        .accept(MediaType.APPLICATION_JSON)
-        .bodyValue(req)
-        .retrieve()
-        .bodyToMono(BankPaymentResponse.class);
+  private <T> T read(HttpResponse<byte[]> response, Class<T> responseType, BankCallEvent event)
+      throws IOException {
+    event.answered(response.statusCode());
+    if (response.statusCode() / 100 != 2) {
+      throw new BankClientException(response.statusCode());
+    }
+    return mapper.readValue(response.body(), responseType);
+  }
+
+  private static RuntimeException failure(Throwable e, BankCallEvent event) {
+    if (e instanceof HttpTimeoutException) {
+      event.failed("timeout");
+      return new DeadlineExceededException("Deadline expired waiting for the bank");
+    }
+    if (e instanceof IOException io) {
+      event.failed("io-error");
+      return new UncheckedIOException("Could not reach the acquiring bank", io);
+    }
+    return e instanceof RuntimeException runtime ? runtime : new IllegalStateException(e);
+  }
+
+  private URI paymentsUri(BankPaymentRequest req) {
+    return WarmupContext.bankOverride()
+        .map(stub -> stub.resolve("/payments"))
+        .orElseGet(() -> paymentsUri(req.card_number()));
+  }
+
+  // the acquirer named by the card's BIN range, the default bank otherwise
+  private URI paymentsUri(String cardNumber) {
+    BinInfo bin = bins == null ? null : bins.lookup(cardNumber);
+    if (bin == null || bin.acquirer() == null) {
+      return paymentsUri;
+    }
+    return acquirerPaymentsUris.getOrDefault(bin.acquirer(), paymentsUri);
+  }
+
+  /**
+   * Opens up to {@code connections} keep-alive connections to the bank ahead of real traffic.
+   * Responses are irrelevant, the connections stay in the client's pool.
+   */
+  public void preconnect(int connections) {
+    HttpRequest request = HttpRequest.newBuilder(baseUri)
+        .timeout(responseTimeout)
+        .method("HEAD", HttpRequest.BodyPublishers.noBody())
+        .build();
+    CompletableFuture<?>[] calls = new CompletableFuture<?>[connections];
+    for (int i = 0; i < connections; i++) {
+      calls[i] = httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+          .exceptionally(e -> null);
+    }
+    CompletableFuture.allOf(calls).join();
   }
 
-}
\ No newline at end of file
+}
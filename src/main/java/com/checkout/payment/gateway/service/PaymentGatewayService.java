@@ -1,18 +1,47 @@
 package com.checkout.payment.gateway.service;
 
+import com.checkout.payment.gateway.configuration.AsyncProperties;
+import com.checkout.payment.gateway.configuration.DeadlineProperties;
+import com.checkout.payment.gateway.deadline.Deadline;
+import com.checkout.payment.gateway.deadline.DeadlineContext;
+import com.checkout.payment.gateway.enums.PaymentOperation;
 import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.event.PaymentStatusChangedEvent;
+import com.checkout.payment.gateway.exception.BankClientException;
+import com.checkout.payment.gateway.exception.DeadlineExceededException;
 import com.checkout.payment.gateway.exception.EventProcessingException;
+import com.checkout.payment.gateway.exception.InvalidPaymentTransitionException;
+import com.checkout.payment.gateway.exception.OperationDeclinedException;
+import com.checkout.payment.gateway.lifecycle.PaymentStateMachine;
+import com.checkout.payment.gateway.model.BankOperationResponse;
 import com.checkout.payment.gateway.model.BankPaymentRequest;
 import com.checkout.payment.gateway.model.BankPaymentResponse;
 import com.checkout.payment.gateway.model.PostPaymentRequest;
 import com.checkout.payment.gateway.model.PostPaymentResponse;
+import com.checkout.payment.gateway.profiling.PaymentStageEvent;
 import com.checkout.payment.gateway.repository.PaymentsRepository;
+import com.checkout.payment.gateway.startup.WarmupContext;
+import com.checkout.payment.gateway.stats.PaymentStats;
+import com.checkout.payment.gateway.stream.PaymentStream;
+import com.checkout.payment.gateway.vault.CardVault;
+import com.checkout.payment.gateway.velocity.VelocityEngine;
+import com.checkout.payment.gateway.velocity.VelocityRule;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClientResponseException;
 
 @Service
 @RequiredArgsConstructor
@@ -22,57 +51,336 @@ public class PaymentGatewayService {
 
   private final PaymentsRepository paymentsRepository;
   private final BankSimulatorClient simulatorClient;
+  private final DeadlineProperties deadlineProperties;
+  private final AsyncProperties asyncProperties;
+  private final AuthorisationWorkerPool authorisationWorkerPool;
+  private final ApplicationEventPublisher eventPublisher;
+  private final PaymentIdGenerator idGenerator;
+  private final CardVault cardVault;
+  private final VelocityEngine velocityEngine;
+  private final PaymentStats paymentStats;
+  private final PaymentStream paymentStream;
+  private final PaymentLookups paymentLookups;
+  private final ConcurrentHashMap<UUID, PaymentOperation> operationsInFlight =
+      new ConcurrentHashMap<>();
 
   public PostPaymentResponse getPaymentById(UUID id) {
     LOG.debug("Requesting access to to payment with ID {}", id);
-    return paymentsRepository.get(id).orElseThrow(() -> new EventProcessingException("Invalid ID"));
+    return paymentLookups.get(id).orElseThrow(() -> new EventProcessingException("Invalid ID"));
   }
 
-  public UUID processPayment(PostPaymentRequest paymentRequest) {
-    UUID id = UUID.randomUUID();
+  /**
+   * Authorises the payment within the request's deadline and returns what was stored. A payment
+   * the bank is still deciding on when the deadline expires comes back pending, and the bank's
+   * answer replaces it once it arrives. Only an authorised card is vaulted, and its token comes
+   * back with the payment so it can be handed to the merchant.
+   */
+  public ProcessedPayment processPayment(PostPaymentRequest paymentRequest, String merchantId) {
+    Deadline deadline = DeadlineContext.current()
+        .orElseGet(() -> Deadline.after(deadlineProperties.defaultTimeout()));
+    if (deadline.isExpired()) {
+      throw new DeadlineExceededException("Deadline expired before the bank was called");
+    }
+
+    PostPaymentRequest resolved = resolveCard(paymentRequest, merchantId);
+    UUID id = idGenerator.next();
+
+    PostPaymentResponse response = newPayment(id, resolved, merchantId);
+
+    PostPaymentResponse stored = authoriseAndStore(toBankRequest(resolved), response, deadline);
+    String cardToken = paymentRequest.getCardToken();
+    if (stored.getStatus() == PaymentStatus.AUTHORIZED && cardToken == null) {
+      cardToken = cardVault.tokenise(paymentRequest.getCardNumber(), merchantId);
+    }
+    return new ProcessedPayment(stored, cardToken);
+  }
+
+  /**
+   * Stores the payment as pending and completes the bank authorisation on the worker pool, so
+   * the caller does not wait for the bank.
+   */
+  public UUID submitPayment(PostPaymentRequest paymentRequest, String merchantId) {
+    paymentRequest = resolveCard(paymentRequest, merchantId);
+    UUID id = idGenerator.next();
+
+    PostPaymentResponse pending = newPayment(id, paymentRequest, merchantId).toBuilder()
+        .status(PaymentStatus.PENDING)
+        .build();
+    BankPaymentRequest bankPaymentRequest = toBankRequest(paymentRequest);
+
+    paymentsRepository.add(pending);
+    Executor context = WarmupContext.sameContext();
+    try {
+      // published by the worker, so the stream never shows a payment the pool turned away and
+      // the pending state always precedes the outcome
+      authorisationWorkerPool.submit(() -> context.execute(() -> {
+        if (!WarmupContext.isSynthetic()) {
+          paymentStream.publish(pending);
+        }
+        completePayment(bankPaymentRequest, pending);
+      }));
+    } catch (RuntimeException e) {
+      paymentsRepository.remove(id);
+      throw e;
+    }
+
+    return id;
+  }
+
+  private void completePayment(BankPaymentRequest bankPaymentRequest,
+      PostPaymentResponse pending) {
+    try {
+      authoriseAndStore(bankPaymentRequest, pending,
+          Deadline.after(asyncProperties.bankTimeout()));
+    } catch (RuntimeException e) {
+      LOG.warn("Asynchronous authorisation of payment {} failed", pending.getId(), e);
+      store(pending.toBuilder().status(PaymentStatus.REJECTED).build());
+    }
+  }
+
+  public PostPaymentResponse capturePayment(UUID id, String merchantId, Long amount) {
+    return changePayment(id, merchantId, PaymentOperation.CAPTURE, amount);
+  }
+
+  public PostPaymentResponse voidPayment(UUID id, String merchantId) {
+    return changePayment(id, merchantId, PaymentOperation.VOID, null);
+  }
+
+  public PostPaymentResponse refundPayment(UUID id, String merchantId, Long amount) {
+    return changePayment(id, merchantId, PaymentOperation.REFUND, amount);
+  }
+
+  /**
+   * Runs one lifecycle operation against the bank and records it. An in-flight marker taken with
+   * putIfAbsent keeps two operations on one payment from both reaching the bank, without any
+   * lock shared between payments. The new version is committed with a compare-and-set and
+   * re-applied to whatever replaced the payment in between.
+   */
+  private PostPaymentResponse changePayment(UUID id, String merchantId,
+      PaymentOperation operation, Long amount) {
+    Deadline deadline = DeadlineContext.current()
+        .orElseGet(() -> Deadline.after(deadlineProperties.defaultTimeout()));
+    if (operationsInFlight.putIfAbsent(id, operation) != null) {
+      throw new InvalidPaymentTransitionException(
+          "Another operation on payment " + id + " is in progress");
+    }
+    PaymentStageEvent stage = PaymentStageEvent.start(operation.getName().toLowerCase(Locale.ROOT));
+    try {
+      PostPaymentResponse current = ownedPayment(id, merchantId);
+      long moved = PaymentStateMachine.amount(current, operation, amount);
+      String authorizationCode = current.getAuthorizationCode();
+      BankOperationResponse answer = switch (operation) {
+        case CAPTURE -> simulatorClient.capture(authorizationCode, moved, deadline.remaining());
+        case VOID -> simulatorClient.voidAuthorization(authorizationCode, deadline.remaining());
+        case REFUND -> simulatorClient.refund(authorizationCode, moved, deadline.remaining());
+      };
+      if (!answer.approved()) {
+        throw new OperationDeclinedException(
+            "Bank declined " + operation.getName().toLowerCase(Locale.ROOT) + " of payment " + id);
+      }
+
+      Instant at = Instant.now();
+      PostPaymentResponse next = PaymentStateMachine.apply(current, operation, moved, at);
+      while (!paymentsRepository.replace(current, next)) {
+        // the bank has moved the money, so the operation is merged into whichever version won
+        PostPaymentResponse lost = current;
+        current = ownedPayment(id, merchantId);
+        if (current.getStatus() != lost.getStatus()) {
+          LOG.warn("Bank approved {} of payment {} while it changed from {} to {}, recording it "
+              + "for reconciliation", operation.getName().toLowerCase(Locale.ROOT), id,
+              lost.getStatus(), current.getStatus());
+        }
+        next = PaymentStateMachine.record(current, operation, moved, at);
+      }
+      changed(next);
+      return next;
+    } finally {
+      operationsInFlight.remove(id, operation);
+      stage.finish(id);
+    }
+  }
+
+  private PostPaymentResponse ownedPayment(UUID id, String merchantId) {
+    return paymentsRepository.get(id)
+        .filter(payment -> merchantId.equals(payment.getMerchantId()))
+        .orElseThrow(() -> new EventProcessingException("Invalid ID"));
+  }
+
+  /**
+   * Swaps a card token for the card number it stands for; a card number is used as sent.
+   */
+  private PostPaymentRequest resolveCard(PostPaymentRequest paymentRequest, String merchantId) {
+    PaymentStageEvent stage = PaymentStageEvent.start(PaymentStageEvent.RESOLVE_CARD);
+    try {
+      if (paymentRequest.getCardToken() != null) {
+        String cardNumber = cardVault.detokenise(paymentRequest.getCardToken(), merchantId);
+        return paymentRequest.toBuilder()
+            .cardNumber(cardNumber)
+            .cardNumberLastFour(cardNumber.substring(cardNumber.length() - 4))
+            .build();
+      }
+      return paymentRequest;
+    } finally {
+      stage.finish(null);
+    }
+  }
+
+  private void store(PostPaymentResponse response) {
+    PaymentStageEvent stage = PaymentStageEvent.start(PaymentStageEvent.STORE);
+    try {
+      paymentsRepository.add(response);
+      if (!WarmupContext.isSynthetic()) {
+        paymentStats.record(response.getCurrency(), response.getStatus(),
+            response.getAmount() == null ? 0 : response.getAmount());
+      }
+      changed(response);
+    } finally {
+      stage.finish(response.getId());
+    }
+  }
 
-    PostPaymentResponse response = PostPaymentResponse.builder()
+  // synthetic warm-up payments stay out of fraud counters, statistics and the live stream
+  private void changed(PostPaymentResponse payment) {
+    if (!WarmupContext.isSynthetic()) {
+      paymentStream.publish(payment);
+    }
+    eventPublisher.publishEvent(new PaymentStatusChangedEvent(payment));
+  }
+
+  private static PostPaymentResponse newPayment(UUID id, PostPaymentRequest paymentRequest,
+      String merchantId) {
+    return PostPaymentResponse.builder()
         .id(id)
+        .merchantId(merchantId)
         .cardNumberLastFour(paymentRequest.getCardNumberLastFour())
         .expiryMonth(paymentRequest.getExpiryMonth())
         .expiryYear(paymentRequest.getExpiryYear())
         .currency(paymentRequest.getCurrency())
         .amount(paymentRequest.getAmount())
         .build();
+  }
 
-    BankPaymentRequest bankPaymentRequest = new BankPaymentRequest(paymentRequest.getCardNumber(),
+  private static BankPaymentRequest toBankRequest(PostPaymentRequest paymentRequest) {
+    return new BankPaymentRequest(paymentRequest.getCardNumber(),
         paymentRequest.getExpiryDate(),
         paymentRequest.getCurrency(),
         paymentRequest.getAmount(),
         paymentRequest.getCvv());
-
-    response = callAcquiringBank(bankPaymentRequest, response);
-
-    paymentsRepository.add(response);
-
-    return id;
   }
 
-  private PostPaymentResponse callAcquiringBank(BankPaymentRequest bankPaymentRequest,
+  private Optional<VelocityRule> checkVelocity(BankPaymentRequest bankPaymentRequest,
       PostPaymentResponse response) {
-    BankPaymentResponse res;
+    if (WarmupContext.isSynthetic()) {
+      return Optional.empty();
+    }
+    PaymentStageEvent stage = PaymentStageEvent.start(PaymentStageEvent.VELOCITY);
     try {
-      res = simulatorClient.submit(bankPaymentRequest)
-          .block(java.time.Duration.ofSeconds(3));
+      return velocityEngine.check(cardVault.cardFingerprint(bankPaymentRequest.card_number()),
+          response.getMerchantId(), response.getCurrency(),
+          response.getAmount() == null ? 0 : response.getAmount());
+    } finally {
+      stage.finish(response.getId());
+    }
+  }
 
-      response = response.toBuilder()
-          .status(res.authorized() ? PaymentStatus.AUTHORIZED : PaymentStatus.DECLINED)
-          .build();
+  /**
+   * Runs the velocity rules and the bank authorisation and stores the outcome. The bank keeps
+   * deciding after the deadline expires, so the payment is stored as pending then and settled
+   * by the bank's late answer instead of being reported as failed while the card is charged.
+   */
+  private PostPaymentResponse authoriseAndStore(BankPaymentRequest bankPaymentRequest,
+      PostPaymentResponse response, Deadline deadline) {
+    Optional<VelocityRule> breached = checkVelocity(bankPaymentRequest, response);
+    if (breached.isPresent()) {
+      LOG.info("Declining payment {} locally, velocity rule {} breached", response.getId(),
+          breached.get().name());
+      PostPaymentResponse declined = response.toBuilder().status(PaymentStatus.DECLINED).build();
+      store(declined);
+      return declined;
+    }
+    if (deadline.isExpired()) {
+      throw new DeadlineExceededException("Deadline expired before the bank was called");
+    }
 
-    } catch (WebClientResponseException ex) {
-      if (ex.getStatusCode().value() == 503) {
-        response = response.toBuilder()
-            .status(PaymentStatus.REJECTED)
-            .build();
+    CompletableFuture<BankPaymentResponse> answer =
+        simulatorClient.submitAsync(bankPaymentRequest);
+    PostPaymentResponse settled;
+    PaymentStageEvent stage = PaymentStageEvent.start(PaymentStageEvent.AUTHORISE);
+    try {
+      settled = settle(response,
+          answer.get(deadline.remaining().toNanos(), TimeUnit.NANOSECONDS));
+    } catch (ExecutionException e) {
+      settled = settle(response, e.getCause());
+    } catch (TimeoutException | InterruptedException e) {
+      if (e instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
       }
+      return awaitLateAnswer(answer, response);
+    } finally {
+      stage.finish(response.getId());
     }
-    return response;
+    store(settled);
+    return settled;
+  }
+
+  // pending is stored before the callback is attached, so a fast answer can't be overwritten
+  private PostPaymentResponse awaitLateAnswer(CompletableFuture<BankPaymentResponse> answer,
+      PostPaymentResponse response) {
+    LOG.warn("Deadline expired while the bank was authorising payment {}, storing it as pending",
+        response.getId());
+    PostPaymentResponse pending = response.toBuilder().status(PaymentStatus.PENDING).build();
+    if (response.getStatus() != PaymentStatus.PENDING) {
+      store(pending);
+    }
+    answer.whenCompleteAsync((res, failure) -> {
+      try {
+        if (failure == null) {
+          store(settle(pending, res));
+        } else {
+          LOG.warn("Bank gave no answer for payment {}, rejecting it for reconciliation",
+              pending.getId(), failure);
+          store(pending.toBuilder().status(PaymentStatus.REJECTED).build());
+        }
+      } catch (RuntimeException e) {
+        LOG.error("Could not record the bank's late answer for payment {}", pending.getId(), e);
+      }
+    }, WarmupContext.sameContext());
+    return pending;
   }
 
+  private static PostPaymentResponse settle(PostPaymentResponse response,
+      BankPaymentResponse res) {
+    return response.toBuilder()
+        .status(res.authorized() ? PaymentStatus.AUTHORIZED : PaymentStatus.DECLINED)
+        .authorizationCode(res.authorized() ? res.authorization_code() : null)
+        .build();
+  }
+
+  // any error status from the bank is final, the payment must not stay pending on it
+  private static PostPaymentResponse settle(PostPaymentResponse response, Throwable failure) {
+    if (failure instanceof BankClientException ex) {
+      LOG.info("Bank answered {} for payment {}, rejecting it", ex.getStatusCode(),
+          response.getId());
+      return response.toBuilder()
+          .status(PaymentStatus.REJECTED)
+          .build();
+    }
+    if (failure instanceof UncheckedIOException) {
+      LOG.warn("Bank gave no answer for payment {}, rejecting it for reconciliation",
+          response.getId(), failure);
+      return response.toBuilder()
+          .status(PaymentStatus.REJECTED)
+          .build();
+    }
+    if (failure instanceof RuntimeException e) {
+      throw e;
+    }
+    throw new IllegalStateException(failure);
+  }
 
+  /**
+   * A payment as stored, with the card token the merchant can use instead of the card number, or
+   * null when the card was not vaulted.
+   */
+  public record ProcessedPayment(PostPaymentResponse payment, String cardToken) {}
 }
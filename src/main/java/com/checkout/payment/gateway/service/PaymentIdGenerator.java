@@ -0,0 +1,9 @@
+package com.checkout.payment.gateway.service;
+
+import java.util.UUID;
+
+@FunctionalInterface
+public interface PaymentIdGenerator {
+
+  UUID next();
+}
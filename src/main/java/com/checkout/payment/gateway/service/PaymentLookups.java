@@ -0,0 +1,108 @@
+package com.checkout.payment.gateway.service;
+
+import com.checkout.payment.gateway.deadline.Deadline;
+import com.checkout.payment.gateway.deadline.DeadlineContext;
+import com.checkout.payment.gateway.exception.DeadlineExceededException;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import com.checkout.payment.gateway.repository.PaymentsChangeListener;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Single-flight reads: concurrent lookups of the same payment share one repository fetch. Any
+ * write to a payment detaches its fetch in flight, so a lookup that starts after a write has
+ * completed never receives the version from before it.
+ */
+public class PaymentLookups implements PaymentsChangeListener {
+
+  private final PaymentsRepository repository;
+  private final ConcurrentHashMap<UUID, CompletableFuture<Optional<PostPaymentResponse>>> inFlight =
+      new ConcurrentHashMap<>();
+  private final LongAdder executed = new LongAdder();
+  private final LongAdder coalesced = new LongAdder();
+
+  public PaymentLookups(PaymentsRepository repository) {
+    this.repository = repository;
+  }
+
+  public Optional<PostPaymentResponse> get(UUID id) {
+    CompletableFuture<Optional<PostPaymentResponse>> fetch = new CompletableFuture<>();
+    CompletableFuture<Optional<PostPaymentResponse>> shared = inFlight.putIfAbsent(id, fetch);
+    if (shared != null) {
+      coalesced.increment();
+      return await(shared);
+    }
+
+    executed.increment();
+    try {
+      Optional<PostPaymentResponse> payment = repository.get(id);
+      fetch.complete(payment);
+      return payment;
+    } catch (RuntimeException e) {
+      fetch.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(id, fetch);
+    }
+  }
+
+  @Override
+  public void onAdd(PostPaymentResponse payment) {
+    inFlight.remove(payment.getId());
+  }
+
+  @Override
+  public void onRemove(UUID id) {
+    inFlight.remove(id);
+  }
+
+  public long executed() {
+    return executed.sum();
+  }
+
+  public long coalesced() {
+    return coalesced.sum();
+  }
+
+  /**
+   * Share of lookups answered by another caller's fetch since startup.
+   */
+  public double coalescingRatio() {
+    long shared = coalesced.sum();
+    long total = shared + executed.sum();
+    return total == 0 ? 0 : (double) shared / total;
+  }
+
+  public int inFlight() {
+    return inFlight.size();
+  }
+
+  // a follower waits no longer than its own request may take
+  private static Optional<PostPaymentResponse> await(
+      CompletableFuture<Optional<PostPaymentResponse>> fetch) {
+    Optional<Deadline> deadline = DeadlineContext.current();
+    try {
+      if (deadline.isEmpty()) {
+        return fetch.get();
+      }
+      return fetch.get(deadline.get().remaining().toNanos(), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      throw new DeadlineExceededException("Deadline expired waiting for the payment lookup");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new IllegalStateException("Payment lookup failed", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted waiting for the payment lookup", e);
+    }
+  }
+}
@@ -0,0 +1,30 @@
+package com.checkout.payment.gateway.startup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stops the JVM once the context is fully started. Used by the {@code cdsArchive} build task so
+ * the training run loads every class a real startup needs and then exits to dump the archive.
+ * The property is read at runtime rather than through a condition, because an AOT build decides
+ * conditional beans once at build time and the training run would never exit.
+ */
+@Component
+public class TrainingRunExit implements ApplicationListener<ApplicationReadyEvent> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TrainingRunExit.class);
+
+  @Override
+  public void onApplicationEvent(ApplicationReadyEvent event) {
+    if (!event.getApplicationContext().getEnvironment()
+        .getProperty("gateway.startup.exit-after-start", Boolean.class, false)) {
+      return;
+    }
+    LOG.info("Training run finished, exiting");
+    System.exit(SpringApplication.exit(event.getApplicationContext()));
+  }
+}
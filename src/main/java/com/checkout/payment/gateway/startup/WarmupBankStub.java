@@ -0,0 +1,51 @@
+package com.checkout.payment.gateway.startup;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loopback stand-in for the acquirer that authorises everything, used only by warm-up traffic.
+ */
+@Component
+public class WarmupBankStub {
+
+  private static final byte[] AUTHORIZED =
+      "{\"authorized\":true,\"authorization_code\":\"warmup\"}".getBytes(StandardCharsets.UTF_8);
+
+  private HttpServer server;
+  private volatile URI baseUri;
+
+  synchronized URI start() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/payments", exchange -> {
+      try {
+        exchange.getRequestBody().readAllBytes();
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, AUTHORIZED.length);
+        exchange.getResponseBody().write(AUTHORIZED);
+      } finally {
+        exchange.close();
+      }
+    });
+    server.start();
+    baseUri = URI.create("http://127.0.0.1:" + server.getAddress().getPort());
+    return baseUri;
+  }
+
+  URI baseUri() {
+    return baseUri;
+  }
+
+  synchronized void stop() {
+    baseUri = null;
+    if (server != null) {
+      server.stop(0);
+      server = null;
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package com.checkout.payment.gateway.startup;
+
+import java.net.URI;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+
+/**
+ * Marks synthetic warm-up requests on the thread handling them, set by {@link WarmupFilter}.
+ * Their bank calls go to the local stub instead of the acquirer. {@link #MERCHANT} is reserved
+ * for them: a request only counts as synthetic through this marker, never through its API key.
+ */
+public final class WarmupContext {
+
+  public static final String MERCHANT = "__warmup__";
+
+  private static final ThreadLocal<URI> BANK_OVERRIDE = new ThreadLocal<>();
+
+  private WarmupContext() {
+  }
+
+  public static boolean isSynthetic() {
+    return BANK_OVERRIDE.get() != null;
+  }
+
+  public static Optional<URI> bankOverride() {
+    return Optional.ofNullable(BANK_OVERRIDE.get());
+  }
+
+  /**
+   * Runs tasks on the thread completing them, marked as synthetic if the caller is now, so work
+   * handed to a pool or a callback stays classified like the request that started it.
+   */
+  public static Executor sameContext() {
+    URI stub = BANK_OVERRIDE.get();
+    if (stub == null) {
+      return Runnable::run;
+    }
+    return task -> {
+      URI previous = BANK_OVERRIDE.get();
+      set(stub);
+      try {
+        task.run();
+      } finally {
+        if (previous == null) {
+          clear();
+        } else {
+          set(previous);
+        }
+      }
+    };
+  }
+
+  static void set(URI stubBaseUri) {
+    BANK_OVERRIDE.set(stubBaseUri);
+  }
+
+  static void clear() {
+    BANK_OVERRIDE.remove();
+  }
+}
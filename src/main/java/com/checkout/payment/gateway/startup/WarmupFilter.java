@@ -0,0 +1,46 @@
+package com.checkout.payment.gateway.startup;
+
+import com.checkout.payment.gateway.controller.GatewayHeaders;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URI;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Honours the warm-up header only while warm-up runs and only from loopback, so it cannot be
+ * used to bypass the acquirer from outside.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@RequiredArgsConstructor
+public class WarmupFilter extends OncePerRequestFilter {
+
+  private final WarmupState state;
+  private final WarmupBankStub bankStub;
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain filterChain) throws ServletException, IOException {
+    URI stub = bankStub.baseUri();
+    if (stub == null || !state.isRunning() || request.getHeader(GatewayHeaders.WARMUP) == null
+        || !InetAddress.getByName(request.getRemoteAddr()).isLoopbackAddress()) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+
+    WarmupContext.set(stub);
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      WarmupContext.clear();
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package com.checkout.payment.gateway.startup;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Part of the readiness group: the pod is not ready before warm-up has finished.
+ */
+@Component("warmupHealthIndicator")
+@RequiredArgsConstructor
+public class WarmupHealthIndicator implements HealthIndicator {
+
+  private final WarmupState state;
+
+  @Override
+  public Health health() {
+    if (state.isComplete()) {
+      return Health.up().build();
+    }
+    return Health.outOfService().withDetail("warmup", state.isRunning() ? "running" : "pending")
+        .build();
+  }
+}
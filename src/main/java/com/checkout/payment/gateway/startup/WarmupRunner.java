@@ -0,0 +1,142 @@
+package com.checkout.payment.gateway.startup;
+
+import com.checkout.payment.gateway.configuration.WarmupProperties;
+import com.checkout.payment.gateway.controller.GatewayHeaders;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import com.checkout.payment.gateway.service.BankSimulatorClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drives synthetic payments through the real HTTP, validation, controller and service path
+ * against {@link WarmupBankStub} until the p99 of consecutive windows stops moving. Readiness
+ * stays down until it is done, see {@link WarmupHealthIndicator}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "gateway.warmup", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class WarmupRunner implements ApplicationListener<ApplicationReadyEvent> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(WarmupRunner.class);
+
+  private final WarmupProperties properties;
+  private final WarmupState state;
+  private final WarmupBankStub bankStub;
+  private final BankSimulatorClient bankClient;
+  private final PaymentsRepository paymentsRepository;
+  private final ObjectMapper mapper;
+
+  @Override
+  public void onApplicationEvent(ApplicationReadyEvent event) {
+    if (!(event.getApplicationContext() instanceof WebServerApplicationContext context)) {
+      return;
+    }
+    int port = context.getWebServer().getPort();
+    Thread thread = new Thread(() -> warmUp(port), "warmup");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private void warmUp(int port) {
+    state.started();
+    Queue<UUID> synthetic = new ConcurrentLinkedQueue<>();
+    ExecutorService pool = Executors.newFixedThreadPool(properties.concurrency());
+    try {
+      bankStub.start();
+      bankClient.preconnect(properties.bankConnections());
+
+      HttpClient client = HttpClient.newHttpClient();
+      URI base = URI.create("http://127.0.0.1:" + port);
+      long previousP99 = 0;
+      int stable = 0;
+      int window = 0;
+      while (window < properties.maxWindows() && stable < properties.stableWindows()) {
+        long p99 = p99(runWindow(client, base, pool, synthetic));
+        boolean settled = previousP99 > 0
+            && Math.abs(p99 - previousP99) <= previousP99 * properties.tolerance();
+        stable = settled ? stable + 1 : 0;
+        previousP99 = p99;
+        window++;
+        LOG.debug("Warm-up window {} p99 {} us", window, TimeUnit.NANOSECONDS.toMicros(p99));
+      }
+      LOG.info("Warm-up finished after {} windows, p99 {} us", window,
+          TimeUnit.NANOSECONDS.toMicros(previousP99));
+    } catch (Exception e) {
+      LOG.warn("Warm-up aborted, accepting traffic cold", e);
+    } finally {
+      pool.shutdownNow();
+      bankStub.stop();
+      synthetic.forEach(paymentsRepository::remove);
+      state.finished();
+    }
+  }
+
+  private long[] runWindow(HttpClient client, URI base, ExecutorService pool,
+      Queue<UUID> synthetic) throws Exception {
+    List<Future<Long>> calls = new ArrayList<>(properties.windowSize());
+    for (int i = 0; i < properties.windowSize(); i++) {
+      calls.add(pool.submit(() -> roundTrip(client, base, synthetic)));
+    }
+    long[] latencies = new long[calls.size()];
+    for (int i = 0; i < latencies.length; i++) {
+      latencies[i] = calls.get(i).get();
+    }
+    return latencies;
+  }
+
+  private long roundTrip(HttpClient client, URI base, Queue<UUID> synthetic) throws Exception {
+    long start = System.nanoTime();
+    HttpResponse<String> created = client.send(HttpRequest.newBuilder(base.resolve("/payment"))
+        .timeout(Duration.ofSeconds(5))
+        .header("Content-Type", "application/json")
+        .header(GatewayHeaders.WARMUP, "true")
+        .header(GatewayHeaders.API_KEY, WarmupContext.MERCHANT)
+        .POST(HttpRequest.BodyPublishers.ofString(PAYMENT))
+        .build(), HttpResponse.BodyHandlers.ofString());
+    long latency = System.nanoTime() - start;
+
+    if (created.statusCode() == 201) {
+      String id = mapper.readTree(created.body()).path("data").asText();
+      synthetic.add(UUID.fromString(id));
+      client.send(HttpRequest.newBuilder(base.resolve("/payment/" + id))
+          .header(GatewayHeaders.WARMUP, "true")
+          .header(GatewayHeaders.API_KEY, WarmupContext.MERCHANT)
+          .GET()
+          .build(), HttpResponse.BodyHandlers.ofString());
+    }
+    return latency;
+  }
+
+  private static long p99(long[] latencies) {
+    Arrays.sort(latencies);
+    return latencies[(int) Math.ceil(latencies.length * 0.99) - 1];
+  }
+
+  private static final String PAYMENT = """
+      {"card_number":"2222405343248877","expiry_month":4,"expiry_year":%d,
+       "currency":"GBP","amount":100,"cvv":"123"}"""
+      .formatted(Year.now().getValue() + 5);
+}
@@ -0,0 +1,32 @@
+package com.checkout.payment.gateway.startup;
+
+import com.checkout.payment.gateway.configuration.WarmupProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+public class WarmupState {
+
+  private volatile boolean running;
+  private volatile boolean complete;
+
+  public WarmupState(WarmupProperties properties) {
+    this.complete = !properties.enabled();
+  }
+
+  public boolean isRunning() {
+    return running;
+  }
+
+  public boolean isComplete() {
+    return complete;
+  }
+
+  void started() {
+    running = true;
+  }
+
+  void finished() {
+    running = false;
+    complete = true;
+  }
+}
@@ -0,0 +1,152 @@
+package com.checkout.payment.gateway.stats;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Running payment totals per currency and status, overall and per minute for the last
+ * {@code minutes} minutes. Recording is a map hit and two {@link LongAdder} increments with no
+ * allocation once a currency has been seen; queries walk the minute ring, never the payments.
+ * Pending payments are not counted; they are recorded once the bank's answer settles them.
+ */
+public class PaymentStats {
+
+  private static final long MINUTE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+  private static final PaymentStatus[] STATUSES = PaymentStatus.values();
+
+  private final Totals overall = new Totals(Long.MIN_VALUE);
+  private final AtomicReferenceArray<Totals> ring;
+  private final LongSupplier clock;
+
+  public PaymentStats(int minutes, LongSupplier clock) {
+    if (minutes < 1) {
+      throw new IllegalArgumentException("At least one minute of history is needed");
+    }
+    this.ring = new AtomicReferenceArray<>(minutes);
+    this.clock = clock;
+  }
+
+  public void record(String currency, PaymentStatus status, long amount) {
+    record(currency, status, amount, clock.getAsLong());
+  }
+
+  void record(String currency, PaymentStatus status, long amount, long timestampMillis) {
+    if (currency == null || status == null || status == PaymentStatus.PENDING) {
+      return;
+    }
+    overall.add(currency, status, amount);
+    Totals minute = minuteTotals(timestampMillis / MINUTE_MILLIS);
+    if (minute != null) {
+      minute.add(currency, status, amount);
+    }
+  }
+
+  // null for a minute that has already left the window
+  private Totals minuteTotals(long minute) {
+    int slot = (int) (minute % ring.length());
+    for (;;) {
+      Totals current = ring.get(slot);
+      if (current != null && current.minute == minute) {
+        return current;
+      }
+      // the slot moved on to a newer minute, so a late writer's own minute is out of the window
+      if (current != null && current.minute > minute) {
+        return null;
+      }
+      Totals fresh = new Totals(minute);
+      if (ring.compareAndSet(slot, current, fresh)) {
+        return fresh;
+      }
+    }
+  }
+
+  public Map<String, Map<PaymentStatus, Aggregate>> totals() {
+    return overall.snapshot();
+  }
+
+  /**
+   * Per-minute totals for up to the last {@code count} minutes, oldest first. Minutes without
+   * payments are left out.
+   */
+  public List<MinuteStats> lastMinutes(int count) {
+    long now = clock.getAsLong() / MINUTE_MILLIS;
+    long oldest = now - Math.min(count, ring.length()) + 1;
+    List<MinuteStats> minutes = new ArrayList<>();
+    for (long minute = oldest; minute <= now; minute++) {
+      Totals totals = ring.get((int) (minute % ring.length()));
+      if (totals != null && totals.minute == minute) {
+        minutes.add(new MinuteStats(Instant.ofEpochMilli(minute * MINUTE_MILLIS),
+            totals.snapshot()));
+      }
+    }
+    return minutes;
+  }
+
+  public int retainedMinutes() {
+    return ring.length();
+  }
+
+  public record Aggregate(long count, long amount) {}
+
+  public record MinuteStats(Instant minute, Map<String, Map<PaymentStatus, Aggregate>> totals) {}
+
+  private static final class Totals {
+
+    private final long minute;
+    // indexed by status ordinal so recording needs no key object
+    private final ConcurrentHashMap<String, Counter[]> byCurrency = new ConcurrentHashMap<>();
+
+    private Totals(long minute) {
+      this.minute = minute;
+    }
+
+    private void add(String currency, PaymentStatus status, long amount) {
+      Counter[] counters = byCurrency.get(currency);
+      if (counters == null) {
+        counters = byCurrency.computeIfAbsent(currency, c -> newCounters());
+      }
+      Counter counter = counters[status.ordinal()];
+      counter.count.increment();
+      counter.amount.add(amount);
+    }
+
+    private Map<String, Map<PaymentStatus, Aggregate>> snapshot() {
+      Map<String, Map<PaymentStatus, Aggregate>> snapshot = new TreeMap<>();
+      byCurrency.forEach((currency, counters) -> {
+        Map<PaymentStatus, Aggregate> byStatus = new EnumMap<>(PaymentStatus.class);
+        for (PaymentStatus status : STATUSES) {
+          long count = counters[status.ordinal()].count.sum();
+          if (count > 0) {
+            byStatus.put(status, new Aggregate(count, counters[status.ordinal()].amount.sum()));
+          }
+        }
+        snapshot.put(currency, byStatus);
+      });
+      return snapshot;
+    }
+
+    private static Counter[] newCounters() {
+      Counter[] counters = new Counter[STATUSES.length];
+      for (int i = 0; i < counters.length; i++) {
+        counters[i] = new Counter();
+      }
+      return counters;
+    }
+  }
+
+  private static final class Counter {
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder amount = new LongAdder();
+  }
+}
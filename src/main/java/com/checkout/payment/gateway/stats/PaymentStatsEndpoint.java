@@ -0,0 +1,27 @@
+package com.checkout.payment.gateway.stats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+@Component
+@Endpoint(id = "paymentstats")
+@RequiredArgsConstructor
+public class PaymentStatsEndpoint {
+
+  private static final int DEFAULT_MINUTES = 15;
+
+  private final PaymentStats stats;
+
+  @ReadOperation
+  public Map<String, Object> paymentStats(@Nullable Integer minutes) {
+    Map<String, Object> body = new LinkedHashMap<>();
+    body.put("totals", stats.totals());
+    body.put("minutes", stats.lastMinutes(minutes == null ? DEFAULT_MINUTES : minutes));
+    return body;
+  }
+}
@@ -0,0 +1,18 @@
+package com.checkout.payment.gateway.stream;
+
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import java.io.IOException;
+
+/**
+ * Where a subscriber's events are written, an SSE connection in production.
+ */
+public interface PaymentEventSink {
+
+  void send(long sequence, PostPaymentResponse payment) throws IOException;
+
+  void dropped(long count) throws IOException;
+
+  void heartbeat() throws IOException;
+
+  void close();
+}
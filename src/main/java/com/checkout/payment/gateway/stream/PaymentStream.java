@@ -0,0 +1,232 @@
+package com.checkout.payment.gateway.stream;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.exception.ServiceOverloadedException;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Multicast ring of payment status changes. Publishers claim a sequence with one atomic increment
+ * and write their slot; every subscriber reads the same ring through its own cursor, so a
+ * subscriber's buffer is just the distance between its cursor and the head. A single dispatcher
+ * thread hands subscribers with pending events to a small sender pool, so no thread is tied to a
+ * subscriber. A subscriber more than {@code bufferSize} events behind is handled by the
+ * {@link SlowConsumerPolicy}.
+ */
+public class PaymentStream implements AutoCloseable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PaymentStream.class);
+
+  private final AtomicReferenceArray<Entry> slots;
+  private final int mask;
+  private final AtomicLong next = new AtomicLong();
+  private final int bufferSize;
+  private final SlowConsumerPolicy policy;
+  private final int maxSubscribers;
+  private final long heartbeatNanos;
+
+  private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+  private final ExecutorService senders;
+  private final Thread dispatcher;
+  private volatile boolean running;
+
+  private final LongAdder dropped = new LongAdder();
+  private final LongAdder disconnected = new LongAdder();
+
+  public PaymentStream(int ringSize, int bufferSize, SlowConsumerPolicy policy,
+      int maxSubscribers, int senderThreads, Duration heartbeat) {
+    if (Integer.bitCount(ringSize) != 1 || bufferSize < 1 || bufferSize > ringSize) {
+      throw new IllegalArgumentException(
+          "Ring size must be a power of two and at least the subscriber buffer size");
+    }
+    this.slots = new AtomicReferenceArray<>(ringSize);
+    this.mask = ringSize - 1;
+    this.bufferSize = bufferSize;
+    this.policy = policy;
+    this.maxSubscribers = maxSubscribers;
+    this.heartbeatNanos = heartbeat.toNanos();
+    this.senders = Executors.newFixedThreadPool(senderThreads, runnable -> {
+      Thread thread = new Thread(runnable, "payment-stream-sender");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.dispatcher = new Thread(this::dispatch, "payment-stream-dispatcher");
+    this.dispatcher.setDaemon(true);
+  }
+
+  public void start() {
+    running = true;
+    dispatcher.start();
+  }
+
+  public void publish(PostPaymentResponse payment) {
+    long sequence = next.getAndIncrement();
+    slots.set((int) (sequence & mask), new Entry(sequence, payment));
+    LockSupport.unpark(dispatcher);
+  }
+
+  /**
+   * Registers a subscriber. With {@code lastSeen} (an SSE Last-Event-ID) delivery resumes after
+   * that event if the ring still holds it, otherwise the subscriber starts with the next event.
+   */
+  public Subscriber subscribe(PaymentEventSink sink, String merchantId,
+      Set<PaymentStatus> statuses, Long lastSeen) {
+    if (subscribers.size() >= maxSubscribers) {
+      throw new ServiceOverloadedException("Too many stream subscribers", Duration.ofSeconds(5));
+    }
+    long head = next.get();
+    long start = lastSeen != null && lastSeen < head && head - (lastSeen + 1) <= bufferSize
+        ? lastSeen + 1 : head;
+    Subscriber subscriber = new Subscriber(sink, merchantId, statuses, start);
+    subscribers.add(subscriber);
+    LockSupport.unpark(dispatcher);
+    return subscriber;
+  }
+
+  public void unsubscribe(Subscriber subscriber) {
+    subscribers.remove(subscriber);
+  }
+
+  private void dispatch() {
+    while (running) {
+      long head = next.get();
+      long now = System.nanoTime();
+      for (Subscriber subscriber : subscribers) {
+        if (subscriber.cursor < head || now - subscriber.lastSentNanos >= heartbeatNanos) {
+          schedule(subscriber);
+        }
+      }
+      if (next.get() == head) {
+        LockSupport.parkNanos(this, heartbeatNanos);
+      }
+    }
+  }
+
+  private void schedule(Subscriber subscriber) {
+    if (subscriber.draining.compareAndSet(false, true)) {
+      try {
+        senders.execute(() -> drain(subscriber));
+      } catch (RejectedExecutionException e) {
+        subscriber.draining.set(false);
+      }
+    }
+  }
+
+  private void drain(Subscriber subscriber) {
+    try {
+      long head = next.get();
+      if (head - subscriber.cursor > bufferSize) {
+        if (policy == SlowConsumerPolicy.DISCONNECT) {
+          disconnected.increment();
+          disconnect(subscriber);
+          return;
+        }
+        long skipped = head - bufferSize - subscriber.cursor;
+        subscriber.cursor = head - bufferSize;
+        dropped.add(skipped);
+        subscriber.sink.dropped(skipped);
+      }
+      while (subscriber.cursor < head) {
+        Entry entry = slots.get((int) (subscriber.cursor & mask));
+        if (entry == null || entry.sequence < subscriber.cursor) {
+          // claimed but not written yet, the publisher wakes the dispatcher once it is
+          break;
+        }
+        if (entry.sequence > subscriber.cursor) {
+          // lapped while draining, continue from the oldest event the ring still holds
+          long skipped = entry.sequence - mask - subscriber.cursor;
+          subscriber.cursor += skipped;
+          dropped.add(skipped);
+          subscriber.sink.dropped(skipped);
+          continue;
+        }
+        if (subscriber.accepts(entry.payment)) {
+          subscriber.sink.send(entry.sequence, entry.payment);
+          subscriber.lastSentNanos = System.nanoTime();
+        }
+        subscriber.cursor++;
+      }
+      if (System.nanoTime() - subscriber.lastSentNanos >= heartbeatNanos) {
+        subscriber.sink.heartbeat();
+        subscriber.lastSentNanos = System.nanoTime();
+      }
+    } catch (IOException | RuntimeException e) {
+      LOG.debug("Dropping stream subscriber: {}", e.toString());
+      disconnect(subscriber);
+      return;
+    } finally {
+      subscriber.draining.set(false);
+    }
+    if (subscriber.cursor < next.get() && subscribers.contains(subscriber)) {
+      schedule(subscriber);
+    }
+  }
+
+  private void disconnect(Subscriber subscriber) {
+    subscribers.remove(subscriber);
+    subscriber.sink.close();
+  }
+
+  public int subscribers() {
+    return subscribers.size();
+  }
+
+  public long published() {
+    return next.get();
+  }
+
+  public long dropped() {
+    return dropped.sum();
+  }
+
+  public long disconnected() {
+    return disconnected.sum();
+  }
+
+  @Override
+  public void close() {
+    running = false;
+    LockSupport.unpark(dispatcher);
+    subscribers.forEach(this::disconnect);
+    senders.shutdownNow();
+  }
+
+  private record Entry(long sequence, PostPaymentResponse payment) {}
+
+  public static final class Subscriber {
+
+    private final PaymentEventSink sink;
+    private final String merchantId;
+    private final Set<PaymentStatus> statuses;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    // only touched by the sender that holds the draining flag
+    private volatile long cursor;
+    private volatile long lastSentNanos = System.nanoTime();
+
+    private Subscriber(PaymentEventSink sink, String merchantId, Set<PaymentStatus> statuses,
+        long cursor) {
+      this.sink = sink;
+      this.merchantId = merchantId;
+      this.statuses = statuses;
+      this.cursor = cursor;
+    }
+
+    private boolean accepts(PostPaymentResponse payment) {
+      return (merchantId == null || merchantId.equals(payment.getMerchantId()))
+          && (statuses.isEmpty() || statuses.contains(payment.getStatus()));
+    }
+  }
+}
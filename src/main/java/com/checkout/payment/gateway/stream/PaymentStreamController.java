@@ -0,0 +1,48 @@
+package com.checkout.payment.gateway.stream;
+
+import com.checkout.payment.gateway.configuration.StreamProperties;
+import com.checkout.payment.gateway.controller.GatewayHeaders;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.exception.InvalidApiKeyException;
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.EnumSet;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequiredArgsConstructor
+public class PaymentStreamController {
+
+  private static final String LAST_EVENT_ID = "Last-Event-ID";
+
+  private final PaymentStream paymentStream;
+  private final StreamProperties properties;
+
+  /**
+   * Streams the calling merchant's payment status changes as {@code payment} events, optionally
+   * only some statuses ({@code ?status=AUTHORIZED,DECLINED}).
+   */
+  @GetMapping(value = "/payments/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter stream(HttpServletRequest request,
+      @RequestParam(required = false) Set<PaymentStatus> status,
+      @RequestHeader(value = LAST_EVENT_ID, required = false) Long lastEventId) {
+    String merchant = GatewayHeaders.apiKey(request);
+    if (GatewayHeaders.ANONYMOUS.equals(merchant)) {
+      throw new InvalidApiKeyException("An API key is needed to stream payments");
+    }
+    SseEmitter emitter = new SseEmitter(properties.timeout().toMillis());
+    Set<PaymentStatus> statuses = status == null || status.isEmpty()
+        ? Set.of() : EnumSet.copyOf(status);
+    PaymentStream.Subscriber subscriber = paymentStream.subscribe(new SseEmitterSink(emitter),
+        merchant, statuses, lastEventId);
+    emitter.onCompletion(() -> paymentStream.unsubscribe(subscriber));
+    emitter.onError(e -> paymentStream.unsubscribe(subscriber));
+    return emitter;
+  }
+}
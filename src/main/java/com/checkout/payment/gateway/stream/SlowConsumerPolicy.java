@@ -0,0 +1,8 @@
+package com.checkout.payment.gateway.stream;
+
+public enum SlowConsumerPolicy {
+  /** Skip the oldest undelivered events and tell the subscriber how many it missed. */
+  DROP,
+  /** Close the stream; the client reconnects with Last-Event-ID if the events are still held. */
+  DISCONNECT
+}
@@ -0,0 +1,38 @@
+package com.checkout.payment.gateway.stream;
+
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import java.io.IOException;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+class SseEmitterSink implements PaymentEventSink {
+
+  private final SseEmitter emitter;
+
+  SseEmitterSink(SseEmitter emitter) {
+    this.emitter = emitter;
+  }
+
+  @Override
+  public void send(long sequence, PostPaymentResponse payment) throws IOException {
+    emitter.send(SseEmitter.event()
+        .id(Long.toString(sequence))
+        .name("payment")
+        .data(payment, MediaType.APPLICATION_JSON));
+  }
+
+  @Override
+  public void dropped(long count) throws IOException {
+    emitter.send(SseEmitter.event().name("dropped").data(count));
+  }
+
+  @Override
+  public void heartbeat() throws IOException {
+    emitter.send(SseEmitter.event().comment("keep-alive"));
+  }
+
+  @Override
+  public void close() {
+    emitter.complete();
+  }
+}
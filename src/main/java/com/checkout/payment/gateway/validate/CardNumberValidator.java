@@ -1,16 +1,37 @@
 package com.checkout.payment.gateway.validate;
 
+import com.checkout.payment.gateway.bin.BinDirectory;
+import com.checkout.payment.gateway.bin.BinInfo;
+import com.checkout.payment.gateway.configuration.BinProperties;
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
 import org.apache.commons.validator.routines.checkdigit.LuhnCheckDigit;
+import org.springframework.beans.factory.annotation.Autowired;
 
 public class CardNumberValidator implements ConstraintValidator<CardNumber, String> {
 
   private static final int minLength = 14;
   private static final int maxLength = 19;
 
+  private final BinDirectory bins;
+  private final boolean rejectUnknownBins;
+
+  public CardNumberValidator() {
+    this(null, null);
+  }
+
+  // created by Spring's constraint validator factory, which autowires it
+  @Autowired
+  public CardNumberValidator(BinDirectory bins, BinProperties binProperties) {
+    this.bins = bins;
+    this.rejectUnknownBins = binProperties != null && binProperties.rejectUnknown();
+  }
+
   @Override
   public boolean isValid(String value, ConstraintValidatorContext ctx) {
+    // a missing number is a token payment, @CardOrToken decides whether that is allowed
+    if (value == null) return true;
+
     boolean isValidDigits = isDigitsAndLength(value);
 
     if (!isValidDigits) return false;
@@ -21,7 +42,16 @@ public class CardNumberValidator implements ConstraintValidator<CardNumber, Stri
       return false;
     }
 
-    return LuhnCheckDigit.LUHN_CHECK_DIGIT.isValid(digits);
+    return LuhnCheckDigit.LUHN_CHECK_DIGIT.isValid(digits) && matchesScheme(digits);
+  }
+
+  // the scheme decides which lengths are real, e.g. 15 digits only exist for Amex
+  private boolean matchesScheme(String digits) {
+    if (bins == null) return true;
+
+    BinInfo bin = bins.lookup(digits);
+    if (bin == null) return !rejectUnknownBins;
+    return bin.allowsLength(digits.length());
   }
 
   //clean up whitespace
@@ -0,0 +1,15 @@
+package com.checkout.payment.gateway.validate;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+import java.lang.annotation.*;
+
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Constraint(validatedBy = CardOrTokenValidator.class)
+@Documented
+public @interface CardOrToken {
+  String message() default "Provide either a card number or a card token";
+  Class<?>[] groups() default {};
+  Class<? extends Payload>[] payload() default {};
+}
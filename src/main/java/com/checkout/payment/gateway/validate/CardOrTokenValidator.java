@@ -0,0 +1,29 @@
+package com.checkout.payment.gateway.validate;
+
+import com.checkout.payment.gateway.model.PostPaymentRequest;
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+/**
+ * Exactly one of card_number and card_token must be present. The violation is reported on
+ * card_number so clients see it next to the other card errors.
+ */
+public class CardOrTokenValidator implements ConstraintValidator<CardOrToken, PostPaymentRequest> {
+
+  @Override
+  public boolean isValid(PostPaymentRequest value, ConstraintValidatorContext ctx) {
+    if (value == null) return true;
+
+    boolean hasCard = value.getCardNumber() != null;
+    boolean hasToken = value.getCardToken() != null;
+    if (hasCard != hasToken) {
+      return true;
+    }
+
+    ctx.disableDefaultConstraintViolation();
+    ctx.buildConstraintViolationWithTemplate(ctx.getDefaultConstraintMessageTemplate())
+        .addPropertyNode("cardNumber")
+        .addConstraintViolation();
+    return false;
+  }
+}
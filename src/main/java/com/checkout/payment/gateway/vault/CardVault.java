@@ -0,0 +1,173 @@
+package com.checkout.payment.gateway.vault;
+
+import com.checkout.payment.gateway.exception.InvalidCardTokenException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Local card tokenisation vault. A PAN is encrypted once with AES-GCM and replaced by an opaque
+ * token scoped to the merchant that supplied it. Repeat cards are found by an HMAC fingerprint, so
+ * they cost one MAC instead of an encryption. Plain PANs are never kept; they are decrypted only
+ * when a token payment goes to the bank.
+ */
+public class CardVault {
+
+  public static final String TOKEN_PREFIX = "tok_";
+
+  private static final String CIPHER = "AES/GCM/NoPadding";
+  private static final String MAC = "HmacSHA256";
+  private static final int IV_LENGTH = 12;
+  private static final int TAG_BITS = 128;
+  private static final int TOKEN_BYTES = 16;
+
+  private final SecretKey encryptionKey;
+  private final SecretKey fingerprintKey;
+  private final int maxTokens;
+  private final SecureRandom random = new SecureRandom();
+
+  private final ConcurrentMap<String, VaultedCard> byToken = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, String> byFingerprint = new ConcurrentHashMap<>();
+
+  // Cipher and Mac instances are stateful, one per thread avoids both locking and re-creation
+  private final ThreadLocal<Cipher> ciphers = ThreadLocal.withInitial(CardVault::newCipher);
+  private final ThreadLocal<Mac> fingerprintMacs;
+
+  /**
+   * @param masterKey 16, 24 or 32 bytes; separate encryption and fingerprint keys are derived
+   *     from it so a leaked fingerprint index does not help decrypt anything
+   */
+  public CardVault(byte[] masterKey, int maxTokens) {
+    if (masterKey.length != 16 && masterKey.length != 24 && masterKey.length != 32) {
+      throw new IllegalArgumentException("Vault key must be 128, 192 or 256 bits");
+    }
+    SecretKey master = new SecretKeySpec(masterKey, MAC);
+    this.encryptionKey = new SecretKeySpec(derive(master, "encryption", masterKey.length), "AES");
+    this.fingerprintKey = new SecretKeySpec(derive(master, "fingerprint", 32), MAC);
+    this.fingerprintMacs = ThreadLocal.withInitial(() -> newMac(fingerprintKey));
+    this.maxTokens = maxTokens;
+  }
+
+  /**
+   * Returns the merchant's token for this card, issuing one on first sight, or {@code null} when
+   * the vault is full and the card is new.
+   */
+  public String tokenise(String cardNumber, String merchantId) {
+    String fingerprint = fingerprint(cardNumber, merchantId);
+    String token = byFingerprint.get(fingerprint);
+    if (token != null || byToken.size() >= maxTokens) {
+      return token;
+    }
+    return byFingerprint.computeIfAbsent(fingerprint, ignored -> {
+      String issued = newToken();
+      byToken.put(issued, new VaultedCard(merchantId, encrypt(cardNumber, merchantId)));
+      return issued;
+    });
+  }
+
+  /**
+   * Returns the card number behind a token. Unknown tokens and tokens issued to another merchant
+   * are indistinguishable to the caller.
+   */
+  public String detokenise(String token, String merchantId) {
+    VaultedCard card = token == null ? null : byToken.get(token);
+    if (card == null || !card.merchantId().equals(merchantId)) {
+      throw new InvalidCardTokenException("Unknown card token for merchant " + merchantId);
+    }
+    return decrypt(card.sealed(), merchantId);
+  }
+
+  /**
+   * Keyed hash of the card number alone, the same for every merchant. Lets fraud checks follow a
+   * card without handling its number.
+   */
+  public long cardFingerprint(String cardNumber) {
+    byte[] mac = fingerprintMacs.get().doFinal(cardNumber.getBytes(StandardCharsets.US_ASCII));
+    return ByteBuffer.wrap(mac).getLong();
+  }
+
+  public int size() {
+    return byToken.size();
+  }
+
+  private String fingerprint(String cardNumber, String merchantId) {
+    Mac mac = fingerprintMacs.get();
+    mac.update(merchantId.getBytes(StandardCharsets.UTF_8));
+    mac.update((byte) 0);
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(mac.doFinal(cardNumber.getBytes(StandardCharsets.US_ASCII)));
+  }
+
+  // iv | ciphertext + tag, with the merchant id as associated data
+  private byte[] encrypt(String cardNumber, String merchantId) {
+    byte[] iv = new byte[IV_LENGTH];
+    random.nextBytes(iv);
+    try {
+      Cipher cipher = ciphers.get();
+      cipher.init(Cipher.ENCRYPT_MODE, encryptionKey, new GCMParameterSpec(TAG_BITS, iv));
+      cipher.updateAAD(merchantId.getBytes(StandardCharsets.UTF_8));
+      byte[] plain = cardNumber.getBytes(StandardCharsets.US_ASCII);
+      ByteBuffer sealed = ByteBuffer.allocate(IV_LENGTH + cipher.getOutputSize(plain.length));
+      sealed.put(iv);
+      cipher.doFinal(ByteBuffer.wrap(plain), sealed);
+      return sealed.array();
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Card encryption failed", e);
+    }
+  }
+
+  private String decrypt(byte[] sealed, String merchantId) {
+    try {
+      Cipher cipher = ciphers.get();
+      cipher.init(Cipher.DECRYPT_MODE, encryptionKey,
+          new GCMParameterSpec(TAG_BITS, sealed, 0, IV_LENGTH));
+      cipher.updateAAD(merchantId.getBytes(StandardCharsets.UTF_8));
+      byte[] plain = cipher.doFinal(sealed, IV_LENGTH, sealed.length - IV_LENGTH);
+      return new String(plain, StandardCharsets.US_ASCII);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Card decryption failed", e);
+    }
+  }
+
+  private String newToken() {
+    byte[] bytes = new byte[TOKEN_BYTES];
+    random.nextBytes(bytes);
+    return TOKEN_PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+  }
+
+  private static byte[] derive(SecretKey master, String purpose, int length) {
+    byte[] derived = newMac(master).doFinal(purpose.getBytes(StandardCharsets.US_ASCII));
+    byte[] key = new byte[length];
+    System.arraycopy(derived, 0, key, 0, length);
+    return key;
+  }
+
+  private static Cipher newCipher() {
+    try {
+      return Cipher.getInstance(CIPHER);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(CIPHER + " is not available", e);
+    }
+  }
+
+  private static Mac newMac(SecretKey key) {
+    try {
+      Mac mac = Mac.getInstance(MAC);
+      mac.init(key);
+      return mac;
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(MAC + " is not available", e);
+    }
+  }
+
+  private record VaultedCard(String merchantId, byte[] sealed) {}
+}
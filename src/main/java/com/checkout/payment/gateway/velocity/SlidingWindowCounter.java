@@ -0,0 +1,66 @@
+package com.checkout.payment.gateway.velocity;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Sliding window sum over a ring of fixed slots. Every slot packs its epoch in the high 20 bits
+ * and its total in the low 44 bits of one long, so rolling a stale slot over and adding to it is a
+ * single compare-and-set. The window moves one slot at a time: a sum covers the current slot plus
+ * the {@code slots - 1} before it.
+ */
+public final class SlidingWindowCounter {
+
+  private static final int VALUE_BITS = 44;
+  private static final long VALUE_MASK = (1L << VALUE_BITS) - 1;
+  private static final long EPOCH_MASK = (1L << (Long.SIZE - VALUE_BITS)) - 1;
+
+  private final AtomicLongArray slots;
+  private final long slotNanos;
+  private volatile long lastUpdateNanos;
+
+  public SlidingWindowCounter(long windowNanos, int slotCount, long createdNanos) {
+    if (slotCount < 1 || windowNanos < slotCount) {
+      throw new IllegalArgumentException("Invalid window " + windowNanos + "ns / " + slotCount);
+    }
+    this.slots = new AtomicLongArray(slotCount);
+    this.slotNanos = windowNanos / slotCount;
+    // a new counter is not idle, or eviction could drop it before its first add
+    this.lastUpdateNanos = createdNanos;
+  }
+
+  /**
+   * Adds {@code delta} (saturating per slot) and returns the window total including it.
+   */
+  public long add(long nowNanos, long delta) {
+    long epoch = Math.floorDiv(nowNanos, slotNanos);
+    int index = (int) Math.floorMod(epoch, slots.length());
+    long stamp = (epoch & EPOCH_MASK) << VALUE_BITS;
+    for (;;) {
+      long current = slots.get(index);
+      long base = (current & ~VALUE_MASK) == stamp ? current & VALUE_MASK : 0;
+      long next = stamp | Math.min(VALUE_MASK, base + delta);
+      if (slots.compareAndSet(index, current, next)) {
+        break;
+      }
+    }
+    lastUpdateNanos = nowNanos;
+    return sum(nowNanos);
+  }
+
+  public long sum(long nowNanos) {
+    long epoch = Math.floorDiv(nowNanos, slotNanos) & EPOCH_MASK;
+    long total = 0;
+    for (int i = 0; i < slots.length(); i++) {
+      long slot = slots.get(i);
+      long age = (epoch - (slot >>> VALUE_BITS)) & EPOCH_MASK;
+      if (age < slots.length()) {
+        total += slot & VALUE_MASK;
+      }
+    }
+    return total;
+  }
+
+  public long lastUpdateNanos() {
+    return lastUpdateNanos;
+  }
+}
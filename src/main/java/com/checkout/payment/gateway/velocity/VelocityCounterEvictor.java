@@ -0,0 +1,22 @@
+package com.checkout.payment.gateway.velocity;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class VelocityCounterEvictor {
+
+  private static final Logger LOG = LoggerFactory.getLogger(VelocityCounterEvictor.class);
+
+  private final VelocityEngine engine;
+
+  @Scheduled(fixedDelayString = "${gateway.velocity.eviction-interval-ms:60000}")
+  public void evictIdleCounters() {
+    int evicted = engine.evictIdle();
+    LOG.debug("Evicted {} idle velocity counters", evicted);
+  }
+}
@@ -0,0 +1,23 @@
+package com.checkout.payment.gateway.velocity;
+
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+@Component
+@Endpoint(id = "velocity")
+@RequiredArgsConstructor
+public class VelocityEndpoint {
+
+  private static final int DEFAULT_TOP = 20;
+
+  private final VelocityEngine engine;
+
+  @ReadOperation
+  public Map<String, Object> velocity(@Nullable Integer top) {
+    return Map.of("rules", engine.stats(top == null ? DEFAULT_TOP : top));
+  }
+}
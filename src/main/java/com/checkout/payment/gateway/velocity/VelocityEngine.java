@@ -0,0 +1,177 @@
+package com.checkout.payment.gateway.velocity;
+
+import com.checkout.payment.gateway.controller.GatewayHeaders;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Pre-authorisation velocity checks. Every rule keeps one {@link SlidingWindowCounter} per key
+ * (card fingerprint, merchant, or merchant and currency), so a check is a map lookup and a CAS
+ * per rule. A rule holding {@code maxKeysPerRule} keys makes room for a new one by dropping its
+ * idle counters, or failing that its least recently updated ones, so every payment is checked;
+ * idle counters are also dropped periodically by {@link #evictIdle()}.
+ */
+public class VelocityEngine {
+
+  // share of a full rule's keys evicted at once when none are idle, so the scan is amortised
+  private static final int EVICTION_SHARE = 16;
+
+  private final List<RuleState> rules;
+  private final int slots;
+  private final int maxKeysPerRule;
+  private final LongSupplier clock;
+
+  public VelocityEngine(List<VelocityRule> rules, int slots, int maxKeysPerRule,
+      LongSupplier clock) {
+    if (slots < 1 || maxKeysPerRule < 1) {
+      throw new IllegalArgumentException("Invalid velocity configuration");
+    }
+    this.rules = rules.stream().map(RuleState::new).toList();
+    this.slots = slots;
+    this.maxKeysPerRule = maxKeysPerRule;
+    this.clock = clock;
+  }
+
+  /**
+   * Counts the attempt against every rule and returns the first rule it breaches. Declined
+   * attempts are counted too, so a card that keeps retrying stays blocked.
+   */
+  public Optional<VelocityRule> check(long cardFingerprint, String merchantId, String currency,
+      long amount) {
+    long now = clock.getAsLong();
+    VelocityRule breached = null;
+    for (RuleState state : rules) {
+      VelocityRule rule = state.rule;
+      Object key = switch (rule.dimension()) {
+        case CARD -> cardFingerprint;
+        case MERCHANT -> merchantId;
+        case MERCHANT_CURRENCY -> new MerchantCurrency(merchantId, currency);
+      };
+      SlidingWindowCounter counter = counterFor(state, key, now);
+      long delta = rule.measure() == VelocityRule.Measure.COUNT ? 1 : amount;
+      if (counter.add(now, delta) > rule.limit() && breached == null) {
+        breached = rule;
+        state.declined.increment();
+      }
+    }
+    return Optional.ofNullable(breached);
+  }
+
+  private SlidingWindowCounter counterFor(RuleState state, Object key, long now) {
+    SlidingWindowCounter counter = state.counters.get(key);
+    if (counter != null) {
+      return counter;
+    }
+    if (state.counters.size() >= maxKeysPerRule) {
+      makeRoom(state, now);
+    }
+    return state.counters.computeIfAbsent(key,
+        k -> new SlidingWindowCounter(state.rule.window().toNanos(), slots, now));
+  }
+
+  private void makeRoom(RuleState state, long now) {
+    synchronized (state) {
+      if (state.counters.size() < maxKeysPerRule) {
+        return;
+      }
+      int before = state.counters.size();
+      long cutoff = now - state.rule.window().toNanos();
+      state.counters.values().removeIf(counter -> counter.lastUpdateNanos() < cutoff);
+      if (state.counters.size() >= maxKeysPerRule) {
+        long[] updates = state.counters.values().stream()
+            .mapToLong(SlidingWindowCounter::lastUpdateNanos)
+            .sorted()
+            .toArray();
+        if (updates.length > 0) {
+          long oldest = updates[Math.min(updates.length, Math.max(1,
+              maxKeysPerRule / EVICTION_SHARE)) - 1];
+          state.counters.values().removeIf(counter -> counter.lastUpdateNanos() <= oldest);
+        }
+      }
+      state.evicted.add(before - state.counters.size());
+    }
+  }
+
+  /**
+   * Drops counters that have not moved for a whole window; they would sum to zero anyway.
+   */
+  public int evictIdle() {
+    long now = clock.getAsLong();
+    int evicted = 0;
+    for (RuleState state : rules) {
+      long cutoff = now - state.rule.window().toNanos();
+      int before = state.counters.size();
+      state.counters.values().removeIf(counter -> counter.lastUpdateNanos() < cutoff);
+      evicted += before - state.counters.size();
+    }
+    return evicted;
+  }
+
+  public List<RuleStats> stats(int topKeys) {
+    long now = clock.getAsLong();
+    List<RuleStats> stats = new ArrayList<>();
+    for (RuleState state : rules) {
+      List<KeyStats> keys = new ArrayList<>();
+      state.counters.forEach((key, counter) -> keys.add(
+          new KeyStats(describe(key), counter.sum(now))));
+      keys.sort(Comparator.comparingLong(KeyStats::current).reversed());
+      stats.add(new RuleStats(state.rule, state.counters.size(), state.declined.sum(),
+          state.evicted.sum(), keys.subList(0, Math.min(topKeys, keys.size()))));
+    }
+    return stats;
+  }
+
+  public List<VelocityRule> rules() {
+    return rules.stream().map(state -> state.rule).toList();
+  }
+
+  public long declined(VelocityRule rule) {
+    return state(rule).declined.sum();
+  }
+
+  public int trackedKeys(VelocityRule rule) {
+    return state(rule).counters.size();
+  }
+
+  private RuleState state(VelocityRule rule) {
+    return rules.stream().filter(state -> state.rule == rule).findFirst().orElseThrow();
+  }
+
+  // merchant ids are API keys, so stats only show a digest an operator can match a known key to
+  private static String describe(Object key) {
+    if (key instanceof Long fingerprint) {
+      return Long.toHexString(fingerprint);
+    }
+    if (key instanceof MerchantCurrency merchantCurrency) {
+      return GatewayHeaders.redact(merchantCurrency.merchantId()) + "/"
+          + merchantCurrency.currency();
+    }
+    return GatewayHeaders.redact((String) key);
+  }
+
+  public record RuleStats(VelocityRule rule, int trackedKeys, long declined, long evicted,
+      List<KeyStats> top) {}
+
+  public record KeyStats(String key, long current) {}
+
+  private record MerchantCurrency(String merchantId, String currency) {}
+
+  private static final class RuleState {
+
+    private final VelocityRule rule;
+    private final Map<Object, SlidingWindowCounter> counters = new ConcurrentHashMap<>();
+    private final LongAdder declined = new LongAdder();
+    // counters dropped to make room for new keys, each one forgets its key's recent history
+    private final LongAdder evicted = new LongAdder();
+
+    private RuleState(VelocityRule rule) {
+      this.rule = rule;
+    }
+  }
+}
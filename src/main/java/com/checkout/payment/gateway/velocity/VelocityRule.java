@@ -0,0 +1,28 @@
+package com.checkout.payment.gateway.velocity;
+
+import java.time.Duration;
+
+/**
+ * Declines a payment when the {@code measure} over {@code window} for its {@code dimension} key
+ * would exceed {@code limit}. Amounts are summed in minor units, so amount rules are only
+ * meaningful per merchant and currency.
+ */
+public record VelocityRule(
+    String name,
+    Dimension dimension,
+    Measure measure,
+    Duration window,
+    long limit
+) {
+
+  public enum Dimension {
+    CARD,
+    MERCHANT,
+    MERCHANT_CURRENCY
+  }
+
+  public enum Measure {
+    COUNT,
+    AMOUNT
+  }
+}
@@ -0,0 +1,75 @@
+package com.checkout.payment.gateway.webhook;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Batches that ran out of delivery attempts, kept as JSON lines for manual replay.
+ */
+public class DeadLetterStore implements Closeable {
+
+  private static final String FILE = "dead-letter.log";
+
+  private final ObjectMapper mapper;
+  private final Path path;
+  private final FileChannel channel;
+  private final AtomicLong count = new AtomicLong();
+
+  public DeadLetterStore(Path directory, ObjectMapper mapper) throws IOException {
+    this.mapper = mapper;
+    Files.createDirectories(directory);
+    this.path = directory.resolve(FILE);
+    this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.APPEND);
+    if (Files.exists(path)) {
+      try (var lines = Files.lines(path, StandardCharsets.UTF_8)) {
+        count.set(lines.filter(line -> !line.isBlank()).count());
+      }
+    }
+  }
+
+  public synchronized void append(String merchantId, List<WebhookEvent> events, String reason)
+      throws IOException {
+    DeadLetter deadLetter = new DeadLetter(merchantId, reason, Instant.now().toString(), events);
+    ByteBuffer buffer = ByteBuffer.wrap(
+        (mapper.writeValueAsString(deadLetter) + '\n').getBytes(StandardCharsets.UTF_8));
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    channel.force(false);
+    count.incrementAndGet();
+  }
+
+  public synchronized List<DeadLetter> readAll() throws IOException {
+    List<DeadLetter> deadLetters = new ArrayList<>();
+    for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+      if (!line.isBlank()) {
+        deadLetters.add(mapper.readValue(line, DeadLetter.class));
+      }
+    }
+    return deadLetters;
+  }
+
+  public long count() {
+    return count.get();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    channel.close();
+  }
+
+  public record DeadLetter(String merchantId, String reason, String failedAt,
+      List<WebhookEvent> events) {}
+}
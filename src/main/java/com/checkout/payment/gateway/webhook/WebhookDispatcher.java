@@ -0,0 +1,224 @@
+package com.checkout.payment.gateway.webhook;
+
+import com.checkout.payment.gateway.configuration.WebhookProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Delivers outbox events in batches. Each merchant has its own queue drained by at most one
+ * worker at a time, so ordering per merchant is kept while merchants are served in parallel and a
+ * failing endpoint only backs off its own queue.
+ */
+public class WebhookDispatcher implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(WebhookDispatcher.class);
+
+  private final WebhookOutbox outbox;
+  private final DeadLetterStore deadLetters;
+  private final WebhookProperties properties;
+  private final ObjectMapper mapper;
+  private final HttpClient httpClient;
+  private final ScheduledExecutorService scheduler;
+  private final Map<String, MerchantQueue> queues = new ConcurrentHashMap<>();
+
+  private final LongAdder delivered = new LongAdder();
+  private final LongAdder failedAttempts = new LongAdder();
+  private final LongAdder deadLettered = new LongAdder();
+
+  public WebhookDispatcher(WebhookOutbox outbox, DeadLetterStore deadLetters,
+      WebhookProperties properties, ObjectMapper mapper) {
+    this.outbox = outbox;
+    this.deadLetters = deadLetters;
+    this.properties = properties;
+    this.mapper = mapper;
+    // one client for all merchants so keep-alive connections are reused across batches
+    this.httpClient = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(properties.connectTimeout())
+        .build();
+    AtomicInteger threadCount = new AtomicInteger();
+    this.scheduler = Executors.newScheduledThreadPool(properties.workers(), runnable -> {
+      Thread thread = new Thread(runnable, "webhook-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  public void start() {
+    outbox.recovered().forEach(this::enqueue);
+  }
+
+  public void enqueue(WebhookEvent event) {
+    MerchantQueue queue = queues.computeIfAbsent(event.merchantId(), MerchantQueue::new);
+    queue.events.add(event);
+    schedule(queue, 0);
+  }
+
+  private void schedule(MerchantQueue queue, long delayMillis) {
+    if (queue.scheduled.compareAndSet(false, true)) {
+      scheduler.schedule(() -> drain(queue), delayMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private void drain(MerchantQueue queue) {
+    long delayMillis = 0;
+    try {
+      List<WebhookEvent> batch = queue.nextBatch(properties.batchSize());
+      if (batch.isEmpty()) {
+        return;
+      }
+
+      URI endpoint = properties.endpoints().get(queue.merchantId);
+      if (endpoint == null) {
+        deadLetter(queue, batch, "No webhook endpoint configured");
+        return;
+      }
+
+      if (deliver(endpoint, queue, batch)) {
+        outbox.acknowledge(batch);
+        queue.reset();
+        delivered.add(batch.size());
+      } else if (queue.attempts >= properties.maxAttempts()) {
+        deadLetter(queue, batch, "Gave up after " + queue.attempts + " attempts");
+      } else {
+        queue.retry = batch;
+        delayMillis = backoffMillis(queue.attempts);
+      }
+    } catch (IOException | RuntimeException e) {
+      LOG.error("Webhook dispatch for merchant {} failed", queue.merchantId, e);
+      delayMillis = properties.maxBackoff().toMillis();
+    } finally {
+      if (queue.hasWork()) {
+        // the queue stays owned by this worker, so an enqueue can't cut the backoff short
+        scheduler.schedule(() -> drain(queue), delayMillis, TimeUnit.MILLISECONDS);
+      } else {
+        queue.scheduled.set(false);
+        // an event enqueued after the check above found the queue still owned
+        if (queue.hasWork()) {
+          schedule(queue, 0);
+        }
+      }
+    }
+  }
+
+  private boolean deliver(URI endpoint, MerchantQueue queue, List<WebhookEvent> batch) {
+    String merchantId = queue.merchantId;
+    queue.attempts++;
+    try {
+      HttpRequest request = HttpRequest.newBuilder(endpoint)
+          .timeout(properties.requestTimeout())
+          .header("Content-Type", "application/json")
+          .POST(HttpRequest.BodyPublishers.ofByteArray(
+              mapper.writeValueAsBytes(new WebhookBatch(merchantId, batch))))
+          .build();
+      HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+      if (response.statusCode() / 100 == 2) {
+        return true;
+      }
+      LOG.warn("Webhook endpoint for merchant {} answered {}", merchantId, response.statusCode());
+    } catch (IOException e) {
+      LOG.warn("Webhook delivery to merchant {} failed: {}", merchantId, e.getMessage());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    failedAttempts.increment();
+    return false;
+  }
+
+  private void deadLetter(MerchantQueue queue, List<WebhookEvent> batch, String reason)
+      throws IOException {
+    deadLetters.append(queue.merchantId, batch, reason);
+    outbox.acknowledge(batch);
+    queue.reset();
+    deadLettered.add(batch.size());
+  }
+
+  private long backoffMillis(int attempts) {
+    long base = properties.initialBackoff().toMillis() << Math.min(attempts - 1, 20);
+    long capped = Math.min(base, properties.maxBackoff().toMillis());
+    // jitter so endpoints recovering from an outage are not hit by every retry at once
+    return capped + ThreadLocalRandom.current().nextLong(capped / 5 + 1);
+  }
+
+  public long delivered() {
+    return delivered.sum();
+  }
+
+  public long failedAttempts() {
+    return failedAttempts.sum();
+  }
+
+  public long deadLettered() {
+    return deadLettered.sum();
+  }
+
+  public int queued() {
+    return queues.values().stream().mapToInt(MerchantQueue::size).sum();
+  }
+
+  @Override
+  public void close() {
+    scheduler.shutdownNow();
+  }
+
+  public record WebhookBatch(String merchantId, List<WebhookEvent> events) {}
+
+  private static final class MerchantQueue {
+
+    private final String merchantId;
+    private final ConcurrentLinkedQueue<WebhookEvent> events = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    // only touched by the single worker draining this queue
+    private List<WebhookEvent> retry = List.of();
+    private int attempts;
+
+    private MerchantQueue(String merchantId) {
+      this.merchantId = merchantId;
+    }
+
+    private List<WebhookEvent> nextBatch(int batchSize) {
+      if (!retry.isEmpty()) {
+        return retry;
+      }
+      List<WebhookEvent> batch = new ArrayList<>(batchSize);
+      WebhookEvent event;
+      while (batch.size() < batchSize && (event = events.poll()) != null) {
+        batch.add(event);
+      }
+      return batch;
+    }
+
+    private void reset() {
+      retry = List.of();
+      attempts = 0;
+    }
+
+    private boolean hasWork() {
+      return !retry.isEmpty() || !events.isEmpty();
+    }
+
+    private int size() {
+      return retry.size() + events.size();
+    }
+  }
+}
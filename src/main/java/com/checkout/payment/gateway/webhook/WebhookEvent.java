@@ -0,0 +1,31 @@
+package com.checkout.payment.gateway.webhook;
+
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import java.time.Instant;
+import java.util.UUID;
+
+public record WebhookEvent(
+    long sequence,
+    String merchantId,
+    UUID paymentId,
+    String status,
+    Long amount,
+    String currency,
+    String occurredAt
+) {
+
+  public static WebhookEvent of(PostPaymentResponse payment) {
+    return new WebhookEvent(
+        0,
+        payment.getMerchantId(),
+        payment.getId(),
+        payment.getStatus() == null ? null : payment.getStatus().getName(),
+        payment.getAmount(),
+        payment.getCurrency(),
+        Instant.now().toString());
+  }
+
+  WebhookEvent withSequence(long sequence) {
+    return new WebhookEvent(sequence, merchantId, paymentId, status, amount, currency, occurredAt);
+  }
+}
@@ -0,0 +1,36 @@
+package com.checkout.payment.gateway.webhook;
+
+import com.checkout.payment.gateway.configuration.WebhookProperties;
+import com.checkout.payment.gateway.event.PaymentStatusChangedEvent;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+
+@RequiredArgsConstructor
+public class WebhookEventListener {
+
+  private static final Logger LOG = LoggerFactory.getLogger(WebhookEventListener.class);
+
+  private final WebhookOutbox outbox;
+  private final WebhookDispatcher dispatcher;
+  private final WebhookProperties properties;
+
+  @EventListener
+  public void onPaymentStatusChanged(PaymentStatusChangedEvent event) {
+    PostPaymentResponse payment = event.payment();
+    if (payment.getMerchantId() == null
+        || !properties.endpoints().containsKey(payment.getMerchantId())) {
+      return;
+    }
+    outbox.append(WebhookEvent.of(payment)).whenComplete((written, e) -> {
+      if (e == null) {
+        dispatcher.enqueue(written);
+      } else {
+        // the payment is already stored, a lost notification must not fail the request
+        LOG.error("Could not record webhook for payment {}", payment.getId(), e);
+      }
+    });
+  }
+}
@@ -0,0 +1,285 @@
+package com.checkout.payment.gateway.webhook;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only local outbox. Events are written as JSON lines to {@code outbox.log}, delivered or
+ * dead-lettered sequences to {@code outbox.ack}. Anything logged but not acknowledged is handed
+ * back through {@link #recovered()} after a restart.
+ *
+ * <p>Appends are group committed by a single writer thread, one write and one fsync for whatever
+ * queued up meanwhile, so request threads never wait on the disk. Sequences are reserved in
+ * blocks in {@code outbox.seq} and keep growing across truncation and restarts.
+ */
+public class WebhookOutbox implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(WebhookOutbox.class);
+
+  private static final String LOG_FILE = "outbox.log";
+  private static final String ACK_FILE = "outbox.ack";
+  private static final String SEQUENCE_FILE = "outbox.seq";
+  private static final int SEQUENCE_BLOCK = 1024;
+  private static final int MAX_GROUP = 512;
+  private static final Append CLOSE = new Append(null, null);
+
+  private final ObjectMapper mapper;
+  private final boolean fsync;
+  private final FileChannel log;
+  private final FileChannel acks;
+  private final Path sequencePath;
+  private final List<WebhookEvent> recovered;
+  private final BlockingQueue<Append> appends = new LinkedBlockingQueue<>();
+  private final Thread writer;
+  private boolean closed;
+
+  private long sequence;
+  private long reserved;
+  private long outstanding;
+
+  public WebhookOutbox(Path directory, ObjectMapper mapper, boolean fsync) throws IOException {
+    this.mapper = mapper;
+    this.fsync = fsync;
+
+    Files.createDirectories(directory);
+    Path logPath = directory.resolve(LOG_FILE);
+    Path ackPath = directory.resolve(ACK_FILE);
+    this.sequencePath = directory.resolve(SEQUENCE_FILE);
+    this.sequence = readSequence(sequencePath);
+
+    Set<Long> acknowledged = readAcknowledged(ackPath);
+    List<WebhookEvent> pending = new ArrayList<>();
+    if (Files.exists(logPath)) {
+      for (String line : Files.readAllLines(logPath, StandardCharsets.UTF_8)) {
+        if (line.isBlank()) {
+          continue;
+        }
+        try {
+          WebhookEvent event = mapper.readValue(line, WebhookEvent.class);
+          sequence = Math.max(sequence, event.sequence());
+          if (!acknowledged.contains(event.sequence())) {
+            pending.add(event);
+          }
+        } catch (IOException e) {
+          // a torn last line from a crash mid-write, the payment itself is still stored
+          LOG.warn("Skipping unreadable outbox entry");
+        }
+      }
+    }
+
+    // compact on startup: keep only what still has to be delivered
+    Path compacted = directory.resolve(LOG_FILE + ".tmp");
+    try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      for (WebhookEvent event : pending) {
+        write(out, line(event));
+      }
+      out.force(true);
+    }
+    Files.move(compacted, logPath, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    Files.deleteIfExists(ackPath);
+
+    this.log = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.APPEND);
+    this.acks = FileChannel.open(ackPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.APPEND);
+    this.recovered = List.copyOf(pending);
+    this.outstanding = pending.size();
+    this.reserved = sequence;
+
+    this.writer = new Thread(this::writeLoop, "webhook-outbox");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  /**
+   * Queues the event for the next group commit. The future completes with the sequenced event
+   * once it is on disk, or exceptionally if it could not be written.
+   */
+  public CompletableFuture<WebhookEvent> append(WebhookEvent event) {
+    Append append = new Append(event, new CompletableFuture<>());
+    synchronized (appends) {
+      if (closed) {
+        return CompletableFuture.failedFuture(new IOException("The outbox is closed"));
+      }
+      appends.add(append);
+    }
+    return append.written();
+  }
+
+  private void writeLoop() {
+    List<Append> group = new ArrayList<>();
+    boolean closing = false;
+    while (!closing) {
+      try {
+        group.add(appends.take());
+      } catch (InterruptedException e) {
+        break;
+      }
+      appends.drainTo(group, MAX_GROUP);
+      closing = group.remove(CLOSE);
+      commit(group);
+      group.clear();
+    }
+    // only left behind if the writer was interrupted
+    appends.drainTo(group);
+    group.stream().filter(append -> append != CLOSE).forEach(append -> append.written()
+        .completeExceptionally(new IOException("The outbox is closed")));
+  }
+
+  private void commit(List<Append> group) {
+    if (group.isEmpty()) {
+      return;
+    }
+    List<WebhookEvent> sequenced = new ArrayList<>(group.size());
+    try {
+      synchronized (this) {
+        reserve(sequence + group.size());
+        ByteArrayOutputStream lines = new ByteArrayOutputStream();
+        for (Append append : group) {
+          WebhookEvent event = append.event().withSequence(++sequence);
+          lines.write(line(event));
+          sequenced.add(event);
+        }
+        write(log, lines.toByteArray());
+        if (fsync) {
+          log.force(false);
+        }
+        outstanding += group.size();
+      }
+    } catch (IOException | RuntimeException e) {
+      LOG.error("Could not write {} webhook events to the outbox", group.size(), e);
+      group.forEach(append -> append.written().completeExceptionally(e));
+      return;
+    }
+    for (int i = 0; i < group.size(); i++) {
+      group.get(i).written().complete(sequenced.get(i));
+    }
+  }
+
+  // persists the next block of sequences before any of them is handed out
+  private void reserve(long upTo) throws IOException {
+    if (upTo <= reserved) {
+      return;
+    }
+    long next = upTo + SEQUENCE_BLOCK;
+    Path tmp = sequencePath.resolveSibling(SEQUENCE_FILE + ".tmp");
+    try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      write(out, Long.toString(next).getBytes(StandardCharsets.UTF_8));
+      out.force(true);
+    }
+    Files.move(tmp, sequencePath, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    reserved = next;
+  }
+
+  public synchronized void acknowledge(Collection<WebhookEvent> events) throws IOException {
+    StringBuilder sb = new StringBuilder();
+    for (WebhookEvent event : events) {
+      sb.append(event.sequence()).append('\n');
+    }
+    write(acks, sb.toString().getBytes(StandardCharsets.UTF_8));
+    if (fsync) {
+      acks.force(false);
+    }
+    outstanding -= events.size();
+
+    // everything delivered, both files can start over
+    if (outstanding <= 0) {
+      outstanding = 0;
+      log.truncate(0);
+      acks.truncate(0);
+    }
+  }
+
+  public List<WebhookEvent> recovered() {
+    return recovered;
+  }
+
+  public synchronized long outstanding() {
+    return outstanding;
+  }
+
+  // waits for queued appends to be written before the files are closed
+  @Override
+  public void close() throws IOException {
+    synchronized (appends) {
+      closed = true;
+      appends.add(CLOSE);
+    }
+    try {
+      writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    synchronized (this) {
+      log.close();
+      acks.close();
+    }
+  }
+
+  private byte[] line(WebhookEvent event) throws IOException {
+    byte[] json = mapper.writeValueAsBytes(event);
+    byte[] line = new byte[json.length + 1];
+    System.arraycopy(json, 0, line, 0, json.length);
+    line[json.length] = '\n';
+    return line;
+  }
+
+  private static void write(FileChannel channel, byte[] bytes) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  // the highest sequence that may have been handed out, however the log was truncated since
+  private static long readSequence(Path sequencePath) throws IOException {
+    if (!Files.exists(sequencePath)) {
+      return 0;
+    }
+    try {
+      return Long.parseLong(Files.readString(sequencePath, StandardCharsets.UTF_8).trim());
+    } catch (NumberFormatException e) {
+      throw new IOException("Unreadable outbox sequence file " + sequencePath, e);
+    }
+  }
+
+  private static Set<Long> readAcknowledged(Path ackPath) throws IOException {
+    Set<Long> acknowledged = new HashSet<>();
+    if (!Files.exists(ackPath)) {
+      return acknowledged;
+    }
+    for (String line : Files.readAllLines(ackPath, StandardCharsets.UTF_8)) {
+      try {
+        acknowledged.add(Long.parseLong(line.trim()));
+      } catch (NumberFormatException e) {
+        // torn write, the event will simply be delivered again
+      }
+    }
+    return acknowledged;
+  }
+
+  private record Append(WebhookEvent event, CompletableFuture<WebhookEvent> written) {}
+}
@@ -0,0 +1,307 @@
+package com.checkout.payment.gateway.chaos;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Programmable stand-in for the acquiring bank. It answers like
+ * {@code imposters/bank_simulator.ejs} (the last digit of the card decides the outcome) and
+ * injects the faults of the current {@link FaultProfile}, which can be read and replaced at
+ * runtime through {@code GET/PUT /__chaos}; {@code GET /__chaos/stats} counts what was injected.
+ *
+ * <p>Handler threads only parse the request; every delay, stall and slow body is driven by a
+ * scheduler, so the stand-in itself doesn't become the bottleneck it is simulating.
+ */
+public final class ChaosBank implements AutoCloseable {
+
+  private static final String CONTROL_PATH = "/__chaos";
+  private static final List<String> PAYMENT_FIELDS =
+      List.of("card_number", "expiry_date", "currency", "amount", "cvv");
+  private static final Duration STALL_LIMIT = Duration.ofSeconds(60);
+  private static final int SLOW_BODY_CHUNKS = 10;
+
+  private final HttpServer server;
+  private final ExecutorService handlers;
+  private final ScheduledExecutorService scheduler;
+  private final ObjectMapper mapper = new ObjectMapper()
+      .findAndRegisterModules()
+      .disable(SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS);
+  private volatile FaultProfile profile;
+  private long nextSlotNanos;
+
+  private final AtomicLong requests = new AtomicLong();
+  private final AtomicLong resets = new AtomicLong();
+  private final AtomicLong stalls = new AtomicLong();
+  private final AtomicLong errors = new AtomicLong();
+  private final AtomicLong slowBodies = new AtomicLong();
+  private final AtomicLong throttled = new AtomicLong();
+  private final AtomicLong pending = new AtomicLong();
+
+  private ChaosBank(int port, FaultProfile profile) throws IOException {
+    this.profile = profile;
+    this.server = HttpServer.create(new InetSocketAddress(port), 1024);
+    this.handlers = Executors.newFixedThreadPool(16, daemon("chaos-bank-handler"));
+    this.scheduler = Executors.newScheduledThreadPool(4, daemon("chaos-bank-scheduler"));
+    server.setExecutor(handlers);
+    server.createContext(CONTROL_PATH, this::control);
+    server.createContext("/", this::bank);
+    server.start();
+  }
+
+  public static ChaosBank start(int port, FaultProfile profile) throws IOException {
+    return new ChaosBank(port, profile);
+  }
+
+  public int port() {
+    return server.getAddress().getPort();
+  }
+
+  public FaultProfile profile() {
+    return profile;
+  }
+
+  public void profile(FaultProfile profile) {
+    this.profile = profile;
+  }
+
+  public Map<String, Long> stats() {
+    Map<String, Long> stats = new LinkedHashMap<>();
+    stats.put("requests", requests.get());
+    stats.put("resets", resets.get());
+    stats.put("stalls", stalls.get());
+    stats.put("errors", errors.get());
+    stats.put("slow_bodies", slowBodies.get());
+    stats.put("throttled", throttled.get());
+    stats.put("pending", pending.get());
+    return stats;
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    scheduler.shutdownNow();
+    handlers.shutdownNow();
+  }
+
+  private void control(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      String path = exchange.getRequestURI().getPath();
+      if (path.equals(CONTROL_PATH + "/stats")) {
+        send(exchange, 200, mapper.writeValueAsBytes(stats()));
+        return;
+      }
+      if ("PUT".equals(exchange.getRequestMethod())) {
+        try {
+          profile = mapper.readValue(exchange.getRequestBody(), FaultProfile.class);
+        } catch (JsonProcessingException e) {
+          send(exchange, 400, mapper.writeValueAsBytes(
+              Map.of("error_message", String.valueOf(e.getOriginalMessage()))));
+          return;
+        }
+      }
+      send(exchange, 200, mapper.writeValueAsBytes(profile));
+    }
+  }
+
+  private void bank(HttpExchange exchange) throws IOException {
+    requests.incrementAndGet();
+    byte[] request = exchange.getRequestBody().readAllBytes();
+    FaultProfile faults = profile;
+
+    long queuedNanos = admit(faults);
+    if (queuedNanos < 0) {
+      throttled.incrementAndGet();
+      try (exchange) {
+        send(exchange, 503, "{}".getBytes());
+      }
+      return;
+    }
+
+    Random random = ThreadLocalRandom.current();
+    long delayNanos = queuedNanos + faults.latency().sampleNanos(random);
+    double roll = random.nextDouble();
+    Runnable respond;
+    if ((roll -= faults.resetRate()) < 0) {
+      resets.incrementAndGet();
+      // closing before any response header drops the connection
+      respond = exchange::close;
+    } else if ((roll -= faults.stallRate()) < 0) {
+      stalls.incrementAndGet();
+      respond = exchange::close;
+      delayNanos = STALL_LIMIT.toNanos();
+    } else if ((roll -= faults.errorRate()) < 0) {
+      errors.incrementAndGet();
+      respond = () -> respond(exchange, faults.errorStatus(), "{}".getBytes(), Duration.ZERO);
+    } else {
+      Response response = answer(exchange.getRequestURI().getPath(), request);
+      Duration drip = Duration.ZERO;
+      if ((roll -= faults.slowBodyRate()) < 0) {
+        slowBodies.incrementAndGet();
+        drip = faults.slowBodyDuration();
+      }
+      Duration bodyDuration = drip;
+      respond = () -> respond(exchange, response.status(), response.body(), bodyDuration);
+    }
+
+    pending.incrementAndGet();
+    Runnable task = respond;
+    scheduler.schedule(() -> {
+      try {
+        task.run();
+      } finally {
+        pending.decrementAndGet();
+      }
+    }, delayNanos, TimeUnit.NANOSECONDS);
+  }
+
+  // time this request waits for a slot under the throughput cap, -1 if the queue is full
+  private synchronized long admit(FaultProfile faults) {
+    if (faults.maxRequestsPerSecond() <= 0) {
+      return 0;
+    }
+    long interval = TimeUnit.SECONDS.toNanos(1) / faults.maxRequestsPerSecond();
+    long now = System.nanoTime();
+    long slot = Math.max(now, nextSlotNanos);
+    long waiting = (slot - now) / interval;
+    if (waiting >= faults.maxQueued()) {
+      return -1;
+    }
+    nextSlotNanos = slot + interval;
+    return slot - now;
+  }
+
+  private Response answer(String path, byte[] request) {
+    Map<String, Object> body;
+    try {
+      body = mapper.readValue(request, new TypeReference<>() {});
+    } catch (IOException e) {
+      return json(400, Map.of("error_message", "The request body is not JSON"));
+    }
+    if (path.equals("/payments")) {
+      if (!body.keySet().containsAll(PAYMENT_FIELDS)) {
+        return json(400,
+            Map.of("error_message", "Not all required properties were sent in the request"));
+      }
+      String card = String.valueOf(body.get("card_number"));
+      int last = card.isEmpty() ? 0 : card.charAt(card.length() - 1) - '0';
+      if (last == 0) {
+        return json(503, Map.of());
+      }
+      boolean authorized = last % 2 == 1;
+      return json(200, Map.of("authorized", authorized,
+          "authorization_code", authorized ? UUID.randomUUID().toString() : ""));
+    }
+    if (path.matches("/(captures|voids|refunds)")) {
+      if (!body.containsKey("authorization_code")) {
+        return json(400, Map.of("error_message", "An authorization_code is required"));
+      }
+      return json(200, Map.of("approved", true));
+    }
+    return json(400,
+        Map.of("errorMessage", "The request supplied is not supported by the simulator"));
+  }
+
+  private Response json(int status, Map<String, Object> body) {
+    try {
+      return new Response(status, mapper.writeValueAsBytes(body));
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  // a slow body announces its length and then drips it in chunks
+  private void respond(HttpExchange exchange, int status, byte[] body, Duration drip) {
+    try {
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(status, body.length);
+      if (drip.isZero() || body.length == 0) {
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(body);
+        }
+        exchange.close();
+        return;
+      }
+      dripChunk(exchange, body, 0, drip.toNanos() / SLOW_BODY_CHUNKS);
+    } catch (IOException e) {
+      exchange.close();
+    }
+  }
+
+  private void dripChunk(HttpExchange exchange, byte[] body, int offset, long pauseNanos) {
+    int chunk = Math.max(1, (body.length + SLOW_BODY_CHUNKS - 1) / SLOW_BODY_CHUNKS);
+    int length = Math.min(chunk, body.length - offset);
+    try {
+      OutputStream out = exchange.getResponseBody();
+      out.write(body, offset, length);
+      out.flush();
+      if (offset + length >= body.length) {
+        exchange.close();
+        return;
+      }
+      pending.incrementAndGet();
+      scheduler.schedule(() -> {
+        try {
+          dripChunk(exchange, body, offset + length, pauseNanos);
+        } finally {
+          pending.decrementAndGet();
+        }
+      }, pauseNanos, TimeUnit.NANOSECONDS);
+    } catch (IOException e) {
+      exchange.close();
+    }
+  }
+
+  private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+    exchange.getResponseHeaders().add("Content-Type", "application/json");
+    exchange.sendResponseHeaders(status, body.length);
+    exchange.getResponseBody().write(body);
+  }
+
+  private static ThreadFactory daemon(String name) {
+    AtomicLong count = new AtomicLong();
+    return runnable -> {
+      Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  private record Response(int status, byte[] body) {}
+
+  /**
+   * {@code ChaosBank [port] [preset]}, e.g. {@code ./gradlew chaosBank -PchaosProfile=stalls}.
+   */
+  public static void main(String[] args) throws Exception {
+    int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+    String preset = args.length > 1 ? args[1] : "none";
+    FaultProfile profile = FaultProfile.PRESETS.get(preset);
+    if (profile == null) {
+      throw new IllegalArgumentException("Unknown profile " + preset + ", one of "
+          + FaultProfile.PRESETS.keySet());
+    }
+    ChaosBank bank = start(port, profile);
+    System.out.println("Chaos bank on port " + bank.port() + " with profile " + preset
+        + ", change it with PUT " + CONTROL_PATH);
+    Thread.currentThread().join();
+  }
+}
@@ -0,0 +1,104 @@
+package com.checkout.payment.gateway.chaos;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Faults the {@link ChaosBank} injects. Rates are fractions of requests and are rolled
+ * independently of the card outcome, in this order: reset, stall, error, slow body. Every response
+ * (including an error or a reset) first waits for a latency sample. {@code maxRequestsPerSecond}
+ * caps the bank's throughput: requests beyond it queue, and are answered 503 once more than
+ * {@code maxQueued} are waiting.
+ */
+public record FaultProfile(
+    Latency latency,
+    double resetRate,
+    double stallRate,
+    double errorRate,
+    int errorStatus,
+    double slowBodyRate,
+    Duration slowBodyDuration,
+    int maxRequestsPerSecond,
+    int maxQueued
+) {
+
+  public static final FaultProfile NONE = new FaultProfile(Latency.NONE, 0, 0, 0, 500, 0,
+      Duration.ZERO, 0, 0);
+
+  /**
+   * Profiles {@code ./gradlew chaosBank -PchaosProfile=...} can start with; the perf suite runs
+   * the gateway against each of them.
+   */
+  public static final Map<String, FaultProfile> PRESETS = Map.of(
+      "none", NONE,
+      "baseline", NONE.withLatency(Latency.logNormal(Duration.ofMillis(20), Duration.ofMillis(80))),
+      "slow", NONE.withLatency(Latency.logNormal(Duration.ofMillis(200), Duration.ofMillis(1500))),
+      "errors", new FaultProfile(Latency.fixed(Duration.ofMillis(20)), 0, 0, 0.2, 500, 0,
+          Duration.ZERO, 0, 0),
+      "resets", new FaultProfile(Latency.fixed(Duration.ofMillis(20)), 0.1, 0, 0, 500, 0,
+          Duration.ZERO, 0, 0),
+      "stalls", new FaultProfile(Latency.fixed(Duration.ofMillis(20)), 0, 0.05, 0, 500, 0,
+          Duration.ZERO, 0, 0),
+      "slow-body", new FaultProfile(Latency.fixed(Duration.ofMillis(20)), 0, 0, 0, 500, 0.2,
+          Duration.ofSeconds(2), 0, 0),
+      "throttled", new FaultProfile(Latency.fixed(Duration.ofMillis(20)), 0, 0, 0, 500, 0,
+          Duration.ZERO, 100, 200)
+  );
+
+  public FaultProfile {
+    latency = latency == null ? Latency.NONE : latency;
+    slowBodyDuration = slowBodyDuration == null ? Duration.ZERO : slowBodyDuration;
+    errorStatus = errorStatus == 0 ? 500 : errorStatus;
+    if (resetRate + stallRate + errorRate + slowBodyRate > 1) {
+      throw new IllegalArgumentException("Fault rates add up to more than 1");
+    }
+  }
+
+  public FaultProfile withLatency(Latency latency) {
+    return new FaultProfile(latency, resetRate, stallRate, errorRate, errorStatus, slowBodyRate,
+        slowBodyDuration, maxRequestsPerSecond, maxQueued);
+  }
+
+  public enum Distribution { NONE, FIXED, UNIFORM, LOG_NORMAL }
+
+  /**
+   * {@code FIXED} always waits {@code median}, {@code UNIFORM} is spread evenly over
+   * {@code [0, 2 * median]} and {@code LOG_NORMAL} is fitted to {@code median} and {@code p99}.
+   */
+  public record Latency(Distribution distribution, Duration median, Duration p99) {
+
+    public static final Latency NONE = new Latency(Distribution.NONE, Duration.ZERO, Duration.ZERO);
+
+    // z-score of the 99th percentile of a standard normal distribution
+    private static final double Z_99 = 2.326;
+
+    public Latency {
+      distribution = distribution == null ? Distribution.NONE : distribution;
+      median = median == null ? Duration.ZERO : median;
+      p99 = p99 == null ? median : p99;
+    }
+
+    public static Latency fixed(Duration delay) {
+      return new Latency(Distribution.FIXED, delay, delay);
+    }
+
+    public static Latency logNormal(Duration median, Duration p99) {
+      return new Latency(Distribution.LOG_NORMAL, median, p99);
+    }
+
+    long sampleNanos(Random random) {
+      long median = this.median.toNanos();
+      return switch (distribution) {
+        case NONE -> 0;
+        case FIXED -> median;
+        case UNIFORM -> (long) (random.nextDouble() * 2 * median);
+        case LOG_NORMAL -> {
+          double sigma = Math.log(Math.max(1.0, (double) p99.toNanos() / Math.max(1, median)))
+              / Z_99;
+          yield (long) (median * Math.exp(sigma * random.nextGaussian()));
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,233 @@
+package com.checkout.payment.gateway.chaos;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Closed-loop load against the gateway while the {@link ChaosBank} injects each preset's faults.
+ * Every profile must keep the gateway's p99 within its bound, answer every request with one of
+ * the statuses expected under its faults, and leave thread count and retained heap bounded. The
+ * payments a profile stores are removed before its heap is measured, so only what the gateway
+ * leaks counts. Concurrency and duration per profile come from {@code -Dperf.concurrency} and
+ * {@code -Dperf.duration} (seconds).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "gateway.velocity.enabled=false",
+    "gateway.rate-limit.enabled=false"
+})
+class GatewayUnderFaultsPerfTest {
+
+  private static final int CONCURRENCY = Integer.getInteger("perf.concurrency", 32);
+  private static final Duration DURATION = Duration.ofSeconds(Long.getLong("perf.duration", 10));
+  // Tomcat's 200 workers, the client's own threads and some slack for pools that start lazily
+  private static final int MAX_THREAD_GROWTH = 200 + CONCURRENCY + 32;
+  private static final long MAX_RETAINED_HEAP = 128L << 20;
+  // pending payments settle by the bank's response timeout at the latest
+  private static final Duration SETTLE_TIMEOUT = Duration.ofSeconds(20);
+
+  private static final Logger LOG = LoggerFactory.getLogger(GatewayUnderFaultsPerfTest.class);
+
+  private static final ChaosBank BANK = startBank();
+  private static final Map<String, String> SUMMARIES = new ConcurrentHashMap<>();
+
+  @LocalServerPort
+  private int port;
+  @Autowired
+  private PaymentsRepository paymentsRepository;
+
+  @DynamicPropertySource
+  static void bank(DynamicPropertyRegistry registry) {
+    registry.add("gateway.bank.base-url", () -> "http://localhost:" + BANK.port());
+  }
+
+  @AfterAll
+  static void tearDown() {
+    BANK.close();
+    new TreeMap<>(SUMMARIES).values().forEach(LOG::info);
+  }
+
+  // 201 for every settled payment, 202 once the deadline expires at the bank, 503 when shed
+  @ParameterizedTest(name = "{0}")
+  @CsvSource({
+      "baseline, 500, 201 503",
+      "errors, 500, 201 503",
+      "resets, 500, 201 503",
+      "slow, 2500, 201 202 503",
+      "stalls, 4000, 201 202 503",
+      "slow-body, 4000, 201 202 503",
+      "throttled, 4000, 201 202 503"
+  })
+  void gatewayStaysWithinBounds(String profile, long maxP99Millis, String expectedStatuses)
+      throws Exception {
+    BANK.profile(FaultProfile.PRESETS.get(profile));
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    long heapBefore = usedHeapAfterGc(memory);
+    int threadsBefore = threads.getThreadCount();
+    threads.resetPeakThreadCount();
+
+    Load load = run();
+
+    int threadGrowth = threads.getPeakThreadCount() - threadsBefore;
+    int stored = removeStoredPayments();
+    long retainedHeap = usedHeapAfterGc(memory) - heapBefore;
+    long p50 = load.percentileMillis(0.50);
+    long p99 = load.percentileMillis(0.99);
+    SUMMARIES.put(profile, String.format(
+        "%-10s requests=%d failures=%d statuses=%s p50=%dms p99=%dms max=%dms threads+%d "
+            + "stored=%d heap%+dMB bank=%s",
+        profile, load.latencies().length, load.failures(), load.statuses(), p50, p99,
+        load.percentileMillis(1), threadGrowth, stored, retainedHeap >> 20, BANK.stats()));
+
+    assertThat(load.failures()).as("requests without a response").isZero();
+    assertThat(load.statuses().keySet()).as("response statuses")
+        .isSubsetOf(Arrays.stream(expectedStatuses.split(" "))
+            .map(Integer::valueOf)
+            .collect(Collectors.toSet()));
+    assertThat(p99).as("p99 in ms").isLessThanOrEqualTo(maxP99Millis);
+    assertThat(threadGrowth).as("peak thread growth").isLessThanOrEqualTo(MAX_THREAD_GROWTH);
+    assertThat(retainedHeap).as("retained heap growth").isLessThanOrEqualTo(MAX_RETAINED_HEAP);
+  }
+
+  private Load run() throws Exception {
+    ExecutorService workers = Executors.newFixedThreadPool(CONCURRENCY);
+    HttpClient client = HttpClient.newBuilder()
+        .executor(workers)
+        .connectTimeout(Duration.ofSeconds(2))
+        .build();
+    HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/payment"))
+        .header("Content-Type", "application/json")
+        .timeout(Duration.ofSeconds(30))
+        .POST(HttpRequest.BodyPublishers.ofString(paymentJson()))
+        .build();
+    ExecutorService callers = Executors.newFixedThreadPool(CONCURRENCY);
+    AtomicLong failures = new AtomicLong();
+    Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    CountDownLatch start = new CountDownLatch(1);
+    try {
+      Future<?>[] results = new Future<?>[CONCURRENCY];
+      long[][] samples = new long[CONCURRENCY][];
+      for (int i = 0; i < CONCURRENCY; i++) {
+        int caller = i;
+        results[i] = callers.submit(() -> {
+          start.await();
+          samples[caller] = callUntil(client, request, System.nanoTime() + DURATION.toNanos(),
+              failures, statuses);
+          return null;
+        });
+      }
+      start.countDown();
+      for (Future<?> result : results) {
+        result.get(DURATION.toSeconds() + 60, TimeUnit.SECONDS);
+      }
+      long[] latencies = Arrays.stream(samples).flatMapToLong(Arrays::stream).sorted().toArray();
+      Map<Integer, Long> counts = new TreeMap<>();
+      statuses.forEach((status, count) -> counts.put(status, count.sum()));
+      return new Load(latencies, failures.get(), counts);
+    } finally {
+      callers.shutdownNow();
+      workers.shutdownNow();
+    }
+  }
+
+  // a caller sends its next request as soon as the previous one is answered
+  private static long[] callUntil(HttpClient client, HttpRequest request, long deadline,
+      AtomicLong failures, Map<Integer, LongAdder> statuses) throws InterruptedException {
+    long[] latencies = new long[1024];
+    int count = 0;
+    while (System.nanoTime() < deadline) {
+      long started = System.nanoTime();
+      try {
+        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+      } catch (IOException e) {
+        failures.incrementAndGet();
+      }
+      if (count == latencies.length) {
+        latencies = Arrays.copyOf(latencies, count * 2);
+      }
+      latencies[count++] = System.nanoTime() - started;
+    }
+    return Arrays.copyOf(latencies, count);
+  }
+
+  // waits for pending payments to settle so none is stored again after the cleanup
+  private int removeStoredPayments() throws InterruptedException {
+    long deadline = System.nanoTime() + SETTLE_TIMEOUT.toNanos();
+    while (paymentsRepository.all().stream()
+        .anyMatch(payment -> payment.getStatus() == PaymentStatus.PENDING)) {
+      assertThat(System.nanoTime()).as("pending payments settled").isLessThan(deadline);
+      Thread.sleep(100);
+    }
+    List<PostPaymentResponse> stored = List.copyOf(paymentsRepository.all());
+    stored.forEach(payment -> paymentsRepository.remove(payment.getId()));
+    return stored.size();
+  }
+
+  private static long usedHeapAfterGc(MemoryMXBean memory) throws InterruptedException {
+    System.gc();
+    Thread.sleep(100);
+    return memory.getHeapMemoryUsage().getUsed();
+  }
+
+  private static String paymentJson() {
+    return """
+        {"card_number":"2222405343248877","expiry_month":4,"expiry_year":%d,"currency":"GBP",\
+        "amount":100,"cvv":"123"}""".formatted(LocalDate.now().plusYears(1).getYear());
+  }
+
+  private static ChaosBank startBank() {
+    try {
+      return ChaosBank.start(0, FaultProfile.NONE);
+    } catch (IOException e) {
+      throw new IllegalStateException("Cannot start the chaos bank", e);
+    }
+  }
+
+  private record Load(long[] latencies, long failures, Map<Integer, Long> statuses) {
+
+    long percentileMillis(double percentile) {
+      if (latencies.length == 0) {
+        return 0;
+      }
+      int index = (int) Math.ceil(percentile * latencies.length) - 1;
+      return TimeUnit.NANOSECONDS.toMillis(latencies[Math.max(0, index)]);
+    }
+  }
+}
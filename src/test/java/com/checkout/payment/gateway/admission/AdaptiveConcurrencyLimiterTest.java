@@ -0,0 +1,85 @@
+package com.checkout.payment.gateway.admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimiterTest {
+
+  private static final long FAST = TimeUnit.MILLISECONDS.toNanos(50);
+  private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(2000);
+
+  @Test
+  void rejectsOnceLimitIsReached() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 0.2, 1.5);
+
+    assertThat(limiter.tryAcquire()).isTrue();
+    assertThat(limiter.tryAcquire()).isTrue();
+    assertThat(limiter.tryAcquire()).isFalse();
+
+    limiter.release(FAST, false);
+
+    assertThat(limiter.tryAcquire()).isTrue();
+  }
+
+  @Test
+  void limitGrowsWhileLatencyIsStable() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 0.2, 1.5);
+
+    for (int i = 0; i < 200; i++) {
+      saturateAndRelease(limiter, FAST);
+    }
+
+    assertThat(limiter.getLimit()).isGreaterThan(10);
+  }
+
+  @Test
+  void limitShrinksWhenBankLatencyRises() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(50, 1, 100, 0.2, 1.5);
+    for (int i = 0; i < 200; i++) {
+      saturateAndRelease(limiter, FAST);
+    }
+    int before = limiter.getLimit();
+
+    for (int i = 0; i < 5; i++) {
+      saturateAndRelease(limiter, SLOW);
+    }
+
+    assertThat(limiter.getLimit()).isLessThan(before);
+  }
+
+  @Test
+  void droppedSamplesBackOffButNeverBelowMinimum() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 5, 100, 0.2, 1.5);
+
+    for (int i = 0; i < 100; i++) {
+      limiter.tryAcquire();
+      limiter.release(SLOW, true);
+    }
+
+    assertThat(limiter.getLimit()).isEqualTo(5);
+    assertThat(limiter.getInFlight()).isZero();
+  }
+
+  @Test
+  void retryAfterIsAtLeastOneSecond() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(5, 1, 10, 0.2, 1.5);
+    assertThat(limiter.retryAfter().toSeconds()).isEqualTo(1);
+
+    limiter.tryAcquire();
+    limiter.release(SLOW, false);
+
+    assertThat(limiter.retryAfter().toSeconds()).isEqualTo(2);
+  }
+
+  private static void saturateAndRelease(AdaptiveConcurrencyLimiter limiter, long rtt) {
+    int acquired = 0;
+    while (limiter.tryAcquire()) {
+      acquired++;
+    }
+    for (int i = 0; i < acquired; i++) {
+      limiter.release(rtt, false);
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package com.checkout.payment.gateway.bin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import org.junit.jupiter.api.Test;
+
+class BinTableTest {
+
+  private static BinTable parse(String source) throws IOException {
+    return BinTable.parse(new BufferedReader(new StringReader(source)));
+  }
+
+  @Test
+  void findsTheRangeOfACardNumber() throws IOException {
+    BinTable table = parse("""
+        # scheme ranges
+        4,4,VISA,,13|16|19,
+        34,34,AMEX,US,15,acquirer-us
+        """);
+
+    assertThat(table.lookup("378282246310005")).isNull();
+    assertThat(table.lookup("341111111111111"))
+        .isEqualTo(new BinInfo("AMEX", "US", "acquirer-us", 1 << 15));
+    assertThat(table.lookup("4111111111111111").allowsLength(16)).isTrue();
+    assertThat(table.lookup("4111111111111111").allowsLength(15)).isFalse();
+    assertThat(table.lookup("4111")).isNull();
+    assertThat(table.lookup("41x1111111111111")).isNull();
+  }
+
+  @Test
+  void nestedRangesOverrideTheirParent() throws IOException {
+    BinTable table = parse("""
+        4,4,VISA,,16,
+        4000,4000,VISA,GB,16,acquirer-gb
+        41111111,41111111,VISA,US,16,acquirer-us
+        """);
+
+    assertThat(table.lookup("4000001234567899").acquirer()).isEqualTo("acquirer-gb");
+    assertThat(table.lookup("4111111111111111").acquirer()).isEqualTo("acquirer-us");
+    assertThat(table.lookup("4111111211111111").acquirer()).isNull();
+    assertThat(table.lookup("4999999999999999").scheme()).isEqualTo("VISA");
+    assertThat(table.lookup("5111111111111111")).isNull();
+    assertThat(table.ranges()).isEqualTo(3);
+    assertThat(table.segments()).isEqualTo(4);
+  }
+
+  @Test
+  void rejectsPartiallyOverlappingRanges() {
+    assertThatThrownBy(() -> parse("""
+        40,45,VISA,,16,
+        44,49,VISA,,16,
+        """))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("overlaps");
+  }
+
+  @Test
+  void reportsTheOffendingLine() {
+    assertThatThrownBy(() -> parse("4,4,VISA,,16,\n5,5,MASTERCARD,16\n"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageStartingWith("Line 2");
+  }
+}
@@ -0,0 +1,72 @@
+package com.checkout.payment.gateway.cluster;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class ConsistentHashRingTest {
+
+  private static final List<String> NODES =
+      List.of("http://localhost:8091", "http://localhost:8092", "http://localhost:8093");
+  private static final List<UUID> IDS =
+      IntStream.range(0, 60_000).mapToObj(i -> UUID.randomUUID()).toList();
+
+  @Test
+  void spreadsIdsEvenlyAcrossNodes() {
+    ConsistentHashRing ring = new ConsistentHashRing(NODES, 128);
+
+    Map<String, Integer> counts = new HashMap<>();
+    IDS.forEach(id -> counts.merge(ring.ownerOf(id), 1, Integer::sum));
+
+    assertThat(counts).containsOnlyKeys(NODES);
+    counts.values().forEach(count ->
+        assertThat(count / (double) IDS.size()).isCloseTo(1.0 / 3, within(0.05)));
+  }
+
+  @Test
+  void sameMembershipGivesSameOwnerRegardlessOfOrder() {
+    ConsistentHashRing ring = new ConsistentHashRing(NODES, 128);
+    ConsistentHashRing reversed = new ConsistentHashRing(
+        List.of(NODES.get(2), NODES.get(1), NODES.get(0)), 128);
+
+    IDS.forEach(id -> assertThat(reversed.ownerOf(id)).isEqualTo(ring.ownerOf(id)));
+  }
+
+  @Test
+  void joiningNodeOnlyTakesIdsFromOthers() {
+    ConsistentHashRing ring = new ConsistentHashRing(NODES, 128);
+    ConsistentHashRing grown = ring.with("http://localhost:8094");
+
+    long moved = 0;
+    for (UUID id : IDS) {
+      String before = ring.ownerOf(id);
+      String after = grown.ownerOf(id);
+      if (!before.equals(after)) {
+        assertThat(after).isEqualTo("http://localhost:8094");
+        moved++;
+      }
+    }
+    assertThat(moved / (double) IDS.size()).isCloseTo(0.25, within(0.07));
+  }
+
+  @Test
+  void leavingNodeOnlyGivesAwayItsOwnIds() {
+    ConsistentHashRing ring = new ConsistentHashRing(NODES, 128);
+    ConsistentHashRing shrunk = ring.without("http://localhost:8092");
+
+    for (UUID id : IDS) {
+      if (!ring.ownerOf(id).equals("http://localhost:8092")) {
+        assertThat(shrunk.ownerOf(id)).isEqualTo(ring.ownerOf(id));
+      }
+    }
+    assertThat(shrunk.nodes()).doesNotContain("http://localhost:8092");
+    assertThat(shrunk.with("http://localhost:8092").ownerOf(IDS.get(0)))
+        .isEqualTo(ring.ownerOf(IDS.get(0)));
+  }
+}
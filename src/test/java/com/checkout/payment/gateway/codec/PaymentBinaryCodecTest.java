@@ -0,0 +1,163 @@
+package com.checkout.payment.gateway.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.checkout.payment.gateway.enums.PaymentOperation;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.lifecycle.PaymentStateMachine;
+import com.checkout.payment.gateway.model.ApiSuccess;
+import com.checkout.payment.gateway.model.PostPaymentRequest;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import com.checkout.payment.gateway.model.ResponseCode;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class PaymentBinaryCodecTest {
+
+  // version byte, presence byte, expiry month, expiry year and amount
+  private static final int CARD_NUMBER_OFFSET = 1 + 1 + 4 + 4 + 8;
+
+  private static final PostPaymentResponse PAYMENT = PostPaymentResponse.builder()
+      .id(UUID.randomUUID())
+      .status(PaymentStatus.AUTHORIZED)
+      .cardNumberLastFour("8877")
+      .expiryMonth(4)
+      .expiryYear(2030)
+      .currency("GBP")
+      .amount(1050L)
+      .merchantId("merchant-1")
+      .build();
+
+  @Test
+  void requestRoundTrips() {
+    PostPaymentRequest request = PostPaymentRequest.builder()
+        .cardNumber("2222405343248877")
+        .expiryMonth(4)
+        .expiryYear(2030)
+        .currency("GBP")
+        .amount(100L)
+        .cvv("123")
+        .build();
+
+    PostPaymentRequest decoded = PaymentBinaryCodec.decodeRequest(
+        PaymentBinaryCodec.encodeRequest(request));
+
+    assertThat(decoded).usingRecursiveComparison().ignoringFields("cardNumberLastFour")
+        .isEqualTo(request);
+    assertThat(decoded.getCardNumberLastFour()).isEqualTo("8877");
+  }
+
+  @Test
+  void tokenRequestRoundTrips() {
+    PostPaymentRequest request = PostPaymentRequest.builder()
+        .cardToken("tok_AAAAAAAAAAAAAAAAAAAAAA")
+        .expiryMonth(4)
+        .expiryYear(2030)
+        .currency("GBP")
+        .amount(100L)
+        .cvv("123")
+        .build();
+
+    PostPaymentRequest decoded = PaymentBinaryCodec.decodeRequest(
+        PaymentBinaryCodec.encodeRequest(request));
+
+    assertThat(decoded).usingRecursiveComparison().isEqualTo(request);
+  }
+
+  @Test
+  void missingFieldsStayNullSoValidationStillRejectsThem() {
+    PostPaymentRequest decoded = PaymentBinaryCodec.decodeRequest(
+        PaymentBinaryCodec.encodeRequest(PostPaymentRequest.builder().cardNumber("1").build()));
+
+    assertThat(decoded.getExpiryMonth()).isNull();
+    assertThat(decoded.getExpiryYear()).isNull();
+    assertThat(decoded.getAmount()).isNull();
+    assertThat(decoded.getCurrency()).isNull();
+    assertThat(decoded.getCardNumberLastFour()).isNull();
+  }
+
+  @Test
+  void responseEnvelopeRoundTripsWithoutMerchant() {
+    ApiSuccess<PostPaymentResponse> success =
+        ApiSuccess.ok(ResponseCode.PAYMENT_FOUND, "Payment has been found", PAYMENT);
+
+    ApiSuccess<Object> decoded = PaymentBinaryCodec.decodeResponse(
+        PaymentBinaryCodec.encodeResponse(success));
+
+    assertThat(decoded.status()).isEqualTo(200);
+    assertThat(decoded.code()).isEqualTo(ResponseCode.PAYMENT_FOUND);
+    assertThat(decoded.requestId()).isEqualTo(success.requestId());
+    assertThat(decoded.data()).isEqualTo(PAYMENT.toBuilder().merchantId(null).build());
+  }
+
+  @Test
+  void createdEnvelopeCarriesId() {
+    UUID id = UUID.randomUUID();
+    ApiSuccess<Object> decoded = PaymentBinaryCodec.decodeResponse(PaymentBinaryCodec.encodeResponse(
+        ApiSuccess.created(ResponseCode.PAYMENT_CREATED, "Payment created", id)));
+
+    assertThat(decoded.data()).isEqualTo(id);
+  }
+
+  @Test
+  void storedPaymentKeepsMerchant() {
+    ByteBuffer buffer = ByteBuffer.allocate(PaymentBinaryCodec.paymentSize(PAYMENT, true));
+    PaymentBinaryCodec.writePayment(buffer, PAYMENT, true);
+
+    assertThat(buffer.hasRemaining()).isFalse();
+    assertThat(PaymentBinaryCodec.readPayment(buffer.flip(), true)).isEqualTo(PAYMENT);
+  }
+
+  @Test
+  void lifecycleRoundTripsInStorageAndOnTheWire() {
+    PostPaymentResponse captured = PaymentStateMachine.apply(
+        PAYMENT.toBuilder().authorizationCode("auth-1").build(), PaymentOperation.CAPTURE, 800L,
+        Instant.parse("2030-01-01T10:00:00.123456789Z"));
+    PostPaymentResponse refunded = PaymentStateMachine.apply(captured, PaymentOperation.REFUND,
+        300L, Instant.parse("2030-01-02T10:00:00Z"));
+
+    assertThat(PaymentBinaryCodec.decodePayments(PaymentBinaryCodec.encodePayments(
+        List.of(PAYMENT, refunded)))).containsExactly(PAYMENT, refunded);
+
+    ApiSuccess<Object> decoded = PaymentBinaryCodec.decodeResponse(PaymentBinaryCodec
+        .encodeResponse(ApiSuccess.ok(ResponseCode.PAYMENT_REFUNDED, "Payment refunded", refunded)));
+    assertThat(decoded.data())
+        .isEqualTo(refunded.toBuilder().merchantId(null).authorizationCode(null).build());
+  }
+
+  @Test
+  void rejectsTruncatedInput() {
+    byte[] bytes = PaymentBinaryCodec.encodeRequest(
+        PostPaymentRequest.builder().cardNumber("2222405343248877").build());
+
+    assertThatThrownBy(() -> PaymentBinaryCodec.decodeRequest(Arrays.copyOf(bytes, 10)))
+        .isInstanceOf(BinaryFormatException.class);
+  }
+
+  @Test
+  void rejectsStringFieldLongerThanTheInput() {
+    byte[] bytes = PaymentBinaryCodec.encodeRequest(
+        PostPaymentRequest.builder().cardNumber("2222405343248877").currency("GBP").build());
+    // keep the card number's length prefix but drop the end of its bytes and everything after
+    byte[] truncated = Arrays.copyOf(bytes, bytes.length - 16);
+
+    assertThatThrownBy(() -> PaymentBinaryCodec.decodeRequest(truncated))
+        .isInstanceOf(BinaryFormatException.class)
+        .hasMessage("Truncated string field");
+  }
+
+  @Test
+  void rejectsNegativeStringLength() {
+    byte[] bytes = PaymentBinaryCodec.encodeRequest(
+        PostPaymentRequest.builder().cardNumber("2222405343248877").build());
+    ByteBuffer.wrap(bytes).putShort(CARD_NUMBER_OFFSET, (short) -2);
+
+    assertThatThrownBy(() -> PaymentBinaryCodec.decodeRequest(bytes))
+        .isInstanceOf(BinaryFormatException.class);
+  }
+}
@@ -4,9 +4,12 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.checkout.payment.gateway.codec.PaymentBinaryCodec;
+import com.checkout.payment.gateway.codec.PaymentBinaryMessageConverter;
 import com.checkout.payment.gateway.controller.extension.PaymentRequestExtension;
 import com.checkout.payment.gateway.controller.extension.ValidCreatePaymentRequestBody;
 import com.checkout.payment.gateway.enums.PaymentStatus;
@@ -15,7 +18,9 @@ import com.checkout.payment.gateway.model.PostPaymentRequest;
 import com.checkout.payment.gateway.model.PostPaymentResponse;
 import com.checkout.payment.gateway.model.ResponseCode;
 import com.checkout.payment.gateway.repository.PaymentsRepository;
+import com.checkout.payment.gateway.startup.WarmupContext;
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.Optional;
 import java.util.UUID;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -554,6 +559,126 @@ class PaymentGatewayControllerTest {
     assertThat(saved.get().getStatus()).isEqualTo(PaymentStatus.REJECTED);
   }
 
+  @Test
+  void createPayment_cardNumberAndToken_400Response(@ValidCreatePaymentRequestBody PostPaymentRequest request) throws Exception {
+    request = request.toBuilder()
+        .cardToken("tok_AAAAAAAAAAAAAAAAAAAAAA")
+        .build();
+
+    mvc.perform(MockMvcRequestBuilders.post("/payment")
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.APPLICATION_JSON)
+            .content(mapper.writeValueAsString(request)))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.code").value("VALIDATION_ERROR"))
+        .andExpect(jsonPath("$.details.fields.card_number").value("Provide either a card number or a card token"));
+  }
+
+  @Test
+  void createPayment_unknownCardToken_400Response(@ValidCreatePaymentRequestBody PostPaymentRequest request) throws Exception {
+    request = request.toBuilder()
+        .cardNumber(null)
+        .cardToken("tok_AAAAAAAAAAAAAAAAAAAAAA")
+        .build();
+
+    mvc.perform(MockMvcRequestBuilders.post("/payment")
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.APPLICATION_JSON)
+            .content(mapper.writeValueAsString(request)))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.code").value("VALIDATION_ERROR"))
+        .andExpect(jsonPath("$.details.fields.card_token").value("Unknown card token"));
+  }
+
+  @Test
+  void createPayment_respondAsync_202Response(@ValidCreatePaymentRequestBody PostPaymentRequest request) throws Exception {
+    MvcResult result = mvc.perform(MockMvcRequestBuilders.post("/payment")
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.APPLICATION_JSON)
+            .header("Prefer", "respond-async")
+            .content(mapper.writeValueAsString(request)))
+        .andDo(print())
+        .andExpect(status().isAccepted())
+        .andExpect(header().string("Preference-Applied", "respond-async"))
+        .andExpect(jsonPath("$.code").value(ResponseCode.PAYMENT_ACCEPTED.name()))
+        .andReturn();
+
+    String paymentId = JsonPath.read(result.getResponse().getContentAsString(), "$.data");
+
+    assertThat(isUuid(paymentId)).isTrue();
+    assertThat(result.getResponse().getHeader("Location")).isEqualTo("/payment/" + paymentId);
+    assertThat(paymentsRepository.get(UUID.fromString(paymentId))).isPresent();
+  }
+
+  @Test
+  void getPayment_binaryAccept_returnsBinaryEnvelope() throws Exception {
+    PostPaymentResponse payment = PostPaymentResponse.builder()
+        .id(UUID.randomUUID())
+        .amount(10L)
+        .currency("USD")
+        .status(PaymentStatus.AUTHORIZED)
+        .expiryMonth(12)
+        .expiryYear(2030)
+        .cardNumberLastFour("4321")
+        .build();
+    paymentsRepository.add(payment);
+
+    MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/payment/" + payment.getId())
+            .accept(PaymentBinaryMessageConverter.MEDIA_TYPE))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(PaymentBinaryMessageConverter.MEDIA_TYPE))
+        .andReturn();
+
+    ApiSuccess<Object> body = PaymentBinaryCodec.decodeResponse(
+        result.getResponse().getContentAsByteArray());
+    assertThat(body.code()).isEqualTo(ResponseCode.PAYMENT_FOUND);
+    assertThat(body.data()).isEqualTo(payment);
+  }
+
+  @Test
+  void createPayment_binaryBody_isValidatedLikeJson(@ValidCreatePaymentRequestBody PostPaymentRequest request) throws Exception {
+    request = request.toBuilder()
+        .cardNumber("3782822P6310005")
+        .build();
+
+    mvc.perform(MockMvcRequestBuilders.post("/payment")
+            .contentType(PaymentBinaryMessageConverter.MEDIA_TYPE)
+            .accept(PaymentBinaryMessageConverter.MEDIA_TYPE, MediaType.APPLICATION_JSON)
+            .content(PaymentBinaryCodec.encodeRequest(request)))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.code").value("VALIDATION_ERROR"))
+        .andExpect(jsonPath("$.details.fields.card_number").value("Invalid card number"));
+  }
+
+  @Test
+  void createPayment_binaryBodyWithTruncatedString_400Response(@ValidCreatePaymentRequestBody PostPaymentRequest request) throws Exception {
+    byte[] body = PaymentBinaryCodec.encodeRequest(request);
+
+    mvc.perform(MockMvcRequestBuilders.post("/payment")
+            .contentType(PaymentBinaryMessageConverter.MEDIA_TYPE)
+            .accept(PaymentBinaryMessageConverter.MEDIA_TYPE, MediaType.APPLICATION_JSON)
+            .content(Arrays.copyOf(body, 24)))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.code").value("INVALID_REQUEST_BODY"));
+  }
+
+  @Test
+  void createPayment_reservedWarmupApiKey_400Response(@ValidCreatePaymentRequestBody PostPaymentRequest request) throws Exception {
+    mvc.perform(MockMvcRequestBuilders.post("/payment")
+            .contentType(MediaType.APPLICATION_JSON)
+            .header(GatewayHeaders.API_KEY, WarmupContext.MERCHANT)
+            .content(mapper.writeValueAsString(request)))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.code").value("INVALID_API_KEY"));
+  }
+
+  @Test
+  void streamPayments_withoutApiKey_400Response() throws Exception {
+    mvc.perform(MockMvcRequestBuilders.get("/payments/stream"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.code").value("INVALID_API_KEY"));
+  }
+
   @Test
   void getRecord_nonExistent_returns404() throws Exception {
     String randomUuid = UUID.randomUUID().toString();
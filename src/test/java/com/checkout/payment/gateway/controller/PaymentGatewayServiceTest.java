@@ -1,24 +1,49 @@
 package com.checkout.payment.gateway.controller;
 
+import com.checkout.payment.gateway.configuration.AsyncProperties;
+import com.checkout.payment.gateway.configuration.DeadlineProperties;
+import com.checkout.payment.gateway.enums.PaymentOperation;
 import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.event.PaymentStatusChangedEvent;
+import com.checkout.payment.gateway.exception.BankClientException;
 import com.checkout.payment.gateway.exception.EventProcessingException;
+import com.checkout.payment.gateway.exception.InvalidCardTokenException;
+import com.checkout.payment.gateway.exception.InvalidPaymentTransitionException;
+import com.checkout.payment.gateway.exception.OperationDeclinedException;
+import com.checkout.payment.gateway.exception.ServiceOverloadedException;
+import com.checkout.payment.gateway.model.BankOperationResponse;
 import com.checkout.payment.gateway.model.BankPaymentRequest;
 import com.checkout.payment.gateway.model.BankPaymentResponse;
+import com.checkout.payment.gateway.model.PaymentTransition;
 import com.checkout.payment.gateway.model.PostPaymentRequest;
 import com.checkout.payment.gateway.model.PostPaymentResponse;
 import com.checkout.payment.gateway.repository.PaymentsRepository;
+import com.checkout.payment.gateway.service.AuthorisationWorkerPool;
 import com.checkout.payment.gateway.service.BankSimulatorClient;
 import com.checkout.payment.gateway.service.PaymentGatewayService;
+import com.checkout.payment.gateway.service.PaymentLookups;
+import com.checkout.payment.gateway.stats.PaymentStats;
+import com.checkout.payment.gateway.stream.PaymentStream;
+import com.checkout.payment.gateway.stream.SlowConsumerPolicy;
+import com.checkout.payment.gateway.vault.CardVault;
+import com.checkout.payment.gateway.velocity.VelocityEngine;
+import com.checkout.payment.gateway.velocity.VelocityRule;
+import com.checkout.payment.gateway.velocity.VelocityRule.Dimension;
+import com.checkout.payment.gateway.velocity.VelocityRule.Measure;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.web.reactive.function.client.WebClientResponseException;
-import reactor.core.publisher.Mono;
+import org.springframework.context.ApplicationEventPublisher;
 
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -26,14 +51,40 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class PaymentGatewayServiceTest {
 
+  private static final String MERCHANT = "merchant-a";
+
   @Mock PaymentsRepository paymentsRepository;
   @Mock BankSimulatorClient simulatorClient;
+  @Mock AuthorisationWorkerPool authorisationWorkerPool;
+  @Mock ApplicationEventPublisher eventPublisher;
 
-  @InjectMocks PaymentGatewayService service;
+  PaymentGatewayService service;
+  CardVault cardVault = new CardVault(new byte[32], 1000);
+  PaymentStats paymentStats = new PaymentStats(60, System::currentTimeMillis);
+  PaymentStream paymentStream = new PaymentStream(16, 16, SlowConsumerPolicy.DROP, 10, 1,
+      Duration.ofSeconds(15));
 
   @Captor ArgumentCaptor<PostPaymentResponse> responseCaptor;
   @Captor ArgumentCaptor<BankPaymentRequest> bankReqCaptor;
 
+  @BeforeEach
+  void setUp() {
+    service = service(new DeadlineProperties(Duration.ofSeconds(3), Duration.ofSeconds(10)));
+  }
+
+  private PaymentGatewayService service(DeadlineProperties deadlineProperties) {
+    return service(deadlineProperties, List.of());
+  }
+
+  private PaymentGatewayService service(DeadlineProperties deadlineProperties,
+      List<VelocityRule> velocityRules) {
+    AsyncProperties asyncProperties = new AsyncProperties(1, 10, Duration.ofSeconds(30));
+    return new PaymentGatewayService(paymentsRepository, simulatorClient, deadlineProperties,
+        asyncProperties, authorisationWorkerPool, eventPublisher, UUID::randomUUID,
+        cardVault, new VelocityEngine(velocityRules, 6, 1000, System::nanoTime), paymentStats,
+        paymentStream, new PaymentLookups(paymentsRepository));
+  }
+
   @Test
   void getPaymentById_returnsPaymentWhenFound() {
     UUID id = UUID.randomUUID();
@@ -64,14 +115,14 @@ class PaymentGatewayServiceTest {
   @Test
   void processPayment_authorizesWhenBankReturnsAuthorizedTrue() {
     PostPaymentRequest req = mockValidRequest();
-    when(simulatorClient.submit(any(BankPaymentRequest.class)))
-        .thenReturn(Mono.just(new BankPaymentResponse(true, UUID.randomUUID().toString())));
+    when(simulatorClient.submitAsync(any(BankPaymentRequest.class)))
+        .thenReturn(CompletableFuture.completedFuture(new BankPaymentResponse(true, UUID.randomUUID().toString())));
 
-    UUID id = service.processPayment(req);
+    UUID id = service.processPayment(req, MERCHANT).payment().getId();
 
     assertThat(id).isNotNull();
 
-    verify(simulatorClient).submit(bankReqCaptor.capture());
+    verify(simulatorClient).submitAsync(bankReqCaptor.capture());
     BankPaymentRequest bankReq = bankReqCaptor.getValue();
     assertThat(bankReq).isNotNull();
 
@@ -85,34 +136,29 @@ class PaymentGatewayServiceTest {
   @Test
   void processPayment_declinesWhenBankReturnsAuthorizedFalse() {
     PostPaymentRequest req = mockValidRequest();
-    when(simulatorClient.submit(any(BankPaymentRequest.class)))
-        .thenReturn(Mono.just(new BankPaymentResponse(false, null)));
+    when(simulatorClient.submitAsync(any(BankPaymentRequest.class)))
+        .thenReturn(CompletableFuture.completedFuture(new BankPaymentResponse(false, null)));
 
-    UUID id = service.processPayment(req);
+    UUID id = service.processPayment(req, MERCHANT).payment().getId();
 
     verify(paymentsRepository).add(responseCaptor.capture());
     PostPaymentResponse saved = responseCaptor.getValue();
 
     assertThat(saved.getId()).isEqualTo(id);
     assertThat(saved.getStatus()).isEqualTo(PaymentStatus.DECLINED);
+    assertThat(paymentStats.totals().get("GBP").get(PaymentStatus.DECLINED))
+        .isEqualTo(new PaymentStats.Aggregate(1, 1500));
+    assertThat(paymentStream.published()).isEqualTo(1);
   }
 
   @Test
   void processPayment_rejectsWhenBankReturns503() {
     PostPaymentRequest req = mockValidRequest();
 
-    WebClientResponseException ex = WebClientResponseException.create(
-        503,
-        "Service Unavailable",
-        null,
-        null,
-        StandardCharsets.UTF_8
-    );
-
-    when(simulatorClient.submit(any(BankPaymentRequest.class)))
-        .thenReturn(Mono.error(ex));
+    when(simulatorClient.submitAsync(any(BankPaymentRequest.class)))
+        .thenReturn(CompletableFuture.failedFuture(new BankClientException(503)));
 
-    UUID id = service.processPayment(req);
+    UUID id = service.processPayment(req, MERCHANT).payment().getId();
 
     verify(paymentsRepository).add(responseCaptor.capture());
     PostPaymentResponse saved = responseCaptor.getValue();
@@ -121,6 +167,266 @@ class PaymentGatewayServiceTest {
     assertThat(saved.getStatus()).isEqualTo(PaymentStatus.REJECTED);
   }
 
+  @Test
+  void processPayment_rejectsWhenTheBankConnectionFails() {
+    PostPaymentRequest req = mockValidRequest();
+
+    when(simulatorClient.submitAsync(any(BankPaymentRequest.class)))
+        .thenReturn(CompletableFuture.failedFuture(
+            new UncheckedIOException(new IOException("Connection reset"))));
+
+    service.processPayment(req, MERCHANT);
+
+    verify(paymentsRepository).add(responseCaptor.capture());
+    assertThat(responseCaptor.getValue().getStatus()).isEqualTo(PaymentStatus.REJECTED);
+  }
+
+  @Test
+  void processPayment_storesPendingAndSettlesLateWhenBankExceedsDeadline() {
+    service = service(new DeadlineProperties(Duration.ofMillis(50), Duration.ofSeconds(10)));
+    PostPaymentRequest req = mockValidRequest();
+    CompletableFuture<BankPaymentResponse> answer = new CompletableFuture<>();
+    when(simulatorClient.submitAsync(any(BankPaymentRequest.class))).thenReturn(answer);
+
+    PostPaymentResponse returned = service.processPayment(req, MERCHANT).payment();
+
+    assertThat(returned.getStatus()).isEqualTo(PaymentStatus.PENDING);
+    verify(paymentsRepository).add(responseCaptor.capture());
+
+    answer.complete(new BankPaymentResponse(true, "auth-1"));
+
+    verify(paymentsRepository, times(2)).add(responseCaptor.capture());
+    PostPaymentResponse settled = responseCaptor.getValue();
+    assertThat(settled.getId()).isEqualTo(returned.getId());
+    assertThat(settled.getStatus()).isEqualTo(PaymentStatus.AUTHORIZED);
+    assertThat(settled.getAuthorizationCode()).isEqualTo("auth-1");
+  }
+
+  @Test
+  void submitPayment_storesPendingThenCompletesOnWorkerPool() {
+    PostPaymentRequest req = mockValidRequest();
+    when(simulatorClient.submitAsync(any(BankPaymentRequest.class)))
+        .thenReturn(CompletableFuture.completedFuture(new BankPaymentResponse(true, UUID.randomUUID().toString())));
+    doAnswer(invocation -> {
+      invocation.<Runnable>getArgument(0).run();
+      return null;
+    }).when(authorisationWorkerPool).submit(any(Runnable.class));
+
+    UUID id = service.submitPayment(req, MERCHANT);
+
+    verify(paymentsRepository, times(2)).add(responseCaptor.capture());
+    assertThat(responseCaptor.getAllValues())
+        .extracting(PostPaymentResponse::getStatus)
+        .containsExactly(PaymentStatus.PENDING, PaymentStatus.AUTHORIZED);
+    assertThat(responseCaptor.getAllValues())
+        .allSatisfy(saved -> assertThat(saved.getId()).isEqualTo(id));
+    verify(eventPublisher).publishEvent(any(PaymentStatusChangedEvent.class));
+  }
+
+  @Test
+  void submitPayment_rejectsWhenBankAnswersWithAnErrorStatus() {
+    when(simulatorClient.submitAsync(any(BankPaymentRequest.class)))
+        .thenReturn(CompletableFuture.failedFuture(new BankClientException(500)),
+            CompletableFuture.failedFuture(new BankClientException(400)));
+    doAnswer(invocation -> {
+      invocation.<Runnable>getArgument(0).run();
+      return null;
+    }).when(authorisationWorkerPool).submit(any(Runnable.class));
+
+    service.submitPayment(mockValidRequest(), MERCHANT);
+    service.submitPayment(mockValidRequest(), MERCHANT);
+
+    verify(paymentsRepository, times(4)).add(responseCaptor.capture());
+    assertThat(responseCaptor.getAllValues())
+        .extracting(PostPaymentResponse::getStatus)
+        .containsExactly(PaymentStatus.PENDING, PaymentStatus.REJECTED,
+            PaymentStatus.PENDING, PaymentStatus.REJECTED);
+  }
+
+  @Test
+  void submitPayment_removesPendingPaymentWhenPoolIsFull() {
+    PostPaymentRequest req = mockValidRequest();
+    doThrow(new ServiceOverloadedException("full", Duration.ofSeconds(1)))
+        .when(authorisationWorkerPool).submit(any(Runnable.class));
+
+    assertThatThrownBy(() -> service.submitPayment(req, MERCHANT))
+        .isInstanceOf(ServiceOverloadedException.class);
+
+    verify(paymentsRepository).add(responseCaptor.capture());
+    verify(paymentsRepository).remove(responseCaptor.getValue().getId());
+    verifyNoInteractions(simulatorClient);
+    assertThat(paymentStream.published()).isZero();
+  }
+
+  @Test
+  void processPayment_declinesLocallyWhenVelocityRuleIsBreached() {
+    service = service(new DeadlineProperties(Duration.ofSeconds(3), Duration.ofSeconds(10)),
+        List.of(new VelocityRule("card-attempts", Dimension.CARD, Measure.COUNT,
+            Duration.ofMinutes(1), 1)));
+    when(simulatorClient.submitAsync(any(BankPaymentRequest.class)))
+        .thenReturn(CompletableFuture.completedFuture(new BankPaymentResponse(true, UUID.randomUUID().toString())));
+
+    service.processPayment(mockValidRequest(), MERCHANT);
+    service.processPayment(mockValidRequest(), "merchant-b");
+
+    verify(simulatorClient, times(1)).submitAsync(any(BankPaymentRequest.class));
+    verify(paymentsRepository, times(2)).add(responseCaptor.capture());
+    assertThat(responseCaptor.getAllValues())
+        .extracting(PostPaymentResponse::getStatus)
+        .containsExactly(PaymentStatus.AUTHORIZED, PaymentStatus.DECLINED);
+  }
+
+  @Test
+  void processPayment_tokenPaymentSendsVaultedCardToBank() {
+    when(simulatorClient.submitAsync(any(BankPaymentRequest.class)))
+        .thenReturn(CompletableFuture.completedFuture(new BankPaymentResponse(true, UUID.randomUUID().toString())));
+    PostPaymentRequest first = PostPaymentRequest.builder()
+        .cardNumber("6011111111111117").cardNumberLastFour("1117")
+        .expiryMonth(12).expiryYear(2099).currency("GBP").amount(1500L).cvv("334")
+        .build();
+    String token = service.processPayment(first, MERCHANT).cardToken();
+
+    PostPaymentRequest repeat = first.toBuilder()
+        .cardNumber(null).cardNumberLastFour(null).cardToken(token)
+        .build();
+    service.processPayment(repeat, MERCHANT);
+
+    assertThat(token).startsWith(CardVault.TOKEN_PREFIX);
+    assertThat(first.getCardToken()).isNull();
+    verify(simulatorClient, times(2)).submitAsync(bankReqCaptor.capture());
+    assertThat(bankReqCaptor.getAllValues())
+        .extracting(BankPaymentRequest::card_number)
+        .containsOnly("6011111111111117");
+    verify(paymentsRepository, times(2)).add(responseCaptor.capture());
+    assertThat(responseCaptor.getAllValues().get(1).getCardNumberLastFour()).isEqualTo("1117");
+  }
+
+  @Test
+  void processPayment_doesNotVaultDeclinedCard() {
+    when(simulatorClient.submitAsync(any(BankPaymentRequest.class)))
+        .thenReturn(CompletableFuture.completedFuture(new BankPaymentResponse(false, "")));
+    PostPaymentRequest req = PostPaymentRequest.builder()
+        .cardNumber("6011111111111118").cardNumberLastFour("1118")
+        .expiryMonth(12).expiryYear(2099).currency("GBP").amount(1500L).cvv("334")
+        .build();
+
+    assertThat(service.processPayment(req, MERCHANT).cardToken()).isNull();
+    assertThat(req.getCardToken()).isNull();
+    assertThat(cardVault.size()).isZero();
+  }
+
+  @Test
+  void processPayment_rejectsTokenIssuedToAnotherMerchant() {
+    String token = cardVault.tokenise("6011111111111117", "merchant-b");
+    PostPaymentRequest req = PostPaymentRequest.builder()
+        .cardToken(token)
+        .expiryMonth(12).expiryYear(2099).currency("GBP").amount(1500L).cvv("334")
+        .build();
+
+    assertThatThrownBy(() -> service.processPayment(req, MERCHANT))
+        .isInstanceOf(InvalidCardTokenException.class);
+
+    verifyNoInteractions(simulatorClient, paymentsRepository);
+  }
+
+  @Test
+  void capturePayment_capturesAtTheBankAndRecordsTheTransition() {
+    PostPaymentResponse authorised = authorisedPayment();
+    when(paymentsRepository.get(authorised.getId())).thenReturn(Optional.of(authorised));
+    when(simulatorClient.capture(eq("auth-1"), eq(600L), any(Duration.class)))
+        .thenReturn(new BankOperationResponse(true));
+    when(paymentsRepository.replace(eq(authorised), any(PostPaymentResponse.class)))
+        .thenReturn(true);
+
+    PostPaymentResponse captured = service.capturePayment(authorised.getId(), MERCHANT, 600L);
+
+    assertThat(captured.getStatus()).isEqualTo(PaymentStatus.CAPTURED);
+    assertThat(captured.getCapturedAmount()).isEqualTo(600);
+    assertThat(captured.getHistory()).extracting(PaymentTransition::operation)
+        .containsExactly(PaymentOperation.CAPTURE);
+    verify(paymentsRepository).replace(authorised, captured);
+    verify(eventPublisher).publishEvent(any(PaymentStatusChangedEvent.class));
+  }
+
+  @Test
+  void capturePayment_reappliesTheCaptureWhenThePaymentChangedMeanwhile() {
+    PostPaymentResponse authorised = authorisedPayment();
+    PostPaymentResponse rewritten = authorised.toBuilder().build();
+    when(paymentsRepository.get(authorised.getId()))
+        .thenReturn(Optional.of(authorised), Optional.of(rewritten));
+    when(simulatorClient.capture(eq("auth-1"), eq(1500L), any(Duration.class)))
+        .thenReturn(new BankOperationResponse(true));
+    when(paymentsRepository.replace(any(PostPaymentResponse.class),
+        any(PostPaymentResponse.class))).thenReturn(false, true);
+
+    PostPaymentResponse captured = service.capturePayment(authorised.getId(), MERCHANT, null);
+
+    assertThat(captured.getCapturedAmount()).isEqualTo(1500);
+    verify(paymentsRepository, times(2)).replace(any(PostPaymentResponse.class), eq(captured));
+    verify(simulatorClient, times(1)).capture(any(), anyLong(), any(Duration.class));
+  }
+
+  @Test
+  void capturePayment_recordsTheApprovedCaptureEvenIfThePaymentMovedOnMeanwhile() {
+    PostPaymentResponse authorised = authorisedPayment();
+    PostPaymentResponse voided = authorised.toBuilder().status(PaymentStatus.VOIDED).build();
+    when(paymentsRepository.get(authorised.getId()))
+        .thenReturn(Optional.of(authorised), Optional.of(voided));
+    when(simulatorClient.capture(eq("auth-1"), eq(1500L), any(Duration.class)))
+        .thenReturn(new BankOperationResponse(true));
+    when(paymentsRepository.replace(any(PostPaymentResponse.class),
+        any(PostPaymentResponse.class))).thenReturn(false, true);
+
+    PostPaymentResponse captured = service.capturePayment(authorised.getId(), MERCHANT, null);
+
+    assertThat(captured.getStatus()).isEqualTo(PaymentStatus.CAPTURED);
+    assertThat(captured.getCapturedAmount()).isEqualTo(1500);
+    verify(paymentsRepository).replace(voided, captured);
+  }
+
+  @Test
+  void refundPayment_rejectsPaymentThatWasNotCaptured() {
+    PostPaymentResponse authorised = authorisedPayment();
+    when(paymentsRepository.get(authorised.getId())).thenReturn(Optional.of(authorised));
+
+    assertThatThrownBy(() -> service.refundPayment(authorised.getId(), MERCHANT, 100L))
+        .isInstanceOf(InvalidPaymentTransitionException.class);
+    verifyNoInteractions(simulatorClient);
+  }
+
+  @Test
+  void voidPayment_keepsThePaymentWhenTheBankDeclines() {
+    PostPaymentResponse authorised = authorisedPayment();
+    when(paymentsRepository.get(authorised.getId())).thenReturn(Optional.of(authorised));
+    when(simulatorClient.voidAuthorization(eq("auth-1"), any(Duration.class)))
+        .thenReturn(new BankOperationResponse(false));
+
+    assertThatThrownBy(() -> service.voidPayment(authorised.getId(), MERCHANT))
+        .isInstanceOf(OperationDeclinedException.class);
+    verify(paymentsRepository, never()).replace(any(), any());
+  }
+
+  @Test
+  void voidPayment_treatsAnotherMerchantsPaymentAsUnknown() {
+    PostPaymentResponse authorised = authorisedPayment();
+    when(paymentsRepository.get(authorised.getId())).thenReturn(Optional.of(authorised));
+
+    assertThatThrownBy(() -> service.voidPayment(authorised.getId(), "merchant-b"))
+        .isInstanceOf(EventProcessingException.class);
+    verifyNoInteractions(simulatorClient);
+  }
+
+  private static PostPaymentResponse authorisedPayment() {
+    return PostPaymentResponse.builder()
+        .id(UUID.randomUUID())
+        .merchantId(MERCHANT)
+        .status(PaymentStatus.AUTHORIZED)
+        .currency("GBP")
+        .amount(1500L)
+        .authorizationCode("auth-1")
+        .build();
+  }
+
   //https://www.paypalobjects.com/en_AU/vhelp/paypalmanager_help/credit_card_numbers.htm
   private PostPaymentRequest mockValidRequest() {
     PostPaymentRequest req = mock(PostPaymentRequest.class);
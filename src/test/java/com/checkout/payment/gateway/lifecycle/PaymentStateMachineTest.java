@@ -0,0 +1,83 @@
+package com.checkout.payment.gateway.lifecycle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.checkout.payment.gateway.enums.PaymentOperation;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.exception.InvalidPaymentTransitionException;
+import com.checkout.payment.gateway.model.PaymentTransition;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import java.time.Instant;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class PaymentStateMachineTest {
+
+  private static final Instant NOW = Instant.parse("2030-01-01T10:00:00Z");
+
+  private final PostPaymentResponse authorised = PostPaymentResponse.builder()
+      .id(UUID.randomUUID())
+      .status(PaymentStatus.AUTHORIZED)
+      .currency("GBP")
+      .amount(1000L)
+      .build();
+
+  @Test
+  void partialCaptureThenRefundsUntilNothingIsLeft() {
+    PostPaymentResponse captured =
+        PaymentStateMachine.apply(authorised, PaymentOperation.CAPTURE, 600L, NOW);
+    PostPaymentResponse partlyRefunded =
+        PaymentStateMachine.apply(captured, PaymentOperation.REFUND, 200L, NOW.plusSeconds(1));
+    PostPaymentResponse refunded =
+        PaymentStateMachine.apply(partlyRefunded, PaymentOperation.REFUND, null, NOW.plusSeconds(2));
+
+    assertThat(captured.getStatus()).isEqualTo(PaymentStatus.CAPTURED);
+    assertThat(captured.getCapturedAmount()).isEqualTo(600);
+    assertThat(partlyRefunded.getStatus()).isEqualTo(PaymentStatus.CAPTURED);
+    assertThat(partlyRefunded.getRefundedAmount()).isEqualTo(200);
+    assertThat(refunded.getStatus()).isEqualTo(PaymentStatus.REFUNDED);
+    assertThat(refunded.getRefundedAmount()).isEqualTo(600);
+    assertThat(refunded.getHistory())
+        .extracting(PaymentTransition::operation, PaymentTransition::amount,
+            PaymentTransition::status)
+        .containsExactly(
+            tuple(PaymentOperation.CAPTURE, 600L, PaymentStatus.CAPTURED),
+            tuple(PaymentOperation.REFUND, 200L, PaymentStatus.CAPTURED),
+            tuple(PaymentOperation.REFUND, 400L, PaymentStatus.REFUNDED));
+    // earlier versions keep their own, shorter history
+    assertThat(captured.getHistory()).hasSize(1);
+    assertThat(refunded.getLastTransition().previous().previous())
+        .isSameAs(captured.getLastTransition());
+  }
+
+  @Test
+  void cannotMoveMoreThanIsAvailable() {
+    PostPaymentResponse captured =
+        PaymentStateMachine.apply(authorised, PaymentOperation.CAPTURE, null, NOW);
+
+    assertThat(captured.getCapturedAmount()).isEqualTo(1000);
+    assertThatThrownBy(() ->
+        PaymentStateMachine.apply(authorised, PaymentOperation.CAPTURE, 1001L, NOW))
+        .isInstanceOf(InvalidPaymentTransitionException.class);
+    assertThatThrownBy(() ->
+        PaymentStateMachine.apply(captured, PaymentOperation.REFUND, 1001L, NOW))
+        .isInstanceOf(InvalidPaymentTransitionException.class);
+  }
+
+  @Test
+  void onlyAuthorisedPaymentsCanBeCapturedOrVoided() {
+    PostPaymentResponse voided =
+        PaymentStateMachine.apply(authorised, PaymentOperation.VOID, null, NOW);
+    PostPaymentResponse declined = authorised.toBuilder().status(PaymentStatus.DECLINED).build();
+
+    assertThat(voided.getStatus()).isEqualTo(PaymentStatus.VOIDED);
+    assertThatThrownBy(() -> PaymentStateMachine.apply(voided, PaymentOperation.CAPTURE, null, NOW))
+        .isInstanceOf(InvalidPaymentTransitionException.class);
+    assertThatThrownBy(() -> PaymentStateMachine.apply(voided, PaymentOperation.REFUND, null, NOW))
+        .isInstanceOf(InvalidPaymentTransitionException.class);
+    assertThatThrownBy(() -> PaymentStateMachine.apply(declined, PaymentOperation.VOID, null, NOW))
+        .isInstanceOf(InvalidPaymentTransitionException.class);
+  }
+}
@@ -0,0 +1,79 @@
+package com.checkout.payment.gateway.profiling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.checkout.payment.gateway.configuration.ProfilingProperties;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ProfilingSessionsTest {
+
+  @TempDir
+  Path directory;
+
+  private ProfilingSessions sessions;
+
+  @AfterEach
+  void tearDown() {
+    sessions.close();
+  }
+
+  @Test
+  void recordingSummarisesTheGatewayEvents() throws Exception {
+    sessions = sessions(2);
+    assertThat(sessions.start(Duration.ofMinutes(1), "default")).isPresent();
+    assertThat(sessions.start(Duration.ofMinutes(1), "default")).isEmpty();
+
+    for (int i = 0; i < 100; i++) {
+      PaymentStageEvent stage = PaymentStageEvent.start(PaymentStageEvent.AUTHORISE);
+      RepositoryEvent lookup = RepositoryEvent.start("get");
+      lookup.finish(this, i % 2 == 0);
+      stage.finish(UUID.randomUUID());
+    }
+
+    Map<String, Object> summary = sessions.stop().orElseThrow();
+    assertThat(rows(summary, "stages"))
+        .extracting(row -> row.get("key"), row -> row.get("count"))
+        .containsExactly(tuple(PaymentStageEvent.AUTHORISE, 100));
+    assertThat(rows(summary, "repository"))
+        .extracting(row -> row.get("key"), row -> row.get("count"))
+        .containsExactlyInAnyOrder(tuple("get hit", 50), tuple("get miss", 50));
+    assertThat(summary).containsKeys("allocations", "contention");
+    assertThat(sessions.stop()).isEmpty();
+    assertThat(sessions.summary((String) summary.get("name"))).isPresent();
+  }
+
+  @Test
+  void onlyTheNewestRecordingsAreKept() throws Exception {
+    sessions = sessions(2);
+    for (int i = 0; i < 3; i++) {
+      sessions.start(Duration.ofMinutes(1), "default");
+      sessions.stop();
+    }
+
+    try (Stream<Path> files = Files.list(directory)) {
+      assertThat(files).hasSize(2);
+    }
+    assertThat(sessions.summary("../../etc/passwd")).isEmpty();
+    assertThat(sessions.summary("recording-00000000000000000001.jfr")).isEmpty();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<Map<String, Object>> rows(Map<String, Object> summary, String section) {
+    return (List<Map<String, Object>>) summary.get(section);
+  }
+
+  private ProfilingSessions sessions(int retain) {
+    return new ProfilingSessions(new ProfilingProperties(true, directory, "default",
+        Duration.ofSeconds(10), Duration.ofMinutes(5), 64L << 20, retain, 10));
+  }
+}
@@ -0,0 +1,78 @@
+package com.checkout.payment.gateway.ratelimit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class TokenBucketRateLimiterTest {
+
+  private final AtomicLong clock = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+
+  @Test
+  void allowsBurstThenThrottles() {
+    TokenBucketRateLimiter limiter = limiter(10, 3, 100);
+
+    assertThat(limiter.tryAcquire("merchant")).isZero();
+    assertThat(limiter.tryAcquire("merchant")).isZero();
+    assertThat(limiter.tryAcquire("merchant")).isZero();
+    assertThat(limiter.tryAcquire("merchant")).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+  }
+
+  @Test
+  void refillsOverTime() {
+    TokenBucketRateLimiter limiter = limiter(10, 1, 100);
+    assertThat(limiter.tryAcquire("merchant")).isZero();
+    assertThat(limiter.tryAcquire("merchant")).isPositive();
+
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+
+    assertThat(limiter.tryAcquire("merchant")).isZero();
+  }
+
+  @Test
+  void keysAreIsolated() {
+    TokenBucketRateLimiter limiter = limiter(10, 1, 100);
+    assertThat(limiter.tryAcquire("noisy")).isZero();
+    assertThat(limiter.tryAcquire("noisy")).isPositive();
+
+    assertThat(limiter.tryAcquire("quiet")).isZero();
+  }
+
+  @Test
+  void keysBeyondCapacityEvictTheLeastRecentlyUsedBucket() {
+    TokenBucketRateLimiter limiter = limiter(10, 1, 2);
+    assertThat(limiter.tryAcquire("idle")).isZero();
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    assertThat(limiter.tryAcquire("noisy")).isZero();
+    assertThat(limiter.tryAcquire("noisy")).isPositive();
+
+    assertThat(limiter.tryAcquire("new")).isZero();
+    assertThat(limiter.tryAcquire("noisy")).isPositive();
+    assertThat(limiter.size()).isEqualTo(2);
+    assertThat(limiter.topThrottled(10))
+        .extracting(TokenBucketRateLimiter.KeyStats::key)
+        .containsExactlyInAnyOrder("noisy", "new");
+  }
+
+  @Test
+  void evictsIdleKeysAndExportsCounters() {
+    TokenBucketRateLimiter limiter = limiter(10, 1, 100);
+    limiter.tryAcquire("merchant");
+    limiter.tryAcquire("merchant");
+
+    assertThat(limiter.topThrottled(1))
+        .containsExactly(new TokenBucketRateLimiter.KeyStats("merchant", 1, 1));
+
+    clock.addAndGet(TimeUnit.MINUTES.toNanos(11));
+
+    assertThat(limiter.evictIdle()).isEqualTo(1);
+    assertThat(limiter.size()).isZero();
+  }
+
+  private TokenBucketRateLimiter limiter(double perSecond, int burst, int maxKeys) {
+    return new TokenBucketRateLimiter(perSecond, burst, maxKeys, TimeUnit.MINUTES.toNanos(10),
+        clock::get);
+  }
+}
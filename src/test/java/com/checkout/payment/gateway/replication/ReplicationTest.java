@@ -0,0 +1,122 @@
+package com.checkout.payment.gateway.replication;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.checkout.payment.gateway.configuration.ReplicationProperties;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import com.checkout.payment.gateway.repository.InMemoryPaymentStore;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ReplicationTest {
+
+  private final PaymentsRepository primaryStore = new PaymentsRepository(new InMemoryPaymentStore());
+  private final PaymentsRepository replicaStore = new PaymentsRepository(new InMemoryPaymentStore());
+  private ReplicationPrimary primary;
+  private ReplicationReplica replica;
+
+  @AfterEach
+  void tearDown() throws IOException {
+    if (replica != null) {
+      replica.close();
+    }
+    if (primary != null) {
+      primary.close();
+    }
+  }
+
+  @Test
+  void quorumWriteIsOnReplicaWhenAddReturns() throws Exception {
+    startPrimary(AckMode.QUORUM, 1000);
+    replica = startReplica();
+    await(() -> primary.connectedReplicas() == 1);
+
+    PostPaymentResponse payment = payment(PaymentStatus.AUTHORIZED);
+    primaryStore.add(payment);
+
+    assertThat(replicaStore.get(payment.getId())).contains(payment);
+  }
+
+  @Test
+  void replicaCatchesUpFromSnapshotAndFollowsRemovals() throws Exception {
+    startPrimary(AckMode.NONE, 4);
+    PostPaymentResponse removed = payment(PaymentStatus.DECLINED);
+    primaryStore.add(removed);
+    for (int i = 0; i < 20; i++) {
+      primaryStore.add(payment(PaymentStatus.AUTHORIZED));
+    }
+
+    replica = startReplica();
+    await(() -> replicaStore.size() == 21);
+
+    primaryStore.remove(removed.getId());
+    await(() -> replicaStore.get(removed.getId()).isEmpty());
+    assertThat(replicaStore.size()).isEqualTo(primaryStore.size());
+  }
+
+  @Test
+  void reconnectingReplicaDropsRecordsRemovedWhileAway() throws Exception {
+    startPrimary(AckMode.LEADER, 4);
+    PostPaymentResponse removed = payment(PaymentStatus.AUTHORIZED);
+    primaryStore.add(removed);
+    replica = startReplica();
+    await(() -> replicaStore.get(removed.getId()).isPresent());
+
+    replica.close();
+    primaryStore.remove(removed.getId());
+    for (int i = 0; i < 10; i++) {
+      primaryStore.add(payment(PaymentStatus.AUTHORIZED));
+    }
+    replica = startReplica();
+
+    await(() -> replicaStore.size() == 10 && replicaStore.get(removed.getId()).isEmpty());
+  }
+
+  private void startPrimary(AckMode ackMode, int logCapacity) throws IOException {
+    primary = new ReplicationPrimary(properties(ackMode, logCapacity, null), primaryStore,
+        new SimpleMeterRegistry());
+    primary.start();
+  }
+
+  private ReplicationReplica startReplica() {
+    ReplicationReplica started = new ReplicationReplica(
+        properties(AckMode.NONE, 4, "localhost:" + primary.port()), replicaStore,
+        new SimpleMeterRegistry());
+    started.start();
+    return started;
+  }
+
+  private static ReplicationProperties properties(AckMode ackMode, int logCapacity,
+      String primary) {
+    return new ReplicationProperties(ReplicationRole.PRIMARY, ackMode, "127.0.0.1", 0, primary, 1,
+        logCapacity, Duration.ofSeconds(2), Duration.ofMillis(50));
+  }
+
+  private static PostPaymentResponse payment(PaymentStatus status) {
+    return PostPaymentResponse.builder()
+        .id(UUID.randomUUID())
+        .status(status)
+        .cardNumberLastFour("8877")
+        .expiryMonth(4)
+        .expiryYear(2030)
+        .currency("GBP")
+        .amount(100L)
+        .merchantId("merchant-1")
+        .build();
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+    while (!condition.getAsBoolean()) {
+      assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+      Thread.sleep(10);
+    }
+  }
+}
@@ -0,0 +1,40 @@
+package com.checkout.payment.gateway.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+
+  @Test
+  void neverReportsAStoredIdAsMissing() {
+    BloomFilter filter = new BloomFilter(10_000, 0.01);
+    List<UUID> ids = new ArrayList<>();
+    for (int i = 0; i < 10_000; i++) {
+      UUID id = UUID.randomUUID();
+      ids.add(id);
+      filter.put(id);
+    }
+
+    assertThat(ids).allMatch(filter::mightContain);
+  }
+
+  @Test
+  void falsePositiveRateStaysNearTarget() {
+    BloomFilter filter = new BloomFilter(10_000, 0.01);
+    for (int i = 0; i < 10_000; i++) {
+      filter.put(UUID.randomUUID());
+    }
+
+    int falsePositives = 0;
+    for (int i = 0; i < 100_000; i++) {
+      if (filter.mightContain(UUID.randomUUID())) {
+        falsePositives++;
+      }
+    }
+    assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+  }
+}
@@ -0,0 +1,167 @@
+package com.checkout.payment.gateway.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.checkout.payment.gateway.enums.PaymentOperation;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.exception.ServiceOverloadedException;
+import com.checkout.payment.gateway.lifecycle.PaymentStateMachine;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class JdbcPaymentStoreTest {
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private DriverManagerDataSource dataSource;
+  private JdbcPaymentStore store;
+
+  @BeforeEach
+  void setUp() {
+    dataSource = new DriverManagerDataSource(
+        "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+    store = newStore(Duration.ofMillis(50));
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    store.close();
+  }
+
+  @Test
+  void savedPaymentIsReadableBeforeItIsWritten() {
+    PostPaymentResponse payment = payment(PaymentStatus.AUTHORIZED);
+
+    store.save(payment);
+
+    assertThat(store.findById(payment.getId())).contains(payment);
+  }
+
+  @Test
+  void coalescesWritesIntoBatchesAndPersistsThem() throws InterruptedException {
+    for (int i = 0; i < 200; i++) {
+      store.save(payment(PaymentStatus.AUTHORIZED));
+    }
+    store.close();
+
+    assertThat(registry.counter("gateway.storage.jdbc.rows").count()).isEqualTo(200);
+    assertThat(registry.counter("gateway.storage.jdbc.batches").count()).isLessThan(200);
+
+    store = newStore(Duration.ofMillis(1));
+    assertThat(store.size()).isEqualTo(200);
+  }
+
+  @Test
+  void latestVersionAndNullableFieldsSurviveRoundTrip() throws InterruptedException {
+    PostPaymentResponse pending = payment(PaymentStatus.PENDING).toBuilder()
+        .expiryMonth(null)
+        .amount(null)
+        .build();
+    PostPaymentResponse authorised = pending.toBuilder().status(PaymentStatus.AUTHORIZED).build();
+    store.save(pending);
+    store.save(authorised);
+    store.close();
+
+    store = newStore(Duration.ofMillis(1));
+
+    assertThat(store.findById(pending.getId())).contains(authorised);
+  }
+
+  @Test
+  void conditionalDeleteOnlyRemovesExpectedVersion() throws InterruptedException {
+    PostPaymentResponse payment = payment(PaymentStatus.PENDING);
+    PostPaymentResponse updated = payment.toBuilder().status(PaymentStatus.DECLINED).build();
+    store.save(payment);
+    store.save(updated);
+
+    assertThat(store.delete(payment)).isFalse();
+    assertThat(store.delete(updated)).isTrue();
+    store.close();
+
+    store = newStore(Duration.ofMillis(1));
+    assertThat(store.findById(payment.getId())).isEmpty();
+  }
+
+  @Test
+  void conditionalReplaceKeepsLifecycleAcrossRestart() throws InterruptedException {
+    PostPaymentResponse authorised = payment(PaymentStatus.AUTHORIZED).toBuilder()
+        .authorizationCode("auth-1")
+        .build();
+    PostPaymentResponse captured = PaymentStateMachine.apply(authorised, PaymentOperation.CAPTURE,
+        60L, Instant.parse("2030-01-01T10:00:00.123456789Z"));
+    store.save(authorised);
+
+    assertThat(store.replace(captured, authorised)).isFalse();
+    assertThat(store.replace(authorised, captured)).isTrue();
+    store.close();
+
+    store = newStore(Duration.ofMillis(1));
+    assertThat(store.findById(authorised.getId())).contains(captured);
+    PostPaymentResponse refunded = PaymentStateMachine.apply(captured, PaymentOperation.REFUND,
+        null, Instant.parse("2030-01-02T10:00:00Z"));
+    assertThat(store.replace(captured, refunded)).isTrue();
+    assertThat(store.findById(authorised.getId()).orElseThrow().getHistory()).hasSize(2);
+  }
+
+  @Test
+  void rowTheDatabaseRefusesIsDroppedWithoutHoldingBackTheRest() throws InterruptedException {
+    PostPaymentResponse valid = payment(PaymentStatus.AUTHORIZED);
+    PostPaymentResponse oversized = payment(PaymentStatus.AUTHORIZED).toBuilder()
+        .merchantId("m".repeat(300))
+        .build();
+    store.save(valid);
+    store.save(oversized);
+    store.close();
+
+    assertThat(registry.counter("gateway.storage.jdbc.dropped").count()).isEqualTo(1);
+    store = newStore(Duration.ofMillis(1));
+    assertThat(store.findById(valid.getId())).contains(valid);
+    assertThat(store.findById(oversized.getId())).isEmpty();
+  }
+
+  @Test
+  void turnsAwayNewPaymentsOnceTooManyWritesArePending() throws InterruptedException {
+    store.close();
+    store = newStore(Duration.ofSeconds(1), 2);
+    PostPaymentResponse first = payment(PaymentStatus.PENDING);
+    store.save(first);
+    store.save(payment(PaymentStatus.PENDING));
+
+    assertThatThrownBy(() -> store.save(payment(PaymentStatus.PENDING)))
+        .isInstanceOf(ServiceOverloadedException.class);
+    store.save(first.toBuilder().status(PaymentStatus.AUTHORIZED).build());
+  }
+
+  private JdbcPaymentStore newStore(Duration linger) {
+    return newStore(linger, 10_000);
+  }
+
+  private JdbcPaymentStore newStore(Duration linger, int maxPending) {
+    return new JdbcPaymentStore(new JdbcTemplate(dataSource),
+        new TransactionTemplate(new DataSourceTransactionManager(dataSource)), 50, linger,
+        maxPending, true, registry);
+  }
+
+  private static PostPaymentResponse payment(PaymentStatus status) {
+    return PostPaymentResponse.builder()
+        .id(UUID.randomUUID())
+        .status(status)
+        .cardNumberLastFour("8877")
+        .expiryMonth(4)
+        .expiryYear(2030)
+        .currency("GBP")
+        .amount(100L)
+        .merchantId("merchant-1")
+        .build();
+  }
+}
@@ -0,0 +1,125 @@
+package com.checkout.payment.gateway.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.checkout.payment.gateway.enums.PaymentOperation;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.lifecycle.PaymentStateMachine;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PaymentSnapshotterTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void restoresTheLatestSnapshotCompressedOrNot() throws Exception {
+    for (boolean compress : new boolean[] {true, false}) {
+      Path target = directory.resolve(compress ? "gzip" : "plain");
+      InMemoryPaymentStore store = new InMemoryPaymentStore();
+      PostPaymentResponse authorized = payment(PaymentStatus.AUTHORIZED);
+      PostPaymentResponse captured = PaymentStateMachine.apply(authorized,
+          PaymentOperation.CAPTURE, null, Instant.parse("2030-01-01T10:15:30.123456789Z"));
+      store.save(captured);
+      store.save(payment(PaymentStatus.DECLINED));
+      new PaymentSnapshotter(store, target, compress, 2, new SimpleMeterRegistry()).write();
+
+      InMemoryPaymentStore restored = new InMemoryPaymentStore();
+      long count = new PaymentSnapshotter(restored, target, compress, 2,
+          new SimpleMeterRegistry()).restore();
+
+      assertThat(count).isEqualTo(2);
+      assertThat(restored.findAll()).containsExactlyInAnyOrderElementsOf(store.findAll());
+      assertThat(restored.findById(captured.getId()).orElseThrow().getHistory())
+          .isEqualTo(captured.getHistory());
+    }
+  }
+
+  @Test
+  void snapshotIsThePointInTimeViewWhileWritesContinue() {
+    InMemoryPaymentStore store = new InMemoryPaymentStore();
+    PostPaymentResponse updated = payment(PaymentStatus.AUTHORIZED);
+    PostPaymentResponse deleted = payment(PaymentStatus.AUTHORIZED);
+    PostPaymentResponse untouched = payment(PaymentStatus.DECLINED);
+    store.save(updated);
+    store.save(deleted);
+    store.save(untouched);
+
+    Map<UUID, PostPaymentResponse> snapshot = new LinkedHashMap<>();
+    store.snapshot(payment -> {
+      if (snapshot.isEmpty()) {
+        store.save(updated.toBuilder().status(PaymentStatus.VOIDED).build());
+        store.delete(deleted.getId());
+        store.save(payment(PaymentStatus.AUTHORIZED));
+      }
+      // a reader lets the later copy of a payment win
+      snapshot.put(payment.getId(), payment);
+    });
+
+    assertThat(snapshot.values()).containsExactlyInAnyOrder(updated, deleted, untouched);
+    assertThat(store.isSnapshotRunning()).isFalse();
+    assertThat(store.size()).isEqualTo(3);
+  }
+
+  @Test
+  void skipsACorruptSnapshotAndKeepsOnlyTheNewest() throws Exception {
+    InMemoryPaymentStore store = new InMemoryPaymentStore();
+    PaymentSnapshotter snapshotter =
+        new PaymentSnapshotter(store, directory, true, 2, new SimpleMeterRegistry());
+    PostPaymentResponse first = payment(PaymentStatus.AUTHORIZED);
+    store.save(first);
+    snapshotter.snapshot();
+    store.save(payment(PaymentStatus.AUTHORIZED));
+    snapshotter.snapshot();
+    store.save(payment(PaymentStatus.AUTHORIZED));
+    Path newest = snapshotter.write();
+
+    List<Path> files;
+    try (Stream<Path> listed = Files.list(directory)) {
+      files = listed.toList();
+    }
+    assertThat(files).hasSize(3);
+    try (FileChannel channel = FileChannel.open(newest, StandardOpenOption.WRITE)) {
+      channel.truncate(channel.size() - 4);
+    }
+
+    InMemoryPaymentStore restored = new InMemoryPaymentStore();
+    long count = new PaymentSnapshotter(restored, directory, true, 2,
+        new SimpleMeterRegistry()).restore();
+
+    assertThat(count).isEqualTo(2);
+    assertThat(restored.findById(first.getId())).contains(first);
+
+    snapshotter.snapshot();
+    try (Stream<Path> listed = Files.list(directory)) {
+      assertThat(listed.count()).isEqualTo(2);
+    }
+  }
+
+  private static PostPaymentResponse payment(PaymentStatus status) {
+    return PostPaymentResponse.builder()
+        .id(UUID.randomUUID())
+        .status(status)
+        .cardNumberLastFour("8877")
+        .expiryMonth(4)
+        .expiryYear(2030)
+        .currency("GBP")
+        .amount(100L)
+        .merchantId("merchant-1")
+        .authorizationCode("auth-1")
+        .build();
+  }
+}
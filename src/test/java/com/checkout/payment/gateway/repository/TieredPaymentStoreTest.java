@@ -0,0 +1,86 @@
+package com.checkout.payment.gateway.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TieredPaymentStoreTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void oldPaymentsMoveToColdSegmentsAndStayReadable() throws Exception {
+    TieredPaymentStore store = store();
+    List<PostPaymentResponse> payments = new ArrayList<>();
+    for (int round = 0; round < 10; round++) {
+      for (int i = 0; i < 1_000; i++) {
+        PostPaymentResponse payment = payment();
+        payments.add(payment);
+        store.save(payment);
+      }
+      store.migrate();
+    }
+
+    assertThat(store.hotSize()).isZero();
+    assertThat(payments).allMatch(payment ->
+        store.findById(payment.getId()).orElseThrow().equals(payment));
+    assertThat(store.findById(UUID.randomUUID())).isEmpty();
+    assertThat(store.findAll()).containsExactlyInAnyOrderElementsOf(payments);
+  }
+
+  @Test
+  void writesAfterMigrationWinOverColdCopiesAcrossRestarts() throws Exception {
+    TieredPaymentStore store = store();
+    PostPaymentResponse captured = payment();
+    PostPaymentResponse deleted = payment();
+    PostPaymentResponse untouched = payment();
+    store.save(captured);
+    store.save(deleted);
+    store.save(untouched);
+    store.migrate();
+
+    PostPaymentResponse update = captured.toBuilder().status(PaymentStatus.CAPTURED).build();
+    assertThat(store.replace(captured, update)).isTrue();
+    assertThat(store.replace(captured, update)).isFalse();
+    assertThat(store.delete(deleted)).isTrue();
+    assertThat(store.findById(captured.getId())).contains(update);
+    assertThat(store.findById(deleted.getId())).isEmpty();
+
+    store.migrate();
+    store.close();
+    TieredPaymentStore reopened = store();
+
+    assertThat(reopened.hotSize()).isZero();
+    assertThat(reopened.findById(captured.getId())).contains(update);
+    assertThat(reopened.findById(deleted.getId())).isEmpty();
+    assertThat(reopened.findById(untouched.getId())).contains(untouched);
+    assertThat(reopened.findAll()).containsExactlyInAnyOrder(update, untouched);
+  }
+
+  private TieredPaymentStore store() throws Exception {
+    return new TieredPaymentStore(directory, Duration.ZERO, 4096, 0.01, new SimpleMeterRegistry());
+  }
+
+  private static PostPaymentResponse payment() {
+    return PostPaymentResponse.builder()
+        .id(UUID.randomUUID())
+        .status(PaymentStatus.AUTHORIZED)
+        .cardNumberLastFour("8877")
+        .expiryMonth(4)
+        .expiryYear(2030)
+        .currency("GBP")
+        .amount(100L)
+        .merchantId("merchant-1")
+        .build();
+  }
+}
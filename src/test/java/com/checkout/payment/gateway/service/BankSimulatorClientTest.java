@@ -0,0 +1,175 @@
+package com.checkout.payment.gateway.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.checkout.payment.gateway.bin.BinDirectory;
+import com.checkout.payment.gateway.configuration.BankClientProperties;
+import com.checkout.payment.gateway.exception.BankClientException;
+import com.checkout.payment.gateway.exception.DeadlineExceededException;
+import com.checkout.payment.gateway.model.BankPaymentRequest;
+import com.checkout.payment.gateway.model.BankPaymentResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+
+class BankSimulatorClientTest {
+
+  private static final BankPaymentRequest REQUEST =
+      new BankPaymentRequest("2222405343248877", "04/2099", "GBP", 100, "123");
+
+  private final AtomicInteger status = new AtomicInteger(200);
+  private final AtomicLong delayMillis = new AtomicLong();
+  private final List<String> operations = new CopyOnWriteArrayList<>();
+
+  private HttpServer bank;
+  private BankSimulatorClient client;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    bank = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    bank.createContext("/payments", exchange -> {
+      try {
+        exchange.getRequestBody().readAllBytes();
+        Thread.sleep(delayMillis.get());
+        byte[] body = "{\"authorized\":true,\"authorization_code\":\"0bb07405\"}"
+            .getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status.get(), body.length);
+        exchange.getResponseBody().write(body);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        exchange.close();
+      }
+    });
+    bank.createContext("/", exchange -> {
+      operations.add(exchange.getRequestURI().getPath() + " "
+          + new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+      byte[] body = "{\"approved\":true}".getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(status.get(), body.length);
+      exchange.getResponseBody().write(body);
+      exchange.close();
+    });
+    bank.start();
+
+    BankClientProperties properties = new BankClientProperties(
+        "http://127.0.0.1:" + bank.getAddress().getPort(), Duration.ofSeconds(1),
+        Duration.ofSeconds(10), Map.of());
+    client = new BankSimulatorClient(properties, new ObjectMapper());
+  }
+
+  @AfterEach
+  void tearDown() {
+    bank.stop(0);
+  }
+
+  @Test
+  void returnsBankResponse() {
+    BankPaymentResponse response = client.submit(REQUEST, Duration.ofSeconds(1));
+
+    assertThat(response.authorized()).isTrue();
+    assertThat(response.authorization_code()).isEqualTo("0bb07405");
+  }
+
+  @Test
+  void surfacesErrorStatus() {
+    status.set(503);
+
+    assertThatThrownBy(() -> client.submit(REQUEST, Duration.ofSeconds(1)))
+        .isInstanceOf(BankClientException.class)
+        .satisfies(ex -> assertThat(((BankClientException) ex).getStatusCode()).isEqualTo(503));
+  }
+
+  @Test
+  void abortsCallOnceRemainingBudgetIsUsed() {
+    delayMillis.set(1000);
+
+    assertThatThrownBy(() -> client.submit(REQUEST, Duration.ofMillis(50)))
+        .isInstanceOf(DeadlineExceededException.class);
+  }
+
+  @Test
+  void asyncSubmissionOutlivesTheCallersWait() throws Exception {
+    delayMillis.set(300);
+
+    CompletableFuture<BankPaymentResponse> answer = client.submitAsync(REQUEST);
+
+    assertThatThrownBy(() -> answer.get(50, TimeUnit.MILLISECONDS))
+        .isInstanceOf(TimeoutException.class);
+    assertThat(answer.get(5, TimeUnit.SECONDS).authorized()).isTrue();
+  }
+
+  @Test
+  void asyncSubmissionSurfacesErrorStatus() {
+    status.set(500);
+
+    assertThatThrownBy(() -> client.submitAsync(REQUEST).get(5, TimeUnit.SECONDS))
+        .isInstanceOf(ExecutionException.class)
+        .hasCauseInstanceOf(BankClientException.class);
+  }
+
+  @Test
+  void doesNotCallBankWithoutBudget() {
+    assertThatThrownBy(() -> client.submit(REQUEST, Duration.ZERO))
+        .isInstanceOf(DeadlineExceededException.class);
+  }
+
+  @Test
+  void sendsLifecycleOperationsWithTheAuthorizationCode() {
+    assertThat(client.capture("0bb07405", 60, Duration.ofSeconds(1)).approved()).isTrue();
+    assertThat(client.refund("0bb07405", 20, Duration.ofSeconds(1)).approved()).isTrue();
+    assertThat(client.voidAuthorization("1cc18516", Duration.ofSeconds(1)).approved()).isTrue();
+
+    assertThat(operations).containsExactly(
+        "/captures {\"authorization_code\":\"0bb07405\",\"amount\":60}",
+        "/refunds {\"authorization_code\":\"0bb07405\",\"amount\":20}",
+        "/voids {\"authorization_code\":\"1cc18516\",\"amount\":null}");
+  }
+
+  @Test
+  void routesCardsToTheAcquirerOfTheirBinRange() throws Exception {
+    HttpServer acquirer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    acquirer.createContext("/payments", exchange -> {
+      exchange.getRequestBody().readAllBytes();
+      byte[] body = "{\"authorized\":false}".getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(200, body.length);
+      exchange.getResponseBody().write(body);
+      exchange.close();
+    });
+    acquirer.start();
+    try {
+      BinDirectory bins = new BinDirectory(new ByteArrayResource(
+          "2221,2720,MASTERCARD,,16,acquirer-b\n".getBytes(StandardCharsets.UTF_8)));
+      bins.reload();
+      BankClientProperties properties = new BankClientProperties(
+          "http://127.0.0.1:" + bank.getAddress().getPort(), Duration.ofSeconds(1),
+          Duration.ofSeconds(10),
+          Map.of("acquirer-b", "http://127.0.0.1:" + acquirer.getAddress().getPort()));
+      BankSimulatorClient routing = new BankSimulatorClient(properties, new ObjectMapper(), bins);
+
+      assertThat(routing.submit(REQUEST, Duration.ofSeconds(1)).authorized()).isFalse();
+      assertThat(routing.submit(new BankPaymentRequest("4111111111111111", "04/2099", "GBP", 100,
+          "123"), Duration.ofSeconds(1)).authorized()).isTrue();
+    } finally {
+      acquirer.stop(0);
+    }
+  }
+}
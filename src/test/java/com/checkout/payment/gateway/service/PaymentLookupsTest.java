@@ -0,0 +1,102 @@
+package com.checkout.payment.gateway.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class PaymentLookupsTest {
+
+  private final PaymentsRepository repository = mock(PaymentsRepository.class);
+  private final PaymentLookups lookups = new PaymentLookups(repository);
+  private final ExecutorService executor = Executors.newFixedThreadPool(8);
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  @AfterEach
+  void tearDown() {
+    release.countDown();
+    executor.shutdownNow();
+  }
+
+  @Test
+  void concurrentLookupsShareOneFetch() throws Exception {
+    PostPaymentResponse payment = payment(PaymentStatus.AUTHORIZED);
+    when(repository.get(payment.getId())).thenAnswer(invocation -> {
+      release.await(5, TimeUnit.SECONDS);
+      return Optional.of(payment);
+    });
+
+    List<Future<Optional<PostPaymentResponse>>> results = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      results.add(executor.submit(() -> lookups.get(payment.getId())));
+    }
+    awaitCoalesced(7);
+    release.countDown();
+
+    for (Future<Optional<PostPaymentResponse>> result : results) {
+      assertThat(result.get(5, TimeUnit.SECONDS)).containsSame(payment);
+    }
+    verify(repository, times(1)).get(payment.getId());
+    assertThat(lookups.executed()).isEqualTo(1);
+    assertThat(lookups.coalescingRatio()).isEqualTo(7 / 8.0);
+    assertThat(lookups.inFlight()).isZero();
+  }
+
+  @Test
+  void lookupAfterAWriteDoesNotJoinTheOlderFetch() throws Exception {
+    PostPaymentResponse authorized = payment(PaymentStatus.AUTHORIZED);
+    PostPaymentResponse captured = authorized.toBuilder().status(PaymentStatus.CAPTURED).build();
+    when(repository.get(authorized.getId()))
+        .thenAnswer(invocation -> {
+          release.await(5, TimeUnit.SECONDS);
+          return Optional.of(authorized);
+        })
+        .thenReturn(Optional.of(captured));
+
+    Future<Optional<PostPaymentResponse>> before = executor.submit(
+        () -> lookups.get(authorized.getId()));
+    while (lookups.inFlight() == 0) {
+      Thread.onSpinWait();
+    }
+    lookups.onAdd(captured);
+
+    assertThat(lookups.get(authorized.getId())).contains(captured);
+    release.countDown();
+    assertThat(before.get(5, TimeUnit.SECONDS)).contains(authorized);
+    assertThat(lookups.executed()).isEqualTo(2);
+    assertThat(lookups.coalesced()).isZero();
+  }
+
+  private void awaitCoalesced(long expected) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (lookups.coalesced() < expected && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+    assertThat(lookups.coalesced()).isEqualTo(expected);
+  }
+
+  private static PostPaymentResponse payment(PaymentStatus status) {
+    return PostPaymentResponse.builder()
+        .id(UUID.randomUUID())
+        .status(status)
+        .amount(100L)
+        .currency("GBP")
+        .build();
+  }
+}
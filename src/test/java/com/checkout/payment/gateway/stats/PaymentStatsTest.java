@@ -0,0 +1,85 @@
+package com.checkout.payment.gateway.stats;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.stats.PaymentStats.Aggregate;
+import com.checkout.payment.gateway.stats.PaymentStats.MinuteStats;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class PaymentStatsTest {
+
+  private final AtomicLong clock = new AtomicLong(Instant.parse("2030-01-01T10:00:30Z").toEpochMilli());
+  private final PaymentStats stats = new PaymentStats(5, clock::get);
+
+  @Test
+  void totalsArePerCurrencyAndStatus() {
+    stats.record("GBP", PaymentStatus.AUTHORIZED, 100);
+    stats.record("GBP", PaymentStatus.AUTHORIZED, 250);
+    stats.record("GBP", PaymentStatus.DECLINED, 40);
+    stats.record("USD", PaymentStatus.REJECTED, 7);
+
+    assertThat(stats.totals().get("GBP"))
+        .containsEntry(PaymentStatus.AUTHORIZED, new Aggregate(2, 350))
+        .containsEntry(PaymentStatus.DECLINED, new Aggregate(1, 40))
+        .doesNotContainKey(PaymentStatus.REJECTED);
+    assertThat(stats.totals().get("USD"))
+        .containsEntry(PaymentStatus.REJECTED, new Aggregate(1, 7));
+  }
+
+  @Test
+  void minutesRollOverAndOldOnesAreForgotten() {
+    stats.record("GBP", PaymentStatus.AUTHORIZED, 100);
+    clock.addAndGet(TimeUnit.MINUTES.toMillis(1));
+    stats.record("GBP", PaymentStatus.AUTHORIZED, 200);
+    stats.record("GBP", PaymentStatus.AUTHORIZED, 300);
+
+    List<MinuteStats> minutes = stats.lastMinutes(5);
+    assertThat(minutes).extracting(MinuteStats::minute).containsExactly(
+        Instant.parse("2030-01-01T10:00:00Z"), Instant.parse("2030-01-01T10:01:00Z"));
+    assertThat(minutes.get(1).totals().get("GBP").get(PaymentStatus.AUTHORIZED))
+        .isEqualTo(new Aggregate(2, 500));
+    assertThat(stats.lastMinutes(1)).hasSize(1);
+
+    clock.addAndGet(TimeUnit.MINUTES.toMillis(5));
+    stats.record("GBP", PaymentStatus.DECLINED, 1);
+
+    assertThat(stats.lastMinutes(5)).hasSize(1);
+    assertThat(stats.totals().get("GBP").get(PaymentStatus.AUTHORIZED))
+        .isEqualTo(new Aggregate(3, 600));
+  }
+
+  @Test
+  void pendingPaymentsAreNotCounted() {
+    stats.record("GBP", PaymentStatus.PENDING, 100);
+
+    assertThat(stats.totals()).isEmpty();
+    assertThat(stats.lastMinutes(5)).isEmpty();
+  }
+
+  @Test
+  void lateWriterCountsInItsOwnMinuteOrOnlyInTheTotals() {
+    long started = clock.get();
+    stats.record("GBP", PaymentStatus.AUTHORIZED, 100);
+    clock.addAndGet(TimeUnit.MINUTES.toMillis(2));
+    stats.record("GBP", PaymentStatus.AUTHORIZED, 200);
+
+    stats.record("GBP", PaymentStatus.DECLINED, 10, started);
+    assertThat(stats.lastMinutes(5).get(0).totals().get("GBP"))
+        .containsEntry(PaymentStatus.DECLINED, new Aggregate(1, 10));
+
+    clock.addAndGet(TimeUnit.MINUTES.toMillis(5));
+    stats.record("GBP", PaymentStatus.AUTHORIZED, 300);
+    stats.record("GBP", PaymentStatus.DECLINED, 20, clock.get() - TimeUnit.MINUTES.toMillis(5));
+
+    assertThat(stats.lastMinutes(5)).hasSize(1);
+    assertThat(stats.lastMinutes(5).get(0).totals().get("GBP"))
+        .doesNotContainKey(PaymentStatus.DECLINED);
+    assertThat(stats.totals().get("GBP").get(PaymentStatus.DECLINED))
+        .isEqualTo(new Aggregate(2, 30));
+  }
+}
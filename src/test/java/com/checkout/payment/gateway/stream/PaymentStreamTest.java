@@ -0,0 +1,160 @@
+package com.checkout.payment.gateway.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.PostPaymentResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class PaymentStreamTest {
+
+  private PaymentStream stream;
+
+  @AfterEach
+  void tearDown() {
+    stream.close();
+  }
+
+  @Test
+  void deliversMatchingEventsInOrderToEverySubscriber() throws Exception {
+    start(SlowConsumerPolicy.DROP);
+    RecordingSink all = new RecordingSink(false);
+    RecordingSink declinedForA = new RecordingSink(false);
+    stream.subscribe(all, null, Set.of(), null);
+    stream.subscribe(declinedForA, "merchant-a", Set.of(PaymentStatus.DECLINED), null);
+
+    stream.publish(payment("merchant-a", PaymentStatus.AUTHORIZED));
+    stream.publish(payment("merchant-b", PaymentStatus.DECLINED));
+    stream.publish(payment("merchant-a", PaymentStatus.DECLINED));
+
+    await(() -> all.sequences.size() == 3 && declinedForA.sequences.size() == 1);
+    assertThat(all.sequences).containsExactly(0L, 1L, 2L);
+    assertThat(declinedForA.sequences).containsExactly(2L);
+  }
+
+  @Test
+  void resumesAfterLastEventId() throws Exception {
+    start(SlowConsumerPolicy.DROP);
+    for (int i = 0; i < 5; i++) {
+      stream.publish(payment("merchant-a", PaymentStatus.AUTHORIZED));
+    }
+
+    RecordingSink sink = new RecordingSink(false);
+    stream.subscribe(sink, null, Set.of(), 2L);
+
+    await(() -> sink.sequences.size() == 2);
+    assertThat(sink.sequences).containsExactly(3L, 4L);
+  }
+
+  @Test
+  void slowSubscriberSkipsToItsBufferWhenDropping() throws Exception {
+    start(SlowConsumerPolicy.DROP);
+    RecordingSink slow = new RecordingSink(true);
+    stream.subscribe(slow, null, Set.of(), null);
+    stream.publish(payment("merchant-a", PaymentStatus.AUTHORIZED));
+    await(() -> slow.blocked.getCount() == 0);
+
+    for (int i = 0; i < 20; i++) {
+      stream.publish(payment("merchant-a", PaymentStatus.AUTHORIZED));
+    }
+    slow.release.countDown();
+
+    await(() -> slow.sequences.contains(20L));
+    assertThat(slow.dropped).isNotEmpty();
+    assertThat(slow.sequences).hasSizeLessThanOrEqualTo(1 + 4);
+    assertThat(stream.dropped()).isEqualTo(20 - slow.sequences.size() + 1);
+    assertThat(stream.subscribers()).isEqualTo(1);
+  }
+
+  @Test
+  void slowSubscriberIsClosedWhenDisconnecting() throws Exception {
+    start(SlowConsumerPolicy.DISCONNECT);
+    RecordingSink slow = new RecordingSink(true);
+    stream.subscribe(slow, null, Set.of(), null);
+    stream.publish(payment("merchant-a", PaymentStatus.AUTHORIZED));
+    await(() -> slow.blocked.getCount() == 0);
+
+    for (int i = 0; i < 20; i++) {
+      stream.publish(payment("merchant-a", PaymentStatus.AUTHORIZED));
+    }
+    slow.release.countDown();
+
+    await(() -> slow.closed);
+    assertThat(stream.subscribers()).isZero();
+    assertThat(stream.disconnected()).isEqualTo(1);
+  }
+
+  private void start(SlowConsumerPolicy policy) {
+    stream = new PaymentStream(16, 4, policy, 10, 2, Duration.ofSeconds(30));
+    stream.start();
+  }
+
+  private static PostPaymentResponse payment(String merchantId, PaymentStatus status) {
+    return PostPaymentResponse.builder()
+        .id(UUID.randomUUID())
+        .merchantId(merchantId)
+        .status(status)
+        .build();
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+    while (!condition.getAsBoolean()) {
+      assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+      Thread.sleep(10);
+    }
+  }
+
+  /**
+   * Records what it receives; the first send can block until released so tests can make the
+   * subscriber fall behind.
+   */
+  private static class RecordingSink implements PaymentEventSink {
+
+    final List<Long> sequences = new CopyOnWriteArrayList<>();
+    final List<Long> dropped = new CopyOnWriteArrayList<>();
+    final CountDownLatch blocked;
+    final CountDownLatch release = new CountDownLatch(1);
+    volatile boolean closed;
+
+    RecordingSink(boolean blockFirstSend) {
+      blocked = new CountDownLatch(blockFirstSend ? 1 : 0);
+    }
+
+    @Override
+    public void send(long sequence, PostPaymentResponse payment) throws IOException {
+      sequences.add(sequence);
+      if (blocked.getCount() > 0) {
+        blocked.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+
+    @Override
+    public void dropped(long count) {
+      dropped.add(count);
+    }
+
+    @Override
+    public void heartbeat() {
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+}
@@ -0,0 +1,50 @@
+package com.checkout.payment.gateway.vault;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.checkout.payment.gateway.exception.InvalidCardTokenException;
+import org.junit.jupiter.api.Test;
+
+class CardVaultTest {
+
+  private static final String CARD = "4111111111111111";
+
+  private final CardVault vault = new CardVault(new byte[32], 10);
+
+  @Test
+  void tokenRoundTripsToTheCardNumber() {
+    String token = vault.tokenise(CARD, "merchant-a");
+
+    assertThat(token).startsWith(CardVault.TOKEN_PREFIX).doesNotContain("1111");
+    assertThat(vault.detokenise(token, "merchant-a")).isEqualTo(CARD);
+  }
+
+  @Test
+  void repeatCardGetsTheSameTokenPerMerchant() {
+    String first = vault.tokenise(CARD, "merchant-a");
+
+    assertThat(vault.tokenise(CARD, "merchant-a")).isEqualTo(first);
+    assertThat(vault.tokenise(CARD, "merchant-b")).isNotEqualTo(first);
+    assertThat(vault.size()).isEqualTo(2);
+  }
+
+  @Test
+  void tokensAreScopedToTheIssuingMerchant() {
+    String token = vault.tokenise(CARD, "merchant-a");
+
+    assertThatThrownBy(() -> vault.detokenise(token, "merchant-b"))
+        .isInstanceOf(InvalidCardTokenException.class);
+    assertThatThrownBy(() -> vault.detokenise("tok_unknown", "merchant-a"))
+        .isInstanceOf(InvalidCardTokenException.class);
+  }
+
+  @Test
+  void fullVaultStillServesKnownCardsButIssuesNoNewTokens() {
+    CardVault small = new CardVault(new byte[16], 1);
+    String token = small.tokenise(CARD, "merchant-a");
+
+    assertThat(small.tokenise(CARD, "merchant-a")).isEqualTo(token);
+    assertThat(small.tokenise("5555555555554444", "merchant-a")).isNull();
+  }
+}
@@ -0,0 +1,95 @@
+package com.checkout.payment.gateway.velocity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.checkout.payment.gateway.controller.GatewayHeaders;
+import com.checkout.payment.gateway.velocity.VelocityRule.Dimension;
+import com.checkout.payment.gateway.velocity.VelocityRule.Measure;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class VelocityEngineTest {
+
+  private static final VelocityRule CARD_ATTEMPTS = new VelocityRule("card-attempts",
+      Dimension.CARD, Measure.COUNT, Duration.ofMinutes(1), 3);
+  private static final VelocityRule MERCHANT_AMOUNT = new VelocityRule("merchant-amount",
+      Dimension.MERCHANT_CURRENCY, Measure.AMOUNT, Duration.ofMinutes(1), 10_000);
+
+  private final AtomicLong clock = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+  private final VelocityEngine engine = new VelocityEngine(
+      List.of(CARD_ATTEMPTS, MERCHANT_AMOUNT), 6, 100, clock::get);
+
+  @Test
+  void declinesOnceTheCardExceedsItsAttempts() {
+    for (int i = 0; i < 3; i++) {
+      assertThat(engine.check(42L, "m", "GBP", 1)).isEmpty();
+    }
+
+    assertThat(engine.check(42L, "m", "GBP", 1)).contains(CARD_ATTEMPTS);
+    assertThat(engine.check(43L, "m", "GBP", 1)).isEmpty();
+    assertThat(engine.declined(CARD_ATTEMPTS)).isEqualTo(1);
+  }
+
+  @Test
+  void amountsAreSummedPerMerchantAndCurrency() {
+    assertThat(engine.check(1L, "m", "GBP", 6_000)).isEmpty();
+    assertThat(engine.check(2L, "m", "USD", 6_000)).isEmpty();
+
+    assertThat(engine.check(3L, "m", "GBP", 6_000)).contains(MERCHANT_AMOUNT);
+  }
+
+  @Test
+  void windowSlidesAndIdleCountersAreEvicted() {
+    for (int i = 0; i < 4; i++) {
+      engine.check(42L, "m", "GBP", 1);
+    }
+
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(61));
+    assertThat(engine.check(42L, "m", "GBP", 1)).isEmpty();
+
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(61));
+    assertThat(engine.evictIdle()).isEqualTo(2);
+    assertThat(engine.trackedKeys(CARD_ATTEMPTS)).isZero();
+  }
+
+  @Test
+  void fullRuleEvictsTheLeastRecentlyUpdatedKeyAndStillChecksNewOnes() {
+    VelocityEngine small = new VelocityEngine(List.of(CARD_ATTEMPTS), 6, 2, clock::get);
+    small.check(1L, "m", "GBP", 1);
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    small.check(2L, "m", "GBP", 1);
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+    for (int i = 0; i < 3; i++) {
+      assertThat(small.check(3L, "m", "GBP", 1)).isEmpty();
+    }
+    assertThat(small.check(3L, "m", "GBP", 1)).contains(CARD_ATTEMPTS);
+
+    assertThat(small.trackedKeys(CARD_ATTEMPTS)).isEqualTo(2);
+    assertThat(small.stats(5).get(0).evicted()).isEqualTo(1);
+    assertThat(small.stats(5).get(0).top()).extracting(VelocityEngine.KeyStats::key)
+        .containsExactly("3", "2");
+  }
+
+  @Test
+  void newCounterIsNotIdle() {
+    SlidingWindowCounter counter = new SlidingWindowCounter(TimeUnit.MINUTES.toNanos(1), 6,
+        clock.get());
+
+    assertThat(counter.lastUpdateNanos()).isEqualTo(clock.get());
+  }
+
+  @Test
+  void statsShowMerchantsOnlyAsDigests() {
+    engine.check(42L, "sk_live_secret", "GBP", 1);
+
+    assertThat(engine.stats(5))
+        .flatExtracting(VelocityEngine.RuleStats::top)
+        .extracting(VelocityEngine.KeyStats::key)
+        .containsExactlyInAnyOrder("2a", GatewayHeaders.redact("sk_live_secret") + "/GBP")
+        .noneMatch(key -> key.contains("sk_live_secret"));
+  }
+}
@@ -0,0 +1,158 @@
+package com.checkout.payment.gateway.webhook;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.checkout.payment.gateway.configuration.WebhookProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WebhookDispatcherTest {
+
+  private static final String MERCHANT = "merchant-a";
+
+  @TempDir Path directory;
+
+  private final ObjectMapper mapper = new ObjectMapper();
+  private WebhookSink sink;
+  private WebhookOutbox outbox;
+  private DeadLetterStore deadLetters;
+  private WebhookDispatcher dispatcher;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    sink = new WebhookSink();
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    if (dispatcher != null) {
+      dispatcher.close();
+    }
+    if (outbox != null) {
+      outbox.close();
+    }
+    if (deadLetters != null) {
+      deadLetters.close();
+    }
+    sink.close();
+  }
+
+  @Test
+  void deliversEventsAndAcknowledgesThem() throws Exception {
+    start(5);
+
+    for (int i = 0; i < 3; i++) {
+      dispatcher.enqueue(outbox.append(event()).join());
+    }
+
+    await(() -> dispatcher.delivered() == 3);
+    assertThat(String.join("", sink.received())).contains(MERCHANT);
+    assertThat(outbox.outstanding()).isZero();
+  }
+
+  @Test
+  void retriesWithBackoffUntilEndpointRecovers() throws Exception {
+    start(5);
+    sink.failNext(2);
+
+    dispatcher.enqueue(outbox.append(event()).join());
+
+    await(() -> dispatcher.delivered() == 1);
+    assertThat(dispatcher.failedAttempts()).isEqualTo(2);
+    assertThat(sink.received()).hasSize(1);
+  }
+
+  @Test
+  void deadLettersBatchAfterMaxAttempts() throws Exception {
+    start(2);
+    sink.failNext(Integer.MAX_VALUE);
+
+    dispatcher.enqueue(outbox.append(event()).join());
+
+    await(() -> dispatcher.deadLettered() == 1);
+    assertThat(deadLetters.readAll()).hasSize(1);
+    assertThat(deadLetters.readAll().get(0).merchantId()).isEqualTo(MERCHANT);
+    assertThat(outbox.outstanding()).isZero();
+  }
+
+  @Test
+  void redeliversPendingEventsAfterRestart() throws Exception {
+    outbox = new WebhookOutbox(directory, mapper, true);
+    WebhookEvent pending = outbox.append(event()).join();
+    outbox.close();
+
+    start(5);
+
+    assertThat(outbox.recovered()).containsExactly(pending);
+    await(() -> dispatcher.delivered() == 1);
+  }
+
+  @Test
+  void sequencesKeepGrowingAfterTruncationAndRestart() throws Exception {
+    start(5);
+    WebhookEvent first = outbox.append(event()).join();
+    dispatcher.enqueue(first);
+    await(() -> outbox.outstanding() == 0);
+
+    WebhookEvent second = outbox.append(event()).join();
+    dispatcher.enqueue(second);
+    await(() -> outbox.outstanding() == 0);
+    dispatcher.close();
+    outbox.close();
+
+    start(5);
+    WebhookEvent third = outbox.append(event()).join();
+
+    assertThat(second.sequence()).isGreaterThan(first.sequence());
+    assertThat(third.sequence()).isGreaterThan(second.sequence());
+  }
+
+  @Test
+  void groupCommitsConcurrentAppends() throws Exception {
+    start(5);
+
+    List<CompletableFuture<WebhookEvent>> appended = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      appended.add(outbox.append(event()));
+    }
+
+    assertThat(appended).extracting(future -> future.join().sequence())
+        .doesNotHaveDuplicates()
+        .isSorted();
+    assertThat(outbox.outstanding()).isEqualTo(100);
+  }
+
+  private void start(int maxAttempts) throws Exception {
+    WebhookProperties properties = new WebhookProperties(true, directory, true, 2, 10,
+        maxAttempts, Duration.ofMillis(10), Duration.ofMillis(50), Duration.ofSeconds(1),
+        Duration.ofSeconds(1), Map.of(MERCHANT, sink.uri()));
+    outbox = new WebhookOutbox(directory, mapper, true);
+    deadLetters = new DeadLetterStore(directory, mapper);
+    dispatcher = new WebhookDispatcher(outbox, deadLetters, properties, mapper);
+    dispatcher.start();
+  }
+
+  private static WebhookEvent event() {
+    return new WebhookEvent(0, MERCHANT, UUID.randomUUID(), "Authorized", 100L, "GBP",
+        "2026-01-01T00:00:00Z");
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+    while (!condition.getAsBoolean()) {
+      assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+      Thread.sleep(10);
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package com.checkout.payment.gateway.webhook;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local HTTP endpoint standing in for a merchant's webhook receiver.
+ */
+public class WebhookSink implements AutoCloseable {
+
+  private final HttpServer server;
+  private final List<String> received = new CopyOnWriteArrayList<>();
+  private final AtomicInteger failuresLeft = new AtomicInteger();
+
+  public WebhookSink() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/webhooks", exchange -> {
+      try (InputStream body = exchange.getRequestBody()) {
+        String payload = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        if (failuresLeft.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+          exchange.sendResponseHeaders(500, -1);
+        } else {
+          received.add(payload);
+          exchange.sendResponseHeaders(204, -1);
+        }
+      } finally {
+        exchange.close();
+      }
+    });
+    server.start();
+  }
+
+  public URI uri() {
+    return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/webhooks");
+  }
+
+  public void failNext(int requests) {
+    failuresLeft.set(requests);
+  }
+
+  public List<String> received() {
+    return received;
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+  }
+}